@@ -20,41 +20,26 @@
 package org.sonar.ce.container;
 
 import java.io.File;
-import org.apache.commons.io.FileUtils;
-import org.sonar.server.platform.ServerFileSystem;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
+import org.sonar.server.plugins.ExplodedPluginCache;
 
 /**
- * Explodes the plugin JARs of extensions/plugins/ into a temporary directory
- * dedicated to compute engine.
+ * Explodes the plugin JARs of extensions/plugins/ into the cache of exploded plugins shared
+ * with web server (see {@link ExplodedPluginCache}).
  */
 public class CePluginJarExploder extends PluginJarExploder {
 
-  private static final String TEMP_RELATIVE_PATH = "ce-exploded-plugins";
-  private final ServerFileSystem fs;
+  private final ExplodedPluginCache cache;
 
-  public CePluginJarExploder(ServerFileSystem fs) {
-    this.fs = fs;
+  public CePluginJarExploder(ExplodedPluginCache cache) {
+    this.cache = cache;
   }
 
   @Override
   public ExplodedPlugin explode(PluginInfo pluginInfo) {
-    File tempDir = new File(fs.getTempDir(), TEMP_RELATIVE_PATH);
-    File toDir = new File(tempDir, pluginInfo.getKey());
-    try {
-      org.sonar.core.util.FileUtils.cleanDirectory(toDir);
-
-      File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
-    } catch (Exception e) {
-      throw new IllegalStateException(String.format(
-        "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
-    }
+    File explodedDir = cache.get(pluginInfo, newLibFilter());
+    return explodeFromUnzippedDir(pluginInfo.getKey(), new File(explodedDir, ExplodedPluginCache.JAR_FILENAME), explodedDir);
   }
 }
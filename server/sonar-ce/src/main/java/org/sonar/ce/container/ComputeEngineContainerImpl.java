@@ -101,6 +101,7 @@ import org.sonar.server.organization.DefaultOrganizationProviderImpl;
 import org.sonar.server.permission.GroupPermissionChanger;
 import org.sonar.server.permission.PermissionTemplateService;
 import org.sonar.server.permission.PermissionUpdater;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.server.permission.UserPermissionChanger;
 import org.sonar.server.permission.index.PermissionIndexer;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolverImpl;
@@ -117,6 +118,7 @@ import org.sonar.server.platform.UrlSettings;
 import org.sonar.server.platform.cluster.ClusterImpl;
 import org.sonar.server.platform.db.migration.MigrationConfigurationModule;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
+import org.sonar.server.plugins.ExplodedPluginCache;
 import org.sonar.server.plugins.InstalledPluginReferentialFactory;
 import org.sonar.server.plugins.ServerExtensionInstaller;
 import org.sonar.server.plugins.privileged.PrivilegedPluginsBootstraper;
@@ -265,6 +267,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
 
       // plugins
       PluginClassloaderFactory.class,
+      ExplodedPluginCache.class,
       CePluginJarExploder.class,
       PluginLoader.class,
       CePluginRepository.class,
@@ -328,6 +331,9 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       DefaultTemplatesResolverImpl.class,
       PermissionTemplateService.class,
       PermissionUpdater.class,
+      // required by PermissionTemplateService and PermissionUpdater. Invalidation is local to the
+      // Compute Engine process, the cache of the web server relies on its TTL.
+      ProjectPermissionsCache.class,
       UserPermissionChanger.class,
       GroupPermissionChanger.class,
 
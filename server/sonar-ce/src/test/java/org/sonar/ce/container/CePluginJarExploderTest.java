@@ -27,6 +27,7 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.server.platform.ServerFileSystem;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
+import org.sonar.server.plugins.ExplodedPluginCache;
 
 import static org.apache.commons.io.FileUtils.sizeOfDirectory;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,21 +38,21 @@ public class CePluginJarExploderTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   DumbFileSystem fs = new DumbFileSystem(temp);
-  CePluginJarExploder underTest = new CePluginJarExploder(fs);
+  CePluginJarExploder underTest = new CePluginJarExploder(new ExplodedPluginCache(fs));
 
   @Test
-  public void explode_jar_to_temp_directory() throws Exception {
+  public void explode_jar_to_cache_in_data_directory() throws Exception {
     PluginInfo info = PluginInfo.create(plugin1Jar());
 
     ExplodedPlugin exploded = underTest.explode(info);
 
-    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to a dedicated temp directory
+    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to the cache of exploded plugins
     File copiedJar = exploded.getMain();
 
     assertThat(exploded.getKey()).isEqualTo("test");
     assertThat(copiedJar).isFile().exists();
-    assertThat(copiedJar.getParentFile()).isDirectory().hasName("test");
-    assertThat(copiedJar.getParentFile().getParentFile()).isDirectory().hasName("ce-exploded-plugins");
+    assertThat(copiedJar.getParentFile().getParentFile()).isDirectory().hasName("exploded-plugins");
+    assertThat(copiedJar.getParentFile().getParentFile().getParentFile()).isEqualTo(fs.getDataDir());
   }
 
   @Test
@@ -63,9 +64,10 @@ public class CePluginJarExploderTest {
     ExplodedPlugin exploded2 = underTest.explode(info2);
 
     assertThat(exploded1.getKey()).isEqualTo("test");
-    assertThat(exploded1.getMain()).isFile().exists().hasName("sonar-test-plugin-0.1-SNAPSHOT.jar");
+    assertThat(exploded1.getMain()).isFile().exists();
     assertThat(exploded2.getKey()).isEqualTo("test2");
-    assertThat(exploded2.getMain()).isFile().exists().hasName("sonar-test2-plugin-0.1-SNAPSHOT.jar");
+    assertThat(exploded2.getMain()).isFile().exists();
+    assertThat(exploded1.getMain().getParentFile()).isNotEqualTo(exploded2.getMain().getParentFile());
   }
 
   @Test
@@ -91,7 +93,7 @@ public class CePluginJarExploderTest {
 
   private class DumbFileSystem implements ServerFileSystem {
     private final TemporaryFolder temp;
-    private File tempDir;
+    private File dataDir;
 
     public DumbFileSystem(TemporaryFolder temp) {
       this.temp = temp;
@@ -99,7 +101,14 @@ public class CePluginJarExploderTest {
 
     @Override
     public File getDataDir() {
-      throw new UnsupportedOperationException();
+      if (dataDir == null) {
+        try {
+          this.dataDir = temp.newFolder();
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return dataDir;
     }
 
     @Override
@@ -114,14 +123,7 @@ public class CePluginJarExploderTest {
 
     @Override
     public File getTempDir() {
-      if (tempDir == null) {
-        try {
-          this.tempDir = temp.newFolder();
-        } catch (IOException e) {
-          throw new IllegalStateException(e);
-        }
-      }
-      return tempDir;
+      throw new UnsupportedOperationException();
     }
 
     @Override
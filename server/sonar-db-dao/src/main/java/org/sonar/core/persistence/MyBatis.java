@@ -19,6 +19,7 @@
  */
 package org.sonar.core.persistence;
 
+import org.sonar.api.config.Settings;
 import org.sonar.db.Database;
 
 /**
@@ -33,4 +34,8 @@ public class MyBatis extends org.sonar.db.MyBatis {
     super(database);
   }
 
+  public MyBatis(Database database, Settings settings) {
+    super(database, settings);
+  }
+
 }
@@ -21,6 +21,7 @@ package org.sonar.db;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -42,7 +43,11 @@ public class BatchSession extends DbSession {
   }
 
   BatchSession(SqlSession session, int batchSize) {
-    super(session);
+    this(session, batchSize, null);
+  }
+
+  BatchSession(SqlSession session, int batchSize, @Nullable SessionStatistics statistics) {
+    super(session, statistics);
     this.batchSize = batchSize;
   }
 
@@ -166,13 +171,13 @@ public class BatchSession extends DbSession {
   @Override
   public void commit() {
     super.commit();
-    reset();
+    flushed();
   }
 
   @Override
   public void commit(boolean force) {
     super.commit(force);
-    reset();
+    flushed();
   }
 
   @Override
@@ -190,7 +195,7 @@ public class BatchSession extends DbSession {
   @Override
   public List<BatchResult> flushStatements() {
     List<BatchResult> batchResults = super.flushStatements();
-    reset();
+    flushed();
     return batchResults;
   }
 
@@ -207,6 +212,14 @@ public class BatchSession extends DbSession {
     return this;
   }
 
+  private void flushed() {
+    SessionStatistics statistics = getStatistics();
+    if (statistics != null && count > 0) {
+      statistics.batchFlushed(count);
+    }
+    reset();
+  }
+
   private void reset() {
     count = 0;
   }
@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * JDBC transactions which record in {@link SessionStatistics} the time spent waiting for a connection
+ * of the pool. As with {@link JdbcTransactionFactory}, the connection is requested only when the first
+ * statement of the session is executed.
+ */
+class ConnectionTimingTransactionFactory extends JdbcTransactionFactory {
+
+  private final SessionStatistics statistics;
+
+  ConnectionTimingTransactionFactory(SessionStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public Transaction newTransaction(DataSource ds, TransactionIsolationLevel level, boolean autoCommit) {
+    return new ConnectionTimingTransaction(ds, level, autoCommit, statistics);
+  }
+
+  private static class ConnectionTimingTransaction extends JdbcTransaction {
+    private final SessionStatistics statistics;
+    private boolean connectionAcquired = false;
+
+    private ConnectionTimingTransaction(DataSource ds, TransactionIsolationLevel level, boolean autoCommit, SessionStatistics statistics) {
+      super(ds, level, autoCommit);
+      this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      if (connectionAcquired) {
+        return super.getConnection();
+      }
+      long start = System.currentTimeMillis();
+      Connection connection = super.getConnection();
+      connectionAcquired = true;
+      statistics.connectionAcquired(System.currentTimeMillis() - start);
+      return connection;
+    }
+  }
+}
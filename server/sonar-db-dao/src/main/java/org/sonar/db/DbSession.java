@@ -22,6 +22,8 @@ package org.sonar.db;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -31,9 +33,20 @@ import org.apache.ibatis.session.SqlSession;
 public class DbSession implements SqlSession {
 
   private SqlSession session;
+  private final SessionStatistics statistics;
 
   public DbSession(SqlSession session) {
+    this(session, null);
+  }
+
+  DbSession(SqlSession session, @Nullable SessionStatistics statistics) {
     this.session = session;
+    this.statistics = statistics;
+  }
+
+  @CheckForNull
+  SessionStatistics getStatistics() {
+    return statistics;
   }
 
   @Override
@@ -153,7 +166,13 @@ public class DbSession implements SqlSession {
 
   @Override
   public void close() {
-    session.close();
+    try {
+      session.close();
+    } finally {
+      if (statistics != null) {
+        statistics.closed(this);
+      }
+    }
   }
 
   @Override
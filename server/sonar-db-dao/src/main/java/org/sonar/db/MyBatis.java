@@ -25,10 +25,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.session.ExecutorType;
-import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 import org.sonar.api.Startable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
 import org.sonar.db.ce.CeActivityMapper;
 import org.sonar.db.ce.CeQueueMapper;
 import org.sonar.db.ce.CeScannerContextMapper;
@@ -121,18 +122,42 @@ import org.sonar.db.webhook.WebhookDeliveryMapper;
 
 public class MyBatis implements Startable {
 
+  public static final String SLOW_STATEMENT_THRESHOLD_PROPERTY = "sonar.jdbc.slowStatementThresholdMs";
+  private static final long DEFAULT_SLOW_STATEMENT_THRESHOLD_MS = 1_000L;
+  public static final String TRACK_SESSION_CALLERS_PROPERTY = "sonar.jdbc.trackSessionCallers";
+
   private final Database database;
+  private final StatementStatistics statementStatistics;
+  private final SessionStatistics sessionStatistics;
   private SqlSessionFactory sessionFactory;
 
   public MyBatis(Database database) {
+    this(database, new StatementStatistics(DEFAULT_SLOW_STATEMENT_THRESHOLD_MS), new SessionStatistics(System2.INSTANCE, false));
+  }
+
+  public MyBatis(Database database, Settings settings) {
+    this(database, new StatementStatistics(slowStatementThreshold(settings)),
+      new SessionStatistics(System2.INSTANCE, settings.getBoolean(TRACK_SESSION_CALLERS_PROPERTY)));
+  }
+
+  private MyBatis(Database database, StatementStatistics statementStatistics, SessionStatistics sessionStatistics) {
     this.database = database;
+    this.statementStatistics = statementStatistics;
+    this.sessionStatistics = sessionStatistics;
+  }
+
+  private static long slowStatementThreshold(Settings settings) {
+    if (settings.hasKey(SLOW_STATEMENT_THRESHOLD_PROPERTY)) {
+      return settings.getLong(SLOW_STATEMENT_THRESHOLD_PROPERTY);
+    }
+    return DEFAULT_SLOW_STATEMENT_THRESHOLD_MS;
   }
 
   @Override
   public void start() {
     LogFactory.useSlf4jLogging();
 
-    MyBatisConfBuilder confBuilder = new MyBatisConfBuilder(database);
+    MyBatisConfBuilder confBuilder = new MyBatisConfBuilder(database, sessionStatistics);
 
     // DTO aliases, keep them sorted alphabetically
     confBuilder.loadAlias("ActiveRule", ActiveRuleDto.class);
@@ -233,6 +258,8 @@ public class MyBatis implements Startable {
     };
     confBuilder.loadMappers(mappers);
 
+    confBuilder.addInterceptor(new StatementStatsInterceptor(statementStatistics));
+
     sessionFactory = new SqlSessionFactoryBuilder().build(confBuilder.build());
   }
 
@@ -241,18 +268,34 @@ public class MyBatis implements Startable {
     // nothing to do
   }
 
+  /**
+   * Statistics of the statements executed since startup
+   */
+  public StatementStatistics getStatementStatistics() {
+    return statementStatistics;
+  }
+
+  /**
+   * Usage of sessions and of the connection pool since startup
+   */
+  public SessionStatistics getSessionStatistics() {
+    return sessionStatistics;
+  }
+
   @VisibleForTesting
   SqlSessionFactory getSessionFactory() {
     return sessionFactory;
   }
 
   public DbSession openSession(boolean batch) {
+    DbSession dbSession;
     if (batch) {
-      SqlSession session = sessionFactory.openSession(ExecutorType.BATCH);
-      return new BatchSession(session);
+      dbSession = new BatchSession(sessionFactory.openSession(ExecutorType.BATCH), BatchSession.MAX_BATCH_SIZE, sessionStatistics);
+    } else {
+      dbSession = new DbSession(sessionFactory.openSession(ExecutorType.REUSE), sessionStatistics);
     }
-    SqlSession session = sessionFactory.openSession(ExecutorType.REUSE);
-    return new DbSession(session);
+    sessionStatistics.opened(dbSession);
+    return dbSession;
   }
 
   /**
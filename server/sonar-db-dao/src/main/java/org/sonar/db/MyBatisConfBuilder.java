@@ -23,9 +23,9 @@ import com.google.common.io.Closeables;
 import java.io.InputStream;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.LocalCacheScope;
-import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.apache.ibatis.type.JdbcType;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.api.utils.log.Loggers;
@@ -37,9 +37,9 @@ import static java.lang.String.format;
 public final class MyBatisConfBuilder {
   private final Configuration conf;
 
-  public MyBatisConfBuilder(Database database) {
+  public MyBatisConfBuilder(Database database, SessionStatistics sessionStatistics) {
     this.conf = new Configuration();
-    this.conf.setEnvironment(new Environment("production", createTransactionFactory(), database.getDataSource()));
+    this.conf.setEnvironment(new Environment("production", new ConnectionTimingTransactionFactory(sessionStatistics), database.getDataSource()));
     this.conf.setUseGeneratedKeys(true);
     this.conf.setLazyLoadingEnabled(false);
     this.conf.setJdbcTypeForNull(JdbcType.NULL);
@@ -104,11 +104,11 @@ public final class MyBatisConfBuilder {
     }
   }
 
-  public Configuration build() {
-    return conf;
+  public void addInterceptor(Interceptor interceptor) {
+    conf.addInterceptor(interceptor);
   }
 
-  private static JdbcTransactionFactory createTransactionFactory() {
-    return new JdbcTransactionFactory();
+  public Configuration build() {
+    return conf;
   }
 }
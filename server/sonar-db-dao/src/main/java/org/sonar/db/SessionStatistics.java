@@ -0,0 +1,243 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import com.google.common.collect.MapMaker;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.sonar.api.utils.System2;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Usage of the sessions opened by {@link MyBatis} since startup:
+ * <ul>
+ *   <li>sessions currently open, grouped by the class which opened them if callers are tracked</li>
+ *   <li>lifetime of closed sessions</li>
+ *   <li>time spent waiting for a connection of the pool</li>
+ *   <li>number of statements sent by each flush of a {@link BatchSession}</li>
+ * </ul>
+ * Finding the class which opens a session requires to capture the stack trace of the current thread, which is
+ * expensive on such a frequent operation. Callers are therefore tracked only on demand.
+ */
+public class SessionStatistics {
+
+  /**
+   * Sessions open for longer are reported by {@link #getLongLivedSessionCount()} and {@link #getLongLivedSessions()}
+   */
+  public static final long LONG_LIVED_SESSION_MS = 60_000L;
+
+  private static final String UNKNOWN_CALLER = "unknown";
+  private static final Set<String> IGNORED_CALLERS = new HashSet<>(Arrays.asList(
+    Thread.class.getName(),
+    SessionStatistics.class.getName(),
+    MyBatis.class.getName(),
+    org.sonar.core.persistence.MyBatis.class.getName(),
+    DbClient.class.getName()));
+
+  private final System2 system2;
+  private final boolean trackCallers;
+  /**
+   * Weak keys, so that sessions which are never closed can still be garbage collected
+   */
+  private final ConcurrentMap<DbSession, OpenSession> openSessions = new MapMaker().weakKeys().makeMap();
+  private final Counter lifetimes = new Counter();
+  private final Counter connectionWaits = new Counter();
+  private final Counter batchFlushes = new Counter();
+
+  /**
+   * @param trackCallers whether the class which opens each session is recorded. Otherwise all the sessions are
+   *                     reported as opened by an unknown caller.
+   */
+  public SessionStatistics(System2 system2, boolean trackCallers) {
+    this.system2 = system2;
+    this.trackCallers = trackCallers;
+  }
+
+  void opened(DbSession session) {
+    String caller = trackCallers ? callerOf(new Throwable().getStackTrace()) : UNKNOWN_CALLER;
+    openSessions.put(session, new OpenSession(caller, system2.now()));
+  }
+
+  void closed(DbSession session) {
+    OpenSession openSession = openSessions.remove(session);
+    if (openSession != null) {
+      lifetimes.add(system2.now() - openSession.openedAt);
+    }
+  }
+
+  void connectionAcquired(long waitTimeMs) {
+    connectionWaits.add(waitTimeMs);
+  }
+
+  void batchFlushed(int statements) {
+    batchFlushes.add(statements);
+  }
+
+  private static String callerOf(StackTraceElement[] stackTrace) {
+    for (StackTraceElement element : stackTrace) {
+      if (!IGNORED_CALLERS.contains(element.getClassName())) {
+        return element.getClassName();
+      }
+    }
+    return UNKNOWN_CALLER;
+  }
+
+  public boolean isTrackingCallers() {
+    return trackCallers;
+  }
+
+  public int getOpenSessions() {
+    return openSessions.size();
+  }
+
+  /**
+   * @return number of open sessions by name of the class which opened them, by descending number of sessions
+   */
+  public Map<String, Long> getOpenSessionsByCaller() {
+    Map<String, Long> countByCaller = openSessions.values().stream()
+      .collect(groupingBy(s -> s.caller, counting()));
+    return sortByDescendingValue(countByCaller, Comparator.naturalOrder());
+  }
+
+  /**
+   * @return number of sessions open for more than {@link #LONG_LIVED_SESSION_MS}
+   */
+  public int getLongLivedSessionCount() {
+    long now = system2.now();
+    return (int) openSessions.values().stream()
+      .filter(s -> isLongLived(s, now))
+      .count();
+  }
+
+  /**
+   * @return the sessions open for more than {@link #LONG_LIVED_SESSION_MS}, by name of the class which opened
+   * them. The callers of the oldest sessions are first.
+   */
+  public Map<String, LongLivedSessions> getLongLivedSessions() {
+    long now = system2.now();
+    Map<String, LongLivedSessions> sessionsByCaller = new HashMap<>();
+    openSessions.values().stream()
+      .filter(s -> isLongLived(s, now))
+      .forEach(s -> sessionsByCaller.computeIfAbsent(s.caller, c -> new LongLivedSessions()).add(now - s.openedAt));
+    return sortByDescendingValue(sessionsByCaller, Comparator.comparingLong(LongLivedSessions::getMaxAgeMs));
+  }
+
+  private static boolean isLongLived(OpenSession session, long now) {
+    return now - session.openedAt > LONG_LIVED_SESSION_MS;
+  }
+
+  private static <V> Map<String, V> sortByDescendingValue(Map<String, V> map, Comparator<V> valueComparator) {
+    Map<String, V> result = new LinkedHashMap<>();
+    map.entrySet().stream()
+      .sorted(Map.Entry.<String, V>comparingByValue(valueComparator.reversed()).thenComparing(Map.Entry.comparingByKey()))
+      .forEachOrdered(e -> result.put(e.getKey(), e.getValue()));
+    return result;
+  }
+
+  public Counter getSessionLifetimes() {
+    return lifetimes;
+  }
+
+  public Counter getConnectionWaits() {
+    return connectionWaits;
+  }
+
+  /**
+   * Counter of the flushes of {@link BatchSession}, whose values are the number of statements flushed
+   */
+  public Counter getBatchFlushes() {
+    return batchFlushes;
+  }
+
+  private static final class OpenSession {
+    private final String caller;
+    private final long openedAt;
+
+    private OpenSession(String caller, long openedAt) {
+      this.caller = caller;
+      this.openedAt = openedAt;
+    }
+  }
+
+  /**
+   * Sessions open for more than {@link #LONG_LIVED_SESSION_MS} by a given caller
+   */
+  public static final class LongLivedSessions {
+    private int count = 0;
+    private long maxAgeMs = 0L;
+
+    private void add(long ageMs) {
+      count++;
+      maxAgeMs = Math.max(maxAgeMs, ageMs);
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public long getMaxAgeMs() {
+      return maxAgeMs;
+    }
+  }
+
+  /**
+   * Number, sum and maximum of recorded values, updated without locking
+   */
+  public static final class Counter {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    private void add(long value) {
+      count.increment();
+      sum.add(value);
+      if (value > max.get()) {
+        max.accumulateAndGet(value, Math::max);
+      }
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getSum() {
+      return sum.sum();
+    }
+
+    public long getMax() {
+      return max.get();
+    }
+
+    public long getMean() {
+      long c = getCount();
+      return c == 0 ? 0L : (getSum() / c);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Statistics of the MyBatis statements executed since the start of the process, grouped by statement id.
+ * Executions slower than {@link #getSlowThresholdMs()} are counted as slow.
+ */
+public class StatementStatistics {
+
+  private final long slowThresholdMs;
+  private final ConcurrentMap<String, StatementStats> statsByStatementId = new ConcurrentHashMap<>();
+  private final LongAdder slowCount = new LongAdder();
+
+  /**
+   * @param slowThresholdMs statements are not considered as slow if zero
+   */
+  public StatementStatistics(long slowThresholdMs) {
+    checkArgument(slowThresholdMs >= 0, "Threshold of slow statements can not be negative: %s", slowThresholdMs);
+    this.slowThresholdMs = slowThresholdMs;
+  }
+
+  /**
+   * @return true if the execution is slow
+   */
+  boolean add(String statementId, long durationMs, long rows) {
+    StatementStats stats = statsByStatementId.get(statementId);
+    if (stats == null) {
+      stats = statsByStatementId.computeIfAbsent(statementId, StatementStats::new);
+    }
+    stats.add(durationMs, rows);
+    boolean slow = slowThresholdMs > 0 && durationMs >= slowThresholdMs;
+    if (slow) {
+      slowCount.increment();
+    }
+    return slow;
+  }
+
+  public long getSlowThresholdMs() {
+    return slowThresholdMs;
+  }
+
+  public long getSlowCount() {
+    return slowCount.sum();
+  }
+
+  public long getCount() {
+    return statsByStatementId.values().stream().mapToLong(StatementStats::getCount).sum();
+  }
+
+  public long getTotalTimeMs() {
+    return statsByStatementId.values().stream().mapToLong(StatementStats::getTotalTimeMs).sum();
+  }
+
+  /**
+   * @return at most {@code limit} statements, sorted by descending total time
+   */
+  public List<StatementStats> getMostExpensive(int limit) {
+    List<StatementStats> result = new ArrayList<>(statsByStatementId.values());
+    // total times are read once, as they can be updated concurrently while sorting
+    Map<String, Long> totalTimes = result.stream().collect(Collectors.toMap(StatementStats::getStatementId, StatementStats::getTotalTimeMs));
+    result.sort(Comparator.comparing((StatementStats stats) -> totalTimes.get(stats.getStatementId())).reversed()
+      .thenComparing(StatementStats::getStatementId));
+    return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+  }
+}
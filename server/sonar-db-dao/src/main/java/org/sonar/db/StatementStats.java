@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and number of rows of the executions of a MyBatis statement. Executions are recorded
+ * concurrently without locking.
+ */
+public final class StatementStats {
+
+  private static final long[] BUCKET_LIMITS_MS = {10L, 100L, 1_000L, 10_000L};
+  private static final String[] BUCKET_LABELS = {"<=10ms", "<=100ms", "<=1s", "<=10s", ">10s"};
+
+  private final String statementId;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalTimeMs = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final AtomicLong maxTimeMs = new AtomicLong();
+  private final LongAdder[] buckets = new LongAdder[BUCKET_LABELS.length];
+
+  StatementStats(String statementId) {
+    this.statementId = statementId;
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  void add(long durationMs, long rowCount) {
+    count.increment();
+    totalTimeMs.add(durationMs);
+    rows.add(rowCount);
+    if (durationMs > maxTimeMs.get()) {
+      maxTimeMs.accumulateAndGet(durationMs, Math::max);
+    }
+    buckets[bucketOf(durationMs)].increment();
+  }
+
+  private static int bucketOf(long durationMs) {
+    for (int i = 0; i < BUCKET_LIMITS_MS.length; i++) {
+      if (durationMs <= BUCKET_LIMITS_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_LIMITS_MS.length;
+  }
+
+  /**
+   * Id of the MyBatis statement, for example "org.sonar.db.ce.CeQueueMapper.selectByUuid"
+   */
+  public String getStatementId() {
+    return statementId;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalTimeMs() {
+    return totalTimeMs.sum();
+  }
+
+  public long getMaxTimeMs() {
+    return maxTimeMs.get();
+  }
+
+  /**
+   * Number of rows returned by selects, or updated by inserts, updates and deletes
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  /**
+   * @return the number of executions in each bucket of {@link #getBucketLabels()}
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  public static String[] getBucketLabels() {
+    return BUCKET_LABELS.clone();
+  }
+
+  @Override
+  public String toString() {
+    long executions = getCount();
+    StringBuilder sb = new StringBuilder()
+      .append("count=").append(executions)
+      .append(", total=").append(getTotalTimeMs()).append("ms")
+      .append(", mean=").append(executions == 0 ? 0L : (getTotalTimeMs() / executions)).append("ms")
+      .append(", max=").append(getMaxTimeMs()).append("ms")
+      .append(", rows=").append(getRows());
+    long[] counts = getBucketCounts();
+    for (int i = 0; i < counts.length; i++) {
+      sb.append(", ").append(BUCKET_LABELS[i]).append('=').append(counts[i]);
+    }
+    return sb.toString();
+  }
+}
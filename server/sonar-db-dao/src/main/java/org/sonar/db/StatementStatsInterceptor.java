@@ -0,0 +1,160 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.List;
+import java.util.Properties;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.CallStats;
+
+/**
+ * MyBatis plugin which records the duration and the number of rows of each execution of statement:
+ * <ul>
+ *   <li>per thread in {@link CallStats}</li>
+ *   <li>per statement id in {@link StatementStatistics}</li>
+ * </ul>
+ * Slow executions are logged with the id of the statement.
+ * <p>
+ * Statements of batch sessions are only queued by {@link Executor#update(MappedStatement, Object)}, and sent to db
+ * when flushed, for example on commit. Flushes and commits are therefore recorded too, with the ids
+ * {@link #FLUSH_STATEMENTS_ID} and {@link #COMMIT_ID}.
+ * </p>
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(type = Executor.class, method = "flushStatements", args = {}),
+  @Signature(type = Executor.class, method = "commit", args = {boolean.class})
+})
+class StatementStatsInterceptor implements Interceptor {
+
+  private static final Logger LOG = Loggers.get(StatementStatsInterceptor.class);
+  private static final int RESULT_HANDLER_ARG = 3;
+  static final String FLUSH_STATEMENTS_ID = "Executor.flushStatements";
+  static final String COMMIT_ID = "Executor.commit";
+
+  private final StatementStatistics statistics;
+
+  StatementStatsInterceptor(StatementStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    String statementId = statementIdOf(invocation);
+    RowCountingResultHandler countingHandler = wrapResultHandler(invocation.getArgs());
+    long start = System.currentTimeMillis();
+    Object result = null;
+    try {
+      result = invocation.proceed();
+      return result;
+    } finally {
+      long durationMs = System.currentTimeMillis() - start;
+      CallStats.add(CallStats.Type.DB, durationMs);
+      long rows = countingHandler == null ? rowsOf(result) : countingHandler.rows;
+      if (statistics.add(statementId, durationMs, rows)) {
+        LOG.warn("Slow SQL statement {} | time={}ms | rows={}", statementId, durationMs, rows);
+      }
+    }
+  }
+
+  private static String statementIdOf(Invocation invocation) {
+    Object[] args = invocation.getArgs();
+    if (args.length > 0 && args[0] instanceof MappedStatement) {
+      return ((MappedStatement) args[0]).getId();
+    }
+    return "commit".equals(invocation.getMethod().getName()) ? COMMIT_ID : FLUSH_STATEMENTS_ID;
+  }
+
+  /**
+   * Rows of selects using a {@link ResultHandler} are not returned, so they are counted while being handled
+   */
+  private static RowCountingResultHandler wrapResultHandler(Object[] args) {
+    if (args.length > RESULT_HANDLER_ARG && args[RESULT_HANDLER_ARG] != null) {
+      RowCountingResultHandler handler = new RowCountingResultHandler((ResultHandler) args[RESULT_HANDLER_ARG]);
+      args[RESULT_HANDLER_ARG] = handler;
+      return handler;
+    }
+    return null;
+  }
+
+  private static long rowsOf(Object result) {
+    if (result instanceof List) {
+      List<?> list = (List<?>) result;
+      if (!list.isEmpty() && list.get(0) instanceof BatchResult) {
+        return updatedRowsOf((List<BatchResult>) list);
+      }
+      return list.size();
+    }
+    if (result instanceof Integer) {
+      // batch executor returns a negative constant as rows are counted only when statements are flushed
+      return Math.max(0, (Integer) result);
+    }
+    return 0L;
+  }
+
+  private static long updatedRowsOf(List<BatchResult> batchResults) {
+    long rows = 0L;
+    for (BatchResult batchResult : batchResults) {
+      for (int updateCount : batchResult.getUpdateCounts()) {
+        // some drivers return Statement.SUCCESS_NO_INFO, a negative constant
+        rows += Math.max(0, updateCount);
+      }
+    }
+    return rows;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+
+  private static class RowCountingResultHandler implements ResultHandler {
+    private final ResultHandler delegate;
+    private long rows = 0L;
+
+    private RowCountingResultHandler(ResultHandler delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+      rows++;
+      delegate.handleResult(context);
+    }
+  }
+}
@@ -33,8 +33,6 @@ import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 
 public class CeQueueDao implements Dao {
 
-  private static final RowBounds ONE_ROW_LIMIT = new RowBounds(0, 1);
-
   private final System2 system2;
 
   public CeQueueDao(System2 system2) {
@@ -108,17 +106,21 @@ public class CeQueueDao implements Dao {
     return mapper(dbSession).countByStatusAndComponentUuid(status, componentUuid);
   }
 
-  public Optional<CeQueueDto> peek(DbSession session) {
-    List<String> taskUuids = mapper(session).selectEligibleForPeek(ONE_ROW_LIMIT);
-    if (taskUuids.isEmpty()) {
-      return Optional.absent();
-    }
-
-    String taskUuid = taskUuids.get(0);
-    return tryToPeek(session, taskUuid);
+  /**
+   * Pending tasks inserted after the task with the given id, ordered by ascending id. Use {@code 0} to select
+   * all the pending tasks.
+   */
+  public List<PendingCeTaskDto> selectPendingAfterId(DbSession session, long afterId) {
+    return mapper(session).selectPendingAfterId(afterId);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid) {
+  /**
+   * Sets the status of the specified task to IN_PROGRESS, if it's still pending. The session is committed.
+   *
+   * @return the updated task, or absent if the task does not exist anymore or is not pending, for example
+   *         because it has been canceled.
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String taskUuid) {
     int touchedRows = mapper(session).updateIfStatus(taskUuid, IN_PROGRESS, system2.now(), system2.now(), PENDING);
     if (touchedRows != 1) {
       return Optional.absent();
@@ -35,7 +35,7 @@ public interface CeQueueMapper {
 
   int countByQuery(@Param("query") CeTaskQuery query);
 
-  List<String> selectEligibleForPeek(RowBounds rowBounds);
+  List<PendingCeTaskDto> selectPendingAfterId(@Param("afterId") long afterId);
 
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Lightweight view of a pending task of table CE_QUEUE, as required to schedule it.
+ */
+public class PendingCeTaskDto {
+
+  private long id;
+  private String uuid;
+  private String taskType;
+  private String componentUuid;
+  private String organizationUuid;
+  private long createdAt;
+
+  public long getId() {
+    return id;
+  }
+
+  public PendingCeTaskDto setId(long id) {
+    this.id = id;
+    return this;
+  }
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public PendingCeTaskDto setUuid(String uuid) {
+    this.uuid = uuid;
+    return this;
+  }
+
+  public String getTaskType() {
+    return taskType;
+  }
+
+  public PendingCeTaskDto setTaskType(String taskType) {
+    this.taskType = taskType;
+    return this;
+  }
+
+  @CheckForNull
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public PendingCeTaskDto setComponentUuid(@Nullable String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  /**
+   * Organization of the component. {@code null} if the task has no component or if the component does not exist.
+   */
+  @CheckForNull
+  public String getOrganizationUuid() {
+    return organizationUuid;
+  }
+
+  public PendingCeTaskDto setOrganizationUuid(@Nullable String organizationUuid) {
+    this.organizationUuid = organizationUuid;
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public PendingCeTaskDto setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "PendingCeTaskDto{" +
+      "id=" + id +
+      ", uuid='" + uuid + '\'' +
+      ", taskType='" + taskType + '\'' +
+      ", componentUuid='" + componentUuid + '\'' +
+      ", organizationUuid='" + organizationUuid + '\'' +
+      ", createdAt=" + createdAt +
+      '}';
+  }
+}
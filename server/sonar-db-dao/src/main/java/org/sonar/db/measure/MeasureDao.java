@@ -120,6 +120,20 @@ public class MeasureDao implements Dao {
       ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
   }
 
+  /**
+   * Selects the measures of an analysis on all the components of the project, except files and unit tests,
+   * which are generally purged. The result is not returned, since it can be big, but each {@link PastMeasureDto}
+   * is handed over to the <code>handler</code>.
+   */
+  public void selectPastMeasuresOnAnalysis(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler handler) {
+    executeLargeInputsWithoutOutput(
+      metricIds,
+      ids -> {
+        mapper(dbSession).selectPastMeasuresOnAnalysis(analysisUuid, ids, handler);
+        return null;
+      });
+  }
+
   /**
    * Select measures of:
    * - one component
@@ -22,6 +22,7 @@ package org.sonar.db.measure;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -33,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
@@ -42,6 +44,8 @@ import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DatabaseUtils;
 import org.sonar.db.DbSession;
 
+import static java.util.Collections.emptyIterator;
+import static java.util.Collections.emptyMap;
 import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.Metric.ValueType.BOOL;
@@ -74,31 +78,43 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     "WHERE (m.val_type IN ('" + METRICS_JOINER.join(METRIC_TYPES) + "') OR m.name=?)" +
     "AND m.enabled=?";
 
-  private static final String SQL_MEASURES = "SELECT pm.metric_id, pm.value, pm.variation_value_1, pm.text_value FROM project_measures pm " +
-    "WHERE pm.component_uuid = ? AND pm.analysis_uuid = ? " +
+  /**
+   * Measures of the last analyses of up to this number of projects are loaded by a single request.
+   * Each project binds two parameters, so the size must remain compatible with the
+   * limits of number of parameters of the supported databases.
+   */
+  private static final int PROJECTS_BATCH_SIZE = 500;
+
+  private static final String SQL_MEASURES = "SELECT pm.component_uuid, pm.metric_id, pm.value, pm.variation_value_1, pm.text_value FROM project_measures pm " +
+    "WHERE pm.analysis_uuid IN ({analysisUuids}) AND pm.component_uuid IN ({componentUuids}) " +
     "AND pm.metric_id IN ({metricIds}) " +
     "AND (pm.value IS NOT NULL OR pm.variation_value_1 IS NOT NULL OR pm.text_value IS NOT NULL) " +
     "AND pm.person_id IS NULL ";
 
-  private final PreparedStatement measuresStatement;
+  private final DbSession session;
   private final Map<Long, String> metricKeysByIds;
-  private final Iterator<Project> projects;
+  private final Iterator<List<Project>> projectBatches;
+  private Iterator<Project> currentBatch = emptyIterator();
+  private Map<String, Measures> currentMeasuresByProjectUuid = emptyMap();
 
-  private ProjectMeasuresIndexerIterator(PreparedStatement measuresStatement, Map<Long, String> metricKeysByIds, List<Project> projects) throws SQLException {
-    this.measuresStatement = measuresStatement;
+  private ProjectMeasuresIndexerIterator(DbSession session, Map<Long, String> metricKeysByIds, List<Project> projects) {
+    this.session = session;
     this.metricKeysByIds = metricKeysByIds;
-    this.projects = projects.iterator();
+    this.projectBatches = Lists.partition(projects, PROJECTS_BATCH_SIZE).iterator();
   }
 
   public static ProjectMeasuresIndexerIterator create(DbSession session, @Nullable String projectUuid) {
-    try {
-      Map<Long, String> metrics = selectMetricKeysByIds(session);
-      List<Project> projects = selectProjects(session, projectUuid);
-      PreparedStatement projectsStatement = createMeasuresStatement(session, metrics.keySet());
-      return new ProjectMeasuresIndexerIterator(projectsStatement, metrics, projects);
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to execute request to select all project measures", e);
-    }
+    Map<Long, String> metrics = selectMetricKeysByIds(session);
+    List<Project> projects = selectProjects(session, projectUuid);
+    return new ProjectMeasuresIndexerIterator(session, metrics, projects);
+  }
+
+  /**
+   * Loads only the project attributes (key, name, tags, last analysis...) without any of its measures.
+   * Used when measures are already known by the caller, for example at the end of an analysis.
+   */
+  public static Optional<Project> selectProject(DbSession session, String projectUuid) {
+    return selectProjects(session, projectUuid).stream().findFirst();
   }
 
   private static Map<Long, String> selectMetricKeysByIds(DbSession session) {
@@ -160,56 +176,72 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     }
   }
 
-  private static PreparedStatement createMeasuresStatement(DbSession session, Set<Long> metricIds) throws SQLException {
-    try {
-      String sql = StringUtils.replace(SQL_MEASURES, "{metricIds}", repeatCondition("?", metricIds.size(), ","));
-      PreparedStatement stmt = session.getConnection().prepareStatement(sql);
-      int index = 3;
-      for (Long metricId : metricIds) {
-        stmt.setLong(index, metricId);
-        index++;
-      }
-      return stmt;
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to prepare SQL request to select measures", e);
+  private PreparedStatement createMeasuresStatement(List<Project> analyzedProjects) throws SQLException {
+    String sql = StringUtils.replace(SQL_MEASURES, "{analysisUuids}", repeatCondition("?", analyzedProjects.size(), ","));
+    sql = StringUtils.replace(sql, "{componentUuids}", repeatCondition("?", analyzedProjects.size(), ","));
+    sql = StringUtils.replace(sql, "{metricIds}", repeatCondition("?", metricKeysByIds.size(), ","));
+    PreparedStatement stmt = session.getConnection().prepareStatement(sql);
+    int index = 1;
+    for (Project project : analyzedProjects) {
+      stmt.setString(index, project.getAnalysisUuid());
+      index++;
+    }
+    for (Project project : analyzedProjects) {
+      stmt.setString(index, project.getUuid());
+      index++;
+    }
+    for (Long metricId : metricKeysByIds.keySet()) {
+      stmt.setLong(index, metricId);
+      index++;
     }
+    return stmt;
   }
 
   @Override
   @CheckForNull
   protected ProjectMeasures doNext() {
-    if (!projects.hasNext()) {
-      return null;
+    if (!currentBatch.hasNext()) {
+      if (!projectBatches.hasNext()) {
+        return null;
+      }
+      List<Project> batch = projectBatches.next();
+      currentMeasuresByProjectUuid = selectMeasures(batch);
+      currentBatch = batch.iterator();
     }
-    Project project = projects.next();
-    Measures measures = selectMeasures(project.getUuid(), project.getAnalysisUuid());
-    return new ProjectMeasures(project, measures);
+    Project project = currentBatch.next();
+    Measures measures = currentMeasuresByProjectUuid.get(project.getUuid());
+    return new ProjectMeasures(project, measures == null ? new Measures() : measures);
   }
 
-  private Measures selectMeasures(String projectUuid, @Nullable String analysisUuid) {
-    Measures measures = new Measures();
-    if (analysisUuid == null || metricKeysByIds.isEmpty()) {
-      return measures;
+  private Map<String, Measures> selectMeasures(List<Project> projects) {
+    List<Project> analyzedProjects = projects.stream()
+      .filter(project -> project.getAnalysisUuid() != null)
+      .collect(Collectors.toList());
+    if (analyzedProjects.isEmpty() || metricKeysByIds.isEmpty()) {
+      return emptyMap();
     }
+    Map<String, Measures> measuresByProjectUuid = new HashMap<>();
+    PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
-      measuresStatement.setString(1, projectUuid);
-      measuresStatement.setString(2, analysisUuid);
-      rs = measuresStatement.executeQuery();
+      stmt = createMeasuresStatement(analyzedProjects);
+      rs = stmt.executeQuery();
       while (rs.next()) {
-        readMeasure(rs, measures);
+        readMeasure(rs, measuresByProjectUuid.computeIfAbsent(rs.getString(1), uuid -> new Measures()));
       }
-      return measures;
+      return measuresByProjectUuid;
     } catch (Exception e) {
-      throw new IllegalStateException(String.format("Fail to execute request to select measures of project %s, analysis %s", projectUuid, analysisUuid), e);
+      throw new IllegalStateException(String.format("Fail to execute request to select measures of projects %s",
+        analyzedProjects.stream().map(Project::getUuid).collect(Collectors.joining(", "))), e);
     } finally {
       DatabaseUtils.closeQuietly(rs);
+      DatabaseUtils.closeQuietly(stmt);
     }
   }
 
   private void readMeasure(ResultSet rs, Measures measures) throws SQLException {
-    String metricKey = metricKeysByIds.get(rs.getLong(1));
-    Optional<Double> value = metricKey.startsWith("new_") ? getDouble(rs, 3) : getDouble(rs, 2);
+    String metricKey = metricKeysByIds.get(rs.getLong(2));
+    Optional<Double> value = metricKey.startsWith("new_") ? getDouble(rs, 4) : getDouble(rs, 3);
     if (value.isPresent()) {
       measures.addNumericMeasure(metricKey, value.get());
       return;
@@ -226,15 +258,15 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
   }
 
   private static void readTextValue(ResultSet rs, Consumer<String> action) throws SQLException {
-    String textValue = rs.getString(4);
+    String textValue = rs.getString(5);
     if (!rs.wasNull()) {
       action.accept(textValue);
     }
   }
 
   @Override
-  protected void doClose() throws Exception {
-    measuresStatement.close();
+  protected void doClose() {
+    // statements are closed as soon as each batch of measures is read
   }
 
   private static Optional<Double> getDouble(ResultSet rs, int index) {
@@ -305,7 +337,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     private String qualityGateStatus;
     private List<String> languages = new ArrayList<>();
 
-    Measures addNumericMeasure(String metricKey, double value) {
+    public Measures addNumericMeasure(String metricKey, double value) {
       numericMeasures.put(metricKey, value);
       return this;
     }
@@ -314,7 +346,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
       return numericMeasures;
     }
 
-    Measures setQualityGateStatus(@Nullable String qualityGateStatus) {
+    public Measures setQualityGateStatus(@Nullable String qualityGateStatus) {
       this.qualityGateStatus = qualityGateStatus;
       return this;
     }
@@ -324,7 +356,7 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
       return qualityGateStatus;
     }
 
-    Measures setLanguages(String languageDistributionValue) {
+    public Measures setLanguages(String languageDistributionValue) {
       this.languages = ImmutableList.copyOf(parseStringInt(languageDistributionValue).keySet());
       return this;
     }
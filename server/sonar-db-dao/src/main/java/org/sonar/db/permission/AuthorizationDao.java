@@ -21,6 +21,7 @@ package org.sonar.db.permission;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -71,6 +72,22 @@ public class AuthorizationDao implements Dao {
     return mapper(dbSession).selectProjectPermissionsOfAnonymous(projectUuid);
   }
 
+  /**
+   * Loads all the permissions granted to logged-in user on the specified projects, with one request
+   * per partition of 1'000 projects. Projects on which user has no permissions are not returned.
+   */
+  public List<ProjectPermissionDto> selectProjectPermissions(DbSession dbSession, Collection<String> projectUuids, long userId) {
+    return executeLargeInputs(projectUuids, partition -> mapper(dbSession).selectProjectPermissionsByProjectUuids(partition, userId));
+  }
+
+  /**
+   * Loads all the permissions granted to anonymous on the specified projects, with one request
+   * per partition of 1'000 projects. Projects on which anonymous has no permissions are not returned.
+   */
+  public List<ProjectPermissionDto> selectProjectPermissionsOfAnonymous(DbSession dbSession, Collection<String> projectUuids) {
+    return executeLargeInputs(projectUuids, partition -> mapper(dbSession).selectProjectPermissionsOfAnonymousByProjectUuids(partition));
+  }
+
   /**
    * The number of users who will still have the permission if the group {@code excludedGroupId}
    * is deleted. The anyone virtual group is not taken into account.
@@ -127,9 +144,9 @@ public class AuthorizationDao implements Dao {
       componentIds,
       partition -> {
         if (userId == null) {
-          return mapper(dbSession).keepAuthorizedProjectIdsForAnonymous(role, componentIds);
+          return mapper(dbSession).keepAuthorizedProjectIdsForAnonymous(role, partition);
         }
-        return mapper(dbSession).keepAuthorizedProjectIdsForUser(userId, role, componentIds);
+        return mapper(dbSession).keepAuthorizedProjectIdsForUser(userId, role, partition);
       });
   }
 
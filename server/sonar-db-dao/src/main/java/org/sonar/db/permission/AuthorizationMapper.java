@@ -56,4 +56,8 @@ public interface AuthorizationMapper {
   Set<String> selectProjectPermissions(@Param("projectUuid") String projectUuid, @Param("userId") long userId);
 
   Set<String> selectProjectPermissionsOfAnonymous(@Param("projectUuid") String projectUuid);
+
+  List<ProjectPermissionDto> selectProjectPermissionsByProjectUuids(@Param("projectUuids") List<String> projectUuids, @Param("userId") long userId);
+
+  List<ProjectPermissionDto> selectProjectPermissionsOfAnonymousByProjectUuids(@Param("projectUuids") List<String> projectUuids);
 }
@@ -25,9 +25,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.resources.Scopes;
@@ -71,6 +73,24 @@ public class PropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Subscribers of the dispatcher on all the given channels, in a single query.
+   *
+   * @see #selectNotificationSubscribers(String, String, String)
+   */
+  public List<NotificationSubscriberDto> selectNotificationSubscribersOfChannels(String notificationDispatcherKey, Collection<String> notificationChannelKeys,
+    @Nullable String componentKey) {
+    if (notificationChannelKeys.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> propertyKeys = notificationChannelKeys.stream()
+      .map(channelKey -> NOTIFICATION_PREFIX + notificationDispatcherKey + "." + channelKey)
+      .collect(Collectors.toList());
+    try (DbSession session = mybatis.openSession(false)) {
+      return getMapper(session).findNotificationSubscribersOfKeys(propertyKeys, componentKey);
+    }
+  }
+
   public boolean hasProjectNotificationSubscribersForDispatchers(String projectUuid, Collection<String> dispatcherKeys) {
     try (DbSession session = mybatis.openSession(false);
       Connection connection = session.getConnection();
@@ -0,0 +1,204 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compact encoding of column FILE_SOURCES.BINARY_DATA for the data of type {@link FileSourceDto.Type#SOURCE}.
+ * <p>
+ * Lines are grouped in blocks of {@link #LINES_PER_BLOCK} lines, each block being compressed independently, so
+ * that a range of lines can be read without decompressing the whole file. SCM revisions and authors, which are
+ * generally shared by many lines, are stored only once per file.
+ * </p>
+ * Layout:
+ * <pre>
+ * | magic number (4 bytes) | version (1 byte) | size of index (4 bytes) | index | block 1 | block 2 | ... |
+ * </pre>
+ * where index is the serialized protobuf message {@link DbFileSources.BlockIndex} and each block is the
+ * LZ4-compressed protobuf message {@link DbFileSources.LineBlock}.
+ */
+public final class FileSourceBlocksCodec {
+
+  public static final int LINES_PER_BLOCK = 128;
+
+  private static final byte[] MAGIC_NUMBER = {'S', 'Q', 'F', 'S'};
+  private static final byte VERSION = 1;
+  private static final int HEADER_SIZE = MAGIC_NUMBER.length + 1 + 4;
+
+  private FileSourceBlocksCodec() {
+    // only static stuff
+  }
+
+  /**
+   * Whether the binary data has been encoded by {@link #encode(DbFileSources.Data)}, or by the previous
+   * format which compresses the whole protobuf message {@link DbFileSources.Data}.
+   */
+  public static boolean isBlockEncoded(byte[] binaryData) {
+    if (binaryData.length < HEADER_SIZE) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC_NUMBER.length; i++) {
+      if (binaryData[i] != MAGIC_NUMBER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static byte[] encode(DbFileSources.Data data) {
+    try {
+      Dictionary revisions = new Dictionary();
+      Dictionary authors = new Dictionary();
+      DbFileSources.BlockIndex.Builder index = DbFileSources.BlockIndex.newBuilder()
+        .setLinesCount(data.getLinesCount())
+        .setLinesPerBlock(LINES_PER_BLOCK);
+      List<byte[]> blocks = new ArrayList<>();
+      for (int first = 0; first < data.getLinesCount(); first += LINES_PER_BLOCK) {
+        DbFileSources.LineBlock.Builder block = DbFileSources.LineBlock.newBuilder();
+        for (DbFileSources.Line line : data.getLinesList().subList(first, Math.min(data.getLinesCount(), first + LINES_PER_BLOCK))) {
+          block.addScmRevisionRef(line.hasScmRevision() ? revisions.ref(line.getScmRevision()) : 0);
+          block.addScmAuthorRef(line.hasScmAuthor() ? authors.ref(line.getScmAuthor()) : 0);
+          block.addLines(line.toBuilder().clearScmRevision().clearScmAuthor());
+        }
+        byte[] compressedBlock = compress(block.build());
+        index.addBlockSize(compressedBlock.length);
+        blocks.add(compressedBlock);
+      }
+      index.addAllScmRevision(revisions.values()).addAllScmAuthor(authors.values());
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      output.write(MAGIC_NUMBER);
+      output.writeByte(VERSION);
+      DbFileSources.BlockIndex builtIndex = index.build();
+      output.writeInt(builtIndex.getSerializedSize());
+      builtIndex.writeTo(output);
+      for (byte[] block : blocks) {
+        output.write(block);
+      }
+      output.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress source data", e);
+    }
+  }
+
+  public static DbFileSources.Data decode(byte[] binaryData) throws IOException {
+    return DbFileSources.Data.newBuilder()
+      .addAllLines(decodeLines(binaryData, 1, Integer.MAX_VALUE))
+      .build();
+  }
+
+  /**
+   * Decodes only the blocks containing the lines between {@code from} and {@code to} (both inclusive, starting at 1).
+   */
+  public static List<DbFileSources.Line> decodeLines(byte[] binaryData, int from, int to) throws IOException {
+    checkArgument(from > 0, "Line number must start at 1, got %s", from);
+    checkArgument(isBlockEncoded(binaryData), "Source data is not encoded by blocks of lines");
+    byte version = binaryData[MAGIC_NUMBER.length];
+    checkState(version == VERSION, "Unsupported version %s of source data", version);
+    int indexSize = ByteBuffer.wrap(binaryData, MAGIC_NUMBER.length + 1, 4).getInt();
+    DbFileSources.BlockIndex index = DbFileSources.BlockIndex.parseFrom(CodedInputStream.newInstance(binaryData, HEADER_SIZE, indexSize));
+
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    int linesPerBlock = index.getLinesPerBlock();
+    int offset = HEADER_SIZE + indexSize;
+    for (int i = 0; i < index.getBlockSizeCount(); i++) {
+      int blockSize = index.getBlockSize(i);
+      int firstLine = i * linesPerBlock + 1;
+      if (firstLine > to) {
+        break;
+      }
+      if (firstLine + linesPerBlock > from) {
+        DbFileSources.LineBlock block = decompress(binaryData, offset, blockSize);
+        for (int j = 0; j < block.getLinesCount(); j++) {
+          int lineIndex = firstLine + j;
+          if (lineIndex >= from && lineIndex <= to) {
+            lines.add(toLine(index, block, j));
+          }
+        }
+      }
+      offset += blockSize;
+    }
+    return lines;
+  }
+
+  private static DbFileSources.Line toLine(DbFileSources.BlockIndex index, DbFileSources.LineBlock block, int position) {
+    DbFileSources.Line line = block.getLines(position);
+    int revisionRef = block.getScmRevisionRef(position);
+    int authorRef = block.getScmAuthorRef(position);
+    if (revisionRef == 0 && authorRef == 0) {
+      return line;
+    }
+    DbFileSources.Line.Builder builder = line.toBuilder();
+    if (revisionRef > 0) {
+      builder.setScmRevision(index.getScmRevision(revisionRef - 1));
+    }
+    if (authorRef > 0) {
+      builder.setScmAuthor(index.getScmAuthor(authorRef - 1));
+    }
+    return builder.build();
+  }
+
+  private static byte[] compress(DbFileSources.LineBlock block) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(bytes)) {
+      block.writeTo(compressedOutput);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static DbFileSources.LineBlock decompress(byte[] binaryData, int offset, int length) throws IOException {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, offset, length))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      // a block can exceed the default limit of 64Mb when lines are huge, for example in minified files
+      input.setSizeLimit(Integer.MAX_VALUE);
+      return DbFileSources.LineBlock.parseFrom(input);
+    }
+  }
+
+  private static class Dictionary {
+    private final Map<String, Integer> refsByValue = new LinkedHashMap<>();
+
+    int ref(String value) {
+      return refsByValue.computeIfAbsent(value, v -> refsByValue.size() + 1);
+    }
+
+    Iterable<String> values() {
+      return refsByValue.keySet();
+    }
+  }
+}
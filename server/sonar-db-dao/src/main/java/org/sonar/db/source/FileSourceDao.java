@@ -31,6 +31,7 @@ import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDto.Type;
@@ -44,11 +45,28 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * MD5 of the source data of the file, without loading the data itself. Returns {@code null} if the file
+   * has no sources or if the hash is unknown.
+   */
+  @CheckForNull
+  public String selectSourceDataHash(DbSession session, String fileUuid) {
+    return mapper(session).selectDataHash(fileUuid, Type.SOURCE);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(DbSession dbSession, String fileUuid) {
     return mapper(dbSession).select(fileUuid, Type.TEST);
   }
 
+  /**
+   * Selects the rows of type {@link Type#SCM} of all the files of a project. Only the columns FILE_UUID, SRC_HASH and
+   * BINARY_DATA are loaded. The result is not returned, since it can be big, but handed over to the <code>handler</code>.
+   */
+  public void selectScmDataByProjectUuid(DbSession dbSession, String projectUuid, ResultHandler handler) {
+    mapper(dbSession).selectScmDataByProjectUuid(projectUuid, handler);
+  }
+
   @CheckForNull
   public List<String> selectLineHashes(DbSession dbSession, String fileUuid) {
     Connection connection = dbSession.getConnection();
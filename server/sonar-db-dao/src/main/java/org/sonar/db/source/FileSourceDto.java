@@ -20,7 +20,9 @@
 package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -103,7 +105,53 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Decodes only the lines between {@code from} and {@code to}, both inclusive. Only the required blocks of lines are
+   * decompressed when data is encoded by {@link FileSourceBlocksCodec}. Data of the previous format is parsed line
+   * by line and parsing stops after line {@code to}.
+   */
+  public List<DbFileSources.Line> decodeSourceLines(byte[] binaryData, int from, int to) {
+    try {
+      if (FileSourceBlocksCodec.isBlockEncoded(binaryData)) {
+        return FileSourceBlocksCodec.decodeLines(binaryData, from, to);
+      }
+      return decodeRegularSourceLines(binaryData, from, to);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  private static List<DbFileSources.Line> decodeRegularSourceLines(byte[] binaryData, int from, int to) throws IOException {
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      int lineIndex = 0;
+      int tag = input.readTag();
+      while (tag != 0 && lineIndex < to) {
+        if (WireFormat.getTagFieldNumber(tag) == DbFileSources.Data.LINES_FIELD_NUMBER) {
+          lineIndex++;
+          if (lineIndex >= from) {
+            lines.add(input.readMessage(DbFileSources.Line.PARSER, ExtensionRegistryLite.getEmptyRegistry()));
+          } else {
+            // lines before the requested range are not parsed
+            input.skipField(tag);
+          }
+        } else {
+          input.skipField(tag);
+        }
+        tag = input.readTag();
+      }
+    }
+    return lines;
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
+    if (FileSourceBlocksCodec.isBlockEncoded(binaryData)) {
+      return FileSourceBlocksCodec.decode(binaryData);
+    }
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
     } catch (InvalidProtocolBufferException e) {
@@ -124,20 +172,10 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * in the column BINARY_DATA, by blocks of lines (see {@link FileSourceBlocksCodec}).
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
-    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
-    try {
-      data.writeTo(compressedOutput);
-      compressedOutput.close();
-      return byteOutput.toByteArray();
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to serialize and compress source data", e);
-    } finally {
-      IOUtils.closeQuietly(compressedOutput);
-    }
+    return FileSourceBlocksCodec.encode(data);
   }
 
   public static List<DbFileSources.Test> decodeTestData(byte[] binaryData) {
@@ -190,6 +228,28 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Scm}
+   * in the column BINARY_DATA.
+   */
+  public static byte[] encodeScmData(DbFileSources.Scm scm) {
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      scm.writeTo(compressedOutput);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress scm data", e);
+    }
+    return byteOutput.toByteArray();
+  }
+
+  public static DbFileSources.Scm decodeScmData(byte[] binaryData) {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      return DbFileSources.Scm.parseFrom(lz4Input);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decompress and deserialize scm data", e);
+    }
+  }
+
   /**
    * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    */
@@ -212,6 +272,13 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Lines between {@code from} and {@code to}, both inclusive
+   */
+  public List<DbFileSources.Line> getSourceLines(int from, int to) {
+    return decodeSourceLines(binaryData, from, to);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
@@ -231,6 +298,16 @@ public class FileSourceDto {
     return this;
   }
 
+  public DbFileSources.Scm getScmData() {
+    return decodeScmData(binaryData);
+  }
+
+  public FileSourceDto setScmData(DbFileSources.Scm data) {
+    this.dataType = Type.SCM;
+    this.binaryData = encodeScmData(data);
+    return this;
+  }
+
   @CheckForNull
   public String getLineHashes() {
     return lineHashes;
@@ -293,6 +370,10 @@ public class FileSourceDto {
   public static class Type {
     public static final String SOURCE = "SOURCE";
     public static final String TEST = "TEST";
+    /**
+     * Changesets of the lines of a file, which are also stored in the data of type {@link #SOURCE}
+     */
+    public static final String SCM = "SCM";
 
     private Type() {
       // utility class
@@ -22,6 +22,7 @@ package org.sonar.db.source;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface FileSourceMapper {
 
@@ -30,6 +31,11 @@ public interface FileSourceMapper {
   @CheckForNull
   FileSourceDto select(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
 
+  @CheckForNull
+  String selectDataHash(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
+
+  void selectScmDataByProjectUuid(@Param("projectUuid") String projectUuid, ResultHandler resultHandler);
+
   void insert(FileSourceDto dto);
 
   void update(FileSourceDto dto);
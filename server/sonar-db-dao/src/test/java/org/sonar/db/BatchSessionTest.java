@@ -20,7 +20,9 @@
 package org.sonar.db;
 
 import org.junit.Test;
+import org.sonar.api.utils.System2;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -70,4 +72,23 @@ public class BatchSessionTest {
     verify(mybatisSession, times(3)).commit();
     session.close();
   }
+
+  @Test
+  public void shouldRecordNumberOfFlushedStatements() {
+    DbSession mybatisSession = mock(DbSession.class);
+    SessionStatistics statistics = new SessionStatistics(System2.INSTANCE, false);
+    BatchSession session = new BatchSession(mybatisSession, 10, statistics);
+
+    for (int i = 0; i < 13; i++) {
+      session.insert("id" + i);
+    }
+    session.commit();
+    // nothing to flush
+    session.commit();
+    session.close();
+
+    assertThat(statistics.getBatchFlushes().getCount()).isEqualTo(2L);
+    assertThat(statistics.getBatchFlushes().getSum()).isEqualTo(13L);
+    assertThat(statistics.getBatchFlushes().getMax()).isEqualTo(10L);
+  }
 }
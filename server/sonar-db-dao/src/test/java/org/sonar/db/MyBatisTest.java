@@ -19,14 +19,20 @@
  */
 package org.sonar.db;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.ibatis.session.Configuration;
 import org.hamcrest.core.Is;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.core.util.CallStats;
 import org.sonar.db.rule.RuleMapper;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
@@ -70,4 +76,82 @@ public class MyBatisTest {
       assertThat(session.getMapper(RuleMapper.class), notNullValue());
     }
   }
+
+  @Test
+  public void shouldCountStatementsOfCurrentThread() {
+    underTest.start();
+    long count = CallStats.getCount(CallStats.Type.DB);
+
+    try (DbSession session = underTest.openSession(false)) {
+      session.getMapper(IsAliveMapper.class).isAlive();
+    }
+
+    assertThat(CallStats.getCount(CallStats.Type.DB), equalTo(count + 1));
+  }
+
+  @Test
+  public void shouldRecordStatisticsOfStatements() {
+    underTest.start();
+
+    try (DbSession session = underTest.openSession(false)) {
+      session.getMapper(IsAliveMapper.class).isAlive();
+      session.getMapper(IsAliveMapper.class).isAlive();
+    }
+
+    StatementStats stats = underTest.getStatementStatistics().getMostExpensive(10).get(0);
+    assertThat(stats.getStatementId(), equalTo(IsAliveMapper.class.getName() + ".isAlive"));
+    assertThat(stats.getCount(), equalTo(2L));
+    assertThat(stats.getRows(), equalTo(2L));
+  }
+
+  @Test
+  public void shouldRecordFlushesAndCommitsOfBatchSessions() {
+    underTest.start();
+    long count = CallStats.getCount(CallStats.Type.DB);
+
+    try (DbSession session = underTest.openSession(true)) {
+      session.flushStatements();
+      session.commit();
+    }
+
+    assertThat(CallStats.getCount(CallStats.Type.DB), equalTo(count + 2));
+    List<String> statementIds = underTest.getStatementStatistics().getMostExpensive(10).stream()
+      .map(StatementStats::getStatementId)
+      .collect(Collectors.toList());
+    assertThat(statementIds, hasItems(StatementStatsInterceptor.FLUSH_STATEMENTS_ID, StatementStatsInterceptor.COMMIT_ID));
+  }
+
+  @Test
+  public void shouldConfigureThresholdOfSlowStatements() {
+    assertThat(underTest.getStatementStatistics().getSlowThresholdMs(), equalTo(1_000L));
+    assertThat(new MyBatis(database, new MapSettings()).getStatementStatistics().getSlowThresholdMs(), equalTo(1_000L));
+    MapSettings settings = new MapSettings();
+    settings.setProperty(MyBatis.SLOW_STATEMENT_THRESHOLD_PROPERTY, "0");
+    assertThat(new MyBatis(database, settings).getStatementStatistics().getSlowThresholdMs(), equalTo(0L));
+  }
+
+  @Test
+  public void shouldNotTrackCallersOfSessionsByDefault() {
+    assertThat(underTest.getSessionStatistics().isTrackingCallers(), Is.is(false));
+    assertThat(new MyBatis(database, new MapSettings()).getSessionStatistics().isTrackingCallers(), Is.is(false));
+  }
+
+  @Test
+  public void shouldRecordUsageOfSessions() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(MyBatis.TRACK_SESSION_CALLERS_PROPERTY, "true");
+    underTest = new MyBatis(database, settings);
+    underTest.start();
+    SessionStatistics statistics = underTest.getSessionStatistics();
+
+    try (DbSession session = underTest.openSession(false)) {
+      session.getMapper(IsAliveMapper.class).isAlive();
+      assertThat(statistics.getOpenSessions(), equalTo(1));
+      assertThat(statistics.getOpenSessionsByCaller().containsKey(MyBatisTest.class.getName()), Is.is(true));
+    }
+
+    assertThat(statistics.getOpenSessions(), equalTo(0));
+    assertThat(statistics.getSessionLifetimes().getCount(), equalTo(1L));
+    assertThat(statistics.getConnectionWaits().getCount(), equalTo(1L));
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.SessionStatistics.LONG_LIVED_SESSION_MS;
+
+public class SessionStatisticsTest {
+
+  private System2 system2 = mock(System2.class);
+  private SessionStatistics underTest = new SessionStatistics(system2, true);
+
+  @Test
+  public void count_open_sessions_by_caller() {
+    DbSession session1 = mock(DbSession.class);
+    DbSession session2 = mock(DbSession.class);
+
+    underTest.opened(session1);
+    underTest.opened(session2);
+
+    assertThat(underTest.getOpenSessions()).isEqualTo(2);
+    assertThat(underTest.getOpenSessionsByCaller()).containsExactly(entry(SessionStatisticsTest.class.getName(), 2L));
+
+    underTest.closed(session1);
+    underTest.closed(session2);
+
+    assertThat(underTest.getOpenSessions()).isEqualTo(0);
+    assertThat(underTest.getOpenSessionsByCaller()).isEmpty();
+  }
+
+  @Test
+  public void do_not_track_callers_if_disabled() {
+    SessionStatistics underTest = new SessionStatistics(system2, false);
+
+    underTest.opened(mock(DbSession.class));
+
+    assertThat(underTest.isTrackingCallers()).isFalse();
+    assertThat(underTest.getOpenSessions()).isEqualTo(1);
+    assertThat(underTest.getOpenSessionsByCaller()).containsExactly(entry("unknown", 1L));
+  }
+
+  @Test
+  public void record_lifetime_of_closed_sessions() {
+    DbSession session = mock(DbSession.class);
+    when(system2.now()).thenReturn(1_000L, 1_500L);
+
+    underTest.opened(session);
+    underTest.closed(session);
+    // closing twice is ignored
+    underTest.closed(session);
+
+    assertThat(underTest.getSessionLifetimes().getCount()).isEqualTo(1L);
+    assertThat(underTest.getSessionLifetimes().getSum()).isEqualTo(500L);
+    assertThat(underTest.getSessionLifetimes().getMax()).isEqualTo(500L);
+  }
+
+  @Test
+  public void report_sessions_open_for_long_time() {
+    when(system2.now()).thenReturn(1_000L);
+    underTest.opened(mock(DbSession.class));
+    when(system2.now()).thenReturn(1_500L);
+    underTest.opened(mock(DbSession.class));
+
+    when(system2.now()).thenReturn(1_000L + LONG_LIVED_SESSION_MS);
+    assertThat(underTest.getLongLivedSessionCount()).isEqualTo(0);
+    assertThat(underTest.getLongLivedSessions()).isEmpty();
+
+    when(system2.now()).thenReturn(1_501L + LONG_LIVED_SESSION_MS);
+    assertThat(underTest.getLongLivedSessionCount()).isEqualTo(2);
+    Map<String, SessionStatistics.LongLivedSessions> longLivedSessions = underTest.getLongLivedSessions();
+    assertThat(longLivedSessions).containsOnlyKeys(SessionStatisticsTest.class.getName());
+    assertThat(longLivedSessions.get(SessionStatisticsTest.class.getName()).getCount()).isEqualTo(2);
+    assertThat(longLivedSessions.get(SessionStatisticsTest.class.getName()).getMaxAgeMs()).isEqualTo(LONG_LIVED_SESSION_MS + 501);
+  }
+
+  @Test
+  public void count_each_long_lived_session_when_callers_are_not_tracked() {
+    SessionStatistics underTest = new SessionStatistics(system2, false);
+    when(system2.now()).thenReturn(1_000L);
+    underTest.opened(mock(DbSession.class));
+    underTest.opened(mock(DbSession.class));
+    underTest.opened(mock(DbSession.class));
+
+    when(system2.now()).thenReturn(1_001L + LONG_LIVED_SESSION_MS);
+    assertThat(underTest.getLongLivedSessionCount()).isEqualTo(3);
+    assertThat(underTest.getLongLivedSessions()).containsOnlyKeys("unknown");
+    assertThat(underTest.getLongLivedSessions().get("unknown").getCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void record_connection_waits_and_batch_flushes() {
+    underTest.connectionAcquired(10L);
+    underTest.connectionAcquired(20L);
+    underTest.batchFlushed(250);
+
+    assertThat(underTest.getConnectionWaits().getCount()).isEqualTo(2L);
+    assertThat(underTest.getConnectionWaits().getMean()).isEqualTo(15L);
+    assertThat(underTest.getConnectionWaits().getMax()).isEqualTo(20L);
+    assertThat(underTest.getBatchFlushes().getCount()).isEqualTo(1L);
+    assertThat(underTest.getBatchFlushes().getSum()).isEqualTo(250L);
+  }
+
+  @Test
+  public void mean_is_zero_when_no_values() {
+    assertThat(underTest.getSessionLifetimes().getMean()).isEqualTo(0L);
+    assertThat(underTest.getBatchFlushes().getMax()).isEqualTo(0L);
+  }
+}
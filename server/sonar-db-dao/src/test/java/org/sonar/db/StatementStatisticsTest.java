@@ -0,0 +1,97 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementStatisticsTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private StatementStatistics underTest = new StatementStatistics(1_000L);
+
+  @Test
+  public void group_executions_by_statement_id() {
+    underTest.add("Mapper.select", 5L, 10L);
+    underTest.add("Mapper.select", 50L, 2L);
+    underTest.add("Mapper.insert", 3L, 1L);
+
+    assertThat(underTest.getCount()).isEqualTo(3L);
+    assertThat(underTest.getTotalTimeMs()).isEqualTo(58L);
+    StatementStats select = underTest.getMostExpensive(10).get(0);
+    assertThat(select.getStatementId()).isEqualTo("Mapper.select");
+    assertThat(select.getCount()).isEqualTo(2L);
+    assertThat(select.getTotalTimeMs()).isEqualTo(55L);
+    assertThat(select.getMaxTimeMs()).isEqualTo(50L);
+    assertThat(select.getRows()).isEqualTo(12L);
+    assertThat(select.getBucketCounts()).containsExactly(1L, 1L, 0L, 0L, 0L);
+  }
+
+  @Test
+  public void count_slow_executions() {
+    assertThat(underTest.add("Mapper.select", 999L, 0L)).isFalse();
+    assertThat(underTest.add("Mapper.select", 1_000L, 0L)).isTrue();
+    assertThat(underTest.add("Mapper.select", 20_000L, 0L)).isTrue();
+
+    assertThat(underTest.getSlowCount()).isEqualTo(2L);
+    assertThat(underTest.getMostExpensive(1).get(0).getBucketCounts()).containsExactly(0L, 0L, 2L, 0L, 1L);
+  }
+
+  @Test
+  public void zero_threshold_disables_detection_of_slow_executions() {
+    StatementStatistics underTest = new StatementStatistics(0L);
+
+    assertThat(underTest.add("Mapper.select", 100_000L, 0L)).isFalse();
+    assertThat(underTest.getSlowCount()).isZero();
+  }
+
+  @Test
+  public void most_expensive_statements_are_sorted_by_descending_total_time() {
+    underTest.add("A", 10L, 0L);
+    underTest.add("B", 30L, 0L);
+    underTest.add("C", 20L, 0L);
+    underTest.add("A", 15L, 0L);
+
+    assertThat(underTest.getMostExpensive(2)).extracting(StatementStats::getStatementId).containsExactly("B", "A");
+    assertThat(underTest.getMostExpensive(10)).extracting(StatementStats::getStatementId).containsExactly("B", "A", "C");
+  }
+
+  @Test
+  public void toString_contains_histogram() {
+    underTest.add("A", 10L, 3L);
+    underTest.add("A", 30L, 1L);
+
+    assertThat(underTest.getMostExpensive(1).get(0).toString())
+      .isEqualTo("count=2, total=40ms, mean=20ms, max=30ms, rows=4, <=10ms=1, <=100ms=1, <=1s=0, <=10s=0, >10s=0");
+  }
+
+  @Test
+  public void fail_if_threshold_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Threshold of slow statements can not be negative: -1");
+
+    new StatementStatistics(-1L);
+  }
+}
@@ -73,6 +73,7 @@ public class CeActivityDaoTest {
     assertThat(dto.toString()).isNotEmpty();
     assertThat(dto.getErrorMessage()).isNull();
     assertThat(dto.getErrorStacktrace()).isNull();
+    assertThat(dto.getProfiling()).isNull();
     assertThat(dto.isHasScannerContext()).isFalse();
   }
 
@@ -109,6 +110,25 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isEqualTo(dto.getErrorStacktrace());
   }
 
+  @Test
+  public void test_insert_profiling() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", CeActivityDto.Status.SUCCESS)
+      .setProfiling("{\"steps\":[]}");
+    underTest.insert(db.getSession(), dto);
+
+    CeActivityDto read = underTest.selectByUuid(db.getSession(), "TASK_1").get();
+    assertThat(read.getProfiling()).isEqualTo("{\"steps\":[]}");
+  }
+
+  @Test
+  public void selectByQuery_does_not_populate_profiling_field() {
+    underTest.insert(db.getSession(), createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS).setProfiling("{\"steps\":[]}"));
+
+    List<CeActivityDto> dtos = underTest.selectByQuery(db.getSession(), new CeTaskQuery().setComponentUuid("PROJECT_1"), 0, 100);
+
+    assertThat(dtos).extracting(CeActivityDto::getProfiling).containsOnly((String) null);
+  }
+
   @Test
   public void test_insert_error_message_only() {
     CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", CeActivityDto.Status.FAILED);
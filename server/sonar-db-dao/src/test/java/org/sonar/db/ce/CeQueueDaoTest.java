@@ -31,6 +31,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.organization.OrganizationDto;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
@@ -125,61 +127,67 @@ public class CeQueueDaoTest {
   }
 
   @Test
-  public void peek_none_if_no_pendings() throws Exception {
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
-
-    // not pending, but in progress
-    insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
-  }
-
-  @Test
-  public void peek_oldest_pending() throws Exception {
+  public void peek_pending_task() throws Exception {
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
     system2.setNow(INIT_TIME + 3_000_000);
-    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
-
-    assertThat(db.countRowsOfTable("ce_queue")).isEqualTo(2);
-    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, PENDING);
 
-    // peek first one
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession());
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), TASK_UUID_1);
     assertThat(peek.isPresent()).isTrue();
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
     assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
-    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
+    assertThat(peek.get().getStartedAt()).isEqualTo(INIT_TIME + 3_000_000);
+    verifyCeQueueStatuses(new String[] {TASK_UUID_1}, new CeQueueDto.Status[] {IN_PROGRESS});
+  }
 
-    // peek second one
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isTrue();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
-    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
-    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS);
+  @Test
+  public void do_not_peek_task_which_is_not_pending() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
 
-    // no more pendings
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_1).isPresent()).isFalse();
+    assertThat(underTest.peek(db.getSession(), "UNKNOWN").isPresent()).isFalse();
   }
 
   @Test
-  public void do_not_peek_multiple_tasks_on_same_project_at_the_same_time() throws Exception {
-    // two pending tasks on the same project
+  public void do_not_peek_twice_the_same_task() throws Exception {
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
-    system2.setNow(INIT_TIME + 3_000_000);
-    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
 
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isTrue();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
-    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_1).isPresent()).isTrue();
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_1).isPresent()).isFalse();
+  }
 
-    // do not peek second task as long as the first one is in progress
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isFalse();
+  @Test
+  public void selectPendingAfterId_returns_pending_tasks_in_order_of_insertion() throws Exception {
+    assertThat(underTest.selectPendingAfterId(db.getSession(), 0L)).isEmpty();
 
-    // first one is finished
-    underTest.deleteByUuid(db.getSession(), TASK_UUID_1);
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, IN_PROGRESS);
+    insert(TASK_UUID_3, null, PENDING);
+
+    List<PendingCeTaskDto> tasks = underTest.selectPendingAfterId(db.getSession(), 0L);
+    assertThat(tasks).extracting(PendingCeTaskDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_3);
+    assertThat(tasks).extracting(PendingCeTaskDto::getComponentUuid).containsExactly(COMPONENT_UUID_1, null);
+    assertThat(tasks).extracting(PendingCeTaskDto::getTaskType).containsOnly(CeTaskTypes.REPORT);
+    assertThat(tasks).extracting(PendingCeTaskDto::getCreatedAt).containsExactly(INIT_TIME, INIT_TIME + 3_000_000);
+    assertThat(tasks.get(0).getId()).isLessThan(tasks.get(1).getId());
+
+    // only the tasks inserted after the given one
+    assertThat(underTest.selectPendingAfterId(db.getSession(), tasks.get(0).getId()))
+      .extracting(PendingCeTaskDto::getUuid).containsExactly(TASK_UUID_3);
+    assertThat(underTest.selectPendingAfterId(db.getSession(), tasks.get(1).getId())).isEmpty();
+  }
+
+  @Test
+  public void selectPendingAfterId_returns_organization_of_component() throws Exception {
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project = db.components().insertProject(organization);
+    insert(TASK_UUID_1, project.uuid(), PENDING);
+    insert(TASK_UUID_2, "missing", PENDING);
+    insert(TASK_UUID_3, null, PENDING);
+
+    assertThat(underTest.selectPendingAfterId(db.getSession(), 0L))
+      .extracting(PendingCeTaskDto::getOrganizationUuid)
+      .containsExactly(organization.getUuid(), null, null);
   }
 
   @Test
@@ -314,7 +322,7 @@ public class CeQueueDaoTest {
     db.commit();
   }
 
-  private void insert(String uuid, String componentUuid, CeQueueDto.Status status) {
+  private void insert(String uuid, @Nullable String componentUuid, CeQueueDto.Status status) {
     CeQueueDto dto = new CeQueueDto();
     dto.setUuid(uuid);
     dto.setTaskType(CeTaskTypes.REPORT);
@@ -42,12 +42,14 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.PROJECT;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
 import static org.sonar.api.resources.Qualifiers.VIEW;
 import static org.sonar.api.utils.DateUtils.parseDate;
 import static org.sonar.db.component.ComponentTesting.newDeveloper;
+import static org.sonar.db.component.ComponentTesting.newDirectory;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.db.component.ComponentTesting.newModuleDto;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
@@ -470,6 +472,45 @@ public class MeasureDaoTest {
     assertThat(result).hasSize(2).extracting(MeasureDto::getData).containsOnly("PROJECT_M1", "PROJECT_M2");
   }
 
+  @Test
+  public void select_past_measures_on_analysis_of_all_components_except_files() {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto directory = db.components().insertComponent(newDirectory(module, "src"));
+    ComponentDto file = db.components().insertComponent(newFileDto(directory));
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("PROJECT_M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("PROJECT_M2", OTHER_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID);
+    insertMeasure("PROJECT_M3", OTHER_ANALYSIS_UUID, project.uuid(), COMPLEXITY_METRIC_ID);
+    insertMeasure("PROJECT_M4", LAST_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasureOnPerson("PROJECT_M5", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID, A_PERSON_ID);
+    insertMeasure("MODULE_M1", OTHER_ANALYSIS_UUID, module.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("DIR_M1", OTHER_ANALYSIS_UUID, directory.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("FILE_M1", OTHER_ANALYSIS_UUID, file.uuid(), NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.selectPastMeasuresOnAnalysis(dbSession, OTHER_ANALYSIS_UUID, asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID),
+      context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result).extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId).containsOnly(
+      tuple(project.uuid(), NCLOC_METRIC_ID),
+      tuple(project.uuid(), COVERAGE_METRIC_ID),
+      tuple(module.uuid(), NCLOC_METRIC_ID),
+      tuple(directory.uuid(), NCLOC_METRIC_ID));
+    assertThat(result).extracting(PastMeasureDto::getPersonId).containsOnly((Long) null);
+  }
+
+  @Test
+  public void select_past_measures_on_analysis_does_nothing_if_no_metrics() {
+    List<PastMeasureDto> result = new ArrayList<>();
+
+    underTest.selectPastMeasuresOnAnalysis(dbSession, OTHER_ANALYSIS_UUID, emptyList(), context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result).isEmpty();
+  }
+
   private Optional<MeasureDto> selectSingle(MeasureQuery.Builder query) {
     return underTest.selectSingle(db.getSession(), query.build());
   }
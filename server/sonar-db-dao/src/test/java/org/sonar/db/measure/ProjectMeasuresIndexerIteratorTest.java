@@ -21,6 +21,7 @@ package org.sonar.db.measure;
 
 import com.google.common.collect.Maps;
 import java.util.Map;
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
@@ -240,6 +241,39 @@ public class ProjectMeasuresIndexerIteratorTest {
     assertThat(docsById).isEmpty();
   }
 
+  @Test
+  public void return_measures_of_each_project_when_loaded_in_same_batch() {
+    MetricDto metric = insertIntMetric("ncloc");
+    ComponentDto project1 = newProjectDto(dbTester.getDefaultOrganization());
+    SnapshotDto analysis1 = dbTester.components().insertProjectAndSnapshot(project1);
+    insertMeasure(project1, analysis1, metric, 10d);
+    ComponentDto project2 = newProjectDto(dbTester.getDefaultOrganization());
+    SnapshotDto analysis2 = dbTester.components().insertProjectAndSnapshot(project2);
+    insertMeasure(project2, analysis2, metric, 20d);
+    ComponentDto project3 = dbTester.components().insertComponent(newProjectDto(dbTester.getDefaultOrganization()));
+
+    Map<String, ProjectMeasures> docsById = createResultSetAndReturnDocsById();
+
+    assertThat(docsById).hasSize(3);
+    assertThat(docsById.get(project1.uuid()).getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 10d));
+    assertThat(docsById.get(project2.uuid()).getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 20d));
+    assertThat(docsById.get(project3.uuid()).getMeasures().getNumericMeasures()).isEmpty();
+  }
+
+  @Test
+  public void select_project() {
+    ComponentDto project = newProjectDto(dbTester.getDefaultOrganization()).setKey("Project-Key").setTagsString("platform,java");
+    SnapshotDto analysis = dbTester.components().insertProjectAndSnapshot(project);
+
+    Optional<ProjectMeasuresIndexerIterator.Project> result = ProjectMeasuresIndexerIterator.selectProject(dbSession, project.uuid());
+
+    assertThat(result).isPresent();
+    assertThat(result.get().getKey()).isEqualTo("Project-Key");
+    assertThat(result.get().getTags()).containsExactly("platform", "java");
+    assertThat(result.get().getAnalysisUuid()).isEqualTo(analysis.getUuid());
+    assertThat(ProjectMeasuresIndexerIterator.selectProject(dbSession, "UNKNOWN")).isEmpty();
+  }
+
   private Map<String, ProjectMeasures> createResultSetAndReturnDocsById() {
     return createResultSetAndReturnDocsById(null);
   }
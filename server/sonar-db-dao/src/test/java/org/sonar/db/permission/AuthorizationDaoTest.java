@@ -35,7 +35,9 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.core.permission.GlobalPermissions.QUALITY_GATE_ADMIN;
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -561,4 +563,38 @@ public class AuthorizationDaoTest {
 
     assertThat(underTest.selectProjectPermissions(dbSession, project.uuid(), user.getId())).containsOnly(UserRole.CODEVIEWER, UserRole.ISSUE_ADMIN, UserRole.USER);
   }
+
+  @Test
+  public void selectProjectPermissions_of_many_projects_returns_permissions_of_logged_in_user_through_all_possible_configurations() {
+    ComponentDto project1 = db.components().insertProject(org);
+    ComponentDto project2 = db.components().insertProject(org);
+    ComponentDto project3 = db.components().insertProject(org);
+    db.users().insertProjectPermissionOnUser(user, UserRole.CODEVIEWER, project1);
+    db.users().insertProjectPermissionOnAnyone(UserRole.ISSUE_ADMIN, project1);
+    db.users().insertProjectPermissionOnGroup(group1, UserRole.USER, project2);
+    db.users().insertProjectPermissionOnGroup(group2, UserRole.ADMIN, project2);
+    db.users().insertProjectPermissionOnUser(db.users().insertUser(), UserRole.USER, project3);
+    db.users().insertMember(group1, user);
+
+    assertThat(underTest.selectProjectPermissions(dbSession, asList(project1.uuid(), project2.uuid(), project3.uuid(), "does_not_exist"), user.getId()))
+      .extracting(ProjectPermissionDto::getProjectUuid, ProjectPermissionDto::getPermission)
+      .containsOnly(
+        tuple(project1.uuid(), UserRole.CODEVIEWER),
+        tuple(project1.uuid(), UserRole.ISSUE_ADMIN),
+        tuple(project2.uuid(), UserRole.USER));
+    assertThat(underTest.selectProjectPermissions(dbSession, Collections.emptyList(), user.getId())).isEmpty();
+  }
+
+  @Test
+  public void selectProjectPermissionsOfAnonymous_of_many_projects_returns_permissions_of_anonymous_user() {
+    ComponentDto project1 = db.components().insertProject(org);
+    ComponentDto project2 = db.components().insertProject(org);
+    db.users().insertProjectPermissionOnAnyone(UserRole.CODEVIEWER, project1);
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project1);
+    db.users().insertProjectPermissionOnGroup(group1, UserRole.USER, project2);
+
+    assertThat(underTest.selectProjectPermissionsOfAnonymous(dbSession, asList(project1.uuid(), project2.uuid())))
+      .extracting(ProjectPermissionDto::getProjectUuid, ProjectPermissionDto::getPermission)
+      .containsOnly(tuple(project1.uuid(), UserRole.CODEVIEWER));
+  }
 }
@@ -25,6 +25,7 @@ import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -146,6 +147,33 @@ public class PropertiesDaoTest {
       .containsOnly("user1", "user2");
   }
 
+  @Test
+  public void selectNotificationSubscribersOfChannels() throws SQLException {
+    int userId1 = insertUser("user1");
+    int userId2 = insertUser("user2");
+    ComponentDto projectDto = insertProject("PROJECT_A");
+    long projectId = projectDto.getId();
+    String projectKey = projectDto.key();
+
+    insertProperty("notification.Dispatcher.Email", "true", null, userId2);
+    insertProperty("notification.Dispatcher.Twitter", "true", projectId, userId1);
+    insertProperty("notification.Dispatcher.Twitter", "true", 56L, userId2);
+    insertProperty("notification.Dispatcher.Gtalk", "true", null, userId1);
+    insertProperty("notification.OtherDispatcher.Email", "true", null, userId1);
+
+    assertThat(underTest.selectNotificationSubscribersOfChannels("Dispatcher", Arrays.asList("Email", "Twitter"), projectKey))
+      .extracting(NotificationSubscriberDto::getLogin, NotificationSubscriberDto::getPropKey)
+      .containsOnly(
+        tuple("user2", "notification.Dispatcher.Email"),
+        tuple("user1", "notification.Dispatcher.Twitter"));
+
+    assertThat(underTest.selectNotificationSubscribersOfChannels("Dispatcher", Arrays.asList("Email", "Twitter"), null))
+      .extracting(NotificationSubscriberDto::getLogin, NotificationSubscriberDto::getPropKey)
+      .containsOnly(tuple("user2", "notification.Dispatcher.Email"));
+
+    assertThat(underTest.selectNotificationSubscribersOfChannels("Dispatcher", Collections.emptyList(), projectKey)).isEmpty();
+  }
+
   @Test
   public void hasNotificationSubscribers() throws SQLException {
     int userId1 = insertUser("user1");
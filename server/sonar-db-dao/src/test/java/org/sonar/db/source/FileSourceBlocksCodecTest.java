@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.source.FileSourceBlocksCodec.LINES_PER_BLOCK;
+
+public class FileSourceBlocksCodecTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_decode_all_lines() throws IOException {
+    DbFileSources.Data data = newData(3 * LINES_PER_BLOCK + 10);
+
+    byte[] bytes = FileSourceBlocksCodec.encode(data);
+
+    assertThat(FileSourceBlocksCodec.isBlockEncoded(bytes)).isTrue();
+    assertThat(FileSourceBlocksCodec.decode(bytes)).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_empty_file() throws IOException {
+    DbFileSources.Data data = DbFileSources.Data.getDefaultInstance();
+
+    byte[] bytes = FileSourceBlocksCodec.encode(data);
+
+    assertThat(FileSourceBlocksCodec.decode(bytes)).isEqualTo(data);
+  }
+
+  @Test
+  public void decode_range_of_lines_over_many_blocks() throws IOException {
+    DbFileSources.Data data = newData(3 * LINES_PER_BLOCK + 10);
+    byte[] bytes = FileSourceBlocksCodec.encode(data);
+
+    List<DbFileSources.Line> lines = FileSourceBlocksCodec.decodeLines(bytes, LINES_PER_BLOCK - 1, 2 * LINES_PER_BLOCK + 2);
+
+    assertThat(lines).hasSize(LINES_PER_BLOCK + 4);
+    assertThat(lines.get(0)).isEqualTo(data.getLines(LINES_PER_BLOCK - 2));
+    assertThat(lines.get(lines.size() - 1)).isEqualTo(data.getLines(2 * LINES_PER_BLOCK + 1));
+  }
+
+  @Test
+  public void decode_range_of_lines_beyond_end_of_file() throws IOException {
+    DbFileSources.Data data = newData(10);
+    byte[] bytes = FileSourceBlocksCodec.encode(data);
+
+    assertThat(FileSourceBlocksCodec.decodeLines(bytes, 8, 20)).extracting(DbFileSources.Line::getLine).containsExactly(8, 9, 10);
+    assertThat(FileSourceBlocksCodec.decodeLines(bytes, 11, 20)).isEmpty();
+  }
+
+  @Test
+  public void FileSourceDto_decodes_data_of_previous_format() {
+    DbFileSources.Data data = newData(20);
+    FileSourceDto dto = new FileSourceDto().setBinaryData(legacyEncode(data));
+
+    assertThat(dto.getSourceData()).isEqualTo(data);
+    assertThat(dto.getSourceLines(5, 6)).extracting(DbFileSources.Line::getLine).containsExactly(5, 6);
+  }
+
+  @Test
+  public void FileSourceDto_decodes_range_of_lines() {
+    DbFileSources.Data data = newData(2 * LINES_PER_BLOCK);
+    FileSourceDto dto = new FileSourceDto().setSourceData(data);
+
+    assertThat(dto.getSourceLines(LINES_PER_BLOCK, LINES_PER_BLOCK + 1)).containsExactly(data.getLines(LINES_PER_BLOCK - 1), data.getLines(LINES_PER_BLOCK));
+  }
+
+  @Test
+  public void fail_to_decode_lines_if_data_is_not_encoded_by_blocks() throws IOException {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Source data is not encoded by blocks of lines");
+
+    FileSourceBlocksCodec.decodeLines(legacyEncode(newData(2)), 1, 2);
+  }
+
+  private static DbFileSources.Data newData(int nbLines) {
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= nbLines; i++) {
+      DbFileSources.Line.Builder line = data.addLinesBuilder()
+        .setLine(i)
+        .setSource("line " + i)
+        .setHighlighting("0,4,k")
+        .setLineHits(i);
+      if (i % 5 != 0) {
+        line.setScmAuthor("author" + (i % 3)).setScmRevision("rev" + (i % 7)).setScmDate(1_500_000_000_000L + i);
+      }
+    }
+    return data.build();
+  }
+
+  private static byte[] legacyEncode(DbFileSources.Data data) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(bytes)) {
+      data.writeTo(compressedOutput);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+}
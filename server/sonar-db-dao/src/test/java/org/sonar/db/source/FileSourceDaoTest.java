@@ -21,6 +21,8 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -29,6 +31,7 @@ import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto.Type;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -59,6 +62,14 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_source_data_hash() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectSourceDataHash(session, "FILE1_UUID")).isEqualTo("hash");
+    assertThat(underTest.selectSourceDataHash(session, "UNKNOWN")).isNull();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -110,6 +121,37 @@ public class FileSourceDaoTest {
       "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
   }
 
+  @Test
+  public void select_scm_data_by_project_uuid() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    DbFileSources.Scm scm = DbFileSources.Scm.newBuilder()
+      .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setRevision("rev1").setAuthor("john").setDate(1500000000000L))
+      .addChangesetIndexByLine(1)
+      .addChangesetIndexByLine(1)
+      .build();
+    insertScm("PRJ_UUID", "FILE1_UUID", scm);
+    insertScm("OTHER_PRJ_UUID", "FILE3_UUID", scm);
+    session.commit();
+
+    List<FileSourceDto> result = new ArrayList<>();
+    underTest.selectScmDataByProjectUuid(session, "PRJ_UUID", context -> result.add((FileSourceDto) context.getResultObject()));
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(result.get(0).getSrcHash()).isEqualTo("SCM_SRC_HASH");
+    assertThat(result.get(0).getScmData()).isEqualTo(scm);
+  }
+
+  private void insertScm(String projectUuid, String fileUuid, DbFileSources.Scm scm) {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid(projectUuid)
+      .setFileUuid(fileUuid)
+      .setScmData(scm)
+      .setSrcHash("SCM_SRC_HASH")
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000000L));
+  }
+
   @Test
   public void selectLineHashes_does_not_fail_when_lineshashes_is_null() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
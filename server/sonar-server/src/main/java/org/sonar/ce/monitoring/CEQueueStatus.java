@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.Map;
+
 public interface CEQueueStatus {
 
   /**
@@ -85,4 +87,17 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Records the time spent in queue by a task of the specified type, between its submission and the start of
+   * its processing.
+   *
+   * @throws IllegalArgumentException if waitTime is < 0
+   */
+  void addWaitTime(String taskType, long waitTime);
+
+  /**
+   * Distribution of the times spent in queue since instance startup, by task type.
+   */
+  Map<String, WaitTimeHistogram> getWaitTimeHistograms();
 }
@@ -0,0 +1,205 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.text.JsonWriter;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.ce.monitoring.ThreadResourceUsage.UNKNOWN;
+
+/**
+ * Resources consumed by each step of the Compute Engine task executed by the current thread. The profile
+ * is persisted as JSON in column CE_ACTIVITY.PROFILING when the task is removed from the queue.
+ */
+public class CeTaskProfile {
+
+  private static final ThreadLocal<CeTaskProfile> CURRENT = new ThreadLocal<>();
+
+  private final List<Step> steps = new ArrayList<>();
+
+  public static CeTaskProfile startForCurrentThread() {
+    CeTaskProfile profile = new CeTaskProfile();
+    CURRENT.set(profile);
+    return profile;
+  }
+
+  @CheckForNull
+  public static CeTaskProfile getForCurrentThread() {
+    return CURRENT.get();
+  }
+
+  public static void clearForCurrentThread() {
+    CURRENT.remove();
+  }
+
+  public CeTaskProfile addStep(Step step) {
+    steps.add(requireNonNull(step));
+    return this;
+  }
+
+  public List<Step> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  public static String toJson(CeTaskProfile profile) {
+    StringWriter json = new StringWriter();
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      writer.beginObject().name("steps").beginArray();
+      for (Step step : profile.steps) {
+        writer.beginObject()
+          .prop("description", step.description)
+          .prop("wallTimeMs", step.wallTimeMs);
+        writeIfKnown(writer, "cpuTimeMs", step.cpuTimeMs);
+        writeIfKnown(writer, "allocatedBytes", step.allocatedBytes);
+        writer
+          .prop("dbCalls", step.dbCalls)
+          .prop("dbTimeMs", step.dbTimeMs)
+          .prop("searchCalls", step.searchCalls)
+          .prop("searchTimeMs", step.searchTimeMs)
+          .endObject();
+      }
+      writer.endArray().endObject();
+    }
+    return json.toString();
+  }
+
+  private static void writeIfKnown(JsonWriter writer, String name, long value) {
+    if (value != UNKNOWN) {
+      writer.prop(name, value);
+    }
+  }
+
+  public static CeTaskProfile fromJson(String json) {
+    CeTaskProfile profile = new CeTaskProfile();
+    for (JsonElement jsonElement : new JsonParser().parse(json).getAsJsonObject().getAsJsonArray("steps")) {
+      JsonObject jsonStep = jsonElement.getAsJsonObject();
+      profile.addStep(new Step(jsonStep.get("description").getAsString())
+        .setWallTimeMs(readLong(jsonStep, "wallTimeMs"))
+        .setCpuTimeMs(readLong(jsonStep, "cpuTimeMs"))
+        .setAllocatedBytes(readLong(jsonStep, "allocatedBytes"))
+        .setDbCalls(readLong(jsonStep, "dbCalls"))
+        .setDbTimeMs(readLong(jsonStep, "dbTimeMs"))
+        .setSearchCalls(readLong(jsonStep, "searchCalls"))
+        .setSearchTimeMs(readLong(jsonStep, "searchTimeMs")));
+    }
+    return profile;
+  }
+
+  private static long readLong(JsonObject jsonStep, String name) {
+    JsonElement value = jsonStep.get(name);
+    return value == null ? UNKNOWN : value.getAsLong();
+  }
+
+  public static final class Step {
+    private final String description;
+    private long wallTimeMs;
+    private long cpuTimeMs = UNKNOWN;
+    private long allocatedBytes = UNKNOWN;
+    private long dbCalls;
+    private long dbTimeMs;
+    private long searchCalls;
+    private long searchTimeMs;
+
+    public Step(String description) {
+      this.description = requireNonNull(description);
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public long getWallTimeMs() {
+      return wallTimeMs;
+    }
+
+    public Step setWallTimeMs(long wallTimeMs) {
+      this.wallTimeMs = wallTimeMs;
+      return this;
+    }
+
+    /**
+     * @return {@link ThreadResourceUsage#UNKNOWN} if CPU time is not measured by the JVM
+     */
+    public long getCpuTimeMs() {
+      return cpuTimeMs;
+    }
+
+    public Step setCpuTimeMs(long cpuTimeMs) {
+      this.cpuTimeMs = cpuTimeMs;
+      return this;
+    }
+
+    /**
+     * @return {@link ThreadResourceUsage#UNKNOWN} if allocated memory is not measured by the JVM
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public Step setAllocatedBytes(long allocatedBytes) {
+      this.allocatedBytes = allocatedBytes;
+      return this;
+    }
+
+    public long getDbCalls() {
+      return dbCalls;
+    }
+
+    public Step setDbCalls(long dbCalls) {
+      this.dbCalls = dbCalls;
+      return this;
+    }
+
+    public long getDbTimeMs() {
+      return dbTimeMs;
+    }
+
+    public Step setDbTimeMs(long dbTimeMs) {
+      this.dbTimeMs = dbTimeMs;
+      return this;
+    }
+
+    public long getSearchCalls() {
+      return searchCalls;
+    }
+
+    public Step setSearchCalls(long searchCalls) {
+      this.searchCalls = searchCalls;
+      return this;
+    }
+
+    public long getSearchTimeMs() {
+      return searchTimeMs;
+    }
+
+    public Step setSearchTimeMs(long searchTimeMs) {
+      this.searchTimeMs = searchTimeMs;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.sonar.core.util.CallStats;
+
+import static org.sonar.core.util.CallStats.Type.DB;
+import static org.sonar.core.util.CallStats.Type.SEARCH;
+
+/**
+ * Snapshot of the resources consumed by the current thread since its start. CPU time and allocated memory
+ * are {@link #UNKNOWN} when not supported or disabled in the JVM.
+ */
+public final class ThreadResourceUsage {
+
+  public static final long UNKNOWN = -1L;
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final long wallTimeMs;
+  private final long cpuTimeNs;
+  private final long allocatedBytes;
+  private final long dbCalls;
+  private final long dbTimeMs;
+  private final long searchCalls;
+  private final long searchTimeMs;
+
+  private ThreadResourceUsage() {
+    this.wallTimeMs = System.currentTimeMillis();
+    this.cpuTimeNs = currentThreadCpuTime();
+    this.allocatedBytes = currentThreadAllocatedBytes();
+    this.dbCalls = CallStats.getCount(DB);
+    this.dbTimeMs = CallStats.getTimeMs(DB);
+    this.searchCalls = CallStats.getCount(SEARCH);
+    this.searchTimeMs = CallStats.getTimeMs(SEARCH);
+  }
+
+  public static ThreadResourceUsage current() {
+    return new ThreadResourceUsage();
+  }
+
+  /**
+   * Resources consumed by the current thread between this snapshot and now.
+   */
+  public CeTaskProfile.Step toStep(String description) {
+    ThreadResourceUsage now = current();
+    long cpuTimeNsDelta = delta(cpuTimeNs, now.cpuTimeNs);
+    return new CeTaskProfile.Step(description)
+      .setWallTimeMs(now.wallTimeMs - wallTimeMs)
+      .setCpuTimeMs(cpuTimeNsDelta == UNKNOWN ? UNKNOWN : (cpuTimeNsDelta / 1_000_000L))
+      .setAllocatedBytes(delta(allocatedBytes, now.allocatedBytes))
+      .setDbCalls(now.dbCalls - dbCalls)
+      .setDbTimeMs(now.dbTimeMs - dbTimeMs)
+      .setSearchCalls(now.searchCalls - searchCalls)
+      .setSearchTimeMs(now.searchTimeMs - searchTimeMs);
+  }
+
+  private static long delta(long before, long after) {
+    if (before == UNKNOWN || after == UNKNOWN) {
+      return UNKNOWN;
+    }
+    return after - before;
+  }
+
+  private static long currentThreadCpuTime() {
+    if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+      return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+    return UNKNOWN;
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+        return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return UNKNOWN;
+  }
+}
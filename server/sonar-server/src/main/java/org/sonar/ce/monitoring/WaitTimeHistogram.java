@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Thread-safe distribution of the times spent by tasks waiting in queue, in buckets of increasing upper bounds.
+ */
+public class WaitTimeHistogram {
+
+  private static final long[] BUCKET_UPPER_BOUNDS_MS = {1_000L, 10_000L, 60_000L, 10 * 60_000L, 60 * 60_000L};
+  private static final String[] BUCKET_LABELS = {"<=1s", "<=10s", "<=1m", "<=10m", "<=1h", ">1h"};
+
+  private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_LABELS.length);
+  private final AtomicLong count = new AtomicLong(0);
+  private final AtomicLong totalTime = new AtomicLong(0);
+  private final AtomicLong maxTime = new AtomicLong(0);
+
+  public void add(long waitTimeInMs) {
+    checkArgument(waitTimeInMs >= 0, "Wait time can not be < 0");
+    bucketCounts.incrementAndGet(bucketOf(waitTimeInMs));
+    count.incrementAndGet();
+    totalTime.addAndGet(waitTimeInMs);
+    maxTime.accumulateAndGet(waitTimeInMs, Math::max);
+  }
+
+  private static int bucketOf(long waitTimeInMs) {
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+      if (waitTimeInMs <= BUCKET_UPPER_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_MS.length;
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getTotalTime() {
+    return totalTime.get();
+  }
+
+  public long getMaxTime() {
+    return maxTime.get();
+  }
+
+  /**
+   * Counts of tasks per bucket, in the order of {@link #getBucketLabels()}
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[bucketCounts.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = bucketCounts.get(i);
+    }
+    return counts;
+  }
+
+  public static String[] getBucketLabels() {
+    return BUCKET_LABELS.clone();
+  }
+
+  /**
+   * For example "count=3, mean=1200ms, max=2500ms, <=1s=1, <=10s=2, <=1m=0, <=10m=0, <=1h=0, >1h=0"
+   */
+  @Override
+  public String toString() {
+    long nb = getCount();
+    StringBuilder sb = new StringBuilder();
+    sb.append("count=").append(nb)
+      .append(", mean=").append(nb == 0 ? 0 : (getTotalTime() / nb)).append("ms")
+      .append(", max=").append(getMaxTime()).append("ms");
+    long[] counts = getBucketCounts();
+    for (int i = 0; i < counts.length; i++) {
+      sb.append(", ").append(BUCKET_LABELS[i]).append('=').append(counts[i]);
+    }
+    return sb.toString();
+  }
+}
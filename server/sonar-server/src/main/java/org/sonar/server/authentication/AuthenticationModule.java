@@ -42,6 +42,7 @@ public class AuthenticationModule extends Module {
       UserSessionInitializer.class,
       JwtSerializer.class,
       JwtHttpHandler.class,
+      JwtSessionCache.class,
       JwtCsrfVerifier.class,
       LoginAction.class,
       LogoutAction.class,
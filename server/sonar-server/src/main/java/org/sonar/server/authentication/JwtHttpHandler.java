@@ -65,13 +65,16 @@ public class JwtHttpHandler {
   private final System2 system2;
   private final DbClient dbClient;
   private final JwtSerializer jwtSerializer;
+  private final JwtSessionCache sessionCache;
 
   // This timeout is used to disconnect the user we he has not browse any page for a while
   private final int sessionTimeoutInSeconds;
   private final JwtCsrfVerifier jwtCsrfVerifier;
 
-  public JwtHttpHandler(System2 system2, DbClient dbClient, Settings settings, JwtSerializer jwtSerializer, JwtCsrfVerifier jwtCsrfVerifier) {
+  public JwtHttpHandler(System2 system2, DbClient dbClient, Settings settings, JwtSerializer jwtSerializer, JwtCsrfVerifier jwtCsrfVerifier,
+    JwtSessionCache sessionCache) {
     this.jwtSerializer = jwtSerializer;
+    this.sessionCache = sessionCache;
     this.dbClient = dbClient;
     this.system2 = system2;
     this.sessionTimeoutInSeconds = getSessionTimeoutInSeconds(settings);
@@ -126,13 +129,20 @@ public class JwtHttpHandler {
   }
 
   private Optional<Token> validateToken(String tokenEncoded, HttpServletRequest request, HttpServletResponse response) {
-    Optional<Claims> claims = jwtSerializer.decode(tokenEncoded);
-    if (!claims.isPresent()) {
-      return Optional.empty();
+    // signature of the token is verified and user is loaded only once per cache TTL
+    JwtSessionCache.Session cachedSession = sessionCache.get(tokenEncoded);
+    Claims token;
+    if (cachedSession == null) {
+      Optional<Claims> claims = jwtSerializer.decode(tokenEncoded);
+      if (!claims.isPresent()) {
+        return Optional.empty();
+      }
+      token = claims.get();
+    } else {
+      token = cachedSession.getClaims();
     }
 
     Date now = new Date(system2.now());
-    Claims token = claims.get();
     if (now.after(addSeconds(token.getIssuedAt(), SESSION_DISCONNECT_IN_SECONDS))) {
       return Optional.empty();
     }
@@ -142,11 +152,15 @@ public class JwtHttpHandler {
       refreshToken(token, request, response);
     }
 
+    if (cachedSession != null) {
+      return Optional.of(new Token(cachedSession.getUser(), token));
+    }
     Optional<UserDto> user = selectUserFromDb(token.getSubject());
     if (!user.isPresent()) {
       return Optional.empty();
     }
-    return Optional.of(new Token(user.get(), claims.get()));
+    sessionCache.put(tokenEncoded, token, user.get());
+    return Optional.of(new Token(user.get(), token));
   }
 
   private static Date getLastRefreshDate(Claims token) {
@@ -162,6 +176,7 @@ public class JwtHttpHandler {
   }
 
   public void removeToken(HttpServletRequest request, HttpServletResponse response) {
+    getTokenFromCookie(request).ifPresent(sessionCache::invalidate);
     response.addCookie(createCookie(request, JWT_COOKIE, null, 0));
     jwtCsrfVerifier.removeState(request, response);
   }
@@ -0,0 +1,184 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.authentication;
+
+import io.jsonwebtoken.Claims;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.db.user.UserDto;
+import org.sonar.server.platform.monitoring.Monitor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache of the JWT sessions which have already been verified, so that the signature of the token is not verified
+ * and the user is not loaded from db on each request.
+ * <p>
+ * Sessions are identified by the encoded token, which includes its signature, so a forged token can't hit the cache.
+ * Entries are kept for at most {@link #TTL_IN_SECONDS_PROPERTY} seconds and are removed when the user is deactivated
+ * or when its root flag is changed.
+ * </p>
+ */
+@ServerSide
+public class JwtSessionCache implements Monitor {
+
+  static final String MAX_SIZE_PROPERTY = "sonar.web.sessionCache.maxSize";
+  static final String TTL_IN_SECONDS_PROPERTY = "sonar.web.sessionCache.ttlInSeconds";
+  private static final int DEFAULT_MAX_SIZE = 10_000;
+  private static final int DEFAULT_TTL_IN_SECONDS = 60;
+
+  private final System2 system2;
+  private final int maxSize;
+  private final long ttlInMs;
+  private final Map<String, Session> sessionsByToken;
+
+  // monitoring
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public JwtSessionCache(Settings settings, System2 system2) {
+    this.system2 = system2;
+    this.maxSize = getPositiveOrZero(settings, MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
+    this.ttlInMs = getPositiveOrZero(settings, TTL_IN_SECONDS_PROPERTY, DEFAULT_TTL_IN_SECONDS) * 1_000L;
+    this.sessionsByToken = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+        boolean evicted = size() > maxSize;
+        if (evicted) {
+          evictions.incrementAndGet();
+        }
+        return evicted;
+      }
+    };
+  }
+
+  private static int getPositiveOrZero(Settings settings, String property, int defaultValue) {
+    if (!settings.hasKey(property)) {
+      return defaultValue;
+    }
+    int value = settings.getInt(property);
+    checkArgument(value >= 0, "Property %s must be positive. Got %s.", property, value);
+    return value;
+  }
+
+  boolean isEnabled() {
+    return maxSize > 0 && ttlInMs > 0;
+  }
+
+  /**
+   * @return the session of the token, or {@code null} if the token has not been verified yet or if its session has expired
+   */
+  @CheckForNull
+  synchronized Session get(String encodedToken) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Session session = sessionsByToken.get(encodedToken);
+    if (session != null && session.expiresAt <= system2.now()) {
+      sessionsByToken.remove(encodedToken);
+      session = null;
+    }
+    if (session == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return session;
+  }
+
+  /**
+   * Must be called only when the token is verified and the user is loaded from db
+   */
+  synchronized void put(String encodedToken, Claims claims, UserDto user) {
+    if (!isEnabled()) {
+      return;
+    }
+    long expiresAt = Math.min(system2.now() + ttlInMs, claims.getExpiration().getTime());
+    sessionsByToken.put(encodedToken, new Session(claims, user, expiresAt));
+  }
+
+  synchronized void invalidate(String encodedToken) {
+    if (sessionsByToken.remove(encodedToken) != null) {
+      invalidations.incrementAndGet();
+    }
+  }
+
+  /**
+   * Removes all the sessions of the user, for example when it is deactivated
+   */
+  public synchronized void invalidateUser(String login) {
+    sessionsByToken.values().removeIf(session -> {
+      boolean removed = login.equals(session.user.getLogin());
+      if (removed) {
+        invalidations.incrementAndGet();
+      }
+      return removed;
+    });
+  }
+
+  synchronized int size() {
+    return sessionsByToken.size();
+  }
+
+  @Override
+  public String name() {
+    return "Authentication Session Cache";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Size", size());
+    attributes.put("Max Size", maxSize);
+    attributes.put("TTL (s)", ttlInMs / 1_000L);
+    attributes.put("Hits", hits.get());
+    attributes.put("Misses", misses.get());
+    attributes.put("Evictions", evictions.get());
+    attributes.put("Invalidations", invalidations.get());
+    return attributes;
+  }
+
+  static class Session {
+    private final Claims claims;
+    private final UserDto user;
+    private final long expiresAt;
+
+    private Session(Claims claims, UserDto user, long expiresAt) {
+      this.claims = claims;
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+
+    Claims getClaims() {
+      return claims;
+    }
+
+    UserDto getUser() {
+      return user;
+    }
+  }
+}
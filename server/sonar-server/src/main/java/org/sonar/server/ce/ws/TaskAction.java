@@ -69,7 +69,8 @@ public class TaskAction implements CeWsAction {
     WebService.NewAction action = controller.createAction(ACTION)
       .setDescription("Give Compute Engine task details such as type, status, duration and associated component.<br />" +
         "Requires 'Administer System' or 'Execute Analysis' permission.<br/>" +
-        "Since 6.1, field \"logs\" is deprecated and its value is always false.")
+        "Since 6.1, field \"logs\" is deprecated and its value is always false.<br/>" +
+        "Since 6.4, the resources consumed by each step of the task are returned by the additional field \"profiling\".")
       .setResponseExample(getClass().getResource("task-example.json"))
       .setSince("5.2")
       .setHandler(this);
@@ -101,6 +102,7 @@ public class TaskAction implements CeWsAction {
         checkPermission(component);
         Set<AdditionalField> additionalFields = AdditionalField.getFromRequest(wsRequest);
         maskErrorStacktrace(ceActivityDto, additionalFields);
+        maskProfiling(ceActivityDto, additionalFields);
         wsTaskResponse.setTask(
           wsTaskFormatter.formatActivity(dbSession, ceActivityDto, component, extractScannerContext(dbSession, ceActivityDto, additionalFields)));
       }
@@ -135,6 +137,12 @@ public class TaskAction implements CeWsAction {
     }
   }
 
+  private static void maskProfiling(CeActivityDto ceActivityDto, Set<AdditionalField> additionalFields) {
+    if (!additionalFields.contains(AdditionalField.PROFILING)) {
+      ceActivityDto.setProfiling(null);
+    }
+  }
+
   @CheckForNull
   private String extractScannerContext(DbSession dbSession, CeActivityDto activityDto, Set<AdditionalField> additionalFields) {
     if (additionalFields.contains(AdditionalField.SCANNER_CONTEXT)) {
@@ -146,7 +154,8 @@ public class TaskAction implements CeWsAction {
 
   private enum AdditionalField {
     STACKTRACE("stacktrace"),
-    SCANNER_CONTEXT("scannerContext");
+    SCANNER_CONTEXT("scannerContext"),
+    PROFILING("profiling");
 
     private final String label;
 
@@ -31,6 +31,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -44,6 +45,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.emptyMap;
 import static org.sonar.api.utils.DateUtils.formatDateTime;
+import static org.sonar.ce.monitoring.ThreadResourceUsage.UNKNOWN;
 import static org.sonar.core.util.Protobuf.setNullable;
 
 /**
@@ -133,6 +135,27 @@ public class TaskFormatter {
     setNullable(dto.getErrorStacktrace(), builder::setErrorStacktrace);
     setNullable(scannerContext, builder::setScannerContext);
     builder.setHasScannerContext(dto.isHasScannerContext());
+    setNullable(dto.getProfiling(), builder::setProfiling, TaskFormatter::formatProfiling);
+    return builder.build();
+  }
+
+  private static WsCe.TaskProfiling formatProfiling(String json) {
+    WsCe.TaskProfiling.Builder builder = WsCe.TaskProfiling.newBuilder();
+    for (CeTaskProfile.Step step : CeTaskProfile.fromJson(json).getSteps()) {
+      WsCe.StepProfiling.Builder stepBuilder = builder.addStepsBuilder()
+        .setDescription(step.getDescription())
+        .setWallTimeMs(step.getWallTimeMs())
+        .setDbCalls(step.getDbCalls())
+        .setDbTimeMs(step.getDbTimeMs())
+        .setSearchCalls(step.getSearchCalls())
+        .setSearchTimeMs(step.getSearchTimeMs());
+      if (step.getCpuTimeMs() != UNKNOWN) {
+        stepBuilder.setCpuTimeMs(step.getCpuTimeMs());
+      }
+      if (step.getAllocatedBytes() != UNKNOWN) {
+        stepBuilder.setAllocatedBytes(step.getAllocatedBytes());
+      }
+    }
     return builder.build();
   }
 
@@ -26,6 +26,13 @@ public interface CeConfiguration {
    */
   int getWorkerCount();
 
+  /**
+   * The maximum number of workers when the number of workers is adjusted to the load of the queue, in which case
+   * {@link #getWorkerCount()} is the minimum number of workers. Equals {@link #getWorkerCount()} when the number
+   * of workers is fixed.
+   */
+  int getMaxWorkerCount();
+
   /**
    * The delay in milliseconds before calling another {@link org.sonar.server.computation.taskprocessor.CeWorkerCallable}
    * when previous one had nothing to do.
@@ -30,11 +30,14 @@ import static java.lang.String.format;
 
 /**
  * Immutable implementation of {@link CeConfiguration} which takes value returned by
- * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
- * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY},
+ * value returned by {@link CeConfiguration#getMaxWorkerCount()} from property
+ * {@link CeConfigurationImpl#CE_MAX_WORKERS_COUNT_PROPERTY} and always returns {@link #DEFAULT_QUEUE_POLLING_DELAY}
+ * when {@link CeConfiguration#getQueuePollingDelay()} is called.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   public static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  public static final String CE_MAX_WORKERS_COUNT_PROPERTY = "sonar.ce.maxWorkerCount";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
@@ -45,6 +48,7 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   protected static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
 
   private final int workerCount;
+  private final int maxWorkerCount;
 
   public CeConfigurationImpl(Settings settings) {
     String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
@@ -53,6 +57,12 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     } else {
       this.workerCount = parseStringValue(workerCountAsStr);
     }
+    String maxWorkerCountAsStr = settings.getString(CE_MAX_WORKERS_COUNT_PROPERTY);
+    if (maxWorkerCountAsStr == null || maxWorkerCountAsStr.isEmpty()) {
+      this.maxWorkerCount = workerCount;
+    } else {
+      this.maxWorkerCount = parseMaxWorkerCount(maxWorkerCountAsStr, workerCount);
+    }
   }
 
   private static int parseStringValue(String workerCountAsStr) {
@@ -75,9 +85,33 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
       );
   }
 
+  private static int parseMaxWorkerCount(String maxWorkerCountAsStr, int workerCount) {
+    try {
+      int value = Integer.parseInt(maxWorkerCountAsStr);
+      if (value < workerCount) {
+        throw maxWorkerCountParsingError(maxWorkerCountAsStr, workerCount);
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw maxWorkerCountParsingError(maxWorkerCountAsStr, workerCount);
+    }
+  }
+
+  private static MessageException maxWorkerCountParsingError(String maxWorkerCountAsStr, int workerCount) {
+    return MessageException.of(format(
+      "value '%s' of property %s is invalid. It must be an integer greater than or equal to the value of property %s (%s).",
+      maxWorkerCountAsStr,
+      CE_MAX_WORKERS_COUNT_PROPERTY,
+      CE_WORKERS_COUNT_PROPERTY,
+      workerCount)
+      );
+  }
+
   @Override
   public void start() {
-    if (this.workerCount > 1) {
+    if (this.maxWorkerCount > this.workerCount) {
+      LOG.info("Compute Engine will use between {} and {} concurrent workers to process tasks, depending on load", this.workerCount, this.maxWorkerCount);
+    } else if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
   }
@@ -92,6 +126,11 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     return workerCount;
   }
 
+  @Override
+  public int getMaxWorkerCount() {
+    return maxWorkerCount;
+  }
+
   @Override
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
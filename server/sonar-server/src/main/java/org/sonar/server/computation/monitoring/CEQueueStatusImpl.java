@@ -19,8 +19,14 @@
  */
 package org.sonar.server.computation.monitoring;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.monitoring.WaitTimeHistogram;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeQueueDto;
@@ -34,6 +40,7 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final ConcurrentMap<String, WaitTimeHistogram> waitTimeHistograms = new ConcurrentHashMap<>();
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -89,4 +96,14 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public void addWaitTime(String taskType, long waitTime) {
+    waitTimeHistograms.computeIfAbsent(taskType, t -> new WaitTimeHistogram()).add(waitTime);
+  }
+
+  @Override
+  public Map<String, WaitTimeHistogram> getWaitTimeHistograms() {
+    return Collections.unmodifiableMap(new TreeMap<>(waitTimeHistograms));
+  }
 }
@@ -40,4 +40,21 @@ public interface CeDatabaseMBean {
   boolean getPoolRemoveAbandoned();
 
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  int getOpenSessions();
+
+  /**
+   * Number of sessions open for more than {@link org.sonar.db.SessionStatistics#LONG_LIVED_SESSION_MS}
+   */
+  int getLongLivedSessions();
+
+  long getMeanConnectionWaitMs();
+
+  long getMaxConnectionWaitMs();
+
+  long getMaxBatchFlushSize();
+
+  long getExecutedStatements();
+
+  long getSlowStatements();
 }
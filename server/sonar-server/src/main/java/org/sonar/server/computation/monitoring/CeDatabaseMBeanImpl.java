@@ -22,6 +22,8 @@ package org.sonar.server.computation.monitoring;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.picocontainer.Startable;
 import org.sonar.db.DbClient;
+import org.sonar.db.SessionStatistics;
+import org.sonar.db.StatementStatistics;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
@@ -91,10 +93,53 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public int getOpenSessions() {
+    return sessionStatistics().getOpenSessions();
+  }
+
+  @Override
+  public int getLongLivedSessions() {
+    return sessionStatistics().getLongLivedSessionCount();
+  }
+
+  @Override
+  public long getMeanConnectionWaitMs() {
+    return sessionStatistics().getConnectionWaits().getMean();
+  }
+
+  @Override
+  public long getMaxConnectionWaitMs() {
+    return sessionStatistics().getConnectionWaits().getMax();
+  }
+
+  @Override
+  public long getMaxBatchFlushSize() {
+    return sessionStatistics().getBatchFlushes().getMax();
+  }
+
+  @Override
+  public long getExecutedStatements() {
+    return statementStatistics().getCount();
+  }
+
+  @Override
+  public long getSlowStatements() {
+    return statementStatistics().getSlowCount();
+  }
+
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
 
+  private SessionStatistics sessionStatistics() {
+    return dbClient.getMyBatis().getSessionStatistics();
+  }
+
+  private StatementStatistics statementStatistics() {
+    return dbClient.getMyBatis().getStatementStatistics();
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -108,6 +153,14 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     builder.addAttributesBuilder().setKey("Pool Max Wait (ms)").setLongValue(getPoolMaxWaitMillis()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned").setBooleanValue(getPoolRemoveAbandoned()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned Timeout (sec)").setLongValue(getPoolRemoveAbandonedTimeoutSeconds()).build();
+    builder.addAttributesBuilder().setKey("Open Sessions").setLongValue(getOpenSessions()).build();
+    builder.addAttributesBuilder().setKey("Open Sessions By Caller").setStringValue(sessionStatistics().getOpenSessionsByCaller().toString()).build();
+    builder.addAttributesBuilder().setKey("Long-Lived Sessions").setLongValue(getLongLivedSessions()).build();
+    builder.addAttributesBuilder().setKey("Mean Connection Wait (ms)").setLongValue(getMeanConnectionWaitMs()).build();
+    builder.addAttributesBuilder().setKey("Max Connection Wait (ms)").setLongValue(getMaxConnectionWaitMs()).build();
+    builder.addAttributesBuilder().setKey("Max Batch Flush Size").setLongValue(getMaxBatchFlushSize()).build();
+    builder.addAttributesBuilder().setKey("Executed SQL Statements").setLongValue(getExecutedStatements()).build();
+    builder.addAttributesBuilder().setKey("Slow SQL Statements").setLongValue(getSlowStatements()).build();
     return builder.build();
   }
 }
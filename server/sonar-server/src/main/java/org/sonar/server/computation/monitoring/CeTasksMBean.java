@@ -49,7 +49,18 @@ public interface CeTasksMBean {
   long getProcessingTime();
 
   /**
-   * Configured number of Workers.
+   * Configured number of Workers. This is the minimum number of Workers when their number is adjusted to the load
+   * of the queue.
    */
   int getWorkerCount();
+
+  /**
+   * Number of Workers currently processing the queue.
+   */
+  int getActiveWorkerCount();
+
+  /**
+   * Maximum number of Workers. Equals {@link #getWorkerCount()} when the number of Workers is fixed.
+   */
+  int getMaxWorkerCount();
 }
@@ -25,14 +25,17 @@ import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.taskprocessor.CeProcessingScheduler;
 
 public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSection {
   private final CEQueueStatus queueStatus;
   private final CeConfiguration ceConfiguration;
+  private final CeProcessingScheduler processingScheduler;
 
-  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
+  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration, CeProcessingScheduler processingScheduler) {
     this.queueStatus = queueStatus;
     this.ceConfiguration = ceConfiguration;
+    this.processingScheduler = processingScheduler;
   }
 
   @Override
@@ -78,6 +81,16 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return ceConfiguration.getWorkerCount();
   }
 
+  @Override
+  public int getActiveWorkerCount() {
+    return processingScheduler.getActiveWorkerCount();
+  }
+
+  @Override
+  public int getMaxWorkerCount() {
+    return processingScheduler.getMaxWorkerCount();
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -88,6 +101,12 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
+    builder.addAttributesBuilder().setKey("Active Worker Count").setLongValue(getActiveWorkerCount()).build();
+    builder.addAttributesBuilder().setKey("Max Worker Count").setLongValue(getMaxWorkerCount()).build();
+    queueStatus.getWaitTimeHistograms().forEach((taskType, histogram) -> builder.addAttributesBuilder()
+      .setKey("Wait Time In Queue (" + taskType + ")")
+      .setStringValue(histogram.toString())
+      .build());
     return builder.build();
   }
 }
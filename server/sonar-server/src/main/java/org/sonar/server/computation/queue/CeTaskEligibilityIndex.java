@@ -0,0 +1,245 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.db.ce.PendingCeTaskDto;
+
+/**
+ * In-memory index of the pending tasks of the queue, used to peek tasks without scanning table CE_QUEUE.
+ * <p>
+ * Pending tasks are grouped by component, ordered by date of submission. Only the oldest pending task of
+ * a component, its head, is eligible, and only if no other task of the component is in progress. Tasks
+ * without component are independent from each other.
+ * </p>
+ * <p>
+ * Eligible heads are grouped in lanes by task type. Lanes are served in turn, so that tasks of a type are not
+ * stuck behind a long run of tasks of another type, for example after a mass re-analysis of projects. Within
+ * a lane, organizations are served in turn, so that the many tasks submitted by an organization do not starve
+ * the other organizations.
+ * </p>
+ * <p>
+ * The index is only a hint: the caller must check that the task returned by {@link #next()} is still pending
+ * in database, then call {@link #started(PendingCeTaskDto)} or {@link #discard(PendingCeTaskDto)}.
+ * Instances are not thread-safe.
+ * </p>
+ */
+class CeTaskEligibilityIndex {
+
+  private static final Comparator<PendingCeTaskDto> BY_DATE_AND_ID = Comparator.comparingLong(PendingCeTaskDto::getCreatedAt)
+    .thenComparingLong(PendingCeTaskDto::getId);
+
+  private final Map<String, NavigableSet<PendingCeTaskDto>> pendingByComponent = new HashMap<>();
+  private final NavigableMap<String, Lane> lanesByTaskType = new TreeMap<>();
+  private final Set<String> indexedTaskUuids = new HashSet<>();
+  private final Set<String> busyComponentUuids = new HashSet<>();
+  private long maxId = 0L;
+  private final Map<String, String> lastServedOrganizationByTaskType = new HashMap<>();
+  private String lastServedTaskType = null;
+
+  /**
+   * Greatest id of the tasks added since the last {@link #reset()}
+   */
+  long getMaxId() {
+    return maxId;
+  }
+
+  /**
+   * Number of indexed pending tasks
+   */
+  int size() {
+    return indexedTaskUuids.size();
+  }
+
+  /**
+   * Adds a pending task. Does nothing if the task is already indexed.
+   */
+  void add(PendingCeTaskDto task) {
+    if (!indexedTaskUuids.add(task.getUuid())) {
+      return;
+    }
+    maxId = Math.max(maxId, task.getId());
+    String key = componentKey(task);
+    NavigableSet<PendingCeTaskDto> pending = pendingByComponent.computeIfAbsent(key, k -> new TreeSet<>(BY_DATE_AND_ID));
+    PendingCeTaskDto previousHead = pending.isEmpty() ? null : pending.first();
+    pending.add(task);
+    if (pending.first() == task && !busyComponentUuids.contains(key)) {
+      if (previousHead != null) {
+        removeFromLane(previousHead);
+      }
+      addToLane(task);
+    }
+  }
+
+  /**
+   * The next eligible task, taken from the lane following the one of the last started task.
+   */
+  @CheckForNull
+  PendingCeTaskDto next() {
+    if (lanesByTaskType.isEmpty()) {
+      return null;
+    }
+    Map.Entry<String, Lane> lane = lastServedTaskType == null ? null : lanesByTaskType.higherEntry(lastServedTaskType);
+    if (lane == null) {
+      lane = lanesByTaskType.firstEntry();
+    }
+    return lane.getValue().next(lastServedOrganizationByTaskType.get(lane.getKey()));
+  }
+
+  /**
+   * The task, previously returned by {@link #next()}, is now in progress. Its component is busy
+   * until {@link #finished(String)} is called.
+   */
+  void started(PendingCeTaskDto task) {
+    lastServedTaskType = task.getTaskType();
+    lastServedOrganizationByTaskType.put(task.getTaskType(), organizationKey(task));
+    String componentUuid = task.getComponentUuid();
+    if (componentUuid != null) {
+      busyComponentUuids.add(componentUuid);
+    }
+    removeTask(task);
+  }
+
+  /**
+   * The task is not pending anymore, for example because it has been canceled
+   */
+  void discard(PendingCeTaskDto task) {
+    removeTask(task);
+  }
+
+  /**
+   * The task in progress on the component is finished. The next pending task of the component, if any, becomes eligible.
+   */
+  void finished(@Nullable String componentUuid) {
+    if (componentUuid == null || !busyComponentUuids.remove(componentUuid)) {
+      return;
+    }
+    NavigableSet<PendingCeTaskDto> pending = pendingByComponent.get(componentUuid);
+    if (pending != null) {
+      addToLane(pending.first());
+    }
+  }
+
+  /**
+   * Removes all the pending tasks, so that the index can be rebuilt. Busy components and the turns of
+   * task types and organizations are kept.
+   */
+  void reset() {
+    pendingByComponent.clear();
+    lanesByTaskType.clear();
+    indexedTaskUuids.clear();
+    maxId = 0L;
+  }
+
+  /**
+   * Removes all the pending tasks and busy components
+   */
+  void clear() {
+    reset();
+    busyComponentUuids.clear();
+  }
+
+  private void removeTask(PendingCeTaskDto task) {
+    if (!indexedTaskUuids.remove(task.getUuid())) {
+      return;
+    }
+    String key = componentKey(task);
+    NavigableSet<PendingCeTaskDto> pending = pendingByComponent.get(key);
+    boolean wasHead = pending.first() == task;
+    pending.remove(task);
+    if (wasHead) {
+      removeFromLane(task);
+    }
+    if (pending.isEmpty()) {
+      pendingByComponent.remove(key);
+    } else if (wasHead && !busyComponentUuids.contains(key)) {
+      addToLane(pending.first());
+    }
+  }
+
+  private void addToLane(PendingCeTaskDto task) {
+    lanesByTaskType.computeIfAbsent(task.getTaskType(), t -> new Lane()).add(task);
+  }
+
+  private void removeFromLane(PendingCeTaskDto task) {
+    Lane lane = lanesByTaskType.get(task.getTaskType());
+    if (lane != null && lane.remove(task)) {
+      lanesByTaskType.remove(task.getTaskType());
+    }
+  }
+
+  /**
+   * Tasks without component are keyed by their own uuid, so that they don't block each other. Task and
+   * component uuids are generated by the same factory, so they don't collide.
+   */
+  private static String componentKey(PendingCeTaskDto task) {
+    String componentUuid = task.getComponentUuid();
+    return componentUuid == null ? task.getUuid() : componentUuid;
+  }
+
+  private static String organizationKey(PendingCeTaskDto task) {
+    String organizationUuid = task.getOrganizationUuid();
+    return organizationUuid == null ? "" : organizationUuid;
+  }
+
+  /**
+   * Eligible tasks of a given type, grouped by organization
+   */
+  private static class Lane {
+    private final NavigableMap<String, NavigableSet<PendingCeTaskDto>> eligibleByOrganization = new TreeMap<>();
+
+    private void add(PendingCeTaskDto task) {
+      eligibleByOrganization.computeIfAbsent(organizationKey(task), o -> new TreeSet<>(BY_DATE_AND_ID)).add(task);
+    }
+
+    /**
+     * @return true if the lane is empty
+     */
+    private boolean remove(PendingCeTaskDto task) {
+      String organizationKey = organizationKey(task);
+      NavigableSet<PendingCeTaskDto> eligible = eligibleByOrganization.get(organizationKey);
+      if (eligible != null) {
+        eligible.remove(task);
+        if (eligible.isEmpty()) {
+          eligibleByOrganization.remove(organizationKey);
+        }
+      }
+      return eligibleByOrganization.isEmpty();
+    }
+
+    private PendingCeTaskDto next(@Nullable String lastServedOrganization) {
+      Map.Entry<String, NavigableSet<PendingCeTaskDto>> entry = lastServedOrganization == null ? null : eligibleByOrganization.higherEntry(lastServedOrganization);
+      if (entry == null) {
+        entry = eligibleByOrganization.firstEntry();
+      }
+      return entry.getValue().first();
+    }
+  }
+}
@@ -61,6 +61,7 @@ public interface InternalCeQueue extends CeQueue {
   /**
    * Removes a task from the queue and registers it to past activities. This method
    * is called by Compute Engine workers when task is processed and can include an option {@link CeTaskResult} object.
+   * The {@link org.sonar.ce.monitoring.CeTaskProfile} of the current thread, if any, is persisted along with the activity.
    *
    * @throws IllegalStateException if the task does not exist in the queue
    * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
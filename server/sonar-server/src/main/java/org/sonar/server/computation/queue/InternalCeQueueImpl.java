@@ -31,6 +31,7 @@ import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.ce.queue.CeQueueImpl;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
@@ -39,6 +40,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.PendingCeTaskDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -47,12 +49,20 @@ import static com.google.common.base.Preconditions.checkState;
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
 
+  /**
+   * Tasks are loaded incrementally into the index, by ascending id. A task committed after a task with a greater id
+   * is missed, so the index is periodically rebuilt from scratch.
+   */
+  private static final long INDEX_REBUILD_PERIOD_MS = 60_000L;
+
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
+  private final CeTaskEligibilityIndex index = new CeTaskEligibilityIndex();
+  private long nextIndexRebuild = 0L;
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
     DefaultOrganizationProvider defaultOrganizationProvider) {
@@ -68,20 +78,57 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       return Optional.absent();
     }
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession);
+      Optional<CeQueueDto> dto = peekEligible(dbSession);
       CeTask task = null;
       if (dto.isPresent()) {
         task = loadTask(dbSession, dto.get());
         queueStatus.addInProgress();
+        queueStatus.addWaitTime(dto.get().getTaskType(), waitTimeOf(dto.get()));
       }
       return Optional.fromNullable(task);
 
     }
   }
 
+  private static long waitTimeOf(CeQueueDto dto) {
+    Long startedAt = dto.getStartedAt();
+    return startedAt == null ? 0L : Math.max(0L, startedAt - dto.getCreatedAt());
+  }
+
+  private Optional<CeQueueDto> peekEligible(DbSession dbSession) {
+    synchronized (index) {
+      refreshIndex(dbSession);
+      PendingCeTaskDto candidate = index.next();
+      while (candidate != null) {
+        Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession, candidate.getUuid());
+        if (dto.isPresent()) {
+          index.started(candidate);
+          return dto;
+        }
+        // task is not pending anymore, for example because it has been canceled
+        index.discard(candidate);
+        candidate = index.next();
+      }
+      return Optional.absent();
+    }
+  }
+
+  private void refreshIndex(DbSession dbSession) {
+    long now = system2.now();
+    if (now >= nextIndexRebuild) {
+      index.reset();
+      nextIndexRebuild = now + INDEX_REBUILD_PERIOD_MS;
+    }
+    dbClient.ceQueueDao().selectPendingAfterId(dbSession, index.getMaxId()).forEach(index::add);
+  }
+
   @Override
   public int clear() {
-    return cancelAll(true);
+    int count = cancelAll(true);
+    synchronized (index) {
+      index.clear();
+    }
+    return count;
   }
 
   @Override
@@ -95,7 +142,13 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      updateProfiling(activityDto);
       remove(dbSession, queueDto.get(), activityDto);
+    } finally {
+      // the component must not stay busy, otherwise its next tasks would not be peeked until restart
+      synchronized (index) {
+        index.finished(task.getComponentUuid());
+      }
     }
   }
 
@@ -108,6 +161,13 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  private static void updateProfiling(CeActivityDto activityDto) {
+    CeTaskProfile profile = CeTaskProfile.getForCurrentThread();
+    if (profile != null && !profile.getSteps().isEmpty()) {
+      activityDto.setProfiling(CeTaskProfile.toJson(profile));
+    }
+  }
+
   private static void updateError(CeActivityDto activityDto, @Nullable Throwable error) {
     if (error == null) {
       return;
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +62,32 @@ class DbScmInfo implements ScmInfo {
     return Optional.of(new DbScmInfo(new ScmInfoImpl(lineChangesets)));
   }
 
+  /**
+   * Same as {@link #create(Component, Iterable)} for the changesets stored in the data of type
+   * {@link org.sonar.db.source.FileSourceDto.Type#SCM}
+   */
+  static Optional<ScmInfo> create(Component component, DbFileSources.Scm scm) {
+    List<DbFileSources.Line> lines = new ArrayList<>(scm.getChangesetIndexByLineCount());
+    for (int i = 0; i < scm.getChangesetIndexByLineCount(); i++) {
+      DbFileSources.Line.Builder line = DbFileSources.Line.newBuilder().setLine(i + 1);
+      int index = scm.getChangesetIndexByLine(i);
+      if (index > 0) {
+        DbFileSources.Scm.Changeset changeset = scm.getChangeset(index - 1);
+        if (changeset.hasRevision()) {
+          line.setScmRevision(changeset.getRevision());
+        }
+        if (changeset.hasAuthor()) {
+          line.setScmAuthor(changeset.getAuthor());
+        }
+        if (changeset.hasDate()) {
+          line.setScmDate(changeset.getDate());
+        }
+      }
+      lines.add(line.build());
+    }
+    return create(component, lines);
+  }
+
   @Override
   public Changeset getLatestChangeset() {
     return delegate.getLatestChangeset();
@@ -31,6 +31,7 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 
 import static java.util.Objects.requireNonNull;
@@ -43,14 +44,23 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
+  private final TreeRootHolder treeRootHolder;
 
   private final Map<Component, ScmInfo> scmInfoCache = new HashMap<>();
 
-  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository) {
+  /**
+   * Rows of type SCM of table FILE_SOURCES, by file uuid. They are loaded for the whole project the first time
+   * that SCM info must be read from db.
+   */
+  private Map<String, FileSourceDto> dbScmDataByFileUuid;
+
+  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient,
+    SourceHashRepository sourceHashRepository, TreeRootHolder treeRootHolder) {
     this.batchReportReader = batchReportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.dbClient = dbClient;
     this.sourceHashRepository = sourceHashRepository;
+    this.treeRootHolder = treeRootHolder;
   }
 
   @Override
@@ -98,6 +108,15 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     }
 
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
+    FileSourceDto scmDto = getDbScmData().remove(file.getUuid());
+    if (scmDto != null) {
+      if (!sourceHashRepository.getRawSourceHash(file).equals(scmDto.getSrcHash())) {
+        return NoScmInfo.INSTANCE;
+      }
+      return DbScmInfo.create(file, scmDto.getScmData()).or(NoScmInfo.INSTANCE);
+    }
+
+    // SCM data is not stored apart from the source data if the file has not been analyzed since 6.4
     try (DbSession dbSession = dbClient.openSession(false)) {
       FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
       if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
@@ -107,6 +126,19 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     }
   }
 
+  private Map<String, FileSourceDto> getDbScmData() {
+    if (dbScmDataByFileUuid == null) {
+      dbScmDataByFileUuid = new HashMap<>();
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        dbClient.fileSourceDao().selectScmDataByProjectUuid(dbSession, treeRootHolder.getRoot().getUuid(), context -> {
+          FileSourceDto dto = (FileSourceDto) context.getResultObject();
+          dbScmDataByFileUuid.put(dto.getFileUuid(), dto);
+        });
+      }
+    }
+    return dbScmDataByFileUuid;
+  }
+
   private static ScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
     LOGGER.trace("Reading SCM info from report for file '{}'", file.getKey());
     return new ReportScmInfo(changesets);
@@ -43,14 +43,11 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -80,24 +77,38 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(Collectors.toList());
+    PastMeasures pastMeasures = loadPastMeasures(metrics);
+    new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(pastMeasures, metrics))
+      .visit(treeRootHolder.getRoot());
+  }
+
+  /**
+   * Past measures of all the components are loaded by a single query, instead of one query per component
+   */
+  @CheckForNull
+  private PastMeasures loadPastMeasures(List<Metric> metrics) {
+    if (!periodHolder.hasPeriod()) {
+      return null;
+    }
+    PastMeasures pastMeasures = new PastMeasures(metrics);
     try (DbSession dbSession = dbClient.openSession(false)) {
-      List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
-        .visit(treeRootHolder.getRoot());
+      dbClient.measureDao().selectPastMeasuresOnAnalysis(dbSession, periodHolder.getPeriod().getAnalysisUuid(), pastMeasures.metricIds(),
+        context -> pastMeasures.add((PastMeasureDto) context.getResultObject()));
     }
+    return pastMeasures;
   }
 
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
+    @CheckForNull
+    private final PastMeasures pastMeasures;
     private final List<Metric> metrics;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
+    VariationMeasuresVisitor(@Nullable PastMeasures pastMeasures, List<Metric> metrics) {
       // measures on files are currently purged, so past measures are not available on files
       super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(Metric::getId).collect(Collectors.toSet());
+      this.pastMeasures = pastMeasures;
       this.metrics = metrics;
     }
 
@@ -109,24 +120,19 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
-      if (periodHolder.hasPeriod()) {
-        Period period = periodHolder.getPeriod();
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, measuresWithVariationRepository);
+      if (pastMeasures != null) {
+        setVariationMeasures(component, measuresWithVariationRepository);
       }
       return measuresWithVariationRepository;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
-      for (Metric metric : metrics) {
+    private void setVariationMeasures(Component component, MeasuresWithVariationRepository measuresWithVariationRepository) {
+      double[] pastValues = pastMeasures.get(component.getUuid());
+      for (int i = 0; i < metrics.size(); i++) {
+        Metric metric = metrics.get(i);
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariation()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
+          double pastValue = pastValues == null ? 0d : pastValues[i];
           measuresWithVariationRepository.add(metric, measure.get(), computeVariation(measure.get(), pastValue));
         }
       }
@@ -158,6 +164,38 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     }
   }
 
+  /**
+   * Values of past measures, indexed by component uuid then by the position of metric in the list of numeric metrics.
+   * Missing measures and measures without value have the value 0.
+   */
+  private static final class PastMeasures {
+    private final Map<Integer, Integer> metricIndexesById = new HashMap<>();
+    private final Map<String, double[]> valuesByComponentUuid = new HashMap<>();
+
+    PastMeasures(List<Metric> metrics) {
+      for (int i = 0; i < metrics.size(); i++) {
+        metricIndexesById.put(metrics.get(i).getId(), i);
+      }
+    }
+
+    Set<Integer> metricIds() {
+      return metricIndexesById.keySet();
+    }
+
+    void add(PastMeasureDto pastMeasure) {
+      Integer metricIndex = metricIndexesById.get(pastMeasure.getMetricId());
+      if (metricIndex == null || !pastMeasure.hasValue()) {
+        return;
+      }
+      valuesByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), uuid -> new double[metricIndexesById.size()])[metricIndex] = pastMeasure.getValue();
+    }
+
+    @CheckForNull
+    double[] get(String componentUuid) {
+      return valuesByComponentUuid.get(componentUuid);
+    }
+  }
+
   private static final class MeasuresWithVariationRepository {
 
     private final Map<MeasureKey, MeasureWithVariation> measuresWithVariations = new HashMap<>();
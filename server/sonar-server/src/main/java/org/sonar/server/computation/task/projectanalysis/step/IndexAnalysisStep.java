@@ -19,30 +19,116 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.measure.ProjectMeasuresIndexerIterator.Measures;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric.MetricType;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
+
+import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
+import static org.sonar.api.measures.CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION_KEY;
 
 public class IndexAnalysisStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(IndexAnalysisStep.class);
 
+  /**
+   * Same metric types as the ones indexed by {@link org.sonar.db.measure.ProjectMeasuresIndexerIterator}
+   */
+  private static final Set<MetricType> NUMERIC_METRIC_TYPES = EnumSet.of(MetricType.INT, MetricType.FLOAT, MetricType.PERCENT, MetricType.BOOL,
+    MetricType.MILLISEC, MetricType.RATING, MetricType.WORK_DUR);
+
   private final TreeRootHolder treeRootHolder;
+  private final MeasureRepository measureRepository;
+  private final MetricRepository metricRepository;
   private final ProjectIndexer[] indexers;
 
-  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ProjectIndexer... indexers) {
+  public IndexAnalysisStep(TreeRootHolder treeRootHolder, MeasureRepository measureRepository, MetricRepository metricRepository, ProjectIndexer... indexers) {
     this.treeRootHolder = treeRootHolder;
+    this.measureRepository = measureRepository;
+    this.metricRepository = metricRepository;
     this.indexers = indexers;
   }
 
   @Override
   public void execute() {
-    String projectUuid = treeRootHolder.getRoot().getUuid();
+    Component root = treeRootHolder.getRoot();
+    String projectUuid = root.getUuid();
     for (ProjectIndexer indexer : indexers) {
       LOGGER.debug("Call {}", indexer);
-      indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      if (indexer instanceof ProjectMeasuresIndexer && root.getType() == Component.Type.PROJECT) {
+        // measures are already available in memory, there's no need to load them again from db
+        ((ProjectMeasuresIndexer) indexer).indexProject(projectUuid, toProjectMeasures(root));
+      } else {
+        indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      }
+    }
+  }
+
+  private Measures toProjectMeasures(Component project) {
+    Measures measures = new Measures();
+    for (Map.Entry<String, Measure> entry : measureRepository.getRawMeasures(project).entries()) {
+      Measure measure = entry.getValue();
+      if (measure.getDeveloper() == null) {
+        addMeasure(measures, metricRepository.getByKey(entry.getKey()), measure);
+      }
+    }
+    return measures;
+  }
+
+  private static void addMeasure(Measures measures, Metric metric, Measure measure) {
+    String metricKey = metric.getKey();
+    if (ALERT_STATUS_KEY.equals(metricKey)) {
+      if (measure.getValueType() == Measure.ValueType.LEVEL) {
+        measures.setQualityGateStatus(measure.getLevelValue().name());
+      }
+      return;
+    }
+    if (NCLOC_LANGUAGE_DISTRIBUTION_KEY.equals(metricKey)) {
+      if (measure.getValueType() == Measure.ValueType.STRING) {
+        measures.setLanguages(measure.getStringValue());
+      }
+      return;
+    }
+    if (!NUMERIC_METRIC_TYPES.contains(metric.getType())) {
+      return;
+    }
+    Double value = metricKey.startsWith("new_") ? variation(measure) : valueAsDouble(measure);
+    if (value != null) {
+      measures.addNumericMeasure(metricKey, value);
+    }
+  }
+
+  @CheckForNull
+  private static Double variation(Measure measure) {
+    return measure.hasVariation() ? measure.getVariation() : null;
+  }
+
+  @CheckForNull
+  private static Double valueAsDouble(Measure measure) {
+    switch (measure.getValueType()) {
+      case BOOLEAN:
+        return measure.getBooleanValue() ? 1.0d : 0.0d;
+      case INT:
+        return (double) measure.getIntValue();
+      case LONG:
+        return (double) measure.getLongValue();
+      case DOUBLE:
+        return measure.getDoubleValue();
+      default:
+        return null;
     }
   }
 
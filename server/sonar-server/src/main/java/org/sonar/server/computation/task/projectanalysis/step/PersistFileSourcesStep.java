@@ -95,6 +95,7 @@ public class PersistFileSourcesStep implements ComputationStep {
     private final DbSession session;
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
+    private Map<String, FileSourceDto> previousScmDataByUuid = new HashMap<>();
     private String projectUuid;
 
     private FileSourceVisitor(DbSession session) {
@@ -110,6 +111,11 @@ public class PersistFileSourcesStep implements ComputationStep {
           FileSourceDto dto = (FileSourceDto) context.getResultObject();
           previousFileSourcesByUuid.put(dto.getFileUuid(), dto);
         });
+      session.select("org.sonar.db.source.FileSourceMapper.selectHashesForProject", ImmutableMap.of("projectUuid", projectUuid, "dataType", Type.SCM),
+        context -> {
+          FileSourceDto dto = (FileSourceDto) context.getResultObject();
+          previousScmDataByUuid.put(dto.getFileUuid(), dto);
+        });
     }
 
     @Override
@@ -120,6 +126,7 @@ public class PersistFileSourcesStep implements ComputationStep {
         ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
         ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
         persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+        persistScm(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
       } catch (Exception e) {
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
       } finally {
@@ -171,6 +178,46 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
+    /**
+     * Changesets are also stored apart from the source data, so that they can be loaded by the next analysis
+     * (see {@link org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryImpl}) without
+     * decompressing the whole source data of all the files. A row is created only for the files having SCM info.
+     */
+    private void persistScm(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
+      DbFileSources.Scm scm = toScm(fileSourceData.getFileSourceData());
+      FileSourceDto previousDto = previousScmDataByUuid.get(componentUuid);
+      if (previousDto == null && scm.getChangesetCount() == 0) {
+        return;
+      }
+      byte[] data = FileSourceDto.encodeScmData(scm);
+      String dataHash = DigestUtils.md5Hex(data);
+      String srcHash = fileSourceData.getSrcHash();
+      String revision = computeRevision(latestChange);
+      if (previousDto == null) {
+        FileSourceDto dto = new FileSourceDto()
+          .setProjectUuid(projectUuid)
+          .setFileUuid(componentUuid)
+          .setDataType(Type.SCM)
+          .setBinaryData(data)
+          .setSrcHash(srcHash)
+          .setDataHash(dataHash)
+          .setCreatedAt(system2.now())
+          .setUpdatedAt(system2.now())
+          .setRevision(revision);
+        dbClient.fileSourceDao().insert(session, dto);
+        session.commit();
+      } else if (!dataHash.equals(previousDto.getDataHash()) || !srcHash.equals(previousDto.getSrcHash())) {
+        previousDto
+          .setBinaryData(data)
+          .setDataHash(dataHash)
+          .setSrcHash(srcHash)
+          .setRevision(revision)
+          .setUpdatedAt(system2.now());
+        dbClient.fileSourceDao().update(session, previousDto);
+        session.commit();
+      }
+    }
+
     @CheckForNull
     private String computeRevision(@Nullable Changeset latestChange) {
       if (latestChange == null) {
@@ -180,6 +227,36 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  private static DbFileSources.Scm toScm(DbFileSources.Data fileData) {
+    DbFileSources.Scm.Builder scm = DbFileSources.Scm.newBuilder();
+    Map<DbFileSources.Scm.Changeset, Integer> indexesByChangeset = new HashMap<>();
+    List<Integer> indexByLine = new ArrayList<>(fileData.getLinesCount());
+    for (DbFileSources.Line line : fileData.getLinesList()) {
+      if (line.hasScmRevision() || line.hasScmAuthor() || line.hasScmDate()) {
+        DbFileSources.Scm.Changeset.Builder changeset = DbFileSources.Scm.Changeset.newBuilder();
+        if (line.hasScmRevision()) {
+          changeset.setRevision(line.getScmRevision());
+        }
+        if (line.hasScmAuthor()) {
+          changeset.setAuthor(line.getScmAuthor());
+        }
+        if (line.hasScmDate()) {
+          changeset.setDate(line.getScmDate());
+        }
+        indexByLine.add(indexesByChangeset.computeIfAbsent(changeset.build(), c -> {
+          scm.addChangeset(c);
+          return scm.getChangesetCount();
+        }));
+      } else {
+        indexByLine.add(0);
+      }
+    }
+    if (scm.getChangesetCount() > 0) {
+      scm.addAllChangesetIndexByLine(indexByLine);
+    }
+    return scm.build();
+  }
+
   private static class LineReaders {
     private final List<LineReader> readers = new ArrayList<>();
     private final List<CloseableIterator<?>> closeables = new ArrayList<>();
@@ -0,0 +1,307 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+/**
+ * Delivers webhooks in background, so that a slow or unreachable receiver does not delay the Compute Engine workers.
+ * <ul>
+ *   <li>deliveries are queued in a bounded queue and executed by a small pool of threads. When the queue is full,
+ *   the delivery is executed by the submitting thread</li>
+ *   <li>at most {@link #MAX_CONCURRENT_DELIVERIES_PER_URL} deliveries are executed at the same time for a given URL</li>
+ *   <li>connectivity errors and server errors are retried, with an exponential backoff</li>
+ * </ul>
+ * Only the outcome of the last attempt is persisted by {@link WebhookDeliveryStorage}.
+ */
+@ComputeEngineSide
+public class WebhookDeliveryQueue implements Startable, SystemInfoSection {
+
+  static final int QUEUE_CAPACITY = 1_000;
+  static final int DISPATCHER_THREADS = 3;
+  static final int MAX_CONCURRENT_DELIVERIES_PER_URL = 2;
+  static final int MAX_ATTEMPTS = 3;
+  static final long FIRST_RETRY_DELAY_MS = 5_000L;
+  static final long BUSY_URL_DELAY_MS = 200L;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final int HTTP_SERVER_ERROR = 500;
+
+  private static final Logger LOGGER = Loggers.get(WebhookDeliveryQueue.class);
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final System2 system;
+  private final ExecutorService dispatcher;
+  private final ScheduledExecutorService scheduler;
+  private final int maxAttempts;
+  private final Map<String, Integer> inProgressByUrl = new HashMap<>();
+
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicLong successCount = new AtomicLong();
+  private final AtomicLong errorCount = new AtomicLong();
+  private final AtomicLong retryCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong totalLatencyMs = new AtomicLong();
+  private final AtomicLong maxLatencyMs = new AtomicLong();
+
+  public WebhookDeliveryQueue(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system) {
+    this(caller, deliveryStorage, system,
+      new ThreadPoolExecutor(DISPATCHER_THREADS, DISPATCHER_THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY), newThreadFactory("Webhook-Dispatcher-%d")),
+      Executors.newSingleThreadScheduledExecutor(newThreadFactory("Webhook-Retry-%d")),
+      MAX_ATTEMPTS);
+  }
+
+  @VisibleForTesting
+  WebhookDeliveryQueue(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system,
+    ExecutorService dispatcher, ScheduledExecutorService scheduler, int maxAttempts) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.system = system;
+    this.dispatcher = dispatcher;
+    this.scheduler = scheduler;
+    this.maxAttempts = maxAttempts;
+  }
+
+  private static ThreadFactory newThreadFactory(String nameFormat) {
+    return new ThreadFactoryBuilder()
+      .setNameFormat(nameFormat)
+      .setDaemon(true)
+      .build();
+  }
+
+  @Override
+  public void start() {
+    // threads are started on first delivery
+  }
+
+  @Override
+  public void stop() {
+    scheduler.shutdownNow();
+    dispatcher.shutdown();
+    try {
+      if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+        dispatcher.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      dispatcher.shutdownNow();
+    }
+    int pending = pendingCount.get();
+    if (pending > 0) {
+      LOGGER.warn("{} webhook deliveries have been canceled by shutdown", pending);
+    }
+  }
+
+  /**
+   * Queues the delivery of the payload to the webhook. Returns immediately, unless the queue is full.
+   */
+  public void submit(Webhook webhook, WebhookPayload payload) {
+    pendingCount.incrementAndGet();
+    dispatch(new Attempt(webhook, payload, system.now(), 1));
+  }
+
+  private void dispatch(Attempt attempt) {
+    try {
+      dispatcher.execute(() -> deliver(attempt));
+    } catch (RejectedExecutionException e) {
+      if (dispatcher.isShutdown()) {
+        return;
+      }
+      rejectedCount.incrementAndGet();
+      LOGGER.warn("Queue of webhook deliveries is full. Webhook '{}' is sent synchronously.", attempt.webhook.getName());
+      deliver(attempt);
+    }
+  }
+
+  private void deliver(Attempt attempt) {
+    String url = attempt.webhook.getUrl();
+    if (!tryAcquire(url)) {
+      schedule(attempt, BUSY_URL_DELAY_MS);
+      return;
+    }
+    WebhookDelivery delivery;
+    try {
+      delivery = caller.call(attempt.webhook, attempt.payload);
+    } finally {
+      release(url);
+    }
+
+    if (attempt.number < maxAttempts && isRetryable(delivery)) {
+      long delayMs = FIRST_RETRY_DELAY_MS << (attempt.number - 1);
+      retryCount.incrementAndGet();
+      LOGGER.debug("Retry webhook '{}' in {}ms | url={} | attempt={}", attempt.webhook.getName(), delayMs, url, attempt.number + 1);
+      schedule(attempt.next(), delayMs);
+    } else {
+      complete(attempt, delivery);
+    }
+  }
+
+  private void schedule(Attempt attempt, long delayMs) {
+    try {
+      scheduler.schedule(() -> dispatch(attempt), delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // shutdown in progress
+    }
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    if (delivery.getError().isPresent()) {
+      return true;
+    }
+    int status = delivery.getHttpStatus().orElse(HTTP_SERVER_ERROR);
+    return status >= HTTP_SERVER_ERROR || status == HTTP_TOO_MANY_REQUESTS;
+  }
+
+  private void complete(Attempt attempt, WebhookDelivery delivery) {
+    pendingCount.decrementAndGet();
+    long latencyMs = system.now() - attempt.submittedAt;
+    totalLatencyMs.addAndGet(latencyMs);
+    maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+    if (delivery.isSuccess()) {
+      successCount.incrementAndGet();
+    } else {
+      errorCount.incrementAndGet();
+    }
+    log(delivery);
+    try {
+      deliveryStorage.persist(delivery);
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to persist delivery of webhook '{}'", delivery.getWebhook().getName(), e);
+    }
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private synchronized boolean tryAcquire(String url) {
+    int inProgress = inProgressByUrl.getOrDefault(url, 0);
+    if (inProgress >= MAX_CONCURRENT_DELIVERIES_PER_URL) {
+      return false;
+    }
+    inProgressByUrl.put(url, inProgress + 1);
+    return true;
+  }
+
+  private synchronized void release(String url) {
+    int inProgress = inProgressByUrl.getOrDefault(url, 0);
+    if (inProgress <= 1) {
+      inProgressByUrl.remove(url);
+    } else {
+      inProgressByUrl.put(url, inProgress - 1);
+    }
+  }
+
+  /**
+   * Number of deliveries which are not completed yet, including the ones waiting for a retry
+   */
+  public long getPendingCount() {
+    return pendingCount.get();
+  }
+
+  public long getSuccessCount() {
+    return successCount.get();
+  }
+
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  public long getRetryCount() {
+    return retryCount.get();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /**
+   * Average time between submission and completion of the deliveries, including retries
+   */
+  public long getAverageLatencyMs() {
+    long completed = successCount.get() + errorCount.get();
+    return completed == 0 ? 0 : (totalLatencyMs.get() / completed);
+  }
+
+  public long getMaxLatencyMs() {
+    return maxLatencyMs.get();
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Webhooks");
+    builder.addAttributesBuilder().setKey("Pending").setLongValue(getPendingCount()).build();
+    builder.addAttributesBuilder().setKey("Delivered With Success").setLongValue(getSuccessCount()).build();
+    builder.addAttributesBuilder().setKey("Delivered With Error").setLongValue(getErrorCount()).build();
+    builder.addAttributesBuilder().setKey("Retries").setLongValue(getRetryCount()).build();
+    builder.addAttributesBuilder().setKey("Sent Synchronously").setLongValue(getRejectedCount()).build();
+    builder.addAttributesBuilder().setKey("Average Latency (ms)").setLongValue(getAverageLatencyMs()).build();
+    builder.addAttributesBuilder().setKey("Max Latency (ms)").setLongValue(getMaxLatencyMs()).build();
+    return builder.build();
+  }
+
+  private static final class Attempt {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final long submittedAt;
+    private final int number;
+
+    private Attempt(Webhook webhook, WebhookPayload payload, long submittedAt, int number) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.submittedAt = submittedAt;
+      this.number = number;
+    }
+
+    private Attempt next() {
+      return new Attempt(webhook, payload, submittedAt, number + 1);
+    }
+  }
+}
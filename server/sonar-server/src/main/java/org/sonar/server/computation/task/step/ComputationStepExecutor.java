@@ -23,6 +23,8 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.monitoring.CeTaskProfile;
+import org.sonar.ce.monitoring.ThreadResourceUsage;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
@@ -59,10 +61,19 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
+    CeTaskProfile taskProfile = CeTaskProfile.getForCurrentThread();
     for (ComputationStep step : steps.instances()) {
       stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      ThreadResourceUsage resourceUsage = ThreadResourceUsage.current();
+      try {
+        step.execute();
+        stepProfiler.stopDebug(step.getDescription());
+      } finally {
+        // the step which fails is recorded too, it's the most useful one to troubleshoot a failed task
+        if (taskProfile != null) {
+          taskProfile.addStep(resourceUsage.toStep(step.getDescription()));
+        }
+      }
     }
   }
 
@@ -23,4 +23,12 @@ public interface CeProcessingScheduler {
 
   void startScheduling();
 
+  /**
+   * Number of workers currently processing the queue. Between {@link org.sonar.server.computation.configuration.CeConfiguration#getWorkerCount()}
+   * and {@link #getMaxWorkerCount()} when the number of workers is adjusted to the load of the queue.
+   */
+  int getActiveWorkerCount();
+
+  int getMaxWorkerCount();
+
 }
@@ -23,20 +23,31 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.picocontainer.Startable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.server.computation.configuration.CeConfiguration;
 
 import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Chains calls to {@link CeWorkerCallable} for each worker. When the number of workers is adjusted to the load of
+ * the queue (see {@link CeConfiguration#getMaxWorkerCount()}), a chain is created for each of the max number of
+ * workers, but only the chains of the active workers call {@link CeWorkerCallable}. The number of active workers
+ * is periodically evaluated by {@link ElasticWorkerCount}. A worker which is deactivated ends its current task.
+ */
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
   private static final Logger LOG = Loggers.get(CeProcessingSchedulerImpl.class);
+  private static final long WORKER_COUNT_EVALUATION_PERIOD_MS = 10_000L;
+  private static final Callable<Boolean> INACTIVE_WORKER = () -> false;
 
   private final CeProcessingSchedulerExecutorService executorService;
   private final CeWorkerCallable workerRunnable;
@@ -44,9 +55,14 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
+  private final AtomicInteger activeWorkerCount;
+  @CheckForNull
+  private final ElasticWorkerCount elasticWorkerCount;
+  @CheckForNull
+  private ListenableScheduledFuture<?> workerCountEvaluation;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable, CEQueueStatus queueStatus) {
     this.executorService = processingExecutorService;
     this.workerRunnable = workerRunnable;
 
@@ -54,9 +70,12 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     this.timeUnit = MILLISECONDS;
 
     int workerCount = ceConfiguration.getWorkerCount();
-    this.chainingCallbacks = new ChainingCallback[workerCount];
-    for (int i = 0; i < workerCount; i++) {
-      chainingCallbacks[i] = new ChainingCallback();
+    int maxWorkerCount = ceConfiguration.getMaxWorkerCount();
+    this.activeWorkerCount = new AtomicInteger(workerCount);
+    this.elasticWorkerCount = maxWorkerCount > workerCount ? new ElasticWorkerCount(queueStatus, workerCount, maxWorkerCount) : null;
+    this.chainingCallbacks = new ChainingCallback[maxWorkerCount];
+    for (int i = 0; i < maxWorkerCount; i++) {
+      chainingCallbacks[i] = new ChainingCallback(i);
     }
   }
 
@@ -68,23 +87,63 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   @Override
   public void startScheduling() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<Boolean> future = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+      ListenableScheduledFuture<Boolean> future = executorService.schedule(chainingCallback.callable(), delayBetweenTasks, timeUnit);
       addCallback(future, chainingCallback, executorService);
     }
+    if (elasticWorkerCount != null) {
+      workerCountEvaluation = executorService.scheduleWithFixedDelay(this::evaluateWorkerCount,
+        WORKER_COUNT_EVALUATION_PERIOD_MS, WORKER_COUNT_EVALUATION_PERIOD_MS, MILLISECONDS);
+    }
   }
 
   @Override
   public void stop() {
+    if (workerCountEvaluation != null) {
+      workerCountEvaluation.cancel(false);
+    }
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       chainingCallback.stop();
     }
   }
 
+  @Override
+  public int getActiveWorkerCount() {
+    return activeWorkerCount.get();
+  }
+
+  @Override
+  public int getMaxWorkerCount() {
+    return chainingCallbacks.length;
+  }
+
+  void evaluateWorkerCount() {
+    try {
+      int current = activeWorkerCount.get();
+      int target = elasticWorkerCount.compute(current);
+      if (target != current) {
+        activeWorkerCount.set(target);
+        LOG.info("Compute Engine now uses {} workers", target);
+      }
+    } catch (Exception e) {
+      // exception must not be propagated, otherwise next evaluations are cancelled
+      LOG.error("Failed to evaluate the number of Compute Engine workers", e);
+    }
+  }
+
   private class ChainingCallback implements FutureCallback<Boolean> {
+    private final int index;
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
     @CheckForNull
     private ListenableFuture<Boolean> workerFuture;
 
+    private ChainingCallback(int index) {
+      this.index = index;
+    }
+
+    private Callable<Boolean> callable() {
+      return index < activeWorkerCount.get() ? workerRunnable : INACTIVE_WORKER;
+    }
+
     @Override
     public void onSuccess(@Nullable Boolean result) {
       if (result != null && result) {
@@ -105,14 +164,14 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithoutDelay() {
       if (keepRunning()) {
-        workerFuture = executorService.submit(workerRunnable);
+        workerFuture = executorService.submit(callable());
       }
       addCallback();
     }
 
     private void chainWithDelay() {
       if (keepRunning()) {
-        workerFuture = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+        workerFuture = executorService.schedule(callable(), delayBetweenTasks, timeUnit);
       }
       addCallback();
     }
@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.log.CeLogging;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.taskprocessor.CeTaskProcessor;
@@ -73,6 +74,7 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
 
   private void executeTask(CeTask task) {
     ceLogging.initForTask(task);
+    CeTaskProfile.startForCurrentThread();
     Profiler ceProfiler = startActivityProfiler(task);
 
     CeActivityDto.Status status = CeActivityDto.Status.FAILED;
@@ -104,6 +106,7 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
       LOG.error(format("Failed to finalize task with uuid '%s' and persist its state to db", task.getUuid()), e);
     } finally {
       stopActivityProfiler(ceProfiler, task, status);
+      CeTaskProfile.clearForCurrentThread();
       ceLogging.clearForTask();
     }
   }
@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import java.util.function.DoubleSupplier;
+import org.sonar.ce.monitoring.CEQueueStatus;
+
+/**
+ * Computes the number of active workers, between {@link org.sonar.server.computation.configuration.CeConfiguration#getWorkerCount()}
+ * and {@link org.sonar.server.computation.configuration.CeConfiguration#getMaxWorkerCount()}, from the load of the
+ * queue and the free heap. The number of workers changes by one at each evaluation:
+ * <ul>
+ *   <li>it grows when the active workers would need more than {@link #MAX_BACKLOG_PROCESSING_TIME_MS} to process the
+ *   pending tasks, according to the mean duration of the tasks processed recently, and when at least
+ *   {@link #MIN_FREE_HEAP_RATIO_TO_GROW} of the max heap is free</li>
+ *   <li>it shrinks when there are no pending tasks, or when less than {@link #MIN_FREE_HEAP_RATIO} of the max heap is free</li>
+ * </ul>
+ */
+class ElasticWorkerCount {
+
+  static final long MAX_BACKLOG_PROCESSING_TIME_MS = 60_000L;
+  static final double MIN_FREE_HEAP_RATIO_TO_GROW = 0.4;
+  static final double MIN_FREE_HEAP_RATIO = 0.15;
+  // assumed until a task is processed
+  static final long DEFAULT_TASK_DURATION_MS = 10_000L;
+
+  private final CEQueueStatus queueStatus;
+  private final int minWorkerCount;
+  private final int maxWorkerCount;
+  private final DoubleSupplier freeHeapRatio;
+
+  private long meanTaskDuration = DEFAULT_TASK_DURATION_MS;
+  private long lastProcessedCount = 0L;
+  private long lastProcessingTime = 0L;
+
+  ElasticWorkerCount(CEQueueStatus queueStatus, int minWorkerCount, int maxWorkerCount) {
+    this(queueStatus, minWorkerCount, maxWorkerCount, ElasticWorkerCount::freeHeapRatio);
+  }
+
+  ElasticWorkerCount(CEQueueStatus queueStatus, int minWorkerCount, int maxWorkerCount, DoubleSupplier freeHeapRatio) {
+    this.queueStatus = queueStatus;
+    this.minWorkerCount = minWorkerCount;
+    this.maxWorkerCount = maxWorkerCount;
+    this.freeHeapRatio = freeHeapRatio;
+  }
+
+  int compute(int activeWorkerCount) {
+    long pendingCount = queueStatus.getPendingCount();
+    long taskDuration = updateMeanTaskDuration();
+    double freeHeap = freeHeapRatio.getAsDouble();
+    if (activeWorkerCount > minWorkerCount && (pendingCount == 0 || freeHeap < MIN_FREE_HEAP_RATIO)) {
+      return activeWorkerCount - 1;
+    }
+    if (activeWorkerCount < maxWorkerCount
+      && freeHeap >= MIN_FREE_HEAP_RATIO_TO_GROW
+      && pendingCount * taskDuration / activeWorkerCount > MAX_BACKLOG_PROCESSING_TIME_MS) {
+      return activeWorkerCount + 1;
+    }
+    return activeWorkerCount;
+  }
+
+  /**
+   * Mean duration of the tasks processed since previous evaluation. Previous mean is kept if no task has been processed.
+   */
+  private long updateMeanTaskDuration() {
+    long processedCount = queueStatus.getSuccessCount() + queueStatus.getErrorCount();
+    long processingTime = queueStatus.getProcessingTime();
+    if (processedCount > lastProcessedCount) {
+      meanTaskDuration = (processingTime - lastProcessingTime) / (processedCount - lastProcessedCount);
+      lastProcessedCount = processedCount;
+      lastProcessingTime = processingTime;
+    }
+    return meanTaskDuration;
+  }
+
+  private static double freeHeapRatio() {
+    Runtime runtime = Runtime.getRuntime();
+    long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+    return (double) (runtime.maxMemory() - usedHeap) / runtime.maxMemory();
+  }
+}
@@ -27,6 +27,7 @@ import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.util.CallStats;
 import org.sonar.server.es.EsClient;
 
 public class ProxyClusterStateRequestBuilder extends ClusterStateRequestBuilder {
@@ -38,11 +39,13 @@ public class ProxyClusterStateRequestBuilder extends ClusterStateRequestBuilder
   @Override
   public ClusterStateResponse get() {
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
+    long start = System.currentTimeMillis();
     try {
       return super.execute().actionGet();
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to execute %s", toString()), e);
     } finally {
+      CallStats.add(CallStats.Type.SEARCH, System.currentTimeMillis() - start);
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
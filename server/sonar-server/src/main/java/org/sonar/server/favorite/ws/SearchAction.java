@@ -19,11 +19,9 @@
  */
 package org.sonar.server.favorite.ws;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Predicate;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -88,9 +86,7 @@ public class SearchAction implements FavoritesWsAction {
   private SearchResults toSearchResults(SearchRequest request) {
     userSession.checkLoggedIn();
     try (DbSession dbSession = dbClient.openSession(false)) {
-      List<ComponentDto> authorizedFavorites = favoriteFinder.list().stream()
-        .filter(isAuthorized(dbSession))
-        .collect(Collectors.toList());
+      List<ComponentDto> authorizedFavorites = userSession.keepAuthorizedComponents(UserRole.USER, favoriteFinder.list());
       Paging paging = Paging.forPageIndex(request.getPage()).withPageSize(request.getPageSize()).andTotal(authorizedFavorites.size());
       List<ComponentDto> displayedFavorites = authorizedFavorites.stream()
         .skip(paging.offset())
@@ -101,14 +97,6 @@ public class SearchAction implements FavoritesWsAction {
     }
   }
 
-  private Predicate<ComponentDto> isAuthorized(DbSession dbSession) {
-    Collection<String> rootProjectsUuids = dbClient.authorizationDao().selectAuthorizedRootProjectsUuids(dbSession, userSession.getUserId(), UserRole.USER);
-    Set<String> authorizedProjectUuids = rootProjectsUuids
-      .stream()
-      .collect(Collectors.toSet(rootProjectsUuids.size()));
-    return dto -> authorizedProjectUuids.contains(dto.projectUuid());
-  }
-
   private Map<String, OrganizationDto> getOrganizationsOfComponents(DbSession dbSession, List<ComponentDto> displayedFavorites) {
     Set<String> organizationUuids = displayedFavorites.stream()
         .map(ComponentDto::getOrganizationUuid)
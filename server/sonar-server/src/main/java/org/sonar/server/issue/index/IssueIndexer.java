@@ -70,7 +70,9 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
 
   @Override
   public void indexOnStartup(Set<IndexType> emptyIndexTypes) {
-    doIndex(createBulkIndexer(Size.LARGE), (String) null);
+    try (IssueIterator issues = issueIteratorFactory.createForAllInParallel()) {
+      doIndex(createBulkIndexer(Size.LARGE), issues);
+    }
   }
 
   @Override
@@ -25,6 +25,8 @@ import org.sonar.db.DbClient;
 
 public class IssueIteratorFactory {
 
+  private static final int PARALLEL_READERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
   private final DbClient dbClient;
 
   public IssueIteratorFactory(DbClient dbClient) {
@@ -35,6 +37,14 @@ public class IssueIteratorFactory {
     return createForProject((String) null);
   }
 
+  /**
+   * Same as {@link #createForAll()}, except that the issues of the different projects are read concurrently.
+   * Issues are not returned in a deterministic order.
+   */
+  public IssueIterator createForAllInParallel() {
+    return new IssueIteratorForProjectPartitions(dbClient, PARALLEL_READERS);
+  }
+
   public IssueIterator createForProject(@Nullable String projectUuid) {
     return new IssueIteratorForSingleChunk(dbClient, projectUuid, null);
   }
@@ -0,0 +1,168 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+/**
+ * Reads all the issues of table ISSUES, partitioned by project. Partitions are read concurrently
+ * by a pool of threads, each one scrolling over the issues of a project with its own db connection
+ * (see {@link IssueIteratorForSingleChunk}).
+ * <p>
+ * Documents are handed over to the caller through a bounded buffer, so that the consumer, generally a
+ * single {@link org.sonar.server.es.BulkIndexer}, does not need to be thread-safe.
+ * </p>
+ */
+class IssueIteratorForProjectPartitions implements IssueIterator {
+
+  private static final Logger LOGGER = Loggers.get(IssueIteratorForProjectPartitions.class);
+
+  private static final String SQL_PROJECT_UUIDS = "select distinct i.project_uuid from issues i";
+  private static final int BUFFER_SIZE = 10_000;
+  private static final long OFFER_TIMEOUT_MS = 100L;
+  private static final IssueDoc END_OF_PARTITIONS = new IssueDoc(new HashMap<>());
+
+  private final BlockingQueue<IssueDoc> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+  private final AtomicInteger remainingPartitions;
+  private final ExecutorService executor;
+  private volatile boolean closed = false;
+  private IssueDoc nextDoc = null;
+
+  IssueIteratorForProjectPartitions(DbClient dbClient, int nbThreads) {
+    List<String> projectUuids = selectProjectUuids(dbClient);
+    LOGGER.debug("Read issues of {} projects with {} threads", projectUuids.size(), nbThreads);
+    this.remainingPartitions = new AtomicInteger(projectUuids.size());
+    this.executor = Executors.newFixedThreadPool(nbThreads,
+      new ThreadFactoryBuilder()
+        .setNameFormat("IssueIteratorForProjectPartitions-%d")
+        .setDaemon(true)
+        .build());
+    if (projectUuids.isEmpty()) {
+      buffer.add(END_OF_PARTITIONS);
+    }
+    for (String projectUuid : projectUuids) {
+      executor.execute(() -> readPartition(dbClient, projectUuid));
+    }
+    executor.shutdown();
+  }
+
+  private static List<String> selectProjectUuids(DbClient dbClient) {
+    List<String> uuids = new ArrayList<>();
+    try (DbSession dbSession = dbClient.openSession(false);
+      PreparedStatement stmt = dbSession.getConnection().prepareStatement(SQL_PROJECT_UUIDS);
+      ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        uuids.add(rs.getString(1));
+      }
+      return uuids;
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to select the projects having issues", e);
+    }
+  }
+
+  private void readPartition(DbClient dbClient, String projectUuid) {
+    try (IssueIterator issues = new IssueIteratorForSingleChunk(dbClient, projectUuid, null)) {
+      long count = 0L;
+      while (isRunning() && issues.hasNext()) {
+        offer(issues.next());
+        count++;
+      }
+      LOGGER.debug("{} issues read from project {}", count, projectUuid);
+    } catch (RuntimeException e) {
+      failure.compareAndSet(null, new IllegalStateException("Fail to read issues of project " + projectUuid, e));
+    } finally {
+      if (remainingPartitions.decrementAndGet() == 0) {
+        offer(END_OF_PARTITIONS);
+      }
+    }
+  }
+
+  private boolean isRunning() {
+    return !closed && failure.get() == null;
+  }
+
+  private void offer(IssueDoc doc) {
+    try {
+      while (!closed) {
+        if (buffer.offer(doc, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextDoc == null) {
+      nextDoc = take();
+    }
+    RuntimeException e = failure.get();
+    if (e != null) {
+      throw e;
+    }
+    return nextDoc != END_OF_PARTITIONS;
+  }
+
+  private IssueDoc take() {
+    try {
+      return buffer.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for issues to be read", e);
+    }
+  }
+
+  @Override
+  public IssueDoc next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    IssueDoc doc = nextDoc;
+    nextDoc = null;
+    return doc;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    executor.shutdownNow();
+  }
+}
@@ -46,6 +46,7 @@ import org.sonar.server.issue.IssueQueryService;
 import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.ProtobufStreamWriter;
 import org.sonarqube.ws.Issues.SearchWsResponse;
 import org.sonarqube.ws.client.issue.SearchWsRequest;
 
@@ -56,7 +57,6 @@ import static java.util.Collections.singletonList;
 import static org.sonar.api.utils.Paging.forPageIndex;
 import static org.sonar.server.es.SearchOptions.MAX_LIMIT;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.ACTION_SEARCH;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.DEPRECATED_FACET_MODE_DEBT;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.DEPRECATED_PARAM_ACTION_PLANS;
@@ -288,11 +288,10 @@ public class SearchAction implements IssuesWsAction {
 
   @Override
   public final void handle(Request request, Response response) throws Exception {
-    SearchWsResponse searchWsResponse = doHandle(toSearchWsRequest(request), request);
-    writeProtobuf(searchWsResponse, request, response);
+    doHandle(toSearchWsRequest(request), request, response);
   }
 
-  private SearchWsResponse doHandle(SearchWsRequest request, Request wsRequest) {
+  private void doHandle(SearchWsRequest request, Request wsRequest, Response wsResponse) {
     // prepare the Elasticsearch request
     SearchOptions options = createSearchOptionsFromRequest(request);
     EnumSet<SearchAdditionalField> additionalFields = SearchAdditionalField.getFromRequest(request);
@@ -327,7 +326,10 @@ public class SearchAction implements IssuesWsAction {
     // FIXME allow long in Paging
     Paging paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
 
-    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+    // response is opened only when all data is loaded, so that errors are still returned with the expected status
+    try (ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), wsRequest, wsResponse)) {
+      searchResponseFormat.formatSearch(additionalFields, data, paging, facets, writer);
+    }
   }
 
   private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request) {
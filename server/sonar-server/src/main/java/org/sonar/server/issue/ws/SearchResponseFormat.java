@@ -20,7 +20,6 @@
 package org.sonar.server.issue.ws;
 
 import com.google.common.base.Strings;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -28,6 +27,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
@@ -45,6 +45,7 @@ import org.sonar.db.user.UserDto;
 import org.sonar.markdown.Markdown;
 import org.sonar.server.es.Facets;
 import org.sonar.server.issue.workflow.Transition;
+import org.sonar.server.ws.ProtobufStreamWriter;
 import org.sonar.server.ws.WsResponseCommonFormat;
 import org.sonarqube.ws.Common;
 import org.sonarqube.ws.Issues;
@@ -65,14 +66,25 @@ public class SearchResponseFormat {
     this.languages = languages;
   }
 
-  public Issues.SearchWsResponse formatSearch(Set<SearchAdditionalField> fields, SearchResponseData data,
-    Paging paging, @Nullable Facets facets) {
+  /**
+   * Writes the response of api/issues/search. Issues and components are written one by one, so that
+   * the whole response is not kept in memory.
+   */
+  public void formatSearch(Set<SearchAdditionalField> fields, SearchResponseData data,
+    Paging paging, @Nullable Facets facets, ProtobufStreamWriter writer) {
     Issues.SearchWsResponse.Builder response = Issues.SearchWsResponse.newBuilder();
-
     formatPaging(paging, response);
     formatEffortTotal(data, response);
-    response.addAllIssues(formatIssues(fields, data));
-    response.addAllComponents(formatComponents(data));
+    writer.writeFields(response.build());
+
+    writer.beginArray(Issues.SearchWsResponse.ISSUES_FIELD_NUMBER);
+    formatIssues(fields, data, writer::writeElement);
+    writer.endArray();
+    writer.beginArray(Issues.SearchWsResponse.COMPONENTS_FIELD_NUMBER);
+    formatComponents(data, writer::writeElement);
+    writer.endArray();
+
+    response.clear();
     if (facets != null) {
       formatFacets(facets, response);
     }
@@ -85,7 +97,7 @@ public class SearchResponseFormat {
     if (fields.contains(SearchAdditionalField.LANGUAGES)) {
       response.setLanguages(formatLanguages());
     }
-    return response.build();
+    writer.writeFields(response.build());
   }
 
   public Issues.Operation formatOperation(SearchResponseData data) {
@@ -100,7 +112,7 @@ public class SearchResponseFormat {
       formatIssueComments(data, issueBuilder, dto);
       response.setIssue(issueBuilder.build());
     }
-    response.addAllComponents(formatComponents(data));
+    formatComponents(data, response::addComponents);
     response.addAllRules(formatRules(data).getRulesList());
     response.addAllUsers(formatUsers(data).getUsersList());
     return response.build();
@@ -121,8 +133,7 @@ public class SearchResponseFormat {
     response.setPaging(commonFormat.formatPaging(paging));
   }
 
-  private List<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
-    List<Issues.Issue> result = new ArrayList<>();
+  private void formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data, Consumer<Issues.Issue> result) {
     Issues.Issue.Builder issueBuilder = Issues.Issue.newBuilder();
     for (IssueDto dto : data.getIssues()) {
       issueBuilder.clear();
@@ -136,9 +147,8 @@ public class SearchResponseFormat {
       if (fields.contains(SearchAdditionalField.COMMENTS)) {
         formatIssueComments(data, issueBuilder, dto);
       }
-      result.add(issueBuilder.build());
+      result.accept(issueBuilder.build());
     }
-    return result;
   }
 
   private void formatIssue(Issues.Issue.Builder issueBuilder, IssueDto dto, SearchResponseData data) {
@@ -285,12 +295,11 @@ public class SearchResponseFormat {
     return wsRules;
   }
 
-  private static List<Issues.Component> formatComponents(SearchResponseData data) {
+  private static void formatComponents(SearchResponseData data, Consumer<Issues.Component> result) {
     Collection<ComponentDto> components = data.getComponents();
     if (components == null) {
-      return Collections.emptyList();
+      return;
     }
-    List<Issues.Component> result = new ArrayList<>();
     for (ComponentDto dto : components) {
       String uuid = dto.uuid();
       Issues.Component.Builder builder = Issues.Component.newBuilder()
@@ -317,9 +326,8 @@ public class SearchResponseFormat {
         ComponentDto subProject = data.getComponentByUuid(dto.getRootUuid());
         setNullable(subProject, builder::setSubProjectId, ComponentDto::getId);
       }
-      result.add(builder.build());
+      result.accept(builder.build());
     }
-    return result;
   }
 
   private Common.Users.Builder formatUsers(SearchResponseData data) {
@@ -29,6 +29,7 @@ import org.sonar.api.resources.Qualifiers;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.ProjectMeasuresIndexerIterator;
+import org.sonar.db.measure.ProjectMeasuresIndexerIterator.Measures;
 import org.sonar.db.measure.ProjectMeasuresIndexerIterator.ProjectMeasures;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
@@ -39,6 +40,7 @@ import org.sonar.server.es.StartupIndexer;
 import org.sonar.server.permission.index.AuthorizationScope;
 import org.sonar.server.permission.index.NeedAuthorizationIndexer;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX_TYPE_PROJECT_MEASURES;
 
 public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorizationIndexer, StartupIndexer {
@@ -85,6 +87,18 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
     }
   }
 
+  /**
+   * Indexes a project with measures which are already known by the caller, for example the ones just computed
+   * by an analysis. Contrary to {@link #indexProject(String, Cause)}, measures are not loaded from db, only
+   * the attributes of the project are.
+   */
+  public void indexProject(String projectUuid, Measures measures) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      ProjectMeasuresIndexerIterator.selectProject(dbSession, projectUuid)
+        .ifPresent(project -> doIndex(createBulkIndexer(Size.REGULAR), singletonList(new ProjectMeasures(project, measures)).iterator()));
+    }
+  }
+
   @Override
   public void deleteProject(String uuid) {
     esClient
@@ -29,7 +29,6 @@ import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.web.UserRole;
-import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
@@ -45,7 +44,6 @@ import static java.util.Comparator.comparing;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
 import static org.sonar.core.util.stream.Collectors.toList;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
 import static org.sonar.server.measure.ws.MeasureDtoToWsMeasure.dbToWsMeasure;
 import static org.sonar.server.measure.ws.MeasuresWsParametersBuilder.createMetricKeysParameter;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
@@ -133,23 +131,7 @@ public class SearchAction implements MeasuresWsAction {
     }
 
     private List<ComponentDto> searchProjects() {
-      return getAuthorizedProjects(searchByProjectKeys(dbSession, request.getProjectKeys()));
-    }
-
-    private List<ComponentDto> getAuthorizedProjects(List<ComponentDto> projectDtos) {
-      if (userSession.isRoot()) {
-        // the method AuthorizationDao#keepAuthorizedProjectIds() should be replaced by
-        // a call to UserSession, which would transparently support roots.
-        // Meanwhile root is explicitly handled.
-        return projectDtos;
-      }
-      Map<String, Long> projectIdsByUuids = projectDtos.stream().collect(uniqueIndex(ComponentDto::uuid, ComponentDto::getId));
-      Set<Long> authorizedProjectIds = dbClient.authorizationDao().keepAuthorizedProjectIds(dbSession,
-        projectDtos.stream().map(ComponentDto::getId).collect(toList()),
-        userSession.getUserId(), UserRole.USER);
-      return projectDtos.stream()
-        .filter(c -> authorizedProjectIds.contains(projectIdsByUuids.get(c.projectUuid())))
-        .collect(Collectors.toList());
+      return userSession.keepAuthorizedComponents(UserRole.USER, searchByProjectKeys(dbSession, request.getProjectKeys()));
     }
 
     private List<ComponentDto> searchByProjectKeys(DbSession dbSession, List<String> projectKeys) {
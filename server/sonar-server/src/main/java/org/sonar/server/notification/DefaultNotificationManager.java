@@ -23,11 +23,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -36,6 +42,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
+import org.sonar.db.property.NotificationSubscriberDto;
 import org.sonar.db.property.PropertiesDao;
 
 public class DefaultNotificationManager implements NotificationManager {
@@ -50,6 +57,12 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  /**
+   * Subscribers loaded during the current batch of notifications, by dispatcher and component. Only set
+   * in the thread processing the batch, between {@link #startBatch()} and {@link #endBatch()}.
+   */
+  private final ThreadLocal<Map<List<String>, Multimap<String, NotificationChannel>>> batchSubscribers = new ThreadLocal<>();
+
   /**
    * Default constructor used by Pico
    */
@@ -94,6 +107,26 @@ public class DefaultNotificationManager implements NotificationManager {
     return convertToNotification(notificationDtos);
   }
 
+  /**
+   * Give at most {@code batchSize} notifications of the queue so that they can be processed
+   */
+  public List<Notification> getFromQueue(int batchSize) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    if (notificationDtos.isEmpty()) {
+      return Collections.emptyList();
+    }
+    notificationQueueDao.delete(notificationDtos);
+
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(Collections.singletonList(notificationDto));
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    return notifications;
+  }
+
   private Notification convertToNotification(List<NotificationQueueDto> notifications) {
     try {
       // If batchSize is increased then we should return a list instead of a single element
@@ -143,9 +176,26 @@ public class DefaultNotificationManager implements NotificationManager {
     return recipients;
   }
 
+  /**
+   * Until {@link #endBatch()} is called by the same thread, the subscribers returned by
+   * {@link #findNotificationSubscribers(NotificationDispatcher, String)} are loaded once per dispatcher and component,
+   * with a single query for all the channels.
+   */
+  public void startBatch() {
+    batchSubscribers.set(new HashMap<>());
+  }
+
+  public void endBatch() {
+    batchSubscribers.remove();
+  }
+
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
+    Map<List<String>, Multimap<String, NotificationChannel>> subscribersOfBatch = batchSubscribers.get();
+    if (subscribersOfBatch != null) {
+      return subscribersOfBatch.computeIfAbsent(Arrays.asList(dispatcherKey, componentKey), k -> findNotificationSubscribersOfAllChannels(dispatcherKey, componentKey));
+    }
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
@@ -155,6 +205,24 @@ public class DefaultNotificationManager implements NotificationManager {
     return recipients;
   }
 
+  private Multimap<String, NotificationChannel> findNotificationSubscribersOfAllChannels(String dispatcherKey, @Nullable String componentKey) {
+    Map<String, NotificationChannel> channelsByPropertyKey = new HashMap<>();
+    for (NotificationChannel channel : notificationChannels) {
+      channelsByPropertyKey.put("notification." + dispatcherKey + "." + channel.getKey(), channel);
+    }
+    List<String> channelKeys = Arrays.stream(notificationChannels).map(NotificationChannel::getKey).collect(Collectors.toList());
+
+    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+    for (NotificationSubscriberDto subscriber : propertiesDao.selectNotificationSubscribersOfChannels(dispatcherKey, channelKeys, componentKey)) {
+      NotificationChannel channel = channelsByPropertyKey.get(subscriber.getPropKey());
+      if (channel != null) {
+        recipients.put(subscriber.getLogin(), channel);
+      }
+    }
+    // shared by all the notifications of the batch
+    return Multimaps.unmodifiableSetMultimap(recipients);
+  }
+
   @VisibleForTesting
   protected List<NotificationChannel> getChannels() {
     return Arrays.asList(notificationChannels);
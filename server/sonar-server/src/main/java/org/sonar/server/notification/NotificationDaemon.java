@@ -21,9 +21,14 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
@@ -32,6 +37,7 @@ import org.sonar.api.notifications.Notification;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.platform.monitoring.Monitor;
 
 @Properties({
   @Property(
@@ -43,34 +49,69 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_BATCH_SIZE,
+    defaultValue = "1",
+    name = "Maximum number of notifications dispatched at once. Notifications are dispatched one by one if 1.",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_SENDER_THREADS,
+    defaultValue = "4",
+    name = "Number of threads delivering notifications, when dispatched by batch",
     global = false)
 })
 @ServerSide
-public class NotificationDaemon implements Startable {
+public class NotificationDaemon implements Startable, Monitor {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String SENDER_THREAD_NAME_PREFIX = "sq-notification-sender-";
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_BATCH_SIZE = "sonar.notifications.batchSize";
+  public static final String PROPERTY_SENDER_THREADS = "sonar.notifications.senderThreads";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int batchSize;
+  private final int senderThreads;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
   private ScheduledExecutorService executorService;
+  private ExecutorService senders;
   private boolean stopping = false;
 
+  // monitoring
+  private final AtomicLong sentCount = new AtomicLong();
+  private volatile long queueEmptyAt = now();
+  private volatile int lastBatchSize = 0;
+  private volatile long lastBatchDurationMs = 0L;
+
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.batchSize = settings.getInt(PROPERTY_BATCH_SIZE);
+    this.senderThreads = Math.max(1, settings.getInt(PROPERTY_SENDER_THREADS));
     this.manager = manager;
     this.service = service;
   }
 
+  private boolean isBatchMode() {
+    return batchSize > 1;
+  }
+
   @Override
   public void start() {
+    if (isBatchMode()) {
+      senders = Executors.newFixedThreadPool(senderThreads,
+        new ThreadFactoryBuilder()
+          .setNameFormat(SENDER_THREAD_NAME_PREFIX + "%d")
+          .setPriority(Thread.MIN_PRIORITY)
+          .build());
+    }
     executorService = Executors.newSingleThreadScheduledExecutor(
       new ThreadFactoryBuilder()
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
@@ -83,7 +124,11 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    if (isBatchMode()) {
+      LOG.info("Notification service started (delay {} sec., batches of {} notifications, {} senders)", delayInSeconds, batchSize, senderThreads);
+    } else {
+      LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    }
   }
 
   @Override
@@ -92,6 +137,10 @@ public class NotificationDaemon implements Startable {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      if (senders != null) {
+        senders.shutdown();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+      }
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -101,6 +150,10 @@ public class NotificationDaemon implements Startable {
 
   @VisibleForTesting
   synchronized void processQueue() {
+    if (isBatchMode()) {
+      processQueueByBatches();
+      return;
+    }
     long start = now();
     long lastLog = start;
     long notifSentCount = 0;
@@ -109,18 +162,52 @@ public class NotificationDaemon implements Startable {
     while (notifToSend != null) {
       service.deliver(notifToSend);
       notifSentCount++;
+      sentCount.incrementAndGet();
       if (stopping) {
-        break;
-      }
-      long now = now();
-      if (now - lastLog > delayBeforeReportingStatusInSeconds * 1000) {
-        long remainingNotifCount = manager.count();
-        lastLog = now;
-        long spentTimeInMinutes = (now - start) / (60 * 1000);
-        log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
+        return;
       }
+      lastLog = logIfNeeded(start, lastLog, notifSentCount);
       notifToSend = manager.getFromQueue();
     }
+    queueEmptyAt = now();
+  }
+
+  private void processQueueByBatches() {
+    long start = now();
+    long lastLog = start;
+    long notifSentCount = 0;
+
+    List<Notification> batch = manager.getFromQueue(batchSize);
+    while (!batch.isEmpty()) {
+      long batchStart = now();
+      manager.startBatch();
+      try {
+        service.deliver(batch, senders);
+      } finally {
+        manager.endBatch();
+      }
+      lastBatchSize = batch.size();
+      lastBatchDurationMs = now() - batchStart;
+      notifSentCount += batch.size();
+      sentCount.addAndGet(batch.size());
+      if (stopping) {
+        return;
+      }
+      lastLog = logIfNeeded(start, lastLog, notifSentCount);
+      batch = manager.getFromQueue(batchSize);
+    }
+    queueEmptyAt = now();
+  }
+
+  private long logIfNeeded(long start, long lastLog, long notifSentCount) {
+    long now = now();
+    if (now - lastLog > delayBeforeReportingStatusInSeconds * 1000) {
+      long remainingNotifCount = manager.count();
+      long spentTimeInMinutes = (now - start) / (60 * 1000);
+      log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
+      return now;
+    }
+    return lastLog;
   }
 
   @VisibleForTesting
@@ -129,6 +216,25 @@ public class NotificationDaemon implements Startable {
       notifSentCount, spentTimeInMinutes, remainingNotifCount);
   }
 
+  @Override
+  public String name() {
+    return "Notifications";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    long queueSize = manager.count();
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Queue Size", queueSize);
+    // time since the queue was empty for the last time, which is the maximum delay of the waiting notifications
+    attributes.put("Lag (ms)", queueSize == 0 ? 0L : Math.max(0L, now() - queueEmptyAt));
+    attributes.put("Sent", sentCount.get());
+    attributes.put("Batch Size", Math.max(1, batchSize));
+    attributes.put("Last Batch Size", lastBatchSize);
+    attributes.put("Last Batch Duration (ms)", lastBatchDurationMs);
+    return attributes;
+  }
+
   @VisibleForTesting
   long now() {
     return System.currentTimeMillis();
@@ -26,9 +26,12 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.notifications.Notification;
@@ -65,6 +68,39 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
+    dispatch(notification, findRecipients(notification));
+  }
+
+  /**
+   * Delivers a batch of notifications. Recipients of all the notifications are resolved first, then the notifications
+   * are delivered by recipient, each recipient being processed by a task of {@code senders}. The notifications
+   * of a given recipient are delivered in the order of the batch.
+   */
+  public void deliver(List<Notification> notifications, ExecutorService senders) {
+    Map<String, List<Delivery>> deliveriesByRecipient = new LinkedHashMap<>();
+    for (Notification notification : notifications) {
+      for (Map.Entry<String, NotificationChannel> recipient : findRecipients(notification).entries()) {
+        deliveriesByRecipient.computeIfAbsent(recipient.getKey(), k -> new ArrayList<>()).add(new Delivery(notification, recipient.getValue()));
+      }
+    }
+
+    List<Callable<Void>> tasks = new ArrayList<>(deliveriesByRecipient.size());
+    deliveriesByRecipient.forEach((username, deliveries) -> tasks.add(() -> {
+      LOG.debug("Deliver {} notifications to user {}", deliveries.size(), username);
+      for (Delivery delivery : deliveries) {
+        deliver(delivery.notification, delivery.channel, username);
+      }
+      return null;
+    }));
+    try {
+      senders.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      LOG.warn("Interrupted while delivering notifications", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
     final SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
@@ -75,7 +111,7 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
   private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
@@ -84,16 +120,20 @@ public class NotificationService {
       Collection<NotificationChannel> userChannels = entry.getValue();
       LOG.debug("For user {} via {}", username, userChannels);
       for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
+        deliver(notification, channel, username);
       }
     }
   }
 
+  private static void deliver(Notification notification, NotificationChannel channel, String username) {
+    try {
+      channel.deliver(notification, username);
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+    }
+  }
+
   @VisibleForTesting
   protected List<NotificationDispatcher> getDispatchers() {
     return dispatchers;
@@ -114,6 +154,16 @@ public class NotificationService {
     return dbClient.propertiesDao().hasProjectNotificationSubscribersForDispatchers(projectUuid, dispatcherKeys);
   }
 
+  private static class Delivery {
+    private final Notification notification;
+    private final NotificationChannel channel;
+
+    private Delivery(Notification notification, NotificationChannel channel) {
+      this.notification = notification;
+      this.channel = channel;
+    }
+  }
+
   private static class ContextImpl implements NotificationDispatcher.Context {
     private final Multimap<String, NotificationChannel> recipients;
 
@@ -24,6 +24,7 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.server.authentication.JwtSessionCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
 import org.sonar.db.permission.OrganizationPermission;
@@ -38,13 +39,15 @@ public class EnableSupportAction implements OrganizationsAction {
   private final DbClient dbClient;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationFlags organizationFlags;
+  private final JwtSessionCache sessionCache;
 
   public EnableSupportAction(UserSession userSession, DbClient dbClient, DefaultOrganizationProvider defaultOrganizationProvider,
-    OrganizationFlags organizationFlags) {
+    OrganizationFlags organizationFlags, JwtSessionCache sessionCache) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationFlags = organizationFlags;
+    this.sessionCache = sessionCache;
   }
 
   @Override
@@ -64,9 +67,11 @@ public class EnableSupportAction implements OrganizationsAction {
     try (DbSession dbSession = dbClient.openSession(false)) {
       verifySystemAdministrator();
       if (isSupportDisabled(dbSession)) {
-        flagCurrentUserAsRoot(dbSession);
+        String login = requireNonNull(userSession.getLogin());
+        flagAsRoot(dbSession, login);
         enableFeature(dbSession);
         dbSession.commit();
+        sessionCache.invalidateUser(login);
       }
     }
     response.noContent();
@@ -80,8 +85,8 @@ public class EnableSupportAction implements OrganizationsAction {
     return !organizationFlags.isEnabled(dbSession);
   }
 
-  private void flagCurrentUserAsRoot(DbSession dbSession) {
-    dbClient.userDao().setRoot(dbSession, requireNonNull(userSession.getLogin()), true);
+  private void flagAsRoot(DbSession dbSession, String login) {
+    dbClient.userDao().setRoot(dbSession, login, true);
   }
 
   private void enableFeature(DbSession dbSession) {
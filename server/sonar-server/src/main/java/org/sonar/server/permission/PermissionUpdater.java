@@ -40,13 +40,16 @@ public class PermissionUpdater {
   private final PermissionIndexer permissionIndexer;
   private final UserPermissionChanger userPermissionChanger;
   private final GroupPermissionChanger groupPermissionChanger;
+  private final ProjectPermissionsCache projectPermissionsCache;
 
   public PermissionUpdater(DbClient dbClient, PermissionIndexer permissionIndexer,
-                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger) {
+                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger,
+                           ProjectPermissionsCache projectPermissionsCache) {
     this.dbClient = dbClient;
     this.permissionIndexer = permissionIndexer;
     this.userPermissionChanger = userPermissionChanger;
     this.groupPermissionChanger = groupPermissionChanger;
+    this.projectPermissionsCache = projectPermissionsCache;
   }
 
   public void apply(DbSession dbSession, Collection<PermissionChange> changes) {
@@ -66,6 +69,7 @@ public class PermissionUpdater {
     dbSession.commit();
 
     if (!projectIds.isEmpty()) {
+      projectPermissionsCache.invalidate();
       permissionIndexer.indexProjectsByUuids(dbSession, projectOrViewUuids);
     }
   }
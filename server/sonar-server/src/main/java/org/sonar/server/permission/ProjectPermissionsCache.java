@@ -0,0 +1,199 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.server.platform.monitoring.Monitor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache of the permissions granted to users on projects, shared by all the requests. It avoids loading
+ * the same permissions from db on each request, for example when a user browses the components of a project.
+ * <p>
+ * Entries are kept for at most {@link #TTL_IN_SECONDS_PROPERTY} seconds. The whole cache is invalidated
+ * by {@link #invalidate()} each time permissions or group memberships are changed. Permissions are put in
+ * cache only if the cache has not been invalidated since they started being loaded (see {@link #version()}),
+ * so that permissions loaded concurrently to a change are never cached.
+ * </p>
+ */
+@ServerSide
+public class ProjectPermissionsCache implements Monitor {
+
+  static final String MAX_SIZE_PROPERTY = "sonar.web.permissionCache.maxSize";
+  static final String TTL_IN_SECONDS_PROPERTY = "sonar.web.permissionCache.ttlInSeconds";
+  private static final int DEFAULT_MAX_SIZE = 50_000;
+  private static final int DEFAULT_TTL_IN_SECONDS = 60;
+
+  private final System2 system2;
+  private final int maxSize;
+  private final long ttlInMs;
+  private final Map<Key, Entry> entries;
+  private long version = 0L;
+
+  // monitoring
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public ProjectPermissionsCache(Settings settings, System2 system2) {
+    this.system2 = system2;
+    this.maxSize = getPositiveOrZero(settings, MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
+    this.ttlInMs = getPositiveOrZero(settings, TTL_IN_SECONDS_PROPERTY, DEFAULT_TTL_IN_SECONDS) * 1_000L;
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  private static int getPositiveOrZero(Settings settings, String property, int defaultValue) {
+    if (!settings.hasKey(property)) {
+      return defaultValue;
+    }
+    int value = settings.getInt(property);
+    checkArgument(value >= 0, "Property %s must be positive. Got %s.", property, value);
+    return value;
+  }
+
+  private boolean isEnabled() {
+    return maxSize > 0 && ttlInMs > 0;
+  }
+
+  /**
+   * Version of the cache, to be read before loading permissions from db and then given to
+   * {@link #put(Integer, String, Set, long)}
+   */
+  public synchronized long version() {
+    return version;
+  }
+
+  /**
+   * @param userId id of the logged-in user, or {@code null} for anonymous
+   * @return the permissions of the user on the project, or {@code null} if they are not cached
+   */
+  @CheckForNull
+  public synchronized Set<String> get(@Nullable Integer userId, String projectUuid) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Key key = new Key(userId, projectUuid);
+    Entry entry = entries.get(key);
+    if (entry != null && entry.expiresAt <= system2.now()) {
+      entries.remove(key);
+      entry = null;
+    }
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.permissions;
+  }
+
+  /**
+   * @param permissions immutable set of the permissions of the user on the project
+   * @param loadedVersion the value of {@link #version()} before the permissions were loaded from db
+   */
+  public synchronized void put(@Nullable Integer userId, String projectUuid, Set<String> permissions, long loadedVersion) {
+    if (!isEnabled() || loadedVersion != version) {
+      return;
+    }
+    entries.put(new Key(userId, projectUuid), new Entry(permissions, system2.now() + ttlInMs));
+  }
+
+  /**
+   * Must be called when permissions or group memberships are changed
+   */
+  public synchronized void invalidate() {
+    version++;
+    entries.clear();
+    invalidations.incrementAndGet();
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public String name() {
+    return "Project Permissions Cache";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Size", size());
+    attributes.put("Max Size", maxSize);
+    attributes.put("TTL (s)", ttlInMs / 1_000L);
+    attributes.put("Hits", hits.get());
+    attributes.put("Misses", misses.get());
+    attributes.put("Invalidations", invalidations.get());
+    return attributes;
+  }
+
+  private static final class Key {
+    @Nullable
+    private final Integer userId;
+    private final String projectUuid;
+
+    private Key(@Nullable Integer userId, String projectUuid) {
+      this.userId = userId;
+      this.projectUuid = projectUuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key that = (Key) o;
+      return Objects.equals(userId, that.userId) && projectUuid.equals(that.projectUuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, projectUuid);
+    }
+  }
+
+  private static final class Entry {
+    private final Set<String> permissions;
+    private final long expiresAt;
+
+    private Entry(Set<String> permissions, long expiresAt) {
+      this.permissions = permissions;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
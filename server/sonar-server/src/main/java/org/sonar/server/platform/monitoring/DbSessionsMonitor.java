@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.db.MyBatis;
+import org.sonar.db.SessionStatistics;
+
+/**
+ * Usage of database sessions and of the connection pool since startup
+ */
+public class DbSessionsMonitor extends BaseMonitorMBean implements DbSessionsMonitorMBean {
+
+  private final SessionStatistics statistics;
+
+  public DbSessionsMonitor(MyBatis myBatis) {
+    this.statistics = myBatis.getSessionStatistics();
+  }
+
+  @Override
+  public String name() {
+    return "Database Sessions";
+  }
+
+  @Override
+  public int getOpenSessions() {
+    return statistics.getOpenSessions();
+  }
+
+  @Override
+  public int getLongLivedSessions() {
+    return statistics.getLongLivedSessionCount();
+  }
+
+  @Override
+  public long getMeanSessionLifetimeMs() {
+    return statistics.getSessionLifetimes().getMean();
+  }
+
+  @Override
+  public long getMaxSessionLifetimeMs() {
+    return statistics.getSessionLifetimes().getMax();
+  }
+
+  @Override
+  public long getConnectionAcquisitions() {
+    return statistics.getConnectionWaits().getCount();
+  }
+
+  @Override
+  public long getMeanConnectionWaitMs() {
+    return statistics.getConnectionWaits().getMean();
+  }
+
+  @Override
+  public long getMaxConnectionWaitMs() {
+    return statistics.getConnectionWaits().getMax();
+  }
+
+  @Override
+  public long getBatchFlushes() {
+    return statistics.getBatchFlushes().getCount();
+  }
+
+  @Override
+  public long getMeanBatchFlushSize() {
+    return statistics.getBatchFlushes().getMean();
+  }
+
+  @Override
+  public long getMaxBatchFlushSize() {
+    return statistics.getBatchFlushes().getMax();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Open Sessions", getOpenSessions());
+    attributes.put("Callers Tracked", statistics.isTrackingCallers());
+    attributes.put("Open Sessions By Caller", statistics.getOpenSessionsByCaller());
+    attributes.put("Long-Lived Sessions", getLongLivedSessions());
+    attributes.put("Long-Lived Sessions By Caller", longLivedSessionsByCaller());
+    attributes.put("Closed Sessions", statistics.getSessionLifetimes().getCount());
+    attributes.put("Mean Session Lifetime (ms)", getMeanSessionLifetimeMs());
+    attributes.put("Max Session Lifetime (ms)", getMaxSessionLifetimeMs());
+    attributes.put("Connection Acquisitions", getConnectionAcquisitions());
+    attributes.put("Mean Connection Wait (ms)", getMeanConnectionWaitMs());
+    attributes.put("Max Connection Wait (ms)", getMaxConnectionWaitMs());
+    attributes.put("Batch Flushes", getBatchFlushes());
+    attributes.put("Mean Batch Flush Size", getMeanBatchFlushSize());
+    attributes.put("Max Batch Flush Size", getMaxBatchFlushSize());
+    return attributes;
+  }
+
+  private Map<String, Object> longLivedSessionsByCaller() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    statistics.getLongLivedSessions().forEach((caller, sessions) -> {
+      Map<String, Object> value = new LinkedHashMap<>();
+      value.put("count", sessions.getCount());
+      value.put("maxAgeMs", sessions.getMaxAgeMs());
+      result.put(caller, value);
+    });
+    return result;
+  }
+}
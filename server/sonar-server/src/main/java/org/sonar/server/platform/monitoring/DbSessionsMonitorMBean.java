@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+/**
+ * The public attributes of {@link DbSessionsMonitor} to be exported in JMX bean.
+ */
+public interface DbSessionsMonitorMBean {
+
+  int getOpenSessions();
+
+  /**
+   * Number of sessions open for more than {@link org.sonar.db.SessionStatistics#LONG_LIVED_SESSION_MS}
+   */
+  int getLongLivedSessions();
+
+  long getMeanSessionLifetimeMs();
+
+  long getMaxSessionLifetimeMs();
+
+  /**
+   * Number of connections requested to the pool since startup
+   */
+  long getConnectionAcquisitions();
+
+  long getMeanConnectionWaitMs();
+
+  long getMaxConnectionWaitMs();
+
+  long getBatchFlushes();
+
+  /**
+   * Mean number of statements sent to database by a flush of a batch session
+   */
+  long getMeanBatchFlushSize();
+
+  long getMaxBatchFlushSize();
+}
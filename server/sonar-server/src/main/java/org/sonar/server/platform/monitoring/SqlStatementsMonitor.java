@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.db.MyBatis;
+import org.sonar.db.StatementStatistics;
+import org.sonar.db.StatementStats;
+
+/**
+ * Latency and number of rows of the MyBatis statements executed since startup
+ */
+public class SqlStatementsMonitor extends BaseMonitorMBean implements SqlStatementsMonitorMBean {
+
+  static final int MAX_DETAILED_STATEMENTS = 20;
+
+  private final StatementStatistics statistics;
+
+  public SqlStatementsMonitor(MyBatis myBatis) {
+    this.statistics = myBatis.getStatementStatistics();
+  }
+
+  @Override
+  public String name() {
+    return "SQL Statements";
+  }
+
+  @Override
+  public long getExecutedStatements() {
+    return statistics.getCount();
+  }
+
+  @Override
+  public long getTotalTimeMs() {
+    return statistics.getTotalTimeMs();
+  }
+
+  @Override
+  public long getSlowStatements() {
+    return statistics.getSlowCount();
+  }
+
+  @Override
+  public long getSlowStatementThresholdMs() {
+    return statistics.getSlowThresholdMs();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Executed Statements", getExecutedStatements());
+    attributes.put("Total Time (ms)", getTotalTimeMs());
+    attributes.put("Slow Statements", getSlowStatements());
+    attributes.put("Slow Statement Threshold (ms)", getSlowStatementThresholdMs());
+    for (StatementStats stats : statistics.getMostExpensive(MAX_DETAILED_STATEMENTS)) {
+      attributes.put(stats.getStatementId(), stats.toString());
+    }
+    return attributes;
+  }
+}
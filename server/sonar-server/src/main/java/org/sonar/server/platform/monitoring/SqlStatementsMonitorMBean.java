@@ -0,0 +1,46 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+/**
+ * The public attributes of {@link SqlStatementsMonitor} to be exported in JMX bean.
+ */
+public interface SqlStatementsMonitorMBean {
+
+  /**
+   * Number of MyBatis statements executed since startup
+   */
+  long getExecutedStatements();
+
+  /**
+   * Total duration of the MyBatis statements executed since startup
+   */
+  long getTotalTimeMs();
+
+  /**
+   * Number of executions which took at least {@link #getSlowStatementThresholdMs()}
+   */
+  long getSlowStatements();
+
+  /**
+   * Zero if slow statements are not detected
+   */
+  long getSlowStatementThresholdMs();
+}
@@ -35,6 +35,7 @@ import org.sonar.server.platform.db.migration.charset.DatabaseCharsetChecker;
 import org.sonar.server.platform.db.migration.history.MigrationHistoryTable;
 import org.sonar.server.platform.db.migration.history.MigrationHistoryTableImpl;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
+import org.sonar.server.plugins.ExplodedPluginCache;
 import org.sonar.server.plugins.InstalledPluginReferentialFactory;
 import org.sonar.server.plugins.ServerPluginJarExploder;
 import org.sonar.server.plugins.ServerPluginRepository;
@@ -58,6 +59,7 @@ public class PlatformLevel2 extends PlatformLevel {
 
       // plugins
       ServerPluginRepository.class,
+      ExplodedPluginCache.class,
       ServerPluginJarExploder.class,
       PluginLoader.class,
       PluginClassloaderFactory.class,
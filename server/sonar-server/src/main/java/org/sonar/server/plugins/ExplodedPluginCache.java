@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.ZipUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static java.lang.String.format;
+import static org.apache.commons.io.FileUtils.forceMkdir;
+
+/**
+ * Cache of exploded plugin JARs, persisted in the data directory and shared by web server and compute engine.
+ * Entries are identified by the MD5 checksum of the plugin JAR, so a plugin is unzipped only once, then
+ * reused by both processes and across restarts as long as its JAR is not changed.
+ * <p>
+ * An entry is populated in a temporary directory, which is then atomically renamed. As a consequence
+ * an entry is never seen partially populated, even when both processes populate it at the same time.
+ * </p>
+ * Entries of the previous versions of plugins are not removed. The directory can be deleted when
+ * server is stopped.
+ */
+@ServerSide
+@ComputeEngineSide
+public class ExplodedPluginCache {
+
+  static final String CACHE_RELATIVE_PATH = "exploded-plugins";
+  static final String JAR_FILENAME = "plugin.jar";
+  private static final String TEMP_PREFIX = ".tmp-";
+  private static final Logger LOG = Loggers.get(ExplodedPluginCache.class);
+
+  private final ServerFileSystem fs;
+
+  public ExplodedPluginCache(ServerFileSystem fs) {
+    this.fs = fs;
+  }
+
+  /**
+   * @return the directory containing a copy of the plugin JAR, named {@link #JAR_FILENAME}, and the entries
+   * of this JAR which are accepted by {@code filter}
+   */
+  public File get(PluginInfo pluginInfo, Predicate<ZipEntry> filter) {
+    File jar = pluginInfo.getNonNullJarFile();
+    File cacheDir = new File(fs.getDataDir(), CACHE_RELATIVE_PATH);
+    File entryDir = null;
+    try {
+      entryDir = new File(cacheDir, checksum(jar));
+      if (entryDir.isDirectory()) {
+        LOG.debug("Exploded plugin [{}] found in cache {}", pluginInfo.getKey(), entryDir);
+        return entryDir;
+      }
+      forceMkdir(cacheDir);
+      populate(jar, filter, cacheDir.toPath(), entryDir.toPath());
+      return entryDir;
+    } catch (Exception e) {
+      throw new IllegalStateException(format(
+        "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), jar.getAbsolutePath(), entryDir == null ? cacheDir.getAbsolutePath() : entryDir.getAbsolutePath()), e);
+    }
+  }
+
+  private static void populate(File jar, Predicate<ZipEntry> filter, Path cacheDir, Path entryDir) throws IOException {
+    Path tempDir = Files.createTempDirectory(cacheDir, TEMP_PREFIX);
+    try {
+      FileUtils.copyFile(jar, tempDir.resolve(JAR_FILENAME).toFile());
+      ZipUtils.unzip(jar, tempDir.toFile(), filter);
+      Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      if (!Files.isDirectory(entryDir)) {
+        throw e;
+      }
+      // entry has been populated concurrently by the other process
+    } finally {
+      org.sonar.core.util.FileUtils.deleteQuietly(tempDir.toFile());
+    }
+  }
+
+  private static String checksum(File jar) throws IOException {
+    try (InputStream input = new FileInputStream(jar)) {
+      return DigestUtils.md5Hex(input);
+    }
+  }
+}
@@ -23,7 +23,6 @@ import java.io.File;
 import org.apache.commons.io.FileUtils;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
@@ -36,15 +35,18 @@ import static org.apache.commons.io.FileUtils.forceMkdir;
 public class ServerPluginJarExploder extends PluginJarExploder {
 
   private final ServerFileSystem fs;
+  private final ExplodedPluginCache cache;
 
-  public ServerPluginJarExploder(ServerFileSystem fs) {
+  public ServerPluginJarExploder(ServerFileSystem fs, ExplodedPluginCache cache) {
     this.fs = fs;
+    this.cache = cache;
   }
 
   /**
    * JAR files of directory extensions/plugins can be moved when server is up and plugins are uninstalled.
-   * For this reason these files must not be locked by classloaders. They are copied to the directory
-   * web/deploy/plugins in order to be loaded by {@link org.sonar.core.platform.PluginLoader}.
+   * For this reason these files must not be locked by classloaders. They are loaded by
+   * {@link org.sonar.core.platform.PluginLoader} from {@link ExplodedPluginCache}. They are also copied to
+   * the directory web/deploy/plugins in order to be downloaded by scanners.
    */
   @Override
   public ExplodedPlugin explode(PluginInfo pluginInfo) {
@@ -54,13 +56,12 @@ public class ServerPluginJarExploder extends PluginJarExploder {
       org.sonar.core.util.FileUtils.cleanDirectory(toDir);
 
       File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+      FileUtils.copyFile(jarSource, new File(toDir, jarSource.getName()));
     } catch (Exception e) {
       throw new IllegalStateException(String.format(
-        "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
+        "Fail to copy plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
     }
+    File explodedDir = cache.get(pluginInfo, newLibFilter());
+    return explodeFromUnzippedDir(pluginInfo.getKey(), new File(explodedDir, ExplodedPluginCache.JAR_FILENAME), explodedDir);
   }
 }
@@ -23,6 +23,7 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -79,20 +80,25 @@ public class RuleActivator {
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, String profileKey) {
     RuleActivatorContext context = contextFactory.create(profileKey, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
   public List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QProfileName profileName) {
     RuleActivatorContext context = contextFactory.create(profileName, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
   List<ActiveRuleChange> activate(DbSession dbSession, RuleActivation activation, QualityProfileDto profileDto) {
     RuleActivatorContext context = contextFactory.create(profileDto, activation.getRuleKey(), dbSession);
-    return doActivate(dbSession, activation, context);
+    return doActivate(dbSession, activation, context, null);
   }
 
-  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context) {
+  /**
+   * @param bulkData if not null, then contexts of descendant profiles are created from this data, which is updated
+   *                 with the persisted changes, and dates of profiles are not updated
+   */
+  private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context,
+    @Nullable RuleActivatorBulkData bulkData) {
     context.verifyForActivation();
     List<ActiveRuleChange> changes = Lists.newArrayList();
     ActiveRuleChange change;
@@ -138,23 +144,33 @@ public class RuleActivator {
     if (change != null) {
       changes.add(change);
       persist(change, context, dbSession);
+      if (bulkData != null) {
+        bulkData.updateActiveRule(context);
+      }
     }
 
     if (!stopPropagation) {
-      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey()));
+      changes.addAll(cascadeActivation(dbSession, activation, context.profile().getKey(), bulkData));
     }
 
     if (!changes.isEmpty()) {
-      updateProfileDates(dbSession, context);
+      if (bulkData == null) {
+        updateProfileDates(dbSession, context);
+      } else {
+        bulkData.markAsChanged(context.profile());
+      }
     }
     return changes;
   }
 
   private void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
-    QualityProfileDto profile = context.profile();
-    profile.setRulesUpdatedAtAsDate(context.getInitDate());
+    updateProfileDates(dbSession, context.profile(), context.getInitDate());
+  }
+
+  private void updateProfileDates(DbSession dbSession, QualityProfileDto profile, Date date) {
+    profile.setRulesUpdatedAtAsDate(date);
     if (userSession.isLoggedIn()) {
-      profile.setUserUpdatedAt(context.getInitDate().getTime());
+      profile.setUserUpdatedAt(date.getTime());
     }
     db.qualityProfileDao().update(dbSession, profile);
   }
@@ -229,14 +245,20 @@ public class RuleActivator {
     return null;
   }
 
-  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey) {
+  private List<ActiveRuleChange> cascadeActivation(DbSession session, RuleActivation activation, String profileKey,
+    @Nullable RuleActivatorBulkData bulkData) {
     List<ActiveRuleChange> changes = Lists.newArrayList();
 
     // get all inherited profiles
-    List<QualityProfileDto> children = db.qualityProfileDao().selectChildren(session, profileKey);
+    List<QualityProfileDto> children = bulkData == null ? db.qualityProfileDao().selectChildren(session, profileKey) : bulkData.children(profileKey);
     for (QualityProfileDto child : children) {
       RuleActivation childActivation = new RuleActivation(activation).setCascade(true);
-      changes.addAll(activate(session, childActivation, child.getKey()));
+      if (bulkData == null) {
+        changes.addAll(activate(session, childActivation, child.getKey()));
+      } else {
+        RuleActivatorContext childContext = contextFactory.create(child.getKey(), activation.getRuleKey(), bulkData);
+        changes.addAll(doActivate(session, childActivation, childContext, bulkData));
+      }
     }
     return changes;
   }
@@ -272,11 +294,13 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    context.setActiveRule(activeRule);
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.insertParam(dbSession, activeRule, paramDto);
+        context.activeRuleParamsAsMap().put(paramDto.getKey(), paramDto);
       }
     }
     return activeRule;
@@ -305,6 +329,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().put(activeRuleParamDto.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -312,6 +337,7 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRule, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().remove(param.getKey());
           }
         }
       }
@@ -403,17 +429,22 @@ public class RuleActivator {
     return value;
   }
 
+  /**
+   * Rules, profiles and active rules are loaded up front (see {@link RuleActivatorContextFactory#loadBulkData}),
+   * then the changes, including the ones cascaded to descendant profiles, are computed in memory and persisted.
+   * Dates of profiles are updated once at the end, and all the changes are indexed at once.
+   */
   BulkChangeResult bulkActivate(RuleQuery ruleQuery, String profileKey, @Nullable String severity) {
-    DbSession dbSession = db.openSession(false);
     BulkChangeResult result = new BulkChangeResult();
-    try {
-      Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-      while (rules.hasNext()) {
-        RuleKey ruleKey = rules.next();
+    try (DbSession dbSession = db.openSession(false)) {
+      List<RuleKey> ruleKeys = newArrayList(ruleIndex.searchAll(ruleQuery));
+      RuleActivatorBulkData bulkData = contextFactory.loadBulkData(profileKey, ruleKeys, dbSession);
+      for (RuleKey ruleKey : ruleKeys) {
         try {
           RuleActivation activation = new RuleActivation(ruleKey);
           activation.setSeverity(severity);
-          List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey);
+          RuleActivatorContext context = contextFactory.create(profileKey, ruleKey, bulkData);
+          List<ActiveRuleChange> changes = doActivate(dbSession, activation, context, bulkData);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -425,10 +456,11 @@ public class RuleActivator {
           result.getErrors().addAll(e.errors());
         }
       }
+      for (QualityProfileDto profile : bulkData.changedProfiles()) {
+        updateProfileDates(dbSession, profile, bulkData.getInitDate());
+      }
       dbSession.commit();
       activeRuleIndexer.index(result.getChanges());
-    } finally {
-      dbSession.close();
     }
     return result;
   }
@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QualityProfileDto;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleParamDto;
+
+/**
+ * Rules, profiles and active rules required to activate many rules on a profile and on its descendants.
+ * They are loaded up front by {@link RuleActivatorContextFactory#loadBulkData}, so that the contexts of
+ * activation are then created without any request to db. Active rules are kept up-to-date in memory
+ * when changes are persisted, so that changes of a profile are visible when cascading to its children.
+ */
+class RuleActivatorBulkData {
+
+  private final Date initDate = new Date();
+  private final Map<String, QualityProfileDto> profilesByKey = new HashMap<>();
+  private final ListMultimap<String, QualityProfileDto> childrenByParentKey = ArrayListMultimap.create();
+  private final Map<RuleKey, RuleDto> rulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = ArrayListMultimap.create();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, ActiveRuleParamDto> activeRuleParamsByActiveRuleId = ArrayListMultimap.create();
+  private final Map<String, QualityProfileDto> changedProfilesByKey = new LinkedHashMap<>();
+
+  Date getInitDate() {
+    return initDate;
+  }
+
+  RuleActivatorBulkData addProfile(QualityProfileDto profile) {
+    profilesByKey.put(profile.getKey(), profile);
+    String parentKey = profile.getParentKee();
+    if (parentKey != null) {
+      childrenByParentKey.put(parentKey, profile);
+    }
+    return this;
+  }
+
+  @CheckForNull
+  QualityProfileDto profile(String profileKey) {
+    return profilesByKey.get(profileKey);
+  }
+
+  List<QualityProfileDto> children(String profileKey) {
+    return childrenByParentKey.get(profileKey);
+  }
+
+  RuleActivatorBulkData addRule(RuleDto rule) {
+    rulesByKey.put(rule.getKey(), rule);
+    return this;
+  }
+
+  RuleActivatorBulkData addRuleParam(RuleParamDto ruleParam) {
+    ruleParamsByRuleId.put(ruleParam.getRuleId(), ruleParam);
+    return this;
+  }
+
+  @CheckForNull
+  RuleDto rule(RuleKey ruleKey) {
+    return rulesByKey.get(ruleKey);
+  }
+
+  List<RuleParamDto> ruleParams(RuleDto rule) {
+    return ruleParamsByRuleId.get(rule.getId());
+  }
+
+  RuleActivatorBulkData addActiveRule(ActiveRuleDto activeRule) {
+    activeRulesByKey.put(activeRule.getKey(), activeRule);
+    return this;
+  }
+
+  RuleActivatorBulkData addActiveRuleParam(ActiveRuleParamDto activeRuleParam) {
+    activeRuleParamsByActiveRuleId.put(activeRuleParam.getActiveRuleId(), activeRuleParam);
+    return this;
+  }
+
+  @CheckForNull
+  ActiveRuleDto activeRule(ActiveRuleKey key) {
+    return activeRulesByKey.get(key);
+  }
+
+  @CheckForNull
+  Collection<ActiveRuleParamDto> activeRuleParams(@Nullable ActiveRuleDto activeRule) {
+    return activeRule == null ? null : activeRuleParamsByActiveRuleId.get(activeRule.getId());
+  }
+
+  /**
+   * Replaces the active rule and its parameters after the change of the activation described by the context
+   */
+  void updateActiveRule(RuleActivatorContext context) {
+    ActiveRuleDto activeRule = context.activeRule();
+    if (activeRule != null) {
+      activeRulesByKey.put(context.activeRuleKey(), activeRule);
+      activeRuleParamsByActiveRuleId.replaceValues(activeRule.getId(), new ArrayList<>(context.activeRuleParamsAsMap().values()));
+    }
+  }
+
+  void markAsChanged(QualityProfileDto profile) {
+    changedProfilesByKey.put(profile.getKey(), profile);
+  }
+
+  /**
+   * Profiles whose rules or the rules of descendants have been changed
+   */
+  Collection<QualityProfileDto> changedProfiles() {
+    return changedProfilesByKey.values();
+  }
+}
@@ -38,7 +38,7 @@ import static org.sonar.server.ws.WsUtils.checkRequest;
 
 class RuleActivatorContext {
 
-  private final Date initDate = new Date();
+  private final Date initDate;
   private RuleDto rule;
   private final Map<String, RuleParamDto> ruleParams = Maps.newHashMap();
   private QualityProfileDto profile;
@@ -48,6 +48,11 @@ class RuleActivatorContext {
   private final Map<String, ActiveRuleParamDto> parentActiveRuleParams = Maps.newHashMap();
 
   RuleActivatorContext() {
+    this(new Date());
+  }
+
+  RuleActivatorContext(Date initDate) {
+    this.initDate = initDate;
   }
 
   ActiveRuleKey activeRuleKey() {
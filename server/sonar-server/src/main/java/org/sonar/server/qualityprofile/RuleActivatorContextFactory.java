@@ -20,9 +20,12 @@
 package org.sonar.server.qualityprofile;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.ActiveRuleDto;
@@ -62,6 +65,67 @@ public class RuleActivatorContextFactory {
     return create(ruleKey, session, new RuleActivatorContext().setProfile(profile));
   }
 
+  /**
+   * Loads the profile, its parent, its descendants, the rules and all the active rules of these profiles
+   * with a constant number of requests, whatever the number of rules. If the profile does not exist, then
+   * nothing is loaded and the creation of contexts fails for each rule.
+   */
+  RuleActivatorBulkData loadBulkData(String profileKey, Collection<RuleKey> ruleKeys, DbSession session) {
+    RuleActivatorBulkData data = new RuleActivatorBulkData();
+    QualityProfileDto profile = db.qualityProfileDao().selectByKey(session, profileKey);
+    if (profile == null) {
+      return data;
+    }
+    List<QualityProfileDto> profiles = new ArrayList<>();
+    profiles.add(profile);
+    String parentKee = profile.getParentKee();
+    if (parentKee != null) {
+      QualityProfileDto parent = db.qualityProfileDao().selectByKey(session, parentKee);
+      if (parent != null) {
+        profiles.add(parent);
+      }
+    }
+    profiles.addAll(db.qualityProfileDao().selectDescendants(session, profileKey));
+    profiles.forEach(data::addProfile);
+
+    List<RuleDto> rules = db.ruleDao().selectByKeys(session, ruleKeys);
+    rules.forEach(data::addRule);
+    db.ruleDao().selectRuleParamsByRuleIds(session, rules.stream().map(RuleDto::getId).collect(Collectors.toList()))
+      .forEach(data::addRuleParam);
+
+    List<Integer> activeRuleIds = new ArrayList<>();
+    for (QualityProfileDto p : profiles) {
+      for (ActiveRuleDto activeRule : db.activeRuleDao().selectByProfileKey(session, p.getKey())) {
+        data.addActiveRule(activeRule);
+        activeRuleIds.add(activeRule.getId());
+      }
+    }
+    db.activeRuleDao().selectParamsByActiveRuleIds(session, activeRuleIds).forEach(data::addActiveRuleParam);
+    return data;
+  }
+
+  /**
+   * Same as {@link #create(String, RuleKey, DbSession)} but without requests to db
+   */
+  RuleActivatorContext create(String profileKey, RuleKey ruleKey, RuleActivatorBulkData data) {
+    QualityProfileDto profile = data.profile(profileKey);
+    checkRequest(profile != null, "Quality profile not found: %s", profileKey);
+    RuleDto rule = data.rule(ruleKey);
+    checkRequest(rule != null, "Rule not found: %s", ruleKey);
+    RuleActivatorContext context = new RuleActivatorContext(data.getInitDate())
+      .setProfile(profile)
+      .setRule(rule)
+      .setRuleParams(data.ruleParams(rule));
+    ActiveRuleDto activeRule = data.activeRule(ActiveRuleKey.of(profileKey, ruleKey));
+    context.setActiveRule(activeRule).setActiveRuleParams(data.activeRuleParams(activeRule));
+    String parentKee = profile.getParentKee();
+    if (parentKee != null) {
+      ActiveRuleDto parentActiveRule = data.activeRule(ActiveRuleKey.of(parentKee, ruleKey));
+      context.setParentActiveRule(parentActiveRule).setParentActiveRuleParams(data.activeRuleParams(parentActiveRule));
+    }
+    return context;
+  }
+
   private RuleActivatorContext create(RuleKey ruleKey, DbSession session, RuleActivatorContext context) {
     initRule(ruleKey, context, session);
     initActiveRules(context.profile().getKey(), ruleKey, context, session, false);
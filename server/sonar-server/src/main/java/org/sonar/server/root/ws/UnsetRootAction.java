@@ -25,6 +25,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.authentication.JwtSessionCache;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.user.UserSession;
 
@@ -37,10 +38,12 @@ public class UnsetRootAction implements RootsWsAction {
 
   private final UserSession userSession;
   private final DbClient dbClient;
+  private final JwtSessionCache sessionCache;
 
-  public UnsetRootAction(UserSession userSession, DbClient dbClient) {
+  public UnsetRootAction(UserSession userSession, DbClient dbClient, JwtSessionCache sessionCache) {
     this.userSession = userSession;
     this.dbClient = dbClient;
+    this.sessionCache = sessionCache;
   }
 
   @Override
@@ -74,6 +77,7 @@ public class UnsetRootAction implements RootsWsAction {
       if (userDto.isRoot()) {
         dbClient.userDao().setRoot(dbSession, login, false);
         dbSession.commit();
+        sessionCache.invalidateUser(login);
       }
     }
     response.noContent();
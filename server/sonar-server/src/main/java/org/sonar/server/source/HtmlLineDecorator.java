@@ -0,0 +1,244 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+
+import static org.sonar.server.source.HtmlTextDecorator.AMPERSAND;
+import static org.sonar.server.source.HtmlTextDecorator.CR_END_OF_LINE;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_AMPERSAND;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_HTML_CLOSING;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_HTML_OPENING;
+import static org.sonar.server.source.HtmlTextDecorator.HTML_CLOSING;
+import static org.sonar.server.source.HtmlTextDecorator.HTML_OPENING;
+import static org.sonar.server.source.HtmlTextDecorator.LF_END_OF_LINE;
+
+/**
+ * Decorates a single line of source code with the same html as {@link HtmlTextDecorator}, without
+ * intermediary objects. Highlighting and symbol rules are compiled into arrays of offsets sorted by position,
+ * then the line is written in a single pass into a buffer which is reused from one line to another.
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+class HtmlLineDecorator {
+
+  private static final char ENTITY_SEPARATOR = ';';
+  private static final char FIELD_SEPARATOR = ',';
+  private static final String SYMBOL_PREFIX = "sym-";
+  private static final String HIGHLIGHTABLE = " sym";
+  private static final String CLOSING_TAG = "</span>";
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Buffers grown by very long lines, for example in minified files, are not kept
+   */
+  private static final int MAX_KEPT_BUFFER_CAPACITY = 64 * 1024;
+
+  private int[] openingOffsets = new int[INITIAL_CAPACITY];
+  private String[] openingCssClasses = new String[INITIAL_CAPACITY];
+  private int openingCount = 0;
+  private int[] closingOffsets = new int[INITIAL_CAPACITY];
+  private int closingCount = 0;
+  private StringBuilder output = new StringBuilder(256);
+
+  String decorate(String sourceLine, @Nullable String highlighting, @Nullable String symbols) {
+    if (StringUtils.indexOfAny(sourceLine, new char[] {CR_END_OF_LINE, LF_END_OF_LINE}) >= 0) {
+      return decorateMultiLines(sourceLine, highlighting, symbols);
+    }
+    openingCount = 0;
+    closingCount = 0;
+    if (StringUtils.isNotBlank(highlighting)) {
+      compileHighlighting(highlighting);
+    }
+    if (StringUtils.isNotBlank(symbols)) {
+      compileSymbols(symbols);
+    }
+    return write(sourceLine);
+  }
+
+  /**
+   * End-of-line characters should not be part of a line of source. If any, the generic decorator is used so that
+   * the output is unchanged.
+   */
+  private static String decorateMultiLines(String sourceLine, @Nullable String highlighting, @Nullable String symbols) {
+    DecorationDataHolder decorationDataHolder = new DecorationDataHolder();
+    if (StringUtils.isNotBlank(highlighting)) {
+      decorationDataHolder.loadSyntaxHighlightingData(highlighting);
+    }
+    if (StringUtils.isNotBlank(symbols)) {
+      decorationDataHolder.loadLineSymbolReferences(symbols);
+    }
+    return new HtmlTextDecorator().decorateTextWithHtml(sourceLine, decorationDataHolder, 1, 1).stream().findFirst().orElse("");
+  }
+
+  /**
+   * Rules have the format "startOffset,endOffset,cssClass;..."
+   */
+  private void compileHighlighting(String highlighting) {
+    int ruleStart = 0;
+    while (ruleStart < highlighting.length()) {
+      int ruleEnd = indexOf(highlighting, ENTITY_SEPARATOR, ruleStart, highlighting.length());
+      if (ruleEnd > ruleStart) {
+        int firstSeparator = indexOf(highlighting, FIELD_SEPARATOR, ruleStart, ruleEnd);
+        int secondSeparator = indexOf(highlighting, FIELD_SEPARATOR, firstSeparator + 1, ruleEnd);
+        int startOffset = parseInt(highlighting, ruleStart, firstSeparator);
+        int endOffset = parseInt(highlighting, firstSeparator + 1, secondSeparator);
+        if (startOffset < endOffset) {
+          int thirdSeparator = indexOf(highlighting, FIELD_SEPARATOR, secondSeparator + 1, ruleEnd);
+          addOpening(startOffset, highlighting.substring(secondSeparator + 1, thirdSeparator));
+          addClosing(endOffset);
+        }
+      }
+      ruleStart = ruleEnd + 1;
+    }
+  }
+
+  /**
+   * Symbols have the format "startOffset,endOffset,symbolId;..."
+   */
+  private void compileSymbols(String symbols) {
+    int symbolStart = 0;
+    while (symbolStart < symbols.length()) {
+      int symbolEnd = indexOf(symbols, ENTITY_SEPARATOR, symbolStart, symbols.length());
+      if (symbolEnd > symbolStart) {
+        int firstSeparator = indexOf(symbols, FIELD_SEPARATOR, symbolStart, symbolEnd);
+        int secondSeparator = indexOf(symbols, FIELD_SEPARATOR, firstSeparator + 1, symbolEnd);
+        int thirdSeparator = indexOf(symbols, FIELD_SEPARATOR, secondSeparator + 1, symbolEnd);
+        int startOffset = parseInt(symbols, symbolStart, firstSeparator);
+        int endOffset = parseInt(symbols, firstSeparator + 1, secondSeparator);
+        int symbolId = parseInt(symbols, secondSeparator + 1, thirdSeparator);
+        addOpening(startOffset, SYMBOL_PREFIX + symbolId + HIGHLIGHTABLE);
+        addClosing(endOffset);
+      }
+      symbolStart = symbolEnd + 1;
+    }
+  }
+
+  private String write(String sourceLine) {
+    StringBuilder html = output;
+    html.setLength(0);
+    int openTags = 0;
+    int openingIndex = 0;
+    int closingIndex = 0;
+    for (int i = 0; i < sourceLine.length(); i++) {
+      while (closingIndex < closingCount && closingOffsets[closingIndex] == i) {
+        html.append(CLOSING_TAG);
+        openTags--;
+        closingIndex++;
+      }
+      while (openingIndex < openingCount && openingOffsets[openingIndex] == i) {
+        html.append("<span class=\"").append(openingCssClasses[openingIndex]).append("\">");
+        openTags++;
+        openingIndex++;
+      }
+      appendEscaped(html, sourceLine.charAt(i));
+    }
+    for (int i = 0; i < openTags; i++) {
+      html.append(CLOSING_TAG);
+    }
+    String result = html.toString();
+    if (html.capacity() > MAX_KEPT_BUFFER_CAPACITY) {
+      output = new StringBuilder(256);
+    }
+    return result;
+  }
+
+  private static void appendEscaped(StringBuilder html, char c) {
+    if (c == HTML_OPENING) {
+      html.append(ENCODED_HTML_OPENING);
+    } else if (c == HTML_CLOSING) {
+      html.append(ENCODED_HTML_CLOSING);
+    } else if (c == AMPERSAND) {
+      html.append(ENCODED_AMPERSAND);
+    } else {
+      html.append(c);
+    }
+  }
+
+  /**
+   * Inserts after the openings with the same offset, so that tags are opened in the order of the rules
+   */
+  private void addOpening(int offset, String cssClass) {
+    if (openingCount == openingOffsets.length) {
+      openingOffsets = Arrays.copyOf(openingOffsets, openingCount * 2);
+      openingCssClasses = Arrays.copyOf(openingCssClasses, openingCount * 2);
+    }
+    int index = openingCount;
+    while (index > 0 && openingOffsets[index - 1] > offset) {
+      openingOffsets[index] = openingOffsets[index - 1];
+      openingCssClasses[index] = openingCssClasses[index - 1];
+      index--;
+    }
+    openingOffsets[index] = offset;
+    openingCssClasses[index] = cssClass;
+    openingCount++;
+  }
+
+  private void addClosing(int offset) {
+    if (closingCount == closingOffsets.length) {
+      closingOffsets = Arrays.copyOf(closingOffsets, closingCount * 2);
+    }
+    int index = closingCount;
+    while (index > 0 && closingOffsets[index - 1] > offset) {
+      closingOffsets[index] = closingOffsets[index - 1];
+      index--;
+    }
+    closingOffsets[index] = offset;
+    closingCount++;
+  }
+
+  /**
+   * @return the index of {@code c} between {@code from} and {@code to} (exclusive), or {@code to} if not found
+   */
+  private static int indexOf(String s, char c, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) == c) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private static int parseInt(String s, int from, int to) {
+    if (from >= to) {
+      throw new NumberFormatException("Empty number in '" + s + "'");
+    }
+    int i = from;
+    boolean negative = s.charAt(i) == '-';
+    if (negative) {
+      i++;
+    }
+    if (i == to) {
+      throw new NumberFormatException("Invalid number in '" + s + "'");
+    }
+    int result = 0;
+    for (; i < to; i++) {
+      int digit = Character.digit(s.charAt(i), 10);
+      if (digit < 0) {
+        throw new NumberFormatException("Invalid number '" + s.substring(from, to) + "'");
+      }
+      result = result * 10 + digit;
+    }
+    return negative ? -result : result;
+  }
+}
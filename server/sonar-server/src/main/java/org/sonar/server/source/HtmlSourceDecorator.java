@@ -19,36 +19,22 @@
  */
 package org.sonar.server.source;
 
-import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
-import org.apache.commons.lang.StringUtils;
 
 public class HtmlSourceDecorator {
 
+  /**
+   * Decorators are not thread-safe but are reused for all the lines decorated by a thread
+   */
+  private static final ThreadLocal<HtmlLineDecorator> LINE_DECORATOR = ThreadLocal.withInitial(HtmlLineDecorator::new);
+
   @CheckForNull
   public String getDecoratedSourceAsHtml(@Nullable String sourceLine, @Nullable String highlighting, @Nullable String symbols) {
     if (sourceLine == null) {
       return null;
     }
-    DecorationDataHolder decorationDataHolder = new DecorationDataHolder();
-    if (StringUtils.isNotBlank(highlighting)) {
-      decorationDataHolder.loadSyntaxHighlightingData(highlighting);
-    }
-    if (StringUtils.isNotBlank(symbols)) {
-      decorationDataHolder.loadLineSymbolReferences(symbols);
-    }
-    HtmlTextDecorator textDecorator = new HtmlTextDecorator();
-    List<String> decoratedSource = textDecorator.decorateTextWithHtml(sourceLine, decorationDataHolder, 1, 1);
-    if (decoratedSource == null) {
-      return null;
-    } else {
-      if (decoratedSource.isEmpty()) {
-        return "";
-      } else {
-        return decoratedSource.get(0);
-      }
-    }
+    return LINE_DECORATOR.get().decorate(sourceLine, highlighting, symbols);
   }
 
 }
@@ -0,0 +1,160 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.sonar.db.source.FileSourceBlocksCodec.LINES_PER_BLOCK;
+
+/**
+ * LRU cache of decoded source lines of the most recently read files. Lines are cached by blocks of
+ * {@link org.sonar.db.source.FileSourceBlocksCodec#LINES_PER_BLOCK} lines, identified by the file and
+ * the hash of its source data, so that blocks of previous versions of a file are never returned.
+ */
+public class SourceLinesCache {
+
+  /**
+   * Reads of larger ranges of lines, for example the whole file, are not cached
+   */
+  static final int MAX_BLOCKS_PER_READ = 8;
+  private static final int DEFAULT_MAX_BLOCKS = 500;
+
+  private final Map<BlockKey, List<DbFileSources.Line>> blocks;
+
+  public SourceLinesCache() {
+    this(DEFAULT_MAX_BLOCKS);
+  }
+
+  SourceLinesCache(int maxBlocks) {
+    this.blocks = new LinkedHashMap<BlockKey, List<DbFileSources.Line>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<BlockKey, List<DbFileSources.Line>> eldest) {
+        return size() > maxBlocks;
+      }
+    };
+  }
+
+  static boolean isCacheable(int from, int toInclusive) {
+    return blockOf(toInclusive) - blockOf(from) < MAX_BLOCKS_PER_READ;
+  }
+
+  /**
+   * First line of the block containing line {@code from}
+   */
+  static int firstLineOfBlock(int from) {
+    return blockOf(from) * LINES_PER_BLOCK + 1;
+  }
+
+  /**
+   * Last line of the block containing line {@code toInclusive}
+   */
+  static int lastLineOfBlock(int toInclusive) {
+    return (blockOf(toInclusive) + 1) * LINES_PER_BLOCK;
+  }
+
+  /**
+   * @return the lines between {@code from} and {@code toInclusive}, or {@code null} if at least one of the
+   * required blocks is not cached
+   */
+  @CheckForNull
+  synchronized List<DbFileSources.Line> get(String fileUuid, String dataHash, int from, int toInclusive) {
+    List<DbFileSources.Line> result = new ArrayList<>();
+    for (int block = blockOf(from); block <= blockOf(toInclusive); block++) {
+      List<DbFileSources.Line> lines = blocks.get(new BlockKey(fileUuid, dataHash, block));
+      if (lines == null) {
+        return null;
+      }
+      int firstLine = block * LINES_PER_BLOCK + 1;
+      for (int i = 0; i < lines.size(); i++) {
+        int line = firstLine + i;
+        if (line >= from && line <= toInclusive) {
+          result.add(lines.get(i));
+        }
+      }
+      if (lines.size() < LINES_PER_BLOCK) {
+        // end of file
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param lines the lines starting at {@code firstLineOfBlock(from)} and ending at {@code lastLineOfBlock(toInclusive)},
+   *              or at the end of file
+   */
+  synchronized void put(String fileUuid, String dataHash, int from, int toInclusive, List<DbFileSources.Line> lines) {
+    int firstBlock = blockOf(from);
+    int lastBlock = blockOf(toInclusive);
+    for (int block = firstBlock; block <= lastBlock; block++) {
+      int start = Math.min(lines.size(), (block - firstBlock) * LINES_PER_BLOCK);
+      int end = Math.min(lines.size(), start + LINES_PER_BLOCK);
+      blocks.put(new BlockKey(fileUuid, dataHash, block), Collections.unmodifiableList(new ArrayList<>(lines.subList(start, end))));
+      if (end - start < LINES_PER_BLOCK) {
+        // end of file
+        break;
+      }
+    }
+  }
+
+  synchronized int size() {
+    return blocks.size();
+  }
+
+  private static int blockOf(int line) {
+    return (line - 1) / LINES_PER_BLOCK;
+  }
+
+  private static final class BlockKey {
+    private final String fileUuid;
+    private final String dataHash;
+    private final int block;
+
+    private BlockKey(String fileUuid, String dataHash, int block) {
+      this.fileUuid = fileUuid;
+      this.dataHash = dataHash;
+      this.block = block;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      BlockKey that = (BlockKey) o;
+      return block == that.block && fileUuid.equals(that.fileUuid) && dataHash.equals(that.dataHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fileUuid, dataHash, block);
+    }
+  }
+}
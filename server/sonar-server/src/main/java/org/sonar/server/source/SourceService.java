@@ -19,6 +19,7 @@
  */
 package org.sonar.server.source;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import org.sonar.core.util.stream.Collectors;
@@ -33,10 +34,12 @@ public class SourceService {
 
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
+  private final SourceLinesCache cache;
 
-  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, SourceLinesCache cache) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.cache = cache;
   }
 
   /**
@@ -63,15 +66,36 @@ public class SourceService {
   private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
+    Optional<List<DbFileSources.Line>> lines = readLines(dbSession, fileUuid, from, toInclusive);
+    return lines.map(l -> l.stream()
+      .map(function)
+      .collect(Collectors.toList()));
+  }
+
+  private Optional<List<DbFileSources.Line>> readLines(DbSession dbSession, String fileUuid, int from, int toInclusive) {
+    String dataHash = SourceLinesCache.isCacheable(from, toInclusive) ? dbClient.fileSourceDao().selectSourceDataHash(dbSession, fileUuid) : null;
+    if (dataHash == null) {
+      return Optional.ofNullable(dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid))
+        .map(dto -> dto.getSourceLines(from, toInclusive));
+    }
+    List<DbFileSources.Line> cachedLines = cache.get(fileUuid, dataHash, from, toInclusive);
+    if (cachedLines != null) {
+      return Optional.of(cachedLines);
+    }
     FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
     if (dto == null) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
-      .filter(line -> line.hasLine() && line.getLine() >= from)
-      .limit((toInclusive - from) + 1L)
-      .map(function)
-      .collect(Collectors.toList()));
+    // whole blocks are decoded and cached, so that next pages of the same file are read from cache
+    int firstLine = SourceLinesCache.firstLineOfBlock(from);
+    int lastLine = SourceLinesCache.lastLineOfBlock(toInclusive);
+    List<DbFileSources.Line> blockLines = dto.getSourceLines(firstLine, lastLine);
+    if (dataHash.equals(dto.getDataHash())) {
+      cache.put(fileUuid, dataHash, from, toInclusive, blockLines);
+    }
+    int start = Math.min(blockLines.size(), from - firstLine);
+    int end = Math.min(blockLines.size(), toInclusive - firstLine + 1);
+    return Optional.of(blockLines.subList(start, end));
   }
 
   private static void verifyLine(int line) {
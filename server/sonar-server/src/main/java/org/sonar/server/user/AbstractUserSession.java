@@ -19,6 +19,9 @@
  */
 package org.sonar.server.user;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -82,6 +85,27 @@ public abstract class AbstractUserSession implements UserSession {
 
   protected abstract Optional<String> componentUuidToProjectUuid(String componentUuid);
 
+  @Override
+  public final List<ComponentDto> keepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
+    if (isRoot()) {
+      return new ArrayList<>(components);
+    }
+    return doKeepAuthorizedComponents(permission, components);
+  }
+
+  /**
+   * Naive implementation, to be overridden when permissions of many projects can be loaded at once
+   */
+  protected List<ComponentDto> doKeepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
+    List<ComponentDto> result = new ArrayList<>(components.size());
+    for (ComponentDto component : components) {
+      if (hasProjectUuidPermission(permission, component.projectUuid())) {
+        result.add(component);
+      }
+    }
+    return result;
+  }
+
   protected abstract boolean hasProjectUuidPermission(String permission, String projectUuid);
 
   @Override
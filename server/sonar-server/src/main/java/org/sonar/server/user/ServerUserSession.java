@@ -21,9 +21,12 @@ package org.sonar.server.user;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -33,10 +36,12 @@ import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.permission.ProjectPermissionDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.db.permission.OrganizationPermission;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -50,6 +55,7 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final ProjectPermissionsCache projectPermissionsCache;
   private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
   private final Map<String, String> projectUuidByComponentUuid = newHashMap();
@@ -57,10 +63,11 @@ public class ServerUserSession extends AbstractUserSession {
   private Map<String, Set<String>> permissionsByProjectUuid;
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    DefaultOrganizationProvider defaultOrganizationProvider, ProjectPermissionsCache projectPermissionsCache, @Nullable UserDto userDto) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.projectPermissionsCache = projectPermissionsCache;
     this.userDto = userDto;
   }
 
@@ -148,20 +155,59 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected boolean hasProjectUuidPermission(String permission, String projectUuid) {
+    loadProjectPermissions(Collections.singleton(projectUuid));
+    return permissionsByProjectUuid.get(projectUuid).contains(permission);
+  }
+
+  @Override
+  protected List<ComponentDto> doKeepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
+    loadProjectPermissions(components.stream().map(ComponentDto::projectUuid).collect(Collectors.toSet()));
+    return components.stream()
+      .filter(component -> permissionsByProjectUuid.get(component.projectUuid()).contains(permission))
+      .collect(Collectors.toList(components.size()));
+  }
+
+  /**
+   * Loads the permissions of the projects which are not already loaded by this session, first from
+   * the cache shared by all the requests, then from db with a single request for all the missing projects.
+   */
+  private void loadProjectPermissions(Set<String> projectUuids) {
     if (permissionsByProjectUuid == null) {
       permissionsByProjectUuid = new HashMap<>();
     }
-    Set<String> permissions = permissionsByProjectUuid.computeIfAbsent(projectUuid, this::loadProjectPermissions);
-    return permissions.contains(permission);
-  }
+    Integer userId = userDto == null ? null : userDto.getId();
+    List<String> missingProjectUuids = new ArrayList<>();
+    for (String projectUuid : projectUuids) {
+      if (!permissionsByProjectUuid.containsKey(projectUuid)) {
+        Set<String> permissions = projectPermissionsCache.get(userId, projectUuid);
+        if (permissions == null) {
+          missingProjectUuids.add(projectUuid);
+        } else {
+          permissionsByProjectUuid.put(projectUuid, permissions);
+        }
+      }
+    }
+    if (missingProjectUuids.isEmpty()) {
+      return;
+    }
 
-  private Set<String> loadProjectPermissions(String projectUuid) {
+    long cacheVersion = projectPermissionsCache.version();
+    Map<String, Set<String>> loadedPermissions = new HashMap<>();
+    missingProjectUuids.forEach(projectUuid -> loadedPermissions.put(projectUuid, new HashSet<>()));
     try (DbSession dbSession = dbClient.openSession(false)) {
-      if (userDto != null && userDto.getId() != null) {
-        return dbClient.authorizationDao().selectProjectPermissions(dbSession, projectUuid, userDto.getId());
+      List<ProjectPermissionDto> dtos;
+      if (userId != null) {
+        dtos = dbClient.authorizationDao().selectProjectPermissions(dbSession, missingProjectUuids, userId);
+      } else {
+        dtos = dbClient.authorizationDao().selectProjectPermissionsOfAnonymous(dbSession, missingProjectUuids);
       }
-      return dbClient.authorizationDao().selectProjectPermissionsOfAnonymous(dbSession, projectUuid);
+      dtos.forEach(dto -> loadedPermissions.get(dto.getProjectUuid()).add(dto.getPermission()));
     }
+    loadedPermissions.forEach((projectUuid, permissions) -> {
+      Set<String> immutablePermissions = Collections.unmodifiableSet(permissions);
+      permissionsByProjectUuid.put(projectUuid, immutablePermissions);
+      projectPermissionsCache.put(userId, projectUuid, immutablePermissions, cacheVersion);
+    });
   }
 
   @Override
@@ -20,6 +20,7 @@
 package org.sonar.server.user;
 
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.CheckForNull;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -137,6 +138,11 @@ public class ThreadLocalUserSession implements UserSession {
     return get().hasComponentUuidPermission(permission, componentUuid);
   }
 
+  @Override
+  public List<ComponentDto> keepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
+    return get().keepAuthorizedComponents(permission, components);
+  }
+
   @Override
   public UserSession checkPermission(OrganizationPermission permission, OrganizationDto organization) {
     get().checkPermission(permission, organization);
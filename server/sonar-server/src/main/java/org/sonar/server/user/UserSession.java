@@ -20,6 +20,7 @@
 package org.sonar.server.user;
 
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.CheckForNull;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -114,6 +115,17 @@ public interface UserSession {
    */
   boolean hasComponentUuidPermission(String permission, String componentUuid);
 
+  /**
+   * Returns the components on which the permission is granted to user, in the same order. Permissions
+   * of all the projects are loaded at once, so this method should be preferred to calls to
+   * {@link #hasComponentPermission(String, ComponentDto)} for each component of a list.
+   *
+   * Always returns all the components if {@link #isRoot()} is {@code true}.
+   *
+   * @param permission project permission as defined by {@link org.sonar.core.permission.ProjectPermissions}
+   */
+  List<ComponentDto> keepAuthorizedComponents(String permission, Collection<ComponentDto> components);
+
   /**
    * Ensures that {@link #hasComponentPermission(String, ComponentDto)} is {@code true},
    * otherwise throws a {@link org.sonar.server.exceptions.ForbiddenException}.
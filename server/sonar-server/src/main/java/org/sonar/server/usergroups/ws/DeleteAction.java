@@ -30,6 +30,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.user.GroupDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.server.user.UserSession;
 
@@ -46,14 +47,16 @@ public class DeleteAction implements UserGroupsWsAction {
   private final GroupWsSupport support;
   private final Settings settings;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final ProjectPermissionsCache projectPermissionsCache;
 
   public DeleteAction(DbClient dbClient, UserSession userSession, GroupWsSupport support, Settings settings,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
+    DefaultOrganizationProvider defaultOrganizationProvider, ProjectPermissionsCache projectPermissionsCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
     this.settings = settings;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.projectPermissionsCache = projectPermissionsCache;
   }
 
   @Override
@@ -84,6 +87,7 @@ public class DeleteAction implements UserGroupsWsAction {
       dbClient.groupDao().deleteById(dbSession, groupId.getId());
 
       dbSession.commit();
+      projectPermissionsCache.invalidate();
       response.noContent();
     }
   }
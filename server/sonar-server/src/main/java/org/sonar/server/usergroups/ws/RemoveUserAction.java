@@ -27,6 +27,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.server.user.UserSession;
 
 import static java.lang.String.format;
@@ -43,11 +44,14 @@ public class RemoveUserAction implements UserGroupsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final GroupWsSupport support;
+  private final ProjectPermissionsCache projectPermissionsCache;
 
-  public RemoveUserAction(DbClient dbClient, UserSession userSession, GroupWsSupport support) {
+  public RemoveUserAction(DbClient dbClient, UserSession userSession, GroupWsSupport support,
+    ProjectPermissionsCache projectPermissionsCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.support = support;
+    this.projectPermissionsCache = projectPermissionsCache;
   }
 
   @Override
@@ -80,6 +84,7 @@ public class RemoveUserAction implements UserGroupsWsAction {
 
       dbClient.userGroupDao().delete(dbSession, group.getId(), user.getId());
       dbSession.commit();
+      projectPermissionsCache.invalidate();
 
       response.noContent();
     }
@@ -0,0 +1,230 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writes a protobuf response incrementally, instead of building the whole message in memory as
+ * {@link WsUtils#writeProtobuf(Message, Request, Response)} does. The elements of the repeated fields,
+ * generally the items of a page of results, are written as soon as they are formatted.
+ * <p>
+ * The output is the same as {@link WsUtils#writeProtobuf(Message, Request, Response)}, except
+ * the order of the JSON fields:
+ * <ul>
+ *   <li>protobuf format: the fields of the response are written one after the other, which is a valid encoding
+ *   of the whole message</li>
+ *   <li>JSON format: repeated fields which are not written are written as empty arrays when closing the writer,
+ *   as {@link ProtobufJsonFormat} does</li>
+ * </ul>
+ * </p>
+ * The response must not be written before all the data required to format it is loaded, so that errors are still
+ * returned as usual.
+ */
+public abstract class ProtobufStreamWriter implements AutoCloseable {
+
+  final Descriptors.Descriptor responseType;
+  private Descriptors.FieldDescriptor currentArray;
+
+  private ProtobufStreamWriter(Descriptors.Descriptor responseType) {
+    this.responseType = responseType;
+  }
+
+  public static ProtobufStreamWriter of(Descriptors.Descriptor responseType, Request request, Response response) {
+    if (request.getMediaType().equals(MediaTypes.PROTOBUF)) {
+      response.stream().setMediaType(MediaTypes.PROTOBUF);
+      return new ProtobufFormat(responseType, response.stream().output());
+    }
+    response.stream().setMediaType(MediaTypes.JSON);
+    return new JsonFormat(responseType, response.stream().output());
+  }
+
+  /**
+   * Writes the fields set in {@code fields}, which must be of the type of the response. Each field
+   * must be written only once.
+   */
+  public ProtobufStreamWriter writeFields(Message fields) {
+    checkArgument(fields.getDescriptorForType().equals(responseType), "Message of type %s is expected, got %s",
+      responseType.getFullName(), fields.getDescriptorForType().getFullName());
+    checkState(currentArray == null, "Array %s is not ended", currentArray);
+    doWriteFields(fields);
+    return this;
+  }
+
+  /**
+   * Starts writing the repeated field of the response having the given number, for example
+   * {@code SearchWsResponse.ISSUES_FIELD_NUMBER}. Elements are then written by {@link #writeElement(Message)}.
+   */
+  public ProtobufStreamWriter beginArray(int fieldNumber) {
+    checkState(currentArray == null, "Array %s is not ended", currentArray);
+    Descriptors.FieldDescriptor field = responseType.findFieldByNumber(fieldNumber);
+    checkArgument(field != null && field.isRepeated() && !field.isMapField() && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE,
+      "Field %s of %s is not a repeated field of messages", fieldNumber, responseType.getFullName());
+    currentArray = field;
+    doBeginArray(field);
+    return this;
+  }
+
+  public ProtobufStreamWriter writeElement(Message element) {
+    checkState(currentArray != null, "No array is started");
+    doWriteElement(currentArray, element);
+    return this;
+  }
+
+  public ProtobufStreamWriter endArray() {
+    checkState(currentArray != null, "No array is started");
+    doEndArray();
+    currentArray = null;
+    return this;
+  }
+
+  abstract void doWriteFields(Message fields);
+
+  abstract void doBeginArray(Descriptors.FieldDescriptor field);
+
+  abstract void doWriteElement(Descriptors.FieldDescriptor field, Message element);
+
+  abstract void doEndArray();
+
+  @Override
+  public abstract void close();
+
+  private static class ProtobufFormat extends ProtobufStreamWriter {
+    private final OutputStream output;
+    private final CodedOutputStream codedOutput;
+
+    private ProtobufFormat(Descriptors.Descriptor responseType, OutputStream output) {
+      super(responseType);
+      this.output = output;
+      this.codedOutput = CodedOutputStream.newInstance(output);
+    }
+
+    @Override
+    void doWriteFields(Message fields) {
+      try {
+        fields.writeTo(codedOutput);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write response", e);
+      }
+    }
+
+    @Override
+    void doBeginArray(Descriptors.FieldDescriptor field) {
+      // elements of repeated fields are not delimited
+    }
+
+    @Override
+    void doWriteElement(Descriptors.FieldDescriptor field, Message element) {
+      try {
+        codedOutput.writeMessage(field.getNumber(), element);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write response", e);
+      }
+    }
+
+    @Override
+    void doEndArray() {
+      // elements of repeated fields are not delimited
+    }
+
+    @Override
+    public void close() {
+      try {
+        codedOutput.flush();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write response", e);
+      } finally {
+        IOUtils.closeQuietly(output);
+      }
+    }
+  }
+
+  private static class JsonFormat extends ProtobufStreamWriter {
+    private final JsonWriter writer;
+    private final Set<Descriptors.FieldDescriptor> writtenFields = new HashSet<>();
+
+    private JsonFormat(Descriptors.Descriptor responseType, OutputStream output) {
+      super(responseType);
+      this.writer = JsonWriter.of(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      this.writer.setSerializeNulls(false).setSerializeEmptys(true);
+      this.writer.beginObject();
+    }
+
+    @Override
+    void doWriteFields(Message fields) {
+      for (Descriptors.FieldDescriptor field : responseType.getFields()) {
+        boolean isSet = field.isRepeated() ? (fields.getRepeatedFieldCount(field) > 0) : fields.hasField(field);
+        if (isSet) {
+          checkState(writtenFields.add(field), "Field %s is already written", field.getName());
+          ProtobufJsonFormat.writeField(fields, field, writer);
+        }
+      }
+    }
+
+    @Override
+    void doBeginArray(Descriptors.FieldDescriptor field) {
+      checkState(writtenFields.add(field), "Field %s is already written", field.getName());
+      writer.name(field.getName()).beginArray();
+    }
+
+    @Override
+    void doWriteElement(Descriptors.FieldDescriptor field, Message element) {
+      ProtobufJsonFormat.writeValue(field, element, writer);
+    }
+
+    @Override
+    void doEndArray() {
+      writer.endArray();
+    }
+
+    @Override
+    public void close() {
+      // repeated fields are always present in JSON
+      for (Descriptors.FieldDescriptor field : responseType.getFields()) {
+        if (field.isRepeated() && !writtenFields.contains(field)) {
+          if (field.isMapField()) {
+            writer.name(field.getName()).beginObject().endObject();
+          } else {
+            writer.name(field.getName()).beginArray().endArray();
+          }
+        }
+      }
+      writer.endObject();
+      writer.close();
+    }
+  }
+}
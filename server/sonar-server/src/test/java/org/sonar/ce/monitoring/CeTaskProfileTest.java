@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.ce.monitoring.ThreadResourceUsage.UNKNOWN;
+
+public class CeTaskProfileTest {
+
+  @After
+  public void tearDown() {
+    CeTaskProfile.clearForCurrentThread();
+  }
+
+  @Test
+  public void profile_is_attached_to_current_thread() {
+    assertThat(CeTaskProfile.getForCurrentThread()).isNull();
+
+    CeTaskProfile profile = CeTaskProfile.startForCurrentThread();
+    assertThat(CeTaskProfile.getForCurrentThread()).isSameAs(profile);
+
+    CeTaskProfile.clearForCurrentThread();
+    assertThat(CeTaskProfile.getForCurrentThread()).isNull();
+  }
+
+  @Test
+  public void serialize_to_json_and_back() {
+    CeTaskProfile profile = new CeTaskProfile()
+      .addStep(new CeTaskProfile.Step("Load report").setWallTimeMs(100L).setCpuTimeMs(80L).setAllocatedBytes(1_000_000L)
+        .setDbCalls(12L).setDbTimeMs(30L).setSearchCalls(2L).setSearchTimeMs(5L))
+      .addStep(new CeTaskProfile.Step("Persist issues").setWallTimeMs(10L));
+
+    CeTaskProfile read = CeTaskProfile.fromJson(CeTaskProfile.toJson(profile));
+
+    assertThat(read.getSteps()).hasSize(2);
+    CeTaskProfile.Step first = read.getSteps().get(0);
+    assertThat(first.getDescription()).isEqualTo("Load report");
+    assertThat(first.getWallTimeMs()).isEqualTo(100L);
+    assertThat(first.getCpuTimeMs()).isEqualTo(80L);
+    assertThat(first.getAllocatedBytes()).isEqualTo(1_000_000L);
+    assertThat(first.getDbCalls()).isEqualTo(12L);
+    assertThat(first.getDbTimeMs()).isEqualTo(30L);
+    assertThat(first.getSearchCalls()).isEqualTo(2L);
+    assertThat(first.getSearchTimeMs()).isEqualTo(5L);
+    CeTaskProfile.Step second = read.getSteps().get(1);
+    assertThat(second.getCpuTimeMs()).isEqualTo(UNKNOWN);
+    assertThat(second.getAllocatedBytes()).isEqualTo(UNKNOWN);
+  }
+
+  @Test
+  public void unknown_values_are_not_serialized() {
+    CeTaskProfile profile = new CeTaskProfile().addStep(new CeTaskProfile.Step("Load report"));
+
+    assertThat(CeTaskProfile.toJson(profile)).doesNotContain("cpuTimeMs").doesNotContain("allocatedBytes");
+  }
+
+  @Test
+  public void resource_usage_of_current_thread_is_measured_between_snapshots() {
+    ThreadResourceUsage before = ThreadResourceUsage.current();
+    byte[][] garbage = new byte[100][];
+    for (int i = 0; i < garbage.length; i++) {
+      garbage[i] = new byte[10_000];
+    }
+
+    CeTaskProfile.Step step = before.toStep("step");
+
+    assertThat(garbage).hasSize(100);
+    assertThat(step.getDescription()).isEqualTo("step");
+    assertThat(step.getWallTimeMs()).isGreaterThanOrEqualTo(0L);
+    assertThat(step.getDbCalls()).isEqualTo(0L);
+    if (step.getAllocatedBytes() != UNKNOWN) {
+      assertThat(step.getAllocatedBytes()).isGreaterThanOrEqualTo(1_000_000L);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WaitTimeHistogramTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private WaitTimeHistogram underTest = new WaitTimeHistogram();
+
+  @Test
+  public void empty_histogram() {
+    assertThat(underTest.getCount()).isEqualTo(0);
+    assertThat(underTest.getTotalTime()).isEqualTo(0);
+    assertThat(underTest.getMaxTime()).isEqualTo(0);
+    assertThat(underTest.getBucketCounts()).containsExactly(0, 0, 0, 0, 0, 0);
+    assertThat(underTest.toString()).isEqualTo("count=0, mean=0ms, max=0ms, <=1s=0, <=10s=0, <=1m=0, <=10m=0, <=1h=0, >1h=0");
+  }
+
+  @Test
+  public void add_wait_times_to_buckets() {
+    underTest.add(0L);
+    underTest.add(1_000L);
+    underTest.add(1_001L);
+    underTest.add(60_000L);
+    underTest.add(2 * 60 * 60_000L);
+
+    assertThat(WaitTimeHistogram.getBucketLabels()).containsExactly("<=1s", "<=10s", "<=1m", "<=10m", "<=1h", ">1h");
+    assertThat(underTest.getBucketCounts()).containsExactly(2, 1, 1, 0, 0, 1);
+    assertThat(underTest.getCount()).isEqualTo(5);
+    assertThat(underTest.getTotalTime()).isEqualTo(7_262_001L);
+    assertThat(underTest.getMaxTime()).isEqualTo(7_200_000L);
+    assertThat(underTest.toString()).isEqualTo("count=5, mean=1452400ms, max=7200000ms, <=1s=2, <=10s=1, <=1m=1, <=10m=0, <=1h=0, >1h=1");
+  }
+
+  @Test
+  public void fail_if_wait_time_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Wait time can not be < 0");
+
+    underTest.add(-1L);
+  }
+}
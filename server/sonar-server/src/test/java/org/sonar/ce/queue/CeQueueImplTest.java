@@ -146,7 +146,7 @@ public class CeQueueImplTest {
 
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
 
-    dbTester.getDbClient().ceQueueDao().peek(session);
+    dbTester.getDbClient().ceQueueDao().peek(session, task.getUuid());
 
     underTest.cancel(task.getUuid());
   }
@@ -157,7 +157,7 @@ public class CeQueueImplTest {
     CeTask pendingTask1 = submit(CeTaskTypes.REPORT, "PROJECT_2");
     CeTask pendingTask2 = submit(CeTaskTypes.REPORT, "PROJECT_3");
 
-    dbTester.getDbClient().ceQueueDao().peek(session);
+    dbTester.getDbClient().ceQueueDao().peek(session, inProgressTask.getUuid());
 
     int canceledCount = underTest.cancelAll();
     assertThat(canceledCount).isEqualTo(2);
@@ -84,8 +84,9 @@ public class JwtHttpHandlerTest {
   private JwtSerializer jwtSerializer = mock(JwtSerializer.class);
   private JwtCsrfVerifier jwtCsrfVerifier = mock(JwtCsrfVerifier.class);
   private UserDto userDto = newUserDto().setLogin(USER_LOGIN);
+  private JwtSessionCache sessionCache = new JwtSessionCache(settings, system2);
 
-  private JwtHttpHandler underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+  private JwtHttpHandler underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
 
   @Before
   public void setUp() throws Exception {
@@ -125,7 +126,7 @@ public class JwtHttpHandlerTest {
     int sessionTimeoutInMinutes = 10;
     settings.setProperty("sonar.web.sessionTimeoutInMinutes", sessionTimeoutInMinutes);
 
-    underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+    underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
     underTest.generateToken(userDto, request, response);
 
     verify(jwtSerializer).encode(jwtArgumentCaptor.capture());
@@ -137,7 +138,7 @@ public class JwtHttpHandlerTest {
     int firstSessionTimeoutInMinutes = 10;
     settings.setProperty("sonar.web.sessionTimeoutInMinutes", firstSessionTimeoutInMinutes);
 
-    underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+    underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
     underTest.generateToken(userDto, request, response);
 
     // The property is updated, but it won't be taking into account
@@ -155,7 +156,7 @@ public class JwtHttpHandlerTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Property sonar.web.sessionTimeoutInMinutes must be strictly positive. Got 0.");
 
-    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
   }
 
   @Test
@@ -165,7 +166,7 @@ public class JwtHttpHandlerTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Property sonar.web.sessionTimeoutInMinutes must be strictly positive. Got -10.");
 
-    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
   }
 
   @Test
@@ -175,7 +176,7 @@ public class JwtHttpHandlerTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Property sonar.web.sessionTimeoutInMinutes must not be greater than 129600. Got 172800.");
 
-    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier);
+    new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
   }
 
   @Test
@@ -296,6 +297,81 @@ public class JwtHttpHandlerTest {
     verify(jwtCsrfVerifier).refreshState(request, response, "CSRF_STATE", 3 * 24 * 60 * 60);
   }
 
+  @Test
+  public void validate_token_from_cache_without_verifying_signature_nor_loading_user() throws Exception {
+    addJwtCookie();
+    Claims claims = createToken(USER_LOGIN, NOW);
+    when(jwtSerializer.decode(JWT_TOKEN)).thenReturn(Optional.of(claims));
+    assertThat(underTest.validateToken(request, response).isPresent()).isTrue();
+
+    // user is deactivated, but the session is still cached
+    dbClient.userDao().deactivateUserByLogin(dbSession, USER_LOGIN);
+    dbSession.commit();
+    Optional<UserDto> user = underTest.validateToken(request, response);
+
+    assertThat(user.get().getLogin()).isEqualTo(USER_LOGIN);
+    verify(jwtSerializer, times(1)).decode(JWT_TOKEN);
+    verify(jwtCsrfVerifier, times(2)).verifyState(eq(request), any(), eq(USER_LOGIN));
+  }
+
+  @Test
+  public void validate_token_from_cache_refreshes_session_when_refresh_time_is_reached() throws Exception {
+    settings.setProperty("sonar.web.sessionCache.ttlInSeconds", 10 * 60);
+    sessionCache = new JwtSessionCache(settings, system2);
+    underTest = new JwtHttpHandler(system2, dbClient, settings, jwtSerializer, jwtCsrfVerifier, sessionCache);
+    addJwtCookie();
+    // Token was created 10 days ago and refreshed 4 minutes ago
+    Claims claims = createToken(USER_LOGIN, TEN_DAYS_AGO);
+    claims.put("lastRefreshTime", FOUR_MINUTES_AGO);
+    when(jwtSerializer.decode(JWT_TOKEN)).thenReturn(Optional.of(claims));
+    underTest.validateToken(request, response);
+    verify(jwtSerializer, never()).refresh(any(Claims.class), anyInt());
+
+    // two minutes later, the session is still cached
+    when(system2.now()).thenReturn(NOW + 2 * 60 * 1000L);
+    underTest.validateToken(request, response);
+
+    verify(jwtSerializer, times(1)).decode(JWT_TOKEN);
+    verify(jwtSerializer).refresh(any(Claims.class), anyInt());
+  }
+
+  @Test
+  public void validate_token_is_not_cached_when_user_is_disabled() throws Exception {
+    addJwtCookie();
+    UserDto user = addUser(false);
+    when(jwtSerializer.decode(JWT_TOKEN)).thenReturn(Optional.of(createToken(user.getLogin(), NOW)));
+
+    underTest.validateToken(request, response);
+
+    assertThat(sessionCache.size()).isZero();
+  }
+
+  @Test
+  public void validate_token_is_verified_again_when_user_sessions_are_invalidated() throws Exception {
+    addJwtCookie();
+    when(jwtSerializer.decode(JWT_TOKEN)).thenReturn(Optional.of(createToken(USER_LOGIN, NOW)));
+    underTest.validateToken(request, response);
+
+    dbClient.userDao().deactivateUserByLogin(dbSession, USER_LOGIN);
+    dbSession.commit();
+    sessionCache.invalidateUser(USER_LOGIN);
+
+    assertThat(underTest.validateToken(request, response).isPresent()).isFalse();
+    verify(jwtSerializer, times(2)).decode(JWT_TOKEN);
+  }
+
+  @Test
+  public void remove_token_from_cache() throws Exception {
+    addJwtCookie();
+    when(jwtSerializer.decode(JWT_TOKEN)).thenReturn(Optional.of(createToken(USER_LOGIN, NOW)));
+    underTest.validateToken(request, response);
+    assertThat(sessionCache.size()).isEqualTo(1);
+
+    underTest.removeToken(request, response);
+
+    assertThat(sessionCache.size()).isZero();
+  }
+
   @Test
   public void remove_token() throws Exception {
     underTest.removeToken(request, response);
@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.authentication;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import java.util.Date;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.user.UserDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.sonar.db.user.UserTesting.newUserDto;
+
+public class JwtSessionCacheTest {
+
+  private static final long NOW = 10_000_000_000L;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
+  private Settings settings = new MapSettings();
+  private JwtSessionCache underTest = new JwtSessionCache(settings, system2);
+
+  @Test
+  public void get_cached_session() {
+    UserDto user = newUserDto();
+    Claims claims = newClaims(NOW + 3_600_000L);
+    underTest.put("TOKEN", claims, user);
+
+    JwtSessionCache.Session session = underTest.get("TOKEN");
+
+    assertThat(session.getClaims()).isSameAs(claims);
+    assertThat(session.getUser()).isSameAs(user);
+    assertThat(underTest.get("OTHER_TOKEN")).isNull();
+    assertThat(underTest.attributes()).contains(entry("Size", 1), entry("Hits", 1L), entry("Misses", 1L));
+  }
+
+  @Test
+  public void session_expires_after_ttl() {
+    underTest.put("TOKEN", newClaims(NOW + 3_600_000L), newUserDto());
+
+    system2.setNow(NOW + 59_999L);
+    assertThat(underTest.get("TOKEN")).isNotNull();
+    system2.setNow(NOW + 60_000L);
+    assertThat(underTest.get("TOKEN")).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void session_expires_with_token() {
+    underTest.put("TOKEN", newClaims(NOW + 10_000L), newUserDto());
+
+    system2.setNow(NOW + 10_000L);
+
+    assertThat(underTest.get("TOKEN")).isNull();
+  }
+
+  @Test
+  public void evict_least_recently_used_sessions() {
+    settings.setProperty("sonar.web.sessionCache.maxSize", 2);
+    underTest = new JwtSessionCache(settings, system2);
+    underTest.put("TOKEN1", newClaims(NOW + 3_600_000L), newUserDto());
+    underTest.put("TOKEN2", newClaims(NOW + 3_600_000L), newUserDto());
+    underTest.get("TOKEN1");
+
+    underTest.put("TOKEN3", newClaims(NOW + 3_600_000L), newUserDto());
+
+    assertThat(underTest.get("TOKEN1")).isNotNull();
+    assertThat(underTest.get("TOKEN2")).isNull();
+    assertThat(underTest.get("TOKEN3")).isNotNull();
+    assertThat(underTest.attributes()).contains(entry("Evictions", 1L));
+  }
+
+  @Test
+  public void invalidate_sessions_of_user() {
+    UserDto user = newUserDto();
+    underTest.put("TOKEN1", newClaims(NOW + 3_600_000L), user);
+    underTest.put("TOKEN2", newClaims(NOW + 3_600_000L), user);
+    underTest.put("TOKEN3", newClaims(NOW + 3_600_000L), newUserDto());
+
+    underTest.invalidateUser(user.getLogin());
+
+    assertThat(underTest.get("TOKEN1")).isNull();
+    assertThat(underTest.get("TOKEN2")).isNull();
+    assertThat(underTest.get("TOKEN3")).isNotNull();
+    assertThat(underTest.attributes()).contains(entry("Invalidations", 2L));
+  }
+
+  @Test
+  public void cache_is_disabled_when_max_size_is_zero() {
+    settings.setProperty("sonar.web.sessionCache.maxSize", 0);
+    underTest = new JwtSessionCache(settings, system2);
+
+    underTest.put("TOKEN", newClaims(NOW + 3_600_000L), newUserDto());
+
+    assertThat(underTest.get("TOKEN")).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void fail_if_ttl_is_negative() {
+    settings.setProperty("sonar.web.sessionCache.ttlInSeconds", -1);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.web.sessionCache.ttlInSeconds must be positive. Got -1.");
+
+    new JwtSessionCache(settings, system2);
+  }
+
+  private static Claims newClaims(long expiresAt) {
+    DefaultClaims claims = new DefaultClaims();
+    claims.setId("ID");
+    claims.setExpiration(new Date(expiresAt));
+    return claims;
+  }
+}
@@ -209,6 +209,46 @@ public class TaskActionTest {
     assertThat(task.hasScannerContext()).isFalse();
   }
 
+  @Test
+  public void return_profiling_of_activity_when_additionalField_is_set() {
+    logInAsRoot();
+
+    CeActivityDto activityDto = createActivityDto(SOME_TASK_UUID)
+      .setProfiling("{\"steps\":[{\"description\":\"Load report\",\"wallTimeMs\":120,\"cpuTimeMs\":100,\"dbCalls\":4,\"dbTimeMs\":15,\"searchCalls\":0,\"searchTimeMs\":0}]}");
+    persist(activityDto);
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "profiling")
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.getProfiling().getStepsList()).hasSize(1);
+    WsCe.StepProfiling step = task.getProfiling().getSteps(0);
+    assertThat(step.getDescription()).isEqualTo("Load report");
+    assertThat(step.getWallTimeMs()).isEqualTo(120L);
+    assertThat(step.getCpuTimeMs()).isEqualTo(100L);
+    assertThat(step.hasAllocatedBytes()).isFalse();
+    assertThat(step.getDbCalls()).isEqualTo(4L);
+    assertThat(step.getDbTimeMs()).isEqualTo(15L);
+  }
+
+  @Test
+  public void do_not_return_profiling_of_activity_when_additionalField_is_not_set() {
+    logInAsRoot();
+
+    persist(createActivityDto(SOME_TASK_UUID).setProfiling("{\"steps\":[]}"));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.hasProfiling()).isFalse();
+  }
+
   @Test
   public void do_not_return_stacktrace_of_failed_activity_without_stacktrace() {
     logInAsRoot();
@@ -246,7 +246,10 @@ public class SearchActionTest {
   }
 
   private void setBrowsePermissionOnUser(ComponentDto... projects) {
-    Arrays.stream(projects).forEach(project -> db.users().insertProjectPermissionOnUser(user, UserRole.USER, project));
+    Arrays.stream(projects).forEach(project -> {
+      db.users().insertProjectPermissionOnUser(user, UserRole.USER, project);
+      userSession.addProjectUuidPermissions(UserRole.USER, project.uuid());
+    });
     db.getSession().commit();
   }
 
@@ -29,6 +29,7 @@ import org.sonar.api.utils.MessageException;
 
 import static java.lang.Math.abs;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_MAX_WORKERS_COUNT_PROPERTY;
 import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_WORKERS_COUNT_PROPERTY;
 
 public class CeConfigurationImplTest {
@@ -103,6 +104,45 @@ public class CeConfigurationImplTest {
     new CeConfigurationImpl(settings);
   }
 
+  @Test
+  public void getMaxWorkerCount_returns_worker_count_when_max_worker_property_is_not_defined() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 3);
+
+    assertThat(new CeConfigurationImpl(settings).getMaxWorkerCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void getMaxWorkerCount_returns_value_of_max_worker_property() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 2);
+    settings.setProperty(CE_MAX_WORKERS_COUNT_PROPERTY, 5);
+
+    CeConfigurationImpl underTest = new CeConfigurationImpl(settings);
+    assertThat(underTest.getWorkerCount()).isEqualTo(2);
+    assertThat(underTest.getMaxWorkerCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_max_worker_property_is_less_than_worker_count() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 2);
+    settings.setProperty(CE_MAX_WORKERS_COUNT_PROPERTY, 1);
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '1' of property " + CE_MAX_WORKERS_COUNT_PROPERTY + " is invalid. " +
+      "It must be an integer greater than or equal to the value of property " + CE_WORKERS_COUNT_PROPERTY + " (2).");
+
+    new CeConfigurationImpl(settings);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_max_worker_property_is_not_an_integer() {
+    settings.setProperty(CE_MAX_WORKERS_COUNT_PROPERTY, "abc");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value 'abc' of property " + CE_MAX_WORKERS_COUNT_PROPERTY + " is invalid.");
+
+    new CeConfigurationImpl(settings);
+  }
+
   private void expectMessageException(int value) {
     expectedException.expect(MessageException.class);
     expectedException.expectMessage("value '" + value + "' of property " + CE_WORKERS_COUNT_PROPERTY + " is invalid. " +
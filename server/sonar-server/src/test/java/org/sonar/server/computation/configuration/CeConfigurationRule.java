@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = CeConfigurationImpl.DEFAULT_WORKER_COUNT;
+  private Integer maxWorkerCount = null;
   private long queuePollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_POLLING_DELAY;
 
   @Override
@@ -41,6 +42,17 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     return this;
   }
 
+  @Override
+  public int getMaxWorkerCount() {
+    return maxWorkerCount == null ? workerCount : maxWorkerCount;
+  }
+
+  public CeConfigurationRule setMaxWorkerCount(int maxWorkerCount) {
+    checkArgument(maxWorkerCount >= workerCount, "max worker count must be >= worker count");
+    this.maxWorkerCount = maxWorkerCount;
+    return this;
+  }
+
   @Override
   public long getQueuePollingDelay() {
     return queuePollingDelay;
@@ -52,6 +52,28 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(0);
   }
 
+  @Test
+  public void addWaitTime_feeds_histogram_of_task_type() {
+    assertThat(underTest.getWaitTimeHistograms()).isEmpty();
+
+    underTest.addWaitTime("REPORT", 100L);
+    underTest.addWaitTime("REPORT", 20_000L);
+    underTest.addWaitTime("OTHER", 5L);
+
+    assertThat(underTest.getWaitTimeHistograms()).containsOnlyKeys("OTHER", "REPORT");
+    assertThat(underTest.getWaitTimeHistograms().get("REPORT").getCount()).isEqualTo(2);
+    assertThat(underTest.getWaitTimeHistograms().get("REPORT").getMaxTime()).isEqualTo(20_000L);
+    assertThat(underTest.getWaitTimeHistograms().get("OTHER").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void addWaitTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Wait time can not be < 0");
+
+    underTest.addWaitTime("REPORT", -1);
+  }
+
   @Test
   public void addInProgress_increases_InProgress() {
     underTest.addInProgress();
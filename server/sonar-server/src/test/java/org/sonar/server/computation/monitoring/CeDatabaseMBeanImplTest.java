@@ -27,7 +27,9 @@ import javax.management.ObjectName;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.IsAliveMapper;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -54,9 +56,24 @@ public class CeDatabaseMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Database Connection");
-    assertThat(section.getAttributesCount()).isEqualTo(9);
+    assertThat(section.getAttributesCount()).isEqualTo(17);
     assertThat(section.getAttributes(0).getKey()).isEqualTo("Pool Initial Size");
     assertThat(section.getAttributes(0).getLongValue()).isGreaterThanOrEqualTo(0);
+    assertThat(section.getAttributes(9).getKey()).isEqualTo("Open Sessions");
+    assertThat(section.getAttributes(16).getKey()).isEqualTo("Slow SQL Statements");
+  }
+
+  @Test
+  public void export_usage_of_sessions_and_statements() {
+    try (DbSession dbSession = dbTester.getDbClient().openSession(false)) {
+      dbSession.getMapper(IsAliveMapper.class).isAlive();
+
+      assertThat(underTest.getOpenSessions()).isGreaterThanOrEqualTo(1);
+    }
+
+    assertThat(underTest.getExecutedStatements()).isGreaterThanOrEqualTo(1L);
+    assertThat(underTest.getMaxConnectionWaitMs()).isGreaterThanOrEqualTo(0L);
+    assertThat(underTest.getLongLivedSessions()).isEqualTo(0);
   }
 
   @CheckForNull
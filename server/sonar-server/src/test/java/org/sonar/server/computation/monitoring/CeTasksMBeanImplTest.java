@@ -20,16 +20,23 @@
 package org.sonar.server.computation.monitoring;
 
 import java.lang.management.ManagementFactory;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.management.InstanceNotFoundException;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import org.junit.Before;
 import org.junit.Test;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.monitoring.WaitTimeHistogram;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.taskprocessor.CeProcessingScheduler;
 
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class CeTasksMBeanImplTest {
   private static final long PENDING_COUNT = 2;
@@ -38,8 +45,17 @@ public class CeTasksMBeanImplTest {
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
+  private static final int ACTIVE_WORKER_COUNT = 60;
+  private static final int MAX_WORKER_COUNT = 64;
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private CeProcessingScheduler processingScheduler = mock(CeProcessingScheduler.class);
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration(), processingScheduler);
+
+  @Before
+  public void setUp() {
+    when(processingScheduler.getActiveWorkerCount()).thenReturn(ACTIVE_WORKER_COUNT);
+    when(processingScheduler.getMaxWorkerCount()).thenReturn(MAX_WORKER_COUNT);
+  }
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -66,11 +82,24 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getWorkerCount()).isEqualTo(WORKER_COUNT);
   }
 
+  @Test
+  public void active_and_max_worker_counts_delegate_to_the_CeProcessingScheduler_instance() {
+    assertThat(underTest.getActiveWorkerCount()).isEqualTo(ACTIVE_WORKER_COUNT);
+    assertThat(underTest.getMaxWorkerCount()).isEqualTo(MAX_WORKER_COUNT);
+  }
+
   @Test
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(6);
+    assertThat(section.getAttributesCount()).isEqualTo(9);
+    assertThat(section.getAttributes(6).getKey()).isEqualTo("Active Worker Count");
+    assertThat(section.getAttributes(6).getLongValue()).isEqualTo(ACTIVE_WORKER_COUNT);
+    assertThat(section.getAttributes(7).getKey()).isEqualTo("Max Worker Count");
+    assertThat(section.getAttributes(7).getLongValue()).isEqualTo(MAX_WORKER_COUNT);
+    ProtobufSystemInfo.Attribute waitTime = section.getAttributes(8);
+    assertThat(waitTime.getKey()).isEqualTo("Wait Time In Queue (REPORT)");
+    assertThat(waitTime.getStringValue()).startsWith("count=1, mean=1500ms, max=1500ms, <=1s=0, <=10s=1");
   }
 
   /**
@@ -119,6 +148,18 @@ public class CeTasksMBeanImplTest {
       return PROCESSING_TIME;
     }
 
+    @Override
+    public void addWaitTime(String taskType, long waitTime) {
+      methodNotImplemented();
+    }
+
+    @Override
+    public Map<String, WaitTimeHistogram> getWaitTimeHistograms() {
+      WaitTimeHistogram histogram = new WaitTimeHistogram();
+      histogram.add(1_500L);
+      return singletonMap("REPORT", histogram);
+    }
+
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
@@ -130,6 +171,11 @@ public class CeTasksMBeanImplTest {
       return WORKER_COUNT;
     }
 
+    @Override
+    public int getMaxWorkerCount() {
+      throw new UnsupportedOperationException("getMaxWorkerCount is not implemented");
+    }
+
     @Override
     public long getQueuePollingDelay() {
       throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
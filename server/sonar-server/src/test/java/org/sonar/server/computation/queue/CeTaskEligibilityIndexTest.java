@@ -0,0 +1,260 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.sonar.db.ce.PendingCeTaskDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeTaskEligibilityIndexTest {
+
+  private static final String REPORT = "REPORT";
+  private static final String OTHER = "OTHER";
+
+  private CeTaskEligibilityIndex underTest = new CeTaskEligibilityIndex();
+
+  @Test
+  public void empty_index() {
+    assertThat(underTest.next()).isNull();
+    assertThat(underTest.size()).isEqualTo(0);
+    assertThat(underTest.getMaxId()).isEqualTo(0L);
+  }
+
+  @Test
+  public void next_is_the_oldest_task() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 200L);
+    PendingCeTaskDto task2 = newTask(2, REPORT, "P2", 100L);
+    underTest.add(task1);
+    underTest.add(task2);
+
+    assertThat(underTest.next()).isSameAs(task2);
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(underTest.getMaxId()).isEqualTo(2L);
+
+    underTest.started(task2);
+    assertThat(underTest.next()).isSameAs(task1);
+    underTest.started(task1);
+    assertThat(underTest.next()).isNull();
+    assertThat(underTest.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void adding_twice_the_same_task_has_no_effect() {
+    PendingCeTaskDto task = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task);
+    underTest.add(newTask(1, REPORT, "P1", 100L));
+
+    assertThat(underTest.size()).isEqualTo(1);
+    underTest.started(task);
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void only_one_task_per_component_at_the_same_time() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 100L);
+    PendingCeTaskDto task2 = newTask(2, REPORT, "P1", 200L);
+    underTest.add(task1);
+    underTest.add(task2);
+
+    underTest.started(task1);
+    assertThat(underTest.next()).isNull();
+
+    underTest.finished("P1");
+    assertThat(underTest.next()).isSameAs(task2);
+  }
+
+  @Test
+  public void task_added_while_component_is_busy_is_not_eligible() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task1);
+    underTest.started(task1);
+
+    PendingCeTaskDto task2 = newTask(2, REPORT, "P1", 200L);
+    underTest.add(task2);
+    assertThat(underTest.next()).isNull();
+
+    underTest.finished("P1");
+    assertThat(underTest.next()).isSameAs(task2);
+  }
+
+  @Test
+  public void older_task_added_later_becomes_the_head_of_component() {
+    PendingCeTaskDto task1 = newTask(2, REPORT, "P1", 200L);
+    PendingCeTaskDto task2 = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task1);
+    underTest.add(task2);
+
+    assertThat(underTest.next()).isSameAs(task2);
+    underTest.started(task2);
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void tasks_without_component_do_not_block_each_other() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, null, 100L);
+    PendingCeTaskDto task2 = newTask(2, REPORT, null, 200L);
+    underTest.add(task1);
+    underTest.add(task2);
+
+    underTest.started(task1);
+    assertThat(underTest.next()).isSameAs(task2);
+  }
+
+  @Test
+  public void discarded_task_is_replaced_by_next_task_of_component() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 100L);
+    PendingCeTaskDto task2 = newTask(2, REPORT, "P1", 200L);
+    underTest.add(task1);
+    underTest.add(task2);
+
+    underTest.discard(task1);
+    assertThat(underTest.next()).isSameAs(task2);
+    assertThat(underTest.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void task_types_are_served_in_turn() {
+    PendingCeTaskDto report1 = newTask(1, REPORT, "P1", 100L);
+    PendingCeTaskDto report2 = newTask(2, REPORT, "P2", 200L);
+    PendingCeTaskDto report3 = newTask(3, REPORT, "P3", 300L);
+    PendingCeTaskDto other = newTask(4, OTHER, "P4", 400L);
+    underTest.add(report1);
+    underTest.add(report2);
+    underTest.add(report3);
+    underTest.add(other);
+
+    assertThat(startNext()).isSameAs(other);
+    assertThat(startNext()).isSameAs(report1);
+    assertThat(startNext()).isSameAs(report2);
+
+    PendingCeTaskDto other2 = newTask(5, OTHER, "P5", 500L);
+    underTest.add(other2);
+    assertThat(startNext()).isSameAs(other2);
+    assertThat(startNext()).isSameAs(report3);
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void organizations_are_served_in_turn() {
+    PendingCeTaskDto org1Task1 = newTask(1, REPORT, "P1", 100L).setOrganizationUuid("ORG1");
+    PendingCeTaskDto org1Task2 = newTask(2, REPORT, "P2", 200L).setOrganizationUuid("ORG1");
+    PendingCeTaskDto org1Task3 = newTask(3, REPORT, "P3", 300L).setOrganizationUuid("ORG1");
+    PendingCeTaskDto org2Task1 = newTask(4, REPORT, "P4", 400L).setOrganizationUuid("ORG2");
+    PendingCeTaskDto noOrgTask = newTask(5, REPORT, null, 500L);
+    underTest.add(org1Task1);
+    underTest.add(org1Task2);
+    underTest.add(org1Task3);
+    underTest.add(org2Task1);
+    underTest.add(noOrgTask);
+
+    assertThat(startNext()).isSameAs(noOrgTask);
+    assertThat(startNext()).isSameAs(org1Task1);
+    assertThat(startNext()).isSameAs(org2Task1);
+    assertThat(startNext()).isSameAs(org1Task2);
+    assertThat(startNext()).isSameAs(org1Task3);
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void organizations_are_served_in_turn_across_resets() {
+    PendingCeTaskDto org1Task1 = newTask(1, REPORT, "P1", 100L).setOrganizationUuid("ORG1");
+    PendingCeTaskDto org1Task2 = newTask(2, REPORT, "P2", 200L).setOrganizationUuid("ORG1");
+    PendingCeTaskDto org2Task1 = newTask(3, REPORT, "P3", 300L).setOrganizationUuid("ORG2");
+    PendingCeTaskDto org2Task2 = newTask(4, REPORT, "P4", 400L).setOrganizationUuid("ORG2");
+    underTest.add(org1Task1);
+    underTest.add(org1Task2);
+    underTest.add(org2Task1);
+    underTest.add(org2Task2);
+
+    assertThat(startNext()).isSameAs(org1Task1);
+    underTest.reset();
+    underTest.add(org1Task2);
+    underTest.add(org2Task1);
+    underTest.add(org2Task2);
+    assertThat(startNext()).isSameAs(org2Task1);
+    underTest.reset();
+    underTest.add(org1Task2);
+    underTest.add(org2Task2);
+    assertThat(startNext()).isSameAs(org1Task2);
+    underTest.reset();
+    underTest.add(org2Task2);
+    assertThat(startNext()).isSameAs(org2Task2);
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void reset_removes_pending_tasks_but_keeps_busy_components() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task1);
+    underTest.started(task1);
+    underTest.add(newTask(2, REPORT, "P2", 200L));
+
+    underTest.reset();
+    assertThat(underTest.size()).isEqualTo(0);
+    assertThat(underTest.getMaxId()).isEqualTo(0L);
+    assertThat(underTest.next()).isNull();
+
+    underTest.add(newTask(3, REPORT, "P1", 300L));
+    assertThat(underTest.next()).isNull();
+  }
+
+  @Test
+  public void clear_removes_pending_tasks_and_busy_components() {
+    PendingCeTaskDto task1 = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task1);
+    underTest.started(task1);
+
+    underTest.clear();
+
+    PendingCeTaskDto task2 = newTask(3, REPORT, "P1", 300L);
+    underTest.add(task2);
+    assertThat(underTest.next()).isSameAs(task2);
+  }
+
+  @Test
+  public void finished_ignores_components_which_are_not_busy() {
+    PendingCeTaskDto task = newTask(1, REPORT, "P1", 100L);
+    underTest.add(task);
+
+    underTest.finished("P1");
+    underTest.finished(null);
+
+    assertThat(underTest.next()).isSameAs(task);
+    underTest.started(task);
+    assertThat(underTest.next()).isNull();
+  }
+
+  private PendingCeTaskDto startNext() {
+    PendingCeTaskDto next = underTest.next();
+    underTest.started(next);
+    return next;
+  }
+
+  private static PendingCeTaskDto newTask(long id, String type, @Nullable String componentUuid, long createdAt) {
+    return new PendingCeTaskDto()
+      .setId(id)
+      .setUuid("TASK_" + id)
+      .setTaskType(type)
+      .setComponentUuid(componentUuid)
+      .setCreatedAt(createdAt);
+  }
+}
@@ -23,13 +23,14 @@ import com.google.common.base.Optional;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.queue.CeTaskSubmit;
@@ -42,12 +43,14 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.guava.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
@@ -57,7 +60,7 @@ public class InternalCeQueueImplTest {
 
   private static final String AN_ANALYSIS_UUID = "U1";
 
-  private System2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
+  private TestSystem2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
 
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
@@ -210,6 +213,33 @@ public class InternalCeQueueImplTest {
     assertThat(activityDto.get().getErrorStacktrace()).isEqualToIgnoringWhitespace(stacktraceToString(error));
   }
 
+  @Test
+  public void remove_saves_profile_of_current_thread() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek();
+    CeTaskProfile.startForCurrentThread().addStep(new CeTaskProfile.Step("Step 1").setWallTimeMs(10L).setDbCalls(3L));
+    try {
+      underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    } finally {
+      CeTaskProfile.clearForCurrentThread();
+    }
+
+    Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
+    CeTaskProfile profile = CeTaskProfile.fromJson(activityDto.get().getProfiling());
+    assertThat(profile.getSteps()).extracting(CeTaskProfile.Step::getDescription).containsExactly("Step 1");
+    assertThat(profile.getSteps().get(0).getDbCalls()).isEqualTo(3L);
+  }
+
+  @Test
+  public void remove_does_not_save_profile_when_no_step_is_profiled() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek();
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+
+    Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
+    assertThat(activityDto.get().getProfiling()).isNull();
+  }
+
   private static String stacktraceToString(Throwable error) {
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     error.printStackTrace(new PrintStream(out));
@@ -241,6 +271,102 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_oldest_pending_task() throws Exception {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    system2.setNow(1_450_000_001_000L);
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task2.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    // wait times are 1s and 0s
+    assertThat(queueStatus.getWaitTimeHistograms().get(CeTaskTypes.REPORT).getCount()).isEqualTo(2);
+    assertThat(queueStatus.getWaitTimeHistograms().get(CeTaskTypes.REPORT).getMaxTime()).isEqualTo(1_000L);
+  }
+
+  @Test
+  public void peek_tasks_of_organizations_in_turn() throws Exception {
+    OrganizationDto org1 = dbTester.organizations().insert();
+    OrganizationDto org2 = dbTester.organizations().insert();
+    ComponentDto project1 = insertComponent(ComponentTesting.newProjectDto(org1));
+    ComponentDto project2 = insertComponent(ComponentTesting.newProjectDto(org1));
+    ComponentDto project3 = insertComponent(ComponentTesting.newProjectDto(org2));
+    CeTask task1 = submit(CeTaskTypes.REPORT, project1.uuid());
+    CeTask task2 = submit(CeTaskTypes.REPORT, project2.uuid());
+    CeTask task3 = submit(CeTaskTypes.REPORT, project3.uuid());
+
+    List<String> peekedUuids = asList(underTest.peek().get(), underTest.peek().get(), underTest.peek().get())
+      .stream().map(CeTask::getUuid).collect(Collectors.toList());
+
+    // task2 of org1 comes after the task of org2
+    assertThat(peekedUuids.indexOf(task3.getUuid())).isLessThan(peekedUuids.indexOf(task2.getUuid()));
+    assertThat(peekedUuids.indexOf(task1.getUuid())).isLessThan(peekedUuids.indexOf(task2.getUuid()));
+  }
+
+  @Test
+  public void do_not_peek_multiple_tasks_on_same_component_at_the_same_time() throws Exception {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    Optional<CeTask> peek = underTest.peek();
+    assertThat(peek.get().getUuid()).isEqualTo(task1.getUuid());
+
+    // second task is not eligible as long as the first one is in progress
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task2.getUuid());
+  }
+
+  @Test
+  public void peek_next_task_of_component_when_removing_task_deleted_from_queue() throws Exception {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek();
+    assertThat(peek.get().getUuid()).isEqualTo(task1.getUuid());
+    dbTester.getDbClient().ceQueueDao().deleteByUuid(session, task1.getUuid());
+    session.commit();
+
+    try {
+      underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+      fail("An IllegalStateException should be raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageStartingWith("Task does not exist anymore");
+    }
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task2.getUuid());
+  }
+
+  @Test
+  public void peek_tasks_of_different_types_in_turn() throws Exception {
+    CeTask report1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask report2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask other1 = submit("OTHER", "PROJECT_3");
+    CeTask other2 = submit("OTHER", "PROJECT_4");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(other1.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(report1.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(other2.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(report2.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+  }
+
+  @Test
+  public void do_not_peek_task_canceled_after_being_indexed() throws Exception {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek();
+
+    underTest.cancel(task2.getUuid());
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task3.getUuid());
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
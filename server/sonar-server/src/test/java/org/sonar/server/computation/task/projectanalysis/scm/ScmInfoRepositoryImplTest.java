@@ -46,6 +46,8 @@ import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
@@ -82,11 +84,14 @@ public class ScmInfoRepositoryImplTest {
   public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(builder(Component.Type.PROJECT, 2).setUuid("PROJECT_UUID").addChildren(FILE).build());
 
   DbClient dbClient = dbTester.getDbClient();
 
   ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(reportReader, analysisMetadataHolder, dbClient,
-    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)));
+    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)), treeRootHolder);
 
   @Test
   public void read_from_report() throws Exception {
@@ -134,6 +139,33 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from db for file 'FILE_KEY'");
   }
 
+  @Test
+  public void getScmInfo_returns_ScmInfo_from_SCM_data_in_DB_when_CopyFromPrevious_is_true_if_hashes_are_the_same() {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    addFileSourceInDb("henry", DATE_1, "rev-1", computeSourceHash(1));
+    addScmDataInDb("john", DATE_2, "rev-2", computeSourceHash(1));
+    addFileSourceInReport(1);
+    addCopyFromPreviousChangesetInReport();
+
+    ScmInfo scmInfo = underTest.getScmInfo(FILE).get();
+
+    // SCM data is read instead of source data
+    Changeset changeset = scmInfo.getChangesetForLine(1);
+    assertThat(changeset.getAuthor()).isEqualTo("john");
+    assertThat(changeset.getDate()).isEqualTo(DATE_2);
+    assertThat(changeset.getRevision()).isEqualTo("rev-2");
+  }
+
+  @Test
+  public void getScmInfo_returns_absent_when_CopyFromPrevious_is_true_but_hashes_of_SCM_data_are_not_the_same() {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    addScmDataInDb("john", DATE_2, "rev-2", computeSourceHash(1) + "_different");
+    addFileSourceInReport(1);
+    addCopyFromPreviousChangesetInReport();
+
+    assertThat(underTest.getScmInfo(FILE)).isAbsent();
+  }
+
   @Test
   public void read_from_report_even_if_data_in_db_exists() throws Exception {
     analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
@@ -210,11 +242,12 @@ public class ScmInfoRepositoryImplTest {
     AnalysisMetadataHolder analysisMetadataHolder = mock(AnalysisMetadataHolder.class);
     DbClient dbClient = mock(DbClient.class);
     SourceHashRepository sourceHashRepository = mock(SourceHashRepository.class);
-    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    TreeRootHolder treeRootHolder = mock(TreeRootHolder.class);
+    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
 
     assertThat(underTest.getScmInfo(component)).isAbsent();
 
-    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
   }
 
   @Test
@@ -263,6 +296,19 @@ public class ScmInfoRepositoryImplTest {
     dbTester.commit();
   }
 
+  private void addScmDataInDb(String author, long date, String revision, String srcHash) {
+    DbFileSources.Scm scm = DbFileSources.Scm.newBuilder()
+      .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setAuthor(author).setDate(date).setRevision(revision))
+      .addChangesetIndexByLine(1)
+      .build();
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setFileUuid(FILE.getUuid())
+      .setProjectUuid("PROJECT_UUID")
+      .setScmData(scm)
+      .setSrcHash(srcHash));
+    dbTester.commit();
+  }
+
   private void addCopyFromPreviousChangesetInReport() {
     reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
       .setComponentRef(FILE_REF)
@@ -19,20 +19,34 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Map;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.db.measure.ProjectMeasuresIndexerIterator.Measures;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
 
 public class IndexAnalysisStepTest extends BaseStepTest {
 
@@ -43,9 +57,19 @@ public class IndexAnalysisStepTest extends BaseStepTest {
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+  @Rule
+  public MetricRepositoryRule metricRepository = new MetricRepositoryRule()
+    .add(CoreMetrics.NCLOC)
+    .add(CoreMetrics.NEW_LINES)
+    .add(CoreMetrics.ALERT_STATUS)
+    .add(CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION)
+    .add(CoreMetrics.QUALITY_GATE_DETAILS);
+  @Rule
+  public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
 
   private ProjectIndexer componentIndexer = mock(ProjectIndexer.class);
-  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, componentIndexer);
+  private ProjectMeasuresIndexer projectMeasuresIndexer = mock(ProjectMeasuresIndexer.class);
+  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, measureRepository, metricRepository, componentIndexer, projectMeasuresIndexer);
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_project() {
@@ -67,6 +91,38 @@ public class IndexAnalysisStepTest extends BaseStepTest {
     verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
   }
 
+  @Test
+  public void index_project_measures_from_measure_repository() {
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    measureRepository.addRawMeasure(1, CoreMetrics.NCLOC_KEY, newMeasureBuilder().create(120));
+    measureRepository.addRawMeasure(1, CoreMetrics.NEW_LINES_KEY, newMeasureBuilder().setVariation(12d).createNoValue());
+    measureRepository.addRawMeasure(1, CoreMetrics.ALERT_STATUS_KEY, newMeasureBuilder().create(Measure.Level.ERROR));
+    measureRepository.addRawMeasure(1, CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION_KEY, newMeasureBuilder().create("java=100;xoo=20"));
+    measureRepository.addRawMeasure(1, CoreMetrics.QUALITY_GATE_DETAILS_KEY, newMeasureBuilder().create("{}"));
+
+    underTest.execute();
+
+    ArgumentCaptor<Measures> measuresCaptor = ArgumentCaptor.forClass(Measures.class);
+    verify(projectMeasuresIndexer).indexProject(eq(PROJECT_UUID), measuresCaptor.capture());
+    verify(projectMeasuresIndexer, never()).indexProject(any(String.class), any(ProjectIndexer.Cause.class));
+    Measures measures = measuresCaptor.getValue();
+    Map<String, Double> numericMeasures = measures.getNumericMeasures();
+    assertThat(numericMeasures).containsOnly(entry(CoreMetrics.NCLOC_KEY, 120d), entry(CoreMetrics.NEW_LINES_KEY, 12d));
+    assertThat(measures.getQualityGateStatus()).isEqualTo("ERROR");
+    assertThat(measures.getLanguages()).containsOnly("java", "xoo");
+  }
+
+  @Test
+  public void index_view_measures_from_db() {
+    Component view = ViewsComponent.builder(VIEW, PROJECT_KEY).setUuid(PROJECT_UUID).build();
+    treeRootHolder.setRoot(view);
+
+    underTest.execute();
+
+    verify(projectMeasuresIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+  }
+
   @Override
   protected ComputationStep step() {
     return underTest;
@@ -19,7 +19,10 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -167,7 +170,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    // sources and SCM data
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(2);
     FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
 
     assertThat(fileSourceDto.getRevision()).isEqualTo("rev-1");
@@ -179,6 +183,45 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(0).getScmAuthor()).isEqualTo("john");
     assertThat(data.getLines(0).getScmDate()).isEqualTo(123456789L);
     assertThat(data.getLines(0).getScmRevision()).isEqualTo("rev-1");
+
+    List<FileSourceDto> scmDtos = new ArrayList<>();
+    dbClient.fileSourceDao().selectScmDataByProjectUuid(session, PROJECT_UUID, context -> scmDtos.add((FileSourceDto) context.getResultObject()));
+    assertThat(scmDtos).hasSize(1);
+    assertThat(scmDtos.get(0).getFileUuid()).isEqualTo(FILE_UUID);
+    assertThat(scmDtos.get(0).getSrcHash()).isEqualTo(fileSourceDto.getSrcHash());
+    DbFileSources.Scm scm = scmDtos.get(0).getScmData();
+    assertThat(scm.getChangesetList()).containsExactly(DbFileSources.Scm.Changeset.newBuilder()
+      .setAuthor("john")
+      .setDate(123456789L)
+      .setRevision("rev-1")
+      .build());
+    assertThat(scm.getChangesetIndexByLineList()).containsExactly(1);
+  }
+
+  @Test
+  public void clear_scm_data_when_no_ChangeSet() {
+    long past = 150000L;
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSrcHash("137f72c3708c6bd0de00a0e5a69c699b")
+      .setDataHash("8e84c0d961cfe364e43833c4cc4ddef5")
+      .setScmData(DbFileSources.Scm.newBuilder()
+        .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setAuthor("john").setDate(123456789L).setRevision("rev-1"))
+        .addChangesetIndexByLine(1)
+        .build())
+      .setCreatedAt(past)
+      .setUpdatedAt(past));
+    dbTester.getSession().commit();
+
+    initBasicReport(1);
+
+    underTest.execute();
+
+    List<FileSourceDto> scmDtos = new ArrayList<>();
+    dbClient.fileSourceDao().selectScmDataByProjectUuid(session, PROJECT_UUID, context -> scmDtos.add((FileSourceDto) context.getResultObject()));
+    assertThat(scmDtos).hasSize(1);
+    assertThat(scmDtos.get(0).getScmData()).isEqualTo(DbFileSources.Scm.getDefaultInstance());
   }
 
   @Test
@@ -281,7 +324,13 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     long past = 150000L;
     String srcHash = "137f72c3708c6bd0de00a0e5a69c699b";
     String lineHashes = "137f72c3708c6bd0de00a0e5a69c699b";
-    String dataHash = "29f25900140c94db38035128cb6de6a2";
+    DbFileSources.Data sourceData = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("line1")
+        .build())
+      .build();
+    String dataHash = DigestUtils.md5Hex(FileSourceDto.encodeSourceData(sourceData));
 
     dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
@@ -289,12 +338,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setSrcHash(srcHash)
       .setLineHashes(lineHashes)
       .setDataHash(dataHash)
-      .setSourceData(DbFileSources.Data.newBuilder()
-        .addLines(DbFileSources.Line.newBuilder()
-          .setLine(1)
-          .setSource("line1")
-          .build())
-        .build())
+      .setSourceData(sourceData)
       .setCreatedAt(past)
       .setUpdatedAt(past));
     dbTester.getSession().commit();
@@ -345,7 +389,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    // sources and SCM data
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(2);
     FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
     assertThat(fileSourceDto.getCreatedAt()).isEqualTo(past);
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
@@ -416,7 +461,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    // sources and SCM data
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(2);
     FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
     assertThat(fileSourceDto.getCreatedAt()).isEqualTo(past);
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
@@ -0,0 +1,218 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryQueue.BUSY_URL_DELAY_MS;
+import static org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryQueue.FIRST_RETRY_DELAY_MS;
+
+public class WebhookDeliveryQueueTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final Webhook WEBHOOK = new Webhook("P1_UUID", "TASK_1", "First", "http://url1");
+  private static final WebhookPayload PAYLOAD = new WebhookPayload("P1", "{json}");
+
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+
+  private final System2 system = mock(System2.class);
+  private final TestWebhookCaller caller = new TestWebhookCaller();
+  private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+  private final WebhookDeliveryQueue underTest = new WebhookDeliveryQueue(caller, deliveryStorage, system, newDirectExecutorService(), scheduler, 3);
+
+  @Before
+  public void setUp() {
+    when(system.now()).thenReturn(NOW);
+    // delays are ignored, scheduled tasks are executed immediately
+    when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    });
+  }
+
+  @Test
+  public void deliver_and_persist_outcome() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    WebhookDelivery delivery = verifyPersisted();
+    assertThat(delivery.getHttpStatus()).contains(200);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(underTest.getSuccessCount()).isEqualTo(1);
+    assertThat(underTest.getErrorCount()).isEqualTo(0);
+    verifyZeroInteractions(scheduler);
+  }
+
+  @Test
+  public void retry_errors_with_exponential_backoff() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueSuccess(NOW, 200, 20);
+
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(3);
+    ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+    verify(scheduler, times(2)).schedule(any(Runnable.class), delays.capture(), eq(TimeUnit.MILLISECONDS));
+    assertThat(delays.getAllValues()).containsExactly(FIRST_RETRY_DELAY_MS, 2 * FIRST_RETRY_DELAY_MS);
+    assertThat(verifyPersisted().getHttpStatus()).contains(200);
+    assertThat(underTest.getRetryCount()).isEqualTo(2);
+    assertThat(underTest.getSuccessCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void persist_last_error_when_max_attempts_is_reached() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect 1"));
+    caller.enqueueFailure(NOW, new IOException("Fail to connect 2"));
+    caller.enqueueFailure(NOW, new IOException("Fail to connect 3"));
+
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(3);
+    assertThat(verifyPersisted().getErrorMessage()).contains("Fail to connect 3");
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to send webhook 'First' | url=http://url1 | message=Fail to connect 3");
+    assertThat(underTest.getErrorCount()).isEqualTo(1);
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void do_not_retry_client_errors() {
+    caller.enqueueSuccess(NOW, 404, 10);
+
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(verifyPersisted().getHttpStatus()).contains(404);
+    assertThat(underTest.getErrorCount()).isEqualTo(1);
+    verifyZeroInteractions(scheduler);
+  }
+
+  @Test
+  public void postpone_delivery_when_too_many_deliveries_are_in_progress_for_the_same_url() {
+    ScheduledExecutorService postponed = mock(ScheduledExecutorService.class);
+    Webhook otherUrl = new Webhook("P1_UUID", "TASK_1", "Other", "http://url2");
+    List<String> calledUrls = new ArrayList<>();
+    WebhookDeliveryQueue[] queue = new WebhookDeliveryQueue[1];
+    queue[0] = new WebhookDeliveryQueue((webhook, payload) -> {
+      calledUrls.add(webhook.getUrl());
+      if (calledUrls.size() < 3) {
+        // submitted while the previous deliveries to the same url are still in progress
+        queue[0].submit(webhook, payload);
+      }
+      return newDelivery(webhook, payload);
+    }, deliveryStorage, system, newDirectExecutorService(), postponed, 3);
+
+    queue[0].submit(WEBHOOK, PAYLOAD);
+    queue[0].submit(otherUrl, PAYLOAD);
+
+    assertThat(calledUrls).containsExactly("http://url1", "http://url1", "http://url2");
+    verify(postponed).schedule(any(Runnable.class), eq(BUSY_URL_DELAY_MS), eq(TimeUnit.MILLISECONDS));
+    assertThat(queue[0].getPendingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void deliver_synchronously_when_queue_is_full() {
+    ExecutorService fullDispatcher = mock(ExecutorService.class);
+    doThrow(new RejectedExecutionException()).when(fullDispatcher).execute(any(Runnable.class));
+    WebhookDeliveryQueue queue = new WebhookDeliveryQueue(caller, deliveryStorage, system, fullDispatcher, scheduler, 3);
+    caller.enqueueSuccess(NOW, 200, 10);
+
+    queue.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    verifyPersisted();
+    assertThat(queue.getRejectedCount()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains("Queue of webhook deliveries is full. Webhook 'First' is sent synchronously.");
+  }
+
+  @Test
+  public void measure_latency_of_deliveries() {
+    when(system.now()).thenReturn(NOW, NOW + 100L, NOW + 1_000L, NOW + 1_300L);
+    caller.enqueueSuccess(NOW, 200, 10);
+    caller.enqueueSuccess(NOW, 200, 10);
+
+    underTest.submit(WEBHOOK, PAYLOAD);
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    assertThat(underTest.getAverageLatencyMs()).isEqualTo(200L);
+    assertThat(underTest.getMaxLatencyMs()).isEqualTo(300L);
+  }
+
+  @Test
+  public void test_system_info_section() {
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest.submit(WEBHOOK, PAYLOAD);
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(section.getName()).isEqualTo("Compute Engine Webhooks");
+    assertThat(section.getAttributesList())
+      .extracting(ProtobufSystemInfo.Attribute::getKey)
+      .containsExactly("Pending", "Delivered With Success", "Delivered With Error", "Retries", "Sent Synchronously", "Average Latency (ms)",
+        "Max Latency (ms)");
+    assertThat(section.getAttributes(1).getLongValue()).isEqualTo(1L);
+  }
+
+  private WebhookDelivery verifyPersisted() {
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage).persist(captor.capture());
+    return captor.getValue();
+  }
+
+  private static WebhookDelivery newDelivery(Webhook webhook, WebhookPayload payload) {
+    return new WebhookDelivery.Builder()
+      .setAt(NOW)
+      .setHttpStatus(200)
+      .setDurationInMs(10)
+      .setWebhook(webhook)
+      .setPayload(payload)
+      .build();
+  }
+}
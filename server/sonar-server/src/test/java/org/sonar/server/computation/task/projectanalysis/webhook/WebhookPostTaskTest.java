@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.webhook;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.Rule;
@@ -28,12 +29,14 @@ import org.junit.Test;
 import org.sonar.api.ce.posttask.CeTask;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTaskTester;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.TestSettingsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -60,6 +63,8 @@ public class WebhookPostTaskTest {
   private final TestWebhookCaller caller = new TestWebhookCaller();
   private final WebhookPayloadFactory payloadFactory = new TestWebhookPayloadFactory();
   private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private final WebhookDeliveryQueue deliveryQueue = new WebhookDeliveryQueue(caller, deliveryStorage, System2.INSTANCE,
+    newDirectExecutorService(), mock(ScheduledExecutorService.class), 1);
 
   @Test
   public void do_nothing_if_no_webhooks() {
@@ -131,7 +136,7 @@ public class WebhookPostTaskTest {
 
   private void execute() {
     SettingsRepository settingsRepository = new TestSettingsRepository(settings);
-    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, caller, deliveryStorage);
+    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, deliveryQueue, deliveryStorage);
 
     PostProjectAnalysisTaskTester.of(task)
       .at(new Date())
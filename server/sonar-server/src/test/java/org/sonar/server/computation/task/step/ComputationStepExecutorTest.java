@@ -21,12 +21,14 @@ package org.sonar.server.computation.task.step;
 
 import java.util.Arrays;
 import java.util.List;
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -50,6 +52,11 @@ public class ComputationStepExecutorTest {
   private final ComputationStep computationStep2 = mockComputationStep("step2");
   private final ComputationStep computationStep3 = mockComputationStep("step3");
 
+  @After
+  public void tearDown() {
+    CeTaskProfile.clearForCurrentThread();
+  }
+
   @Test
   public void execute_call_execute_on_each_ComputationStep_in_order_returned_by_instances_method() {
     new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3))
@@ -65,6 +72,36 @@ public class ComputationStepExecutorTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void execute_adds_each_ComputationStep_to_profile_of_current_task() {
+    CeTaskProfile profile = CeTaskProfile.startForCurrentThread();
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2))
+      .execute();
+
+    assertThat(profile.getSteps()).extracting(CeTaskProfile.Step::getDescription).containsExactly("step1", "step2");
+    assertThat(profile.getSteps()).extracting(CeTaskProfile.Step::getDbCalls).containsExactly(0L, 0L);
+    assertThat(profile.getSteps().get(0).getWallTimeMs()).isGreaterThanOrEqualTo(0L);
+  }
+
+  @Test
+  public void execute_adds_failing_ComputationStep_to_profile_of_current_task() {
+    CeTaskProfile profile = CeTaskProfile.startForCurrentThread();
+    RuntimeException toBeThrown = new RuntimeException("simulating failing execute Step method");
+    doThrow(toBeThrown)
+      .when(computationStep2)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3))
+        .execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      assertThat(profile.getSteps()).extracting(CeTaskProfile.Step::getDescription).containsExactly("step1", "step2");
+    }
+  }
+
   @Test
   public void execute_let_exception_thrown_by_ComputationStep_go_up_as_is() {
     String message = "Exception should go up";
@@ -43,13 +43,16 @@ import javax.annotation.concurrent.Immutable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.server.computation.configuration.CeConfigurationRule;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -64,11 +67,12 @@ public class CeProcessingSchedulerImplTest {
   public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
   private CeWorkerCallable ceWorkerRunnable = mock(CeWorkerCallable.class);
+  private CEQueueStatus queueStatus = mock(CEQueueStatus.class);
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, 2000L, TimeUnit.MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorkerRunnable);
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueStatus);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -189,7 +193,7 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueStatus);
     when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
         .thenReturn(listenableScheduledFuture);
 
@@ -199,6 +203,51 @@ public class CeProcessingSchedulerImplTest {
     verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
   }
 
+  @Test
+  public void when_maxWorkerCount_is_greater_than_workerCount_only_workerCount_CeWorkerCallable_are_scheduled() throws InterruptedException {
+    ceConfiguration.setWorkerCount(2).setMaxWorkerCount(5);
+
+    ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueStatus);
+    when(processingExecutorService.schedule(any(Callable.class), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS)))
+      .thenReturn(listenableScheduledFuture);
+
+    underTest.startScheduling();
+
+    assertThat(underTest.getActiveWorkerCount()).isEqualTo(2);
+    assertThat(underTest.getMaxWorkerCount()).isEqualTo(5);
+    verify(processingExecutorService, times(5)).schedule(any(Callable.class), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS));
+    verify(processingExecutorService, times(2)).schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
+    verify(processingExecutorService).scheduleWithFixedDelay(any(Runnable.class), eq(10_000L), eq(10_000L), eq(MILLISECONDS));
+  }
+
+  @Test
+  public void number_of_workers_is_not_evaluated_when_maxWorkerCount_is_not_defined() throws InterruptedException {
+    ceConfiguration.setWorkerCount(2);
+
+    ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueStatus);
+    when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
+      .thenReturn(listenableScheduledFuture);
+
+    underTest.startScheduling();
+
+    verify(processingExecutorService, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void evaluation_of_number_of_workers_does_not_fail_if_queue_status_fails() {
+    ceConfiguration.setWorkerCount(2).setMaxWorkerCount(5);
+    when(queueStatus.getPendingCount()).thenThrow(new IllegalStateException("db is down"));
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueStatus);
+
+    underTest.evaluateWorkerCount();
+
+    assertThat(underTest.getActiveWorkerCount()).isEqualTo(2);
+  }
+
   private void startSchedulingAndRun() throws ExecutionException, InterruptedException {
     underTest.startScheduling();
 
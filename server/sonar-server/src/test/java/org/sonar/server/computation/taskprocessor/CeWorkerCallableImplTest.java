@@ -20,6 +20,7 @@
 package org.sonar.server.computation.taskprocessor;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Rule;
@@ -29,6 +30,7 @@ import org.mockito.Mockito;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
+import org.sonar.ce.monitoring.CeTaskProfile;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
@@ -91,6 +93,23 @@ public class CeWorkerCallableImplTest {
     inOrder.verify(ceLogging).clearForTask();
   }
 
+  @Test
+  public void profile_of_task_is_available_while_processing_and_cleared_after() throws Exception {
+    CeTask task = createCeTask(null);
+    taskProcessorRepository.setProcessorForTask(task.getType(), taskProcessor);
+    when(queue.peek()).thenReturn(Optional.of(task));
+    List<CeTaskProfile> profiles = new ArrayList<>();
+    when(taskProcessor.process(task)).thenAnswer(invocation -> {
+      profiles.add(CeTaskProfile.getForCurrentThread());
+      return null;
+    });
+
+    underTest.call();
+
+    assertThat(profiles).hasSize(1).doesNotContainNull();
+    assertThat(CeTaskProfile.getForCurrentThread()).isNull();
+  }
+
   @Test
   public void fail_to_process_task() throws Exception {
     CeTask task = createCeTask(null);
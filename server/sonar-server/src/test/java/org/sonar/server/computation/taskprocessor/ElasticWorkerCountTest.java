@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import org.junit.Test;
+import org.sonar.ce.monitoring.CEQueueStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ElasticWorkerCountTest {
+
+  private static final double ENOUGH_FREE_HEAP = 0.8;
+  private static final double LOW_FREE_HEAP = 0.3;
+  private static final double VERY_LOW_FREE_HEAP = 0.1;
+
+  private CEQueueStatus queueStatus = mock(CEQueueStatus.class);
+  private double freeHeapRatio = ENOUGH_FREE_HEAP;
+  private ElasticWorkerCount underTest = new ElasticWorkerCount(queueStatus, 2, 4, () -> freeHeapRatio);
+
+  @Test
+  public void grow_when_pending_tasks_can_not_be_processed_quickly_enough() {
+    // 2 workers need 7 * 10s / 2 = 35s
+    when(queueStatus.getPendingCount()).thenReturn(7L);
+    assertThat(underTest.compute(2)).isEqualTo(2);
+
+    // 2 workers need 13 * 10s / 2 = 65s
+    when(queueStatus.getPendingCount()).thenReturn(13L);
+    assertThat(underTest.compute(2)).isEqualTo(3);
+    assertThat(underTest.compute(3)).isEqualTo(3);
+  }
+
+  @Test
+  public void grow_according_to_duration_of_recent_tasks() {
+    when(queueStatus.getPendingCount()).thenReturn(10L);
+    assertThat(underTest.compute(2)).isEqualTo(2);
+
+    // 3 tasks processed in 60s
+    when(queueStatus.getSuccessCount()).thenReturn(2L);
+    when(queueStatus.getErrorCount()).thenReturn(1L);
+    when(queueStatus.getProcessingTime()).thenReturn(60_000L);
+    assertThat(underTest.compute(2)).isEqualTo(3);
+
+    // 10 more tasks processed in 10s
+    when(queueStatus.getSuccessCount()).thenReturn(12L);
+    when(queueStatus.getProcessingTime()).thenReturn(70_000L);
+    assertThat(underTest.compute(3)).isEqualTo(3);
+  }
+
+  @Test
+  public void never_grow_above_max() {
+    when(queueStatus.getPendingCount()).thenReturn(1_000L);
+
+    assertThat(underTest.compute(4)).isEqualTo(4);
+  }
+
+  @Test
+  public void do_not_grow_if_free_heap_is_low() {
+    when(queueStatus.getPendingCount()).thenReturn(1_000L);
+    freeHeapRatio = LOW_FREE_HEAP;
+
+    assertThat(underTest.compute(2)).isEqualTo(2);
+    assertThat(underTest.compute(3)).isEqualTo(3);
+  }
+
+  @Test
+  public void shrink_when_no_pending_tasks() {
+    when(queueStatus.getPendingCount()).thenReturn(0L);
+
+    assertThat(underTest.compute(4)).isEqualTo(3);
+    assertThat(underTest.compute(3)).isEqualTo(2);
+    assertThat(underTest.compute(2)).isEqualTo(2);
+  }
+
+  @Test
+  public void shrink_when_free_heap_is_very_low() {
+    when(queueStatus.getPendingCount()).thenReturn(1_000L);
+    freeHeapRatio = VERY_LOW_FREE_HEAP;
+
+    assertThat(underTest.compute(4)).isEqualTo(3);
+    assertThat(underTest.compute(2)).isEqualTo(2);
+  }
+}
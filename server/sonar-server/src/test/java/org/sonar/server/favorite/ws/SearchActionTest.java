@@ -191,6 +191,7 @@ public class SearchActionTest {
     db.favorites().add(component, USER_ID);
     dbClient.userPermissionDao().insert(dbSession, new UserPermissionDto(component.getOrganizationUuid(), UserRole.USER, USER_ID, component.getId()));
     db.commit();
+    userSession.addProjectUuidPermissions(UserRole.USER, component.uuid());
   }
 
   private SearchResponse call(@Nullable Integer page, @Nullable Integer pageSize) {
@@ -135,6 +135,22 @@ public class IssueResultSetIteratorTest {
     assertThat(issuesByKey).hasSize(2);
   }
 
+  @Test
+  public void iterator_over_issues_of_all_projects_in_parallel() {
+    dbTester.prepareDbUnit(getClass(), "many_projects.xml");
+    Map<String, IssueDoc> issuesByKey = issuesByKey(IssueIteratorFactory::createForAllInParallel);
+
+    assertThat(issuesByKey.keySet()).isEqualTo(issuesByKey().keySet());
+    assertThat(issuesByKey).hasSize(3);
+  }
+
+  @Test
+  public void iterator_in_parallel_over_no_issues() {
+    Map<String, IssueDoc> issuesByKey = issuesByKey(IssueIteratorFactory::createForAllInParallel);
+
+    assertThat(issuesByKey).isEmpty();
+  }
+
   @Test
   public void extract_directory_path() {
     dbTester.prepareDbUnit(getClass(), "extract_directory_path.xml");
@@ -35,12 +35,16 @@ import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
+import org.sonar.db.property.NotificationSubscriberDto;
 import org.sonar.db.property.PropertiesDao;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -106,6 +110,29 @@ public class DefaultNotificationManagerTest {
     inOrder.verify(notificationQueueDao).delete(dtos);
   }
 
+  @Test
+  public void shouldGetBatchFromQueueAndDelete() throws Exception {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = mock(NotificationQueueDto.class);
+    when(dto2.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto3 = NotificationQueueDto.toNotificationQueueDto(new Notification("test3"));
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2, dto3);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    assertThat(manager.getFromQueue(10)).extracting(Notification::getType).containsExactly("test1", "test3");
+
+    InOrder inOrder = inOrder(notificationQueueDao);
+    inOrder.verify(notificationQueueDao).selectOldest(10);
+    inOrder.verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void shouldGetEmptyBatchFromEmptyQueue() {
+    assertThat(manager.getFromQueue(10)).isEmpty();
+
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
@@ -175,4 +202,37 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
     assertThat(map.get("other")).isNull();
   }
+
+  @Test
+  public void findNotificationSubscribers_loads_subscribers_of_all_channels_once_during_batch() {
+    when(propertiesDao.selectNotificationSubscribersOfChannels("NewViolations", Arrays.asList("Email", "Twitter"), "struts")).thenReturn(Arrays.asList(
+      new NotificationSubscriberDto().setLogin("user1").setPropKey("notification.NewViolations.Email"),
+      new NotificationSubscriberDto().setLogin("user2").setPropKey("notification.NewViolations.Email"),
+      new NotificationSubscriberDto().setLogin("user2").setPropKey("notification.NewViolations.Twitter")));
+
+    manager.startBatch();
+    Multimap<String, NotificationChannel> multiMap = manager.findNotificationSubscribers(dispatcher, "struts");
+    Multimap<String, NotificationChannel> secondCall = manager.findNotificationSubscribers(dispatcher, "struts");
+    manager.endBatch();
+
+    assertThat(multiMap.entries()).hasSize(3);
+    Map<String, Collection<NotificationChannel>> map = multiMap.asMap();
+    assertThat(map.get("user1")).containsOnly(emailChannel);
+    assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
+    assertThat(secondCall).isSameAs(multiMap);
+    verify(propertiesDao, times(1)).selectNotificationSubscribersOfChannels(anyString(), anyCollection(), anyString());
+    verify(propertiesDao, never()).selectNotificationSubscribers(anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void findNotificationSubscribers_does_not_cache_subscribers_out_of_batch() {
+    manager.startBatch();
+    manager.endBatch();
+
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    manager.findNotificationSubscribers(dispatcher, "struts");
+
+    verify(propertiesDao, times(2)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+    verify(propertiesDao, never()).selectNotificationSubscribersOfChannels(anyString(), anyCollection(), anyString());
+  }
 }
@@ -21,7 +21,10 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonar.api.config.Settings;
@@ -33,8 +36,10 @@ import org.sonar.db.property.PropertiesDao;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
@@ -227,6 +232,52 @@ public class NotificationDaemonTest {
     underTest.stop();
   }
 
+  @Test
+  public void deliver_notifications_by_batch() {
+    setUpMocks();
+    Notification notification2 = mock(Notification.class);
+    when(manager.getFromQueue(10)).thenReturn(Arrays.asList(notification, notification2)).thenReturn(Collections.emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    doAnswer(addUser(CREATOR_EVGENY, gtalkChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification2), any(NotificationDispatcher.Context.class));
+    Settings settings = new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty("sonar.notifications.batchSize", 10)
+      .setProperty("sonar.notifications.senderThreads", 2);
+    underTest = new NotificationDaemon(settings, manager, service);
+
+    underTest.start();
+    verify(gtalkChannel, timeout(2000)).deliver(notification2, CREATOR_EVGENY);
+    verify(emailChannel, timeout(2000)).deliver(notification2, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    // notifications of a recipient are delivered in order
+    InOrder inOrder = inOrder(emailChannel);
+    inOrder.verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    inOrder.verify(emailChannel).deliver(notification2, ASSIGNEE_SIMON);
+    verify(gtalkChannel, never()).deliver(notification, CREATOR_EVGENY);
+    verify(manager, never()).getFromQueue();
+    verify(manager, atLeastOnce()).startBatch();
+    verify(manager, atLeastOnce()).endBatch();
+  }
+
+  @Test
+  public void monitor_queue_size_and_lag() {
+    setUpMocks();
+    underTest = spy(underTest);
+    when(underTest.now()).thenReturn(1_000L);
+    when(manager.count()).thenReturn(0L);
+
+    assertThat(underTest.name()).isEqualTo("Notifications");
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes).containsEntry("Queue Size", 0L).containsEntry("Lag (ms)", 0L).containsEntry("Sent", 0L);
+
+    when(manager.count()).thenReturn(3L);
+    when(underTest.now()).thenReturn(Long.MAX_VALUE);
+    attributes = underTest.attributes();
+    assertThat(attributes).containsEntry("Queue Size", 3L);
+    assertThat((Long) attributes.get("Lag (ms)")).isPositive();
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
@@ -26,6 +26,7 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.authentication.JwtSessionCache;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.organization.DefaultOrganizationProvider;
@@ -37,6 +38,8 @@ import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.db.permission.OrganizationPermission.ADMINISTER;
 
 public class EnableSupportActionTest {
@@ -50,7 +53,8 @@ public class EnableSupportActionTest {
 
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   private OrganizationFlags organizationFlags = new OrganizationFlagsImpl(db.getDbClient());
-  private EnableSupportAction underTest = new EnableSupportAction(userSession, db.getDbClient(), defaultOrganizationProvider, organizationFlags);
+  private JwtSessionCache sessionCache = mock(JwtSessionCache.class);
+  private EnableSupportAction underTest = new EnableSupportAction(userSession, db.getDbClient(), defaultOrganizationProvider, organizationFlags, sessionCache);
   private WsActionTester tester = new WsActionTester(underTest);
 
   @Test
@@ -69,6 +73,16 @@ public class EnableSupportActionTest {
     verifyRoot(otherUser, false);
   }
 
+  @Test
+  public void enabling_support_invalidates_cached_session_of_caller() {
+    UserDto user = db.users().insertUser();
+    logInAsSystemAdministrator(user.getLogin());
+
+    call();
+
+    verify(sessionCache).invalidateUser(user.getLogin());
+  }
+
   @Test
   public void throw_UnauthorizedException_if_not_logged_in() {
     userSession.anonymous();
@@ -95,12 +109,15 @@ public class EnableSupportActionTest {
 
     call();
     verifyFeatureEnabled(true);
+    verify(sessionCache).invalidateUser("foo");
 
     // the test could be improved to verify that
     // the caller user is not flagged as root
     // if he was not already root
     call();
     verifyFeatureEnabled(true);
+    // session is invalidated only when support is enabled
+    verify(sessionCache).invalidateUser("foo");
   }
 
   @Test
@@ -42,6 +42,7 @@ import org.sonar.server.tester.UserSessionRule;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
 
 public class PermissionTemplateServiceTest {
@@ -57,7 +58,9 @@ public class PermissionTemplateServiceTest {
   private PermissionTemplateDbTester templateDb = dbTester.permissionTemplates();
   private DbSession session = dbTester.getSession();
   private PermissionIndexer permissionIndexer = mock(PermissionIndexer.class);
-  private PermissionTemplateService underTest = new PermissionTemplateService(dbTester.getDbClient(), permissionIndexer, userSession, defaultTemplatesResolver);
+  private ProjectPermissionsCache projectPermissionsCache = mock(ProjectPermissionsCache.class);
+  private PermissionTemplateService underTest = new PermissionTemplateService(dbTester.getDbClient(), permissionIndexer, userSession, defaultTemplatesResolver,
+    projectPermissionsCache);
 
   @Test
   public void apply_permission_template() {
@@ -89,6 +92,7 @@ public class PermissionTemplateServiceTest {
     assertThat(selectProjectPermissionsOfGroup(organization, userGroup, project)).containsOnly("user", "codeviewer");
     assertThat(selectProjectPermissionsOfGroup(organization, null, project)).containsOnly("user", "codeviewer");
     assertThat(selectProjectPermissionsOfUser(user, project)).containsOnly("admin");
+    verify(projectPermissionsCache).invalidate();
 
     checkAuthorizationUpdatedAtIsUpdated(project);
   }
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ProjectPermissionsCacheTest {
+
+  private static final long NOW = 10_000_000_000L;
+  private static final Set<String> PERMISSIONS = ImmutableSet.of("user", "codeviewer");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
+  private Settings settings = new MapSettings();
+  private ProjectPermissionsCache underTest = new ProjectPermissionsCache(settings, system2);
+
+  @Test
+  public void get_cached_permissions_of_user_and_of_anonymous() {
+    underTest.put(1, "P1", PERMISSIONS, underTest.version());
+    underTest.put(null, "P1", ImmutableSet.of("user"), underTest.version());
+
+    assertThat(underTest.get(1, "P1")).isSameAs(PERMISSIONS);
+    assertThat(underTest.get(null, "P1")).containsOnly("user");
+    assertThat(underTest.get(2, "P1")).isNull();
+    assertThat(underTest.get(1, "P2")).isNull();
+    assertThat(underTest.attributes()).contains(entry("Size", 2), entry("Hits", 2L), entry("Misses", 2L));
+  }
+
+  @Test
+  public void permissions_expire_after_ttl() {
+    underTest.put(1, "P1", PERMISSIONS, underTest.version());
+
+    system2.setNow(NOW + 59_999L);
+    assertThat(underTest.get(1, "P1")).isNotNull();
+    system2.setNow(NOW + 60_000L);
+    assertThat(underTest.get(1, "P1")).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void invalidate_removes_all_permissions() {
+    underTest.put(1, "P1", PERMISSIONS, underTest.version());
+    underTest.put(2, "P2", PERMISSIONS, underTest.version());
+
+    underTest.invalidate();
+
+    assertThat(underTest.get(1, "P1")).isNull();
+    assertThat(underTest.get(2, "P2")).isNull();
+    assertThat(underTest.attributes()).contains(entry("Invalidations", 1L));
+  }
+
+  @Test
+  public void permissions_loaded_before_invalidation_are_not_cached() {
+    long version = underTest.version();
+    underTest.invalidate();
+
+    underTest.put(1, "P1", PERMISSIONS, version);
+
+    assertThat(underTest.get(1, "P1")).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void least_recently_used_permissions_are_evicted() {
+    settings.setProperty("sonar.web.permissionCache.maxSize", 2);
+    underTest = new ProjectPermissionsCache(settings, system2);
+
+    underTest.put(1, "P1", PERMISSIONS, underTest.version());
+    underTest.put(1, "P2", PERMISSIONS, underTest.version());
+    underTest.get(1, "P1");
+    underTest.put(1, "P3", PERMISSIONS, underTest.version());
+
+    assertThat(underTest.get(1, "P1")).isNotNull();
+    assertThat(underTest.get(1, "P2")).isNull();
+    assertThat(underTest.get(1, "P3")).isNotNull();
+  }
+
+  @Test
+  public void cache_is_disabled_if_max_size_is_zero() {
+    settings.setProperty("sonar.web.permissionCache.maxSize", 0);
+    underTest = new ProjectPermissionsCache(settings, system2);
+
+    underTest.put(1, "P1", PERMISSIONS, underTest.version());
+
+    assertThat(underTest.get(1, "P1")).isNull();
+  }
+
+  @Test
+  public void fail_if_ttl_is_negative() {
+    settings.setProperty("sonar.web.permissionCache.ttlInSeconds", -1);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Property sonar.web.permissionCache.ttlInSeconds must be positive. Got -1.");
+
+    new ProjectPermissionsCache(settings, system2);
+  }
+}
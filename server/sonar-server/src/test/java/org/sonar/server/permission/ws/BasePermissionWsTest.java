@@ -33,6 +33,7 @@ import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.permission.GroupPermissionChanger;
 import org.sonar.server.permission.PermissionUpdater;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.server.permission.UserPermissionChanger;
 import org.sonar.server.permission.index.PermissionIndexer;
 import org.sonar.server.tester.UserSessionRule;
@@ -53,6 +54,7 @@ public abstract class BasePermissionWsTest<A extends PermissionsWsAction> {
 
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   protected UserSessionRule userSession = UserSessionRule.standalone();
+  protected ProjectPermissionsCache projectPermissionsCache = mock(ProjectPermissionsCache.class);
   protected WsActionTester wsTester;
 
   @Before
@@ -79,7 +81,8 @@ public abstract class BasePermissionWsTest<A extends PermissionsWsAction> {
     return new PermissionUpdater(db.getDbClient(),
       mock(PermissionIndexer.class),
       new UserPermissionChanger(db.getDbClient()),
-      new GroupPermissionChanger(db.getDbClient()));
+      new GroupPermissionChanger(db.getDbClient()),
+      projectPermissionsCache);
   }
 
   protected TestRequest newRequest() {
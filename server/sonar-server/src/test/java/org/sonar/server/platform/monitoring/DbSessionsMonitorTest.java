@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.IsAliveMapper;
+import org.sonar.db.MyBatis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DbSessionsMonitorTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private MyBatis myBatis = new MyBatis(dbTester.database(), new MapSettings().setProperty(MyBatis.TRACK_SESSION_CALLERS_PROPERTY, true));
+  private DbSessionsMonitor underTest = new DbSessionsMonitor(myBatis);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void attributes_contain_usage_of_sessions() {
+    myBatis.start();
+    try (DbSession dbSession = myBatis.openSession(false)) {
+      dbSession.getMapper(IsAliveMapper.class).isAlive();
+
+      Map<String, Object> attributes = underTest.attributes();
+      assertThat(attributes.get("Open Sessions")).isEqualTo(1);
+      assertThat((Map<String, Long>) attributes.get("Open Sessions By Caller")).containsOnlyKeys(DbSessionsMonitorTest.class.getName());
+      assertThat(attributes.get("Long-Lived Sessions")).isEqualTo(0);
+      assertThat((Map<String, Object>) attributes.get("Long-Lived Sessions By Caller")).isEmpty();
+    }
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("Open Sessions")).isEqualTo(0);
+    assertThat(attributes.get("Closed Sessions")).isEqualTo(1L);
+    assertThat(attributes.get("Connection Acquisitions")).isEqualTo(1L);
+    assertThat(attributes.get("Batch Flushes")).isEqualTo(0L);
+    assertThat(attributes).containsKeys("Mean Session Lifetime (ms)", "Max Connection Wait (ms)", "Max Batch Flush Size");
+  }
+
+  @Test
+  public void mbean_exposes_usage_of_sessions() {
+    myBatis.start();
+    try (DbSession dbSession = myBatis.openSession(true)) {
+      dbSession.getMapper(IsAliveMapper.class).isAlive();
+    }
+
+    assertThat(underTest.getOpenSessions()).isEqualTo(0);
+    assertThat(underTest.getLongLivedSessions()).isEqualTo(0);
+    assertThat(underTest.getConnectionAcquisitions()).isEqualTo(1L);
+    assertThat(underTest.getMaxConnectionWaitMs()).isGreaterThanOrEqualTo(0L);
+  }
+}
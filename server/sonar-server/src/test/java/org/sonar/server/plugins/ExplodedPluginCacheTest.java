@@ -0,0 +1,109 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExplodedPluginCacheTest {
+
+  private static final Predicate<ZipEntry> LIB_FILTER = ze -> ze.getName().startsWith("META-INF/lib");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ServerFileSystem fs = mock(ServerFileSystem.class);
+  private File dataDir;
+  private ExplodedPluginCache underTest = new ExplodedPluginCache(fs);
+
+  @Before
+  public void setUp() throws IOException {
+    dataDir = temp.newFolder();
+    when(fs.getDataDir()).thenReturn(dataDir);
+  }
+
+  @Test
+  public void explode_plugin_into_entry_identified_by_checksum_of_jar() throws Exception {
+    File jar = TestProjectUtils.jarOf("test-libs-plugin");
+
+    File entry = underTest.get(PluginInfo.create(jar), LIB_FILTER);
+
+    assertThat(entry).isDirectory().hasParent(new File(dataDir, ExplodedPluginCache.CACHE_RELATIVE_PATH));
+    assertThat(new File(entry, ExplodedPluginCache.JAR_FILENAME)).hasContentEqualTo(jar);
+    assertThat(new File(entry, "META-INF/lib").list()).containsOnly("commons-daemon-1.0.15.jar", "commons-email-20030310.165926.jar");
+    // temporary directory has been renamed
+    assertThat(entry.getParentFile().list()).containsOnly(entry.getName());
+  }
+
+  @Test
+  public void reuse_entry_if_jar_is_unchanged() throws Exception {
+    File jar = TestProjectUtils.jarOf("test-libs-plugin");
+    File entry = underTest.get(PluginInfo.create(jar), LIB_FILTER);
+    File marker = new File(entry, "marker");
+    FileUtils.touch(marker);
+
+    // for example after restart, or in the other process
+    File reused = new ExplodedPluginCache(fs).get(PluginInfo.create(jar), LIB_FILTER);
+
+    assertThat(reused).isEqualTo(entry);
+    assertThat(marker).exists();
+  }
+
+  @Test
+  public void new_entry_if_jar_is_changed() throws Exception {
+    File jar = temp.newFile("plugin.jar");
+    FileUtils.copyFile(TestProjectUtils.jarOf("test-libs-plugin"), jar);
+    File entry1 = underTest.get(PluginInfo.create(jar), LIB_FILTER);
+
+    FileUtils.copyFile(TestProjectUtils.jarOf("test-base-plugin"), jar);
+    File entry2 = underTest.get(PluginInfo.create(jar), LIB_FILTER);
+
+    assertThat(entry2).isNotEqualTo(entry1);
+    assertThat(new File(entry2, ExplodedPluginCache.JAR_FILENAME)).hasContentEqualTo(jar);
+  }
+
+  @Test
+  public void fail_if_jar_can_not_be_read() throws Exception {
+    File jar = temp.newFile("plugin.jar");
+    PluginInfo info = PluginInfo.create(TestProjectUtils.jarOf("test-libs-plugin")).setJarFile(jar);
+    jar.delete();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to unzip plugin [testlibs]");
+
+    underTest.get(info, LIB_FILTER);
+  }
+}
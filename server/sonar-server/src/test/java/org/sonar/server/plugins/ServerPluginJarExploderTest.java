@@ -37,27 +37,42 @@ public class ServerPluginJarExploderTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   ServerFileSystem fs = mock(ServerFileSystem.class);
-  ServerPluginJarExploder underTest = new ServerPluginJarExploder(fs);
+  ServerPluginJarExploder underTest = new ServerPluginJarExploder(fs, new ExplodedPluginCache(fs));
 
   @Test
-  public void copy_all_classloader_files_to_dedicated_directory() throws Exception {
+  public void copy_all_classloader_files_to_cache_of_exploded_plugins() throws Exception {
     File deployDir = temp.newFolder();
+    File dataDir = temp.newFolder();
     when(fs.getDeployedPluginsDir()).thenReturn(deployDir);
+    when(fs.getDataDir()).thenReturn(dataDir);
     File jar = TestProjectUtils.jarOf("test-libs-plugin");
     PluginInfo info = PluginInfo.create(jar);
 
     ExplodedPlugin exploded = underTest.explode(info);
 
-    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to the dedicated directory
-    // web/deploy/{pluginKey}
-    File pluginDeployDir = new File(deployDir, "testlibs");
+    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to the cache of exploded plugins
+    File cacheDir = new File(dataDir, ExplodedPluginCache.CACHE_RELATIVE_PATH);
 
     assertThat(exploded.getKey()).isEqualTo("testlibs");
-    assertThat(exploded.getMain()).isFile().exists().hasParent(pluginDeployDir);
+    assertThat(exploded.getMain()).isFile().exists();
+    assertThat(exploded.getMain().getCanonicalPath()).startsWith(cacheDir.getCanonicalPath());
     assertThat(exploded.getLibs()).extracting("name").containsOnly("commons-daemon-1.0.15.jar", "commons-email-20030310.165926.jar");
     for (File lib : exploded.getLibs()) {
       assertThat(lib).exists().isFile();
-      assertThat(lib.getCanonicalPath()).startsWith(pluginDeployDir.getCanonicalPath());
+      assertThat(lib.getCanonicalPath()).startsWith(cacheDir.getCanonicalPath());
     }
   }
+
+  @Test
+  public void copy_jar_to_deploy_directory_for_scanners() throws Exception {
+    File deployDir = temp.newFolder();
+    when(fs.getDeployedPluginsDir()).thenReturn(deployDir);
+    when(fs.getDataDir()).thenReturn(temp.newFolder());
+    File jar = TestProjectUtils.jarOf("test-libs-plugin");
+
+    underTest.explode(PluginInfo.create(jar));
+
+    // web/deploy/plugins/{pluginKey}/{jar}
+    assertThat(new File(deployDir, "testlibs/" + jar.getName())).isFile().hasContentEqualTo(jar);
+  }
 }
@@ -224,7 +224,10 @@ public class IndexActionTest {
   }
 
   private void setBrowsePermissionOnUser(ComponentDto... projects) {
-    Arrays.stream(projects).forEach(project -> db.users().insertProjectPermissionOnUser(user, UserRole.USER, project));
+    Arrays.stream(projects).forEach(project -> {
+      db.users().insertProjectPermissionOnUser(user, UserRole.USER, project);
+      userSession.addProjectUuidPermissions(UserRole.USER, project.uuid());
+    });
     db.getSession().commit();
   }
 
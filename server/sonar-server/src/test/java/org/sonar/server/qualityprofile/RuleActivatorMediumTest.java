@@ -935,6 +935,25 @@ public class RuleActivatorMediumTest {
     assertThat(result.countFailed()).isGreaterThan(0);
   }
 
+  @Test
+  public void bulk_activation_cascades_to_descendants() {
+    createChildProfiles();
+    // x1 is already activated on child profile P2 (propagated to P3)
+    activate(new RuleActivation(XOO_X1).setSeverity(INFO).setParameter("max", "5"), XOO_P2_KEY);
+
+    BulkChangeResult result = ruleActivator.bulkActivate(new RuleQuery().setRepositories(Arrays.asList("xoo")), XOO_P1_KEY, BLOCKER);
+
+    dbSession.clearCache();
+    assertThat(result.countSucceeded()).isGreaterThanOrEqualTo(2);
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X1), BLOCKER, null, ImmutableMap.of("max", "10"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X2), BLOCKER, null, Collections.<String, String>emptyMap());
+    // P2 keeps its own values of x1, which are not propagated from P1 to P3
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X1), INFO, OVERRIDES, ImmutableMap.of("max", "5"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X1), INFO, INHERITED, ImmutableMap.of("max", "5"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X2), BLOCKER, INHERITED, Collections.<String, String>emptyMap());
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X2), BLOCKER, INHERITED, Collections.<String, String>emptyMap());
+  }
+
   @Test
   public void set_and_unset_parent_profile() {
     // x1 is activated on the "future parent" P1
@@ -29,6 +29,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDao;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.authentication.JwtSessionCache;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
@@ -37,6 +38,8 @@ import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.db.user.UserTesting.newUserDto;
 
 public class UnsetRootActionTest {
@@ -51,7 +54,8 @@ public class UnsetRootActionTest {
 
   private UserDao userDao = dbTester.getDbClient().userDao();
   private DbSession dbSession = dbTester.getSession();
-  private UnsetRootAction underTest = new UnsetRootAction(userSessionRule, dbTester.getDbClient());
+  private JwtSessionCache sessionCache = mock(JwtSessionCache.class);
+  private UnsetRootAction underTest = new UnsetRootAction(userSessionRule, dbTester.getDbClient(), sessionCache);
   private WsActionTester wsTester = new WsActionTester(underTest);
 
   @Test
@@ -114,6 +118,7 @@ public class UnsetRootActionTest {
 
     assertThat(userDao.selectByLogin(dbSession, SOME_LOGIN).isRoot()).isFalse();
     assertThat(userDao.selectByLogin(dbSession, otherUser.getLogin()).isRoot()).isTrue();
+    verify(sessionCache).invalidateUser(SOME_LOGIN);
   }
 
   @Test
@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HtmlLineDecoratorTest {
+
+  HtmlLineDecorator underTest = new HtmlLineDecorator();
+
+  @Test
+  public void decorate_highlighting_and_symbols() {
+    assertThat(underTest.decorate("package org.polop;", "0,7,k", "8,17,42"))
+      .isEqualTo("<span class=\"k\">package</span> <span class=\"sym-42 sym\">org.polop</span>;");
+  }
+
+  @Test
+  public void escape_html_characters() {
+    assertThat(underTest.decorate("if (a < b && c > d) {", null, null)).isEqualTo("if (a &lt; b &amp;&amp; c &gt; d) {");
+  }
+
+  @Test
+  public void reuse_decorator_for_many_lines() {
+    assertThat(underTest.decorate("public", "0,6,k", null)).isEqualTo("<span class=\"k\">public</span>");
+    assertThat(underTest.decorate("int i;", "0,3,k", "4,5,1")).isEqualTo("<span class=\"k\">int</span> <span class=\"sym-1 sym\">i</span>;");
+    assertThat(underTest.decorate("}", null, null)).isEqualTo("}");
+  }
+
+  @Test
+  public void same_output_as_HtmlTextDecorator() {
+    verifySameOutput("package org.polop;", "0,7,k", "8,17,42");
+    verifySameOutput("abc", "0,5,c", "");
+    verifySameOutput("    if (toto < 42) {", null, null);
+    verifySameOutput("    if (toto < 42) {", "", "");
+    verifySameOutput("", "0,1,cppd", "");
+    verifySameOutput("@Deprecated", "0,0,a;0,11,a", "1,11,1");
+    // nested and overlapping rules
+    verifySameOutput("/** @param <T> the type & more */", "0,33,cppd;4,10,k;11,14,a", "11,14,3;25,29,4");
+    verifySameOutput("int a = b;", "0,3,k;0,10,s", "4,5,1;4,5,2;8,9,3");
+    verifySameOutput("String s = \"<html>\";", "11,19,s;0,6,k", "7,8,12");
+    // rules starting at the end of line
+    verifySameOutput("abc", "3,5,k", "3,4,1");
+    // lines containing end-of-line characters
+    verifySameOutput("abc\ndef", "0,5,k", null);
+    verifySameOutput("abc\r", "0,2,k", null);
+  }
+
+  @Test
+  public void same_output_as_HtmlTextDecorator_on_long_line() {
+    StringBuilder line = new StringBuilder();
+    StringBuilder highlighting = new StringBuilder();
+    StringBuilder symbols = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      int offset = line.length();
+      line.append("var v").append(i).append(" = \"<&>\"; ");
+      highlighting.append(offset).append(',').append(offset + 3).append(",k;");
+      highlighting.append(offset + 8).append(',').append(offset + 15).append(",s;");
+      symbols.append(offset + 4).append(',').append(offset + 5 + String.valueOf(i).length()).append(',').append(i).append(';');
+    }
+
+    verifySameOutput(line.toString(), highlighting.toString(), symbols.toString());
+  }
+
+  private void verifySameOutput(String line, String highlighting, String symbols) {
+    DecorationDataHolder dataHolder = new DecorationDataHolder();
+    if (StringUtils.isNotBlank(highlighting)) {
+      dataHolder.loadSyntaxHighlightingData(highlighting);
+    }
+    if (StringUtils.isNotBlank(symbols)) {
+      dataHolder.loadLineSymbolReferences(symbols);
+    }
+    String expected = new HtmlTextDecorator().decorateTextWithHtml(line, dataHolder, 1, 1).stream().findFirst().orElse("");
+
+    assertThat(underTest.decorate(line, highlighting, symbols)).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.source.FileSourceBlocksCodec.LINES_PER_BLOCK;
+
+public class SourceLinesCacheTest {
+
+  private SourceLinesCache underTest = new SourceLinesCache(3);
+
+  @Test
+  public void get_lines_of_cached_blocks() {
+    underTest.put("FILE", "HASH", 1, LINES_PER_BLOCK + 1, newLines(1, 2 * LINES_PER_BLOCK));
+
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(underTest.get("FILE", "HASH", LINES_PER_BLOCK, LINES_PER_BLOCK + 1)).extracting(DbFileSources.Line::getLine)
+      .containsExactly(LINES_PER_BLOCK, LINES_PER_BLOCK + 1);
+  }
+
+  @Test
+  public void return_null_if_a_block_is_missing() {
+    underTest.put("FILE", "HASH", 1, 10, newLines(1, LINES_PER_BLOCK));
+
+    assertThat(underTest.get("FILE", "HASH", 1, LINES_PER_BLOCK + 1)).isNull();
+    assertThat(underTest.get("FILE", "OTHER_HASH", 1, 10)).isNull();
+    assertThat(underTest.get("OTHER_FILE", "HASH", 1, 10)).isNull();
+  }
+
+  @Test
+  public void last_block_of_file_ends_the_range() {
+    underTest.put("FILE", "HASH", 1, 10, newLines(1, 15));
+
+    assertThat(underTest.get("FILE", "HASH", 10, 3 * LINES_PER_BLOCK)).extracting(DbFileSources.Line::getLine).containsExactly(10, 11, 12, 13, 14, 15);
+  }
+
+  @Test
+  public void evict_least_recently_used_blocks() {
+    underTest.put("FILE1", "HASH", 1, 10, newLines(1, 10));
+    underTest.put("FILE2", "HASH", 1, 10, newLines(1, 10));
+    underTest.put("FILE3", "HASH", 1, 10, newLines(1, 10));
+    underTest.get("FILE1", "HASH", 1, 10);
+
+    underTest.put("FILE4", "HASH", 1, 10, newLines(1, 10));
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.get("FILE1", "HASH", 1, 10)).isNotNull();
+    assertThat(underTest.get("FILE2", "HASH", 1, 10)).isNull();
+  }
+
+  @Test
+  public void large_ranges_are_not_cacheable() {
+    assertThat(SourceLinesCache.isCacheable(1, 500)).isTrue();
+    assertThat(SourceLinesCache.isCacheable(1, Integer.MAX_VALUE)).isFalse();
+  }
+
+  private static List<DbFileSources.Line> newLines(int from, int to) {
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    for (int i = from; i <= to; i++) {
+      lines.add(DbFileSources.Line.newBuilder().setLine(i).build());
+    }
+    return lines;
+  }
+}
@@ -49,7 +49,9 @@ public class SourceServiceTest {
 
   HtmlSourceDecorator htmlDecorator = mock(HtmlSourceDecorator.class);
 
-  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator);
+  SourceLinesCache cache = new SourceLinesCache();
+
+  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, cache);
 
   @Before
   public void injectFakeLines() throws IOException {
@@ -91,6 +93,27 @@ public class SourceServiceTest {
     assertThat(lines).containsExactly("HTML_5", "HTML_6", "HTML_7");
   }
 
+  @Test
+  public void get_range_of_lines_from_cache() {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setFileUuid("CACHED_FILE_UUID")
+      .setProjectUuid("PROJECT_UUID")
+      .setDataHash("HASH")
+      .setSourceData(FileSourceTesting.newFakeData(10).build()));
+    dbTester.commit();
+
+    assertThat(underTest.getLines(dbTester.getSession(), "CACHED_FILE_UUID", 2, 3).get()).extracting(DbFileSources.Line::getLine).containsExactly(2, 3);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(underTest.getLines(dbTester.getSession(), "CACHED_FILE_UUID", 9, 20).get()).extracting(DbFileSources.Line::getLine).containsExactly(9, 10);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_all_lines_without_using_cache() {
+    assertThat(underTest.getLines(dbTester.getSession(), FILE_UUID, 1, Integer.MAX_VALUE).get()).hasSize(10);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
   @Test
   public void getLines_fails_if_range_starts_at_zero() {
     expectedException.expect(IllegalArgumentException.class);
@@ -24,6 +24,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.db.DbClient;
@@ -37,7 +38,9 @@ import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.organization.TestOrganizationFlags;
+import org.sonar.server.permission.ProjectPermissionsCache;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.core.permission.GlobalPermissions.PROVISIONING;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -72,6 +75,7 @@ public class ServerUserSessionTest {
   private UserDto userDto = newUserDto().setLogin(LOGIN);
   private TestOrganizationFlags organizationFlags = TestOrganizationFlags.standalone();
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
+  private ProjectPermissionsCache projectPermissionsCache = new ProjectPermissionsCache(new MapSettings(), System2.INSTANCE);
   private OrganizationDto organization;
   private ComponentDto project;
 
@@ -169,6 +173,48 @@ public class ServerUserSessionTest {
     session.checkComponentUuidPermission(UserRole.USER, "another-uuid");
   }
 
+  @Test
+  public void keepAuthorizedComponents_returns_components_of_projects_on_which_user_has_permission() {
+    ComponentDto otherProject = db.components().insertProject(organization);
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    ComponentDto otherFile = ComponentTesting.newFileDto(otherProject, null);
+    addProjectPermissions(project, UserRole.USER);
+    UserSession session = newUserSession(userDto);
+
+    assertThat(session.keepAuthorizedComponents(UserRole.USER, asList(project, otherProject, file, otherFile))).containsExactly(project, file);
+    assertThat(session.keepAuthorizedComponents(UserRole.ADMIN, asList(project, otherProject, file, otherFile))).isEmpty();
+  }
+
+  @Test
+  public void keepAuthorizedComponents_returns_components_of_projects_on_which_anonymous_has_permission() {
+    ComponentDto otherProject = db.components().insertProject(organization);
+    db.users().insertProjectPermissionOnAnyone(UserRole.USER, project);
+    UserSession session = newAnonymousSession();
+
+    assertThat(session.keepAuthorizedComponents(UserRole.USER, asList(project, otherProject))).containsExactly(project);
+  }
+
+  @Test
+  public void keepAuthorizedComponents_returns_all_components_if_user_is_root() {
+    ComponentDto otherProject = db.components().insertProject(organization);
+
+    assertThat(newUserSession(ROOT_USER_DTO).keepAuthorizedComponents(UserRole.ADMIN, asList(project, otherProject))).containsExactly(project, otherProject);
+  }
+
+  @Test
+  public void project_permissions_are_shared_by_sessions_until_cache_is_invalidated() {
+    addProjectPermissions(project, UserRole.USER);
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, PROJECT_UUID)).isTrue();
+
+    // permission removed but not cache
+    db.getDbClient().userPermissionDao().deleteProjectPermission(db.getSession(), userDto.getId(), UserRole.USER, project.getId());
+    db.commit();
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, PROJECT_UUID)).isTrue();
+
+    projectPermissionsCache.invalidate();
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, PROJECT_UUID)).isFalse();
+  }
+
   @Test
   public void checkPermission_throws_ForbiddenException_when_user_doesnt_have_the_specified_permission_on_organization() {
     OrganizationDto org = db.organizations().insert();
@@ -406,7 +452,7 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, projectPermissionsCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
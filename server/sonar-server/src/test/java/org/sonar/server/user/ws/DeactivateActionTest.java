@@ -34,6 +34,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.authentication.JwtSessionCache;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -49,6 +50,8 @@ import org.sonar.server.ws.WsActionTester;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
 import static org.sonar.db.organization.OrganizationTesting.newOrganizationDto;
 import static org.sonar.db.permission.OrganizationPermission.ADMINISTER;
@@ -78,6 +81,7 @@ public class DeactivateActionTest {
   private DbClient dbClient = db.getDbClient();
   private UserIndexer userIndexer;
   private DbSession dbSession = db.getSession();
+  private JwtSessionCache sessionCache = mock(JwtSessionCache.class);
 
   @Before
   public void setUp() {
@@ -85,7 +89,7 @@ public class DeactivateActionTest {
     index = new UserIndex(esTester.client());
     userIndexer = new UserIndexer(dbClient, esTester.client());
     ws = new WsActionTester(new DeactivateAction(
-      dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider));
+      dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider, sessionCache));
   }
 
   @Test
@@ -113,6 +117,7 @@ public class DeactivateActionTest {
     verifyThatUserIsDeactivated(user.getLogin());
     assertThat(dbClient.userTokenDao().selectByLogin(dbSession, user.getLogin())).isEmpty();
     assertThat(dbClient.propertiesDao().selectByQuery(PropertyQuery.builder().setUserId(user.getId().intValue()).build(), dbSession)).isEmpty();
+    verify(sessionCache).invalidateUser(user.getLogin());
   }
 
   @Test
@@ -39,10 +39,13 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
+import org.sonar.server.permission.ProjectPermissionsCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
 import static org.sonar.db.permission.OrganizationPermission.ADMINISTER;
 import static org.sonar.server.usergroups.ws.GroupWsSupport.PARAM_GROUP_ID;
@@ -61,6 +64,7 @@ public class DeleteActionTest {
   private ComponentDbTester componentTester = new ComponentDbTester(db);
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   private GroupDto defaultGroup;
+  private ProjectPermissionsCache projectPermissionsCache = mock(ProjectPermissionsCache.class);
   private WsTester ws;
 
   @Before
@@ -73,7 +77,7 @@ public class DeleteActionTest {
         db.getDbClient(),
         userSession,
         newGroupWsSupport(),
-        settings, defaultOrganizationProvider)));
+        settings, defaultOrganizationProvider, projectPermissionsCache)));
   }
 
   @Test
@@ -88,6 +92,7 @@ public class DeleteActionTest {
       .assertNoContent();
 
     assertThat(db.users().selectGroupById(group.getId())).isNull();
+    verify(projectPermissionsCache).invalidate();
   }
 
   @Test
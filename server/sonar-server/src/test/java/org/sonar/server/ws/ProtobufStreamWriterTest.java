@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Issues.SearchWsResponse;
+import org.sonarqube.ws.MediaTypes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.test.JsonAssert.assertJson;
+
+public class ProtobufStreamWriterTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private SearchWsResponse expected = SearchWsResponse.newBuilder()
+    .setTotal(2)
+    .setPaging(Common.Paging.newBuilder().setPageIndex(1).setPageSize(100).setTotal(2))
+    .addIssues(Issues.Issue.newBuilder().setKey("I1"))
+    .addIssues(Issues.Issue.newBuilder().setKey("I2"))
+    .setLanguages(Issues.Languages.newBuilder().addLanguages(Issues.Language.newBuilder().setKey("java").setName("Java")))
+    .build();
+
+  @Test
+  public void write_protobuf_incrementally() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setMediaType(MediaTypes.PROTOBUF);
+    DumbResponse response = new DumbResponse();
+
+    write(request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    assertThat(SearchWsResponse.parseFrom(response.getFlushedOutput())).isEqualTo(expected);
+  }
+
+  @Test
+  public void write_json_incrementally() {
+    DumbResponse response = new DumbResponse();
+    DumbResponse bufferedResponse = new DumbResponse();
+
+    write(new TestRequest(), response);
+    WsUtils.writeProtobuf(expected, new TestRequest(), bufferedResponse);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertJson(response.outputAsString()).isSimilarTo(bufferedResponse.outputAsString());
+  }
+
+  @Test
+  public void write_empty_arrays_of_json_when_not_written() {
+    DumbResponse response = new DumbResponse();
+
+    try (ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), new TestRequest(), response)) {
+      writer.writeFields(SearchWsResponse.newBuilder().setTotal(0).build());
+    }
+
+    assertJson(response.outputAsString()).isSimilarTo("{\"total\":0,\"issues\":[],\"components\":[]}");
+  }
+
+  @Test
+  public void fail_to_write_fields_of_another_type() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), new TestRequest(), new DumbResponse());
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Message of type sonarqube.ws.issues.SearchWsResponse is expected, got sonarqube.ws.issues.Issue");
+
+    writer.writeFields(Issues.Issue.newBuilder().setKey("I1").build());
+  }
+
+  @Test
+  public void fail_to_begin_array_on_non_repeated_field() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), new TestRequest(), new DumbResponse());
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 1 of sonarqube.ws.issues.SearchWsResponse is not a repeated field of messages");
+
+    writer.beginArray(SearchWsResponse.TOTAL_FIELD_NUMBER);
+  }
+
+  @Test
+  public void fail_to_write_element_if_array_is_not_started() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), new TestRequest(), new DumbResponse());
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("No array is started");
+
+    writer.writeElement(Issues.Issue.newBuilder().setKey("I1").build());
+  }
+
+  @Test
+  public void fail_to_write_json_field_twice() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), new TestRequest(), new DumbResponse());
+    writer.beginArray(SearchWsResponse.ISSUES_FIELD_NUMBER).endArray();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Field issues is already written");
+
+    writer.writeFields(SearchWsResponse.newBuilder().addIssues(Issues.Issue.newBuilder().setKey("I1")).build());
+  }
+
+  private void write(TestRequest request, DumbResponse response) {
+    try (ProtobufStreamWriter writer = ProtobufStreamWriter.of(SearchWsResponse.getDescriptor(), request, response)) {
+      writer.writeFields(SearchWsResponse.newBuilder().setTotal(2).setPaging(expected.getPaging()).build());
+      writer.beginArray(SearchWsResponse.ISSUES_FIELD_NUMBER);
+      expected.getIssuesList().forEach(writer::writeElement);
+      writer.endArray();
+      writer.writeFields(SearchWsResponse.newBuilder().setLanguages(expected.getLanguages()).build());
+    }
+  }
+}
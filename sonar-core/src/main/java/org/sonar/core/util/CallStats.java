@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+/**
+ * Counts and durations of the calls made by the current thread to the database and to the search engine.
+ * Values are cumulated since the start of the thread, so callers compute the difference between two reads,
+ * for example before and after the execution of a step of a Compute Engine task.
+ */
+public final class CallStats {
+
+  public enum Type {
+    DB, SEARCH
+  }
+
+  private static final ThreadLocal<long[]> STATS = ThreadLocal.withInitial(() -> new long[2 * Type.values().length]);
+
+  private CallStats() {
+    // only static stuff
+  }
+
+  public static void add(Type type, long durationMs) {
+    long[] stats = STATS.get();
+    stats[2 * type.ordinal()]++;
+    stats[2 * type.ordinal() + 1] += durationMs;
+  }
+
+  public static long getCount(Type type) {
+    return STATS.get()[2 * type.ordinal()];
+  }
+
+  public static long getTimeMs(Type type) {
+    return STATS.get()[2 * type.ordinal() + 1];
+  }
+}
@@ -167,21 +167,37 @@ public class ProtobufJsonFormat {
     return json.toString();
   }
 
+  /**
+   * Writes a single field of the message, name and value, without the enclosing object. Repeated fields
+   * are always written, absent non-repeated fields are ignored. This allows to write a message incrementally,
+   * field by field, with the same output as {@link #write(Message, JsonWriter)}.
+   */
+  public static void writeField(Message message, Descriptors.FieldDescriptor fieldDescriptor, JsonWriter writer) {
+    if (fieldDescriptor.isRepeated()) {
+      writer.name(fieldDescriptor.getName());
+      if (fieldDescriptor.isMapField()) {
+        writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
+      } else {
+        writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
+      }
+    } else if (message.hasField(fieldDescriptor)) {
+      writer.name(fieldDescriptor.getName());
+      Object fieldValue = message.getField(fieldDescriptor);
+      writeFieldValue(fieldDescriptor, fieldValue, writer);
+    }
+  }
+
+  /**
+   * Writes a value of the field, for example an element of a repeated field.
+   */
+  public static void writeValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
+    writeFieldValue(fieldDescriptor, value, writer);
+  }
+
   private static void writeMessage(Message message, JsonWriter writer) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
-      if (fieldDescriptor.isRepeated()) {
-        writer.name(fieldDescriptor.getName());
-        if (fieldDescriptor.isMapField()) {
-          writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
-        } else {
-          writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
-        }
-      } else if (message.hasField(fieldDescriptor)) {
-        writer.name(fieldDescriptor.getName());
-        Object fieldValue = message.getField(fieldDescriptor);
-        writeFieldValue(fieldDescriptor, fieldValue, writer);
-      }
+      writeField(message, fieldDescriptor, writer);
     }
   }
 
@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.core.util.CallStats.Type.DB;
+import static org.sonar.core.util.CallStats.Type.SEARCH;
+
+public class CallStatsTest {
+
+  @Test
+  public void cumulate_calls_by_type() {
+    long dbCount = CallStats.getCount(DB);
+    long dbTime = CallStats.getTimeMs(DB);
+    long searchCount = CallStats.getCount(SEARCH);
+
+    CallStats.add(DB, 10L);
+    CallStats.add(DB, 5L);
+
+    assertThat(CallStats.getCount(DB)).isEqualTo(dbCount + 2);
+    assertThat(CallStats.getTimeMs(DB)).isEqualTo(dbTime + 15L);
+    assertThat(CallStats.getCount(SEARCH)).isEqualTo(searchCount);
+  }
+
+  @Test
+  public void stats_are_local_to_thread() throws InterruptedException {
+    long dbCount = CallStats.getCount(DB);
+    AtomicLong countInOtherThread = new AtomicLong(-1L);
+
+    Thread thread = new Thread(() -> {
+      CallStats.add(DB, 3L);
+      countInOtherThread.set(CallStats.getCount(DB));
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(countInOtherThread.get()).isEqualTo(1L);
+    assertThat(CallStats.getCount(DB)).isEqualTo(dbCount);
+  }
+}
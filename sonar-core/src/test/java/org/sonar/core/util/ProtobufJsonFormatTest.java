@@ -104,6 +104,28 @@ public class ProtobufJsonFormatTest {
       .isEqualTo("{\"strings\":[\"one\",\"two\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
   }
 
+  @Test
+  public void write_message_field_by_field() {
+    TestArray msg = TestArray.newBuilder()
+      .addStrings("one").addStrings("two")
+      .addNesteds(NestedMsg.newBuilder().setLabel("nestedOne")).addNesteds(NestedMsg.newBuilder().setLabel("nestedTwo"))
+      .build();
+    StringWriter json = new StringWriter();
+
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      writer.beginObject();
+      ProtobufJsonFormat.writeField(msg, TestArray.getDescriptor().findFieldByName("strings"), writer);
+      writer.name("nesteds").beginArray();
+      for (NestedMsg nested : msg.getNestedsList()) {
+        ProtobufJsonFormat.writeValue(TestArray.getDescriptor().findFieldByName("nesteds"), nested, writer);
+      }
+      writer.endArray();
+      writer.endObject();
+    }
+
+    assertThat(json.toString()).isEqualTo(toJson(msg));
+  }
+
   @Test
   public void write_empty_array() {
     TestArray msg = TestArray.newBuilder().build();
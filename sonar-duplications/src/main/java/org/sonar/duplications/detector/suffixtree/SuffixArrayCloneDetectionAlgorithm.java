@@ -0,0 +1,267 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+/**
+ * Alternative to {@link SuffixTreeCloneDetectionAlgorithm}, which simulates the traversal of the suffix tree
+ * with an enhanced suffix array (suffix array and LCP array) over the symbols of the text encoded as ints.
+ * <p>
+ * Each inner node of the generalised suffix tree is an lcp-interval of the suffix array, so the same groups are
+ * reported to {@link DuplicationsCollector}, in descending order of length, without allocating a node and a map of
+ * edges for each symbol of the text.
+ * </p>
+ */
+public final class SuffixArrayCloneDetectionAlgorithm {
+
+  private SuffixArrayCloneDetectionAlgorithm() {
+    // only statics
+  }
+
+  public static List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks) {
+    if (fileBlocks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    TextSet text = SuffixTreeCloneDetectionAlgorithm.createTextSet(cloneIndex, fileBlocks);
+    if (text == null) {
+      return Collections.emptyList();
+    }
+    DuplicationsCollector reporter = new DuplicationsCollector(text);
+    new Search(text).perform(reporter);
+    return reporter.getResult();
+  }
+
+  private static final class Search {
+    private final TextSet text;
+    private final int length;
+    private final int[] symbols;
+    private final int alphabetSize;
+    private int[] suffixes;
+    private int[] ranks;
+    private int[] lcp;
+
+    // lcp-intervals, i.e. inner nodes of the suffix tree
+    private int intervalCount = 0;
+    private int[] intervalDepths;
+    private int[] intervalLefts;
+    private int[] intervalRights;
+
+    private Search(TextSet text) {
+      this.text = text;
+      this.length = text.length();
+      this.symbols = new int[length];
+      Map<Object, Integer> ids = new HashMap<>();
+      for (int i = 0; i < length; i++) {
+        Object symbol = text.symbolAt(i);
+        Integer id = ids.get(symbol);
+        if (id == null) {
+          id = ids.size();
+          ids.put(symbol, id);
+        }
+        symbols[i] = id;
+      }
+      this.alphabetSize = ids.size();
+    }
+
+    private void perform(DuplicationsCollector reporter) {
+      // O(N * log(N))
+      buildSuffixArray();
+      // O(N)
+      buildLcpArray();
+      // O(N)
+      collectIntervals();
+      // O(N * log(N))
+      visitIntervals(reporter);
+    }
+
+    /**
+     * Prefix doubling, with a radix sort of the pairs of ranks at each step.
+     */
+    private void buildSuffixArray() {
+      suffixes = new int[length];
+      ranks = Arrays.copyOf(symbols, length);
+      int[] tmp = new int[length];
+      int[] counts = new int[Math.max(length, alphabetSize)];
+
+      for (int i = 0; i < length; i++) {
+        counts[ranks[i]]++;
+      }
+      accumulate(counts, alphabetSize);
+      for (int i = length - 1; i >= 0; i--) {
+        counts[ranks[i]]--;
+        suffixes[counts[ranks[i]]] = i;
+      }
+
+      int classes = alphabetSize;
+      for (int k = 1; classes < length; k <<= 1) {
+        // order by second rank: suffixes shorter than k first, then the others by their already sorted tail
+        int p = 0;
+        for (int i = length - k; i < length; i++) {
+          tmp[p++] = i;
+        }
+        for (int i = 0; i < length; i++) {
+          if (suffixes[i] >= k) {
+            tmp[p++] = suffixes[i] - k;
+          }
+        }
+        // stable order by first rank
+        Arrays.fill(counts, 0, classes, 0);
+        for (int i = 0; i < length; i++) {
+          counts[ranks[i]]++;
+        }
+        accumulate(counts, classes);
+        for (int i = length - 1; i >= 0; i--) {
+          int suffix = tmp[i];
+          counts[ranks[suffix]]--;
+          suffixes[counts[ranks[suffix]]] = suffix;
+        }
+        // new ranks
+        tmp[suffixes[0]] = 0;
+        classes = 1;
+        for (int i = 1; i < length; i++) {
+          int previous = suffixes[i - 1];
+          int current = suffixes[i];
+          if (ranks[previous] != ranks[current] || secondRank(previous, k) != secondRank(current, k)) {
+            classes++;
+          }
+          tmp[current] = classes - 1;
+        }
+        int[] swap = ranks;
+        ranks = tmp;
+        tmp = swap;
+      }
+    }
+
+    private int secondRank(int suffix, int k) {
+      return suffix + k < length ? ranks[suffix + k] : -1;
+    }
+
+    private static void accumulate(int[] counts, int size) {
+      int sum = 0;
+      for (int i = 0; i < size; i++) {
+        sum += counts[i];
+        counts[i] = sum;
+      }
+    }
+
+    /**
+     * Kasai's algorithm. {@code lcp[i]} is the length of the longest common prefix of {@code suffixes[i - 1]} and {@code suffixes[i]}.
+     */
+    private void buildLcpArray() {
+      lcp = new int[length];
+      int h = 0;
+      for (int i = 0; i < length; i++) {
+        int rank = ranks[i];
+        if (rank > 0) {
+          int j = suffixes[rank - 1];
+          while (i + h < length && j + h < length && symbols[i + h] == symbols[j + h]) {
+            h++;
+          }
+          lcp[rank] = h;
+          if (h > 0) {
+            h--;
+          }
+        } else {
+          h = 0;
+        }
+      }
+    }
+
+    /**
+     * Bottom-up traversal of the lcp-intervals. Root interval, which has a depth of 0, is not collected.
+     */
+    private void collectIntervals() {
+      intervalDepths = new int[length];
+      intervalLefts = new int[length];
+      intervalRights = new int[length];
+      int[] stackDepths = new int[length + 1];
+      int[] stackLefts = new int[length + 1];
+      int top = 0;
+      stackDepths[0] = 0;
+      stackLefts[0] = 0;
+      for (int i = 1; i <= length; i++) {
+        int depth = i < length ? lcp[i] : 0;
+        int left = i - 1;
+        while (depth < stackDepths[top]) {
+          left = stackLefts[top];
+          addInterval(stackDepths[top], left, i - 1);
+          top--;
+        }
+        if (depth > stackDepths[top]) {
+          top++;
+          stackDepths[top] = depth;
+          stackLefts[top] = left;
+        }
+      }
+    }
+
+    private void addInterval(int depth, int left, int right) {
+      intervalDepths[intervalCount] = depth;
+      intervalLefts[intervalCount] = left;
+      intervalRights[intervalCount] = right;
+      intervalCount++;
+    }
+
+    private void visitIntervals(DuplicationsCollector reporter) {
+      long[] order = new long[intervalCount];
+      for (int i = 0; i < intervalCount; i++) {
+        order[i] = ((long) intervalDepths[i] << 32) | i;
+      }
+      Arrays.sort(order);
+      for (int i = intervalCount - 1; i >= 0; i--) {
+        int interval = (int) order[i];
+        if (containsOrigin(interval)) {
+          report(interval, reporter);
+        }
+      }
+    }
+
+    private boolean containsOrigin(int interval) {
+      int depth = intervalDepths[interval];
+      for (int i = intervalLefts[interval]; i <= intervalRights[interval]; i++) {
+        if (text.isInsideOrigin(suffixes[i] + depth)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void report(int interval, DuplicationsCollector reporter) {
+      int depth = intervalDepths[interval];
+      int left = intervalLefts[interval];
+      int right = intervalRights[interval];
+      reporter.startOfGroup(right - left + 1, depth);
+      for (int i = left; i <= right; i++) {
+        reporter.part(suffixes[i], suffixes[i] + depth);
+      }
+      reporter.endOfGroup();
+    }
+  }
+
+}
@@ -54,7 +54,11 @@ public final class SuffixTreeCloneDetectionAlgorithm {
     return reporter.getResult();
   }
 
-  private static TextSet createTextSet(CloneIndex index, Collection<Block> fileBlocks) {
+  /**
+   * @return generalised text made of the blocks of the file followed by the sequences of duplicated blocks from the index,
+   * or {@code null} if the file has no duplications
+   */
+  static TextSet createTextSet(CloneIndex index, Collection<Block> fileBlocks) {
     Set<ByteArray> hashes = new HashSet<>();
     for (Block fileBlock : fileBlocks) {
       hashes.add(fileBlock.getBlockHash());
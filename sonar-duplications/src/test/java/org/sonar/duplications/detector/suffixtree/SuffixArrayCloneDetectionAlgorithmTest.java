@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.DetectorTestCase;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.sonar.duplications.detector.CloneGroupMatcher.hasCloneGroup;
+
+/**
+ * Runs the same corpora as {@link SuffixTreeCloneDetectionAlgorithmTest}, and checks that both algorithms detect the same clone groups.
+ */
+public class SuffixArrayCloneDetectionAlgorithmTest extends DetectorTestCase {
+
+  @Test
+  public void noDuplications() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("a", "1 2 3");
+    List<CloneGroup> result = detect(index, fileBlocks);
+    assertThat(result, sameInstance(Collections.EMPTY_LIST));
+  }
+
+  @Test
+  public void huge() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = new Block[5000];
+    for (int i = 0; i < 5000; i++) {
+      fileBlocks[i] = newBlock("x", new ByteArray("01"), i);
+    }
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(1, result.size());
+  }
+
+  @Test
+  public void myTest() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("x", "a 2 b 2 c 2 2 2");
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(2, result.size());
+    assertThat(result, hasCloneGroup(2,
+      newClonePart("x", 5, 2),
+      newClonePart("x", 6, 2)));
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("x", 1, 1),
+      newClonePart("x", 3, 1),
+      newClonePart("x", 5, 1),
+      newClonePart("x", 6, 1),
+      newClonePart("x", 7, 1)));
+  }
+
+  @Test
+  public void myTest2() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("x", "a 2 3 b 2 3 c 2 3 d 2 3 2 3 2 3");
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(2, result.size());
+    assertThat(result, hasCloneGroup(4,
+      newClonePart("x", 10, 4),
+      newClonePart("x", 12, 4)));
+    assertThat(result, hasCloneGroup(2,
+      newClonePart("x", 1, 2),
+      newClonePart("x", 4, 2),
+      newClonePart("x", 7, 2),
+      newClonePart("x", 10, 2),
+      newClonePart("x", 12, 2),
+      newClonePart("x", 14, 2)));
+  }
+
+  @Test
+  public void myTest3() {
+    CloneIndex index = createIndex(
+      newBlocks("b", "4 3 2"),
+      newBlocks("c", "4 3 1"));
+    Block[] fileBlocks = newBlocks("a", "1 2 3 4");
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(4, result.size());
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 0, 1),
+      newClonePart("c", 2, 1)));
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 1, 1),
+      newClonePart("b", 2, 1)));
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 2, 1),
+      newClonePart("b", 1, 1),
+      newClonePart("c", 1, 1)));
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 3, 1),
+      newClonePart("b", 0, 1),
+      newClonePart("c", 0, 1)));
+  }
+
+  @Test
+  public void same_clone_groups_as_suffix_tree_on_random_files() {
+    Random random = new Random(42);
+    for (int run = 0; run < 300; run++) {
+      int alphabetSize = 2 + random.nextInt(6);
+      List<Block[]> otherFiles = new ArrayList<>();
+      int nbOtherFiles = random.nextInt(4);
+      for (int i = 0; i < nbOtherFiles; i++) {
+        otherFiles.add(newBlocks("f" + i, randomHashes(random, alphabetSize, 1 + random.nextInt(40))));
+      }
+      CloneIndex index = createIndex(otherFiles.toArray(new Block[otherFiles.size()][]));
+      Block[] fileBlocks = newBlocks("origin", randomHashes(random, alphabetSize, 1 + random.nextInt(60)));
+
+      List<CloneGroup> expected = SuffixTreeCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+      List<CloneGroup> result = detect(index, fileBlocks);
+
+      assertEquals(expected.size(), result.size());
+      assertEquals(new HashSet<>(expected), new HashSet<>(result));
+    }
+  }
+
+  private static String randomHashes(Random random, int alphabetSize, int length) {
+    StringBuilder hashes = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      hashes.append(1 + random.nextInt(alphabetSize)).append(' ');
+    }
+    return hashes.toString();
+  }
+
+  @Override
+  protected List<CloneGroup> detect(CloneIndex index, Block[] fileBlocks) {
+    return SuffixArrayCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+  }
+
+}
@@ -22,6 +22,8 @@ package org.sonar.home.cache;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.CheckForNull;
 
 /**
@@ -38,6 +40,7 @@ public class FileCache {
   private final File tmpDir;
   private final FileHashes hashes;
   private final Logger logger;
+  private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
 
   FileCache(File dir, FileHashes fileHashes, Logger logger) {
     this.hashes = fileHashes;
@@ -73,24 +76,39 @@ public class FileCache {
     void download(String filename, File toFile) throws IOException;
   }
 
+  /**
+   * Can be called concurrently. A file is downloaded only once when it's requested by many threads at the
+   * same time, while different files are downloaded in parallel.
+   */
   public File get(String filename, String hash, Downloader downloader) {
     // Does not fail if another process tries to create the directory at the same time.
     File hashDir = hashDir(hash);
     File targetFile = new File(hashDir, filename);
     if (!targetFile.exists()) {
-      File tempFile = newTempFile();
-      download(downloader, filename, tempFile);
-      String downloadedHash = hashes.of(tempFile);
-      if (!hash.equals(downloadedHash)) {
-        throw new IllegalStateException("INVALID HASH: File " + tempFile.getAbsolutePath() + " was expected to have hash " + hash
-          + " but was downloaded with hash " + downloadedHash);
+      synchronized (lockOf(hash, filename)) {
+        if (!targetFile.exists()) {
+          File tempFile = newTempFile();
+          download(downloader, filename, tempFile);
+          String downloadedHash = hashes.of(tempFile);
+          if (!hash.equals(downloadedHash)) {
+            throw new IllegalStateException("INVALID HASH: File " + tempFile.getAbsolutePath() + " was expected to have hash " + hash
+              + " but was downloaded with hash " + downloadedHash);
+          }
+          mkdirQuietly(hashDir);
+          renameQuietly(tempFile, targetFile);
+        }
       }
-      mkdirQuietly(hashDir);
-      renameQuietly(tempFile, targetFile);
     }
     return targetFile;
   }
 
+  private Object lockOf(String hash, String filename) {
+    String key = hash + "/" + filename;
+    Object lock = new Object();
+    Object existingLock = locks.putIfAbsent(key, lock);
+    return existingLock == null ? lock : existingLock;
+  }
+
   private static void download(Downloader downloader, String filename, File tempFile) {
     try {
       downloader.download(filename, tempFile);
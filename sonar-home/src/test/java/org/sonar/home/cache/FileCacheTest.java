@@ -21,6 +21,13 @@ package org.sonar.home.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -114,4 +121,35 @@ public class FileCacheTest {
     assertThat(cachedFile.getParentFile().getParentFile()).isEqualTo(cache.getDir());
     assertThat(FileUtils.readFileToString(cachedFile)).contains("downloaded by");
   }
+
+  @Test
+  public void download_only_once_when_requested_by_many_threads() throws Exception {
+    FileHashes hashes = mock(FileHashes.class);
+    when(hashes.of(any(File.class))).thenReturn("ABCDE");
+    final FileCache cache = new FileCache(tempFolder.newFolder(), hashes, mock(Logger.class));
+    final AtomicInteger downloads = new AtomicInteger();
+    final FileCache.Downloader downloader = new FileCache.Downloader() {
+      public void download(String filename, File toFile) throws IOException {
+        downloads.incrementAndGet();
+        FileUtils.write(toFile, "body");
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<File>> futures = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      futures.add(executor.submit(new Callable<File>() {
+        @Override
+        public File call() {
+          return cache.get("sonar-foo-plugin-1.5.jar", "ABCDE", downloader);
+        }
+      }));
+    }
+    for (Future<File> future : futures) {
+      assertThat(future.get()).exists().hasName("sonar-foo-plugin-1.5.jar");
+    }
+    executor.shutdown();
+
+    assertThat(downloads.get()).isEqualTo(1);
+  }
 }
@@ -153,13 +153,13 @@ public class DefaultFileSystem implements FileSystem {
    */
   public Iterable<InputFile> inputFiles() {
     doPreloadFiles();
-    return OptimizedFilePredicateAdapter.create(predicates.all()).get(cache);
+    return cache.inputFiles(OptimizedFilePredicateAdapter.create(predicates.all()));
   }
 
   @Override
   public Iterable<InputFile> inputFiles(FilePredicate predicate) {
     doPreloadFiles();
-    Iterable<InputFile> iterable = OptimizedFilePredicateAdapter.create(predicate).get(cache);
+    Iterable<InputFile> iterable = cache.inputFiles(OptimizedFilePredicateAdapter.create(predicate));
     if (defaultPredicate != null) {
       return StreamSupport.stream(iterable.spliterator(), false)
         .filter(defaultPredicate::test).collect(Collectors.toList());
@@ -231,6 +231,16 @@ public class DefaultFileSystem implements FileSystem {
     }
 
     protected abstract SortedSet<String> languages();
+
+    /**
+     * Files matching the predicate. Can be overridden to evaluate some predicates with additional indexes,
+     * for example {@link InputFileBitSetIndex}.
+     *
+     * @since 6.4
+     */
+    protected Iterable<InputFile> inputFiles(OptimizedFilePredicate predicate) {
+      return predicate.get(this);
+    }
   }
 
   /**
@@ -241,6 +251,7 @@ public class DefaultFileSystem implements FileSystem {
     private final Map<String, InputDir> dirMap = new HashMap<>();
     private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
     private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+    private final InputFileBitSetIndex bitSetIndex = new InputFileBitSetIndex();
     private SortedSet<String> languages = new TreeSet<>();
 
     @Override
@@ -268,14 +279,24 @@ public class DefaultFileSystem implements FileSystem {
       return filesByExtensionCache.get(extension);
     }
 
+    @Override
+    protected Iterable<InputFile> inputFiles(OptimizedFilePredicate predicate) {
+      Iterable<InputFile> files = bitSetIndex.inputFiles(predicate, null);
+      return files != null ? files : super.inputFiles(predicate);
+    }
+
     @Override
     protected void doAdd(InputFile inputFile) {
       if (inputFile.language() != null) {
         languages.add(inputFile.language());
       }
-      fileMap.put(inputFile.relativePath(), inputFile);
+      InputFile previous = fileMap.put(inputFile.relativePath(), inputFile);
+      if (previous != null) {
+        bitSetIndex.remove(previous);
+      }
       filesByNameCache.put(FilenamePredicate.getFilename(inputFile), inputFile);
       filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+      bitSetIndex.add(inputFile);
     }
 
     @Override
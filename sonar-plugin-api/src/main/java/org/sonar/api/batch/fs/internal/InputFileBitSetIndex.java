@@ -0,0 +1,217 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Index of input files by language, type and module. Each file is given a position, and the files having a given
+ * language, type or module are represented by a bitset of their positions. Predicates on language and type,
+ * and their combinations with {@link AndPredicate}, {@link OrPredicate} and {@link NotPredicate}, are evaluated
+ * as operations on bitsets instead of being applied on each file.
+ * <p>
+ * Other predicates are applied on the files selected by the bitsets. Predicates which look up files in
+ * a dedicated index of {@link org.sonar.api.batch.fs.FileSystem.Index}, like {@link RelativePathPredicate}, are
+ * not evaluated by this index (see {@link #inputFiles(FilePredicate, String)}).
+ * </p>
+ * Not thread-safe.
+ *
+ * @since 6.4
+ */
+public class InputFileBitSetIndex {
+
+  private final List<InputFile> files = new ArrayList<>();
+  private final Map<String, Integer> positionsByKey = new HashMap<>();
+  private final BitSet present = new BitSet();
+  private final Map<String, BitSet> byLanguage = new HashMap<>();
+  private final Map<InputFile.Type, BitSet> byType = new EnumMap<>(InputFile.Type.class);
+  private final Map<String, BitSet> byModule = new HashMap<>();
+
+  /**
+   * Adds the file, or replaces the file with the same key
+   */
+  public void add(InputFile inputFile) {
+    Integer position = positionsByKey.get(inputFile.key());
+    if (position == null) {
+      position = files.size();
+      files.add(inputFile);
+      positionsByKey.put(inputFile.key(), position);
+    } else {
+      clear(position);
+      files.set(position, inputFile);
+    }
+    present.set(position);
+    String language = inputFile.language();
+    if (language != null) {
+      byLanguage.computeIfAbsent(language, l -> new BitSet()).set(position);
+    }
+    InputFile.Type type = inputFile.type();
+    if (type != null) {
+      byType.computeIfAbsent(type, t -> new BitSet()).set(position);
+    }
+    String moduleKey = moduleKey(inputFile);
+    if (moduleKey != null) {
+      byModule.computeIfAbsent(moduleKey, m -> new BitSet()).set(position);
+    }
+  }
+
+  public void remove(InputFile inputFile) {
+    Integer position = positionsByKey.get(inputFile.key());
+    if (position != null) {
+      clear(position);
+    }
+  }
+
+  private void clear(int position) {
+    present.clear(position);
+    byLanguage.values().forEach(bits -> bits.clear(position));
+    byType.values().forEach(bits -> bits.clear(position));
+    byModule.values().forEach(bits -> bits.clear(position));
+  }
+
+  @CheckForNull
+  private static String moduleKey(InputFile inputFile) {
+    if (inputFile instanceof DefaultInputFile) {
+      return ((DefaultInputFile) inputFile).moduleKey();
+    }
+    return null;
+  }
+
+  /**
+   * Files matching the predicate, in the order they have been added.
+   *
+   * @param moduleKey if not null, then only the files of this module are returned
+   * @return {@code null} if the predicate can't be evaluated with this index, for example because it relies
+   * on a more selective index, or because it matches all the files
+   */
+  @CheckForNull
+  public List<InputFile> inputFiles(FilePredicate predicate, @Nullable String moduleKey) {
+    if (predicate == TruePredicate.TRUE) {
+      // nothing to evaluate, iterating the files of the cache is cheaper
+      return null;
+    }
+    BitSet candidates = (BitSet) present.clone();
+    if (moduleKey != null) {
+      candidates.and(byModule.getOrDefault(moduleKey, new BitSet()));
+    }
+
+    List<FilePredicate> remainingPredicates = new ArrayList<>();
+    if (predicate instanceof AndPredicate) {
+      Collection<OptimizedFilePredicate> predicates = ((AndPredicate) predicate).predicates();
+      if (predicates.stream().anyMatch(p -> p.priority() >= AbstractFilePredicate.USE_INDEX)) {
+        return null;
+      }
+      for (OptimizedFilePredicate p : predicates) {
+        BitSet bits = evaluate(p);
+        if (bits == null) {
+          remainingPredicates.add(p);
+        } else {
+          candidates.and(bits);
+        }
+      }
+      if (remainingPredicates.size() == predicates.size()) {
+        return null;
+      }
+    } else {
+      BitSet bits = evaluate(predicate);
+      if (bits == null) {
+        return null;
+      }
+      candidates.and(bits);
+    }
+
+    List<InputFile> result = new ArrayList<>(candidates.cardinality());
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      InputFile inputFile = files.get(i);
+      if (remainingPredicates.stream().allMatch(p -> p.apply(inputFile))) {
+        result.add(inputFile);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the positions of the files matching the predicate, or {@code null} if the predicate is not supported
+   */
+  @CheckForNull
+  private BitSet evaluate(FilePredicate predicate) {
+    if (predicate == TruePredicate.TRUE) {
+      return (BitSet) present.clone();
+    }
+    if (predicate == FalsePredicate.FALSE) {
+      return new BitSet();
+    }
+    if (predicate instanceof LanguagePredicate) {
+      return copy(byLanguage.get(((LanguagePredicate) predicate).language()));
+    }
+    if (predicate instanceof TypePredicate) {
+      return copy(byType.get(((TypePredicate) predicate).type()));
+    }
+    if (predicate instanceof NotPredicate) {
+      BitSet bits = evaluate(((NotPredicate) predicate).predicate());
+      if (bits == null) {
+        return null;
+      }
+      BitSet result = (BitSet) present.clone();
+      result.andNot(bits);
+      return result;
+    }
+    if (predicate instanceof AndPredicate) {
+      return combine(((AndPredicate) predicate).predicates(), true);
+    }
+    if (predicate instanceof OrPredicate) {
+      return combine(((OrPredicate) predicate).predicates(), false);
+    }
+    return null;
+  }
+
+  @CheckForNull
+  private BitSet combine(Collection<? extends FilePredicate> predicates, boolean and) {
+    BitSet result = null;
+    for (FilePredicate p : predicates) {
+      BitSet bits = evaluate(p);
+      if (bits == null) {
+        return null;
+      }
+      if (result == null) {
+        result = bits;
+      } else if (and) {
+        result.and(bits);
+      } else {
+        result.or(bits);
+      }
+    }
+    return result == null ? new BitSet() : result;
+  }
+
+  private static BitSet copy(@Nullable BitSet bits) {
+    return bits == null ? new BitSet() : (BitSet) bits.clone();
+  }
+}
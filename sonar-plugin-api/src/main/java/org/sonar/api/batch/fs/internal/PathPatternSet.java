@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.api.batch.fs.IndexedFile;
+
+/**
+ * Set of {@link PathPattern} compiled into two {@link WildcardPatternSet}, one for the patterns of relative paths
+ * and one for the patterns of absolute paths. Matching is case-sensitive, like {@link PathPattern#match(IndexedFile)}.
+ *
+ * @since 6.4
+ */
+public final class PathPatternSet {
+
+  private final WildcardPatternSet relativePatterns;
+  private final WildcardPatternSet absolutePatterns;
+
+  private PathPatternSet(PathPattern[] patterns) {
+    List<String> relative = new ArrayList<>();
+    List<String> absolute = new ArrayList<>();
+    for (PathPattern pattern : patterns) {
+      if (pattern.isAbsolute()) {
+        absolute.add(pattern.pattern.toString());
+      } else {
+        relative.add(pattern.pattern.toString());
+      }
+    }
+    this.relativePatterns = WildcardPatternSet.create(relative);
+    this.absolutePatterns = WildcardPatternSet.create(absolute);
+  }
+
+  public static PathPatternSet create(PathPattern[] patterns) {
+    return new PathPatternSet(patterns);
+  }
+
+  public boolean isEmpty() {
+    return relativePatterns.isEmpty() && absolutePatterns.isEmpty();
+  }
+
+  /**
+   * Returns true if the file matches at least one of the patterns.
+   */
+  public boolean matchAny(IndexedFile inputFile) {
+    if (!relativePatterns.isEmpty()) {
+      String relativePath = inputFile.relativePath();
+      if (relativePath != null && relativePatterns.matchAny(relativePath)) {
+        return true;
+      }
+    }
+    return !absolutePatterns.isEmpty() && absolutePatterns.matchAny(inputFile.absolutePath());
+  }
+}
@@ -32,6 +32,10 @@ class TypePredicate extends AbstractFilePredicate {
     this.type = type;
   }
 
+  InputFile.Type type() {
+    return type;
+  }
+
   @Override
   public boolean apply(InputFile f) {
     return type == f.type();
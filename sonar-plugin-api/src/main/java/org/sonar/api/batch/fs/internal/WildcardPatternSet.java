@@ -0,0 +1,342 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.WildcardPattern;
+
+/**
+ * Set of {@link WildcardPattern} compiled into a single automaton, so that a value is matched against all
+ * the patterns in a single pass instead of one regular expression per pattern. Results are the same as
+ * {@link WildcardPattern#match(String)} with "/" as directory separator.
+ * <p>
+ * Patterns are compiled into a non-deterministic automaton, in which patterns sharing the same prefix share
+ * the same states, like in a trie. The equivalent deterministic automaton is built lazily while values are matched,
+ * so that a path generally costs a single lookup per character. The numbers of cached deterministic states and of
+ * cached transitions are bounded, so that pathological sets of patterns do not exhaust memory.
+ * </p>
+ * Instances are thread-safe.
+ *
+ * @since 6.4
+ */
+public final class WildcardPatternSet {
+
+  private static final int MAX_CACHED_STATES = 2_000;
+  private static final int MAX_CACHED_NON_ASCII_TRANSITIONS = 256;
+  private static final int ASCII_SIZE = 128;
+  private static final char SEPARATOR = '/';
+  private static final int[] NO_MATCH = new int[0];
+
+  private final int size;
+  private final List<Node> nodes = new ArrayList<>();
+  private final ConcurrentMap<BitSet, State> states = new ConcurrentHashMap<>();
+  private final State initialState;
+
+  private WildcardPatternSet(Collection<String> patterns) {
+    this.size = patterns.size();
+    Node root = newNode();
+    int index = 0;
+    for (String pattern : patterns) {
+      Node node = root;
+      for (long token : tokenize(pattern)) {
+        node = node.children.containsKey(token) ? node.children.get(token) : addChild(node, token);
+      }
+      node.acceptedPatterns.add(index);
+      index++;
+    }
+    BitSet initialNodes = new BitSet();
+    addWithClosure(root, initialNodes);
+    this.initialState = intern(initialNodes);
+  }
+
+  public static WildcardPatternSet create(Collection<String> patterns) {
+    return new WildcardPatternSet(patterns);
+  }
+
+  public static WildcardPatternSet create(String... patterns) {
+    return new WildcardPatternSet(Arrays.asList(patterns));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns true if the value matches at least one of the patterns.
+   */
+  public boolean matchAny(String value) {
+    return run(value).matchingPatterns.length > 0;
+  }
+
+  /**
+   * Returns the indexes of the patterns matching the value, in the order of the patterns given at creation.
+   */
+  public int[] matchingIndexes(String value) {
+    int[] indexes = run(value).matchingPatterns;
+    return indexes.length == 0 ? NO_MATCH : indexes.clone();
+  }
+
+  private State run(String value) {
+    // same normalization as WildcardPattern#match(String)
+    String path = StringUtils.removeEnd(StringUtils.removeStart(value, "/"), "/");
+    State state = initialState;
+    int i = 0;
+    while (i < path.length() && !state.isDead()) {
+      int codePoint = path.codePointAt(i);
+      state = next(state, codePoint);
+      i += Character.charCount(codePoint);
+    }
+    return state;
+  }
+
+  /**
+   * Tokens are encoded as the type in the high bits and the code point of literals in the low bits,
+   * so that they can be used as keys of the trie. The parsing is the same as {@link WildcardPattern}.
+   */
+  private static List<Long> tokenize(String pattern) {
+    List<Long> tokens = new ArrayList<>();
+    int i = pattern.startsWith("/") || pattern.startsWith("\\") ? 1 : 0;
+    while (i < pattern.length()) {
+      char ch = pattern.charAt(i);
+      if (ch == '*') {
+        if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+          if (i + 2 < pattern.length() && isSlash(pattern.charAt(i + 2))) {
+            tokens.add(token(TokenType.DIRECTORIES, 0));
+            i += 3;
+          } else {
+            tokens.add(token(TokenType.DOUBLE_STAR, 0));
+            i += 2;
+          }
+        } else {
+          tokens.add(token(TokenType.STAR, 0));
+          i++;
+        }
+      } else if (ch == '?') {
+        tokens.add(token(TokenType.ANY_CHAR, 0));
+        i++;
+      } else if (isSlash(ch)) {
+        tokens.add(token(TokenType.LITERAL, SEPARATOR));
+        i++;
+      } else {
+        int codePoint = pattern.codePointAt(i);
+        tokens.add(token(TokenType.LITERAL, codePoint));
+        i += Character.charCount(codePoint);
+      }
+    }
+    return tokens;
+  }
+
+  private static long token(TokenType type, int codePoint) {
+    return ((long) type.ordinal() << 32) | codePoint;
+  }
+
+  private static boolean isSlash(char ch) {
+    return ch == '/' || ch == '\\';
+  }
+
+  private Node addChild(Node parent, long token) {
+    Node child = newNode();
+    parent.children.put(token, child);
+    TokenType type = TokenType.values()[(int) (token >>> 32)];
+    switch (type) {
+      case LITERAL:
+        parent.edges.add(new Edge(CharClass.LITERAL, (int) token, child));
+        break;
+      case ANY_CHAR:
+        // [^/]
+        parent.edges.add(new Edge(CharClass.NOT_SEPARATOR, 0, child));
+        break;
+      case STAR:
+        // [^/]*?
+        parent.epsilons.add(child);
+        child.edges.add(new Edge(CharClass.NOT_SEPARATOR, 0, child));
+        break;
+      case DOUBLE_STAR:
+        // .*
+        parent.epsilons.add(child);
+        child.edges.add(new Edge(CharClass.NOT_LINE_TERMINATOR, 0, child));
+        break;
+      case DIRECTORIES:
+        // (?:.*/|)
+        Node directories = newNode();
+        parent.epsilons.add(child);
+        parent.epsilons.add(directories);
+        directories.edges.add(new Edge(CharClass.NOT_LINE_TERMINATOR, 0, directories));
+        directories.edges.add(new Edge(CharClass.LITERAL, SEPARATOR, child));
+        break;
+      default:
+        throw new IllegalStateException("Unsupported token " + type);
+    }
+    return child;
+  }
+
+  private Node newNode() {
+    Node node = new Node(nodes.size());
+    nodes.add(node);
+    return node;
+  }
+
+  private void addWithClosure(Node node, BitSet target) {
+    Deque<Node> stack = new ArrayDeque<>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      Node current = stack.pop();
+      if (!target.get(current.id)) {
+        target.set(current.id);
+        current.epsilons.forEach(stack::push);
+      }
+    }
+  }
+
+  private State next(State state, int codePoint) {
+    State next = state.cachedNext(codePoint);
+    if (next == null) {
+      BitSet nextNodes = new BitSet();
+      for (int id = state.nodes.nextSetBit(0); id >= 0; id = state.nodes.nextSetBit(id + 1)) {
+        for (Edge edge : nodes.get(id).edges) {
+          if (edge.accept(codePoint)) {
+            addWithClosure(edge.target, nextNodes);
+          }
+        }
+      }
+      next = intern(nextNodes);
+      if (next.interned) {
+        // transitions to states which are not cached are not kept, otherwise they would remain reachable
+        state.cacheNext(codePoint, next);
+      }
+    }
+    return next;
+  }
+
+  private State intern(BitSet nodeIds) {
+    State state = states.get(nodeIds);
+    if (state != null) {
+      return state;
+    }
+    if (states.size() >= MAX_CACHED_STATES) {
+      // not cached, so that the memory used by pathological sets of patterns is bounded
+      return new State(nodeIds, matchingPatterns(nodeIds), false);
+    }
+    state = new State(nodeIds, matchingPatterns(nodeIds), true);
+    State existing = states.putIfAbsent(nodeIds, state);
+    return existing == null ? state : existing;
+  }
+
+  private int[] matchingPatterns(BitSet nodeIds) {
+    BitSet patterns = new BitSet();
+    for (int id = nodeIds.nextSetBit(0); id >= 0; id = nodeIds.nextSetBit(id + 1)) {
+      nodes.get(id).acceptedPatterns.forEach(patterns::set);
+    }
+    return patterns.isEmpty() ? NO_MATCH : patterns.stream().toArray();
+  }
+
+  private enum TokenType {
+    LITERAL, ANY_CHAR, STAR, DOUBLE_STAR, DIRECTORIES
+  }
+
+  private enum CharClass {
+    LITERAL, NOT_SEPARATOR, NOT_LINE_TERMINATOR
+  }
+
+  private static final class Node {
+    private final int id;
+    private final List<Edge> edges = new ArrayList<>();
+    private final List<Node> epsilons = new ArrayList<>();
+    private final List<Integer> acceptedPatterns = new ArrayList<>();
+    private final Map<Long, Node> children = new HashMap<>();
+
+    private Node(int id) {
+      this.id = id;
+    }
+  }
+
+  private static final class Edge {
+    private final CharClass charClass;
+    private final int codePoint;
+    private final Node target;
+
+    private Edge(CharClass charClass, int codePoint, Node target) {
+      this.charClass = charClass;
+      this.codePoint = codePoint;
+      this.target = target;
+    }
+
+    private boolean accept(int c) {
+      switch (charClass) {
+        case LITERAL:
+          return c == codePoint;
+        case NOT_SEPARATOR:
+          return c != SEPARATOR;
+        default:
+          // "." of regular expressions does not match line terminators
+          return c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029';
+      }
+    }
+  }
+
+  /**
+   * State of the deterministic automaton, which is the set of states of the non-deterministic automaton
+   */
+  private static final class State {
+    private final BitSet nodes;
+    private final int[] matchingPatterns;
+    private final boolean interned;
+    private final AtomicReferenceArray<State> asciiTransitions = new AtomicReferenceArray<>(ASCII_SIZE);
+    private final ConcurrentMap<Integer, State> otherTransitions = new ConcurrentHashMap<>();
+
+    private State(BitSet nodes, int[] matchingPatterns, boolean interned) {
+      this.nodes = nodes;
+      this.matchingPatterns = matchingPatterns;
+      this.interned = interned;
+    }
+
+    private boolean isDead() {
+      return nodes.isEmpty();
+    }
+
+    private State cachedNext(int codePoint) {
+      return codePoint < ASCII_SIZE ? asciiTransitions.get(codePoint) : otherTransitions.get(codePoint);
+    }
+
+    private void cacheNext(int codePoint, State next) {
+      if (codePoint < ASCII_SIZE) {
+        asciiTransitions.set(codePoint, next);
+      } else if (otherTransitions.size() < MAX_CACHED_NON_ASCII_TRANSITIONS) {
+        otherTransitions.put(codePoint, next);
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFileBitSetIndexTest {
+
+  private FilePredicates predicates = new DefaultFilePredicates(Paths.get("."));
+  private InputFileBitSetIndex underTest = new InputFileBitSetIndex();
+
+  @Test
+  public void evaluate_language_and_type() {
+    InputFile javaMain = add("module", "src/Foo.java", "java", InputFile.Type.MAIN);
+    InputFile javaTest = add("module", "test/FooTest.java", "java", InputFile.Type.TEST);
+    InputFile jsMain = add("module", "src/foo.js", "js", InputFile.Type.MAIN);
+    InputFile noLanguage = add("module", "src/foo.txt", null, InputFile.Type.MAIN);
+
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), null)).containsExactly(javaMain, javaTest);
+    assertThat(underTest.inputFiles(predicates.hasType(InputFile.Type.MAIN), null)).containsExactly(javaMain, jsMain, noLanguage);
+    assertThat(underTest.inputFiles(predicates.and(predicates.hasLanguage("java"), predicates.hasType(InputFile.Type.MAIN)), null))
+      .containsExactly(javaMain);
+    assertThat(underTest.inputFiles(predicates.hasLanguages("js", "java"), null)).containsExactly(javaMain, javaTest, jsMain);
+    assertThat(underTest.inputFiles(predicates.not(predicates.hasLanguage("java")), null)).containsExactly(jsMain, noLanguage);
+    assertThat(underTest.inputFiles(predicates.hasLanguage("cobol"), null)).isEmpty();
+    assertThat(underTest.inputFiles(predicates.none(), null)).isEmpty();
+  }
+
+  @Test
+  public void apply_other_predicates_on_files_selected_by_index() {
+    InputFile foo = add("module", "src/Foo.java", "java", InputFile.Type.MAIN);
+    add("module", "src/Bar.java", "java", InputFile.Type.MAIN);
+    add("module", "src/Foo.js", "js", InputFile.Type.MAIN);
+
+    FilePredicate predicate = predicates.and(predicates.hasLanguage("java"), predicates.matchesPathPattern("**/Foo*"));
+
+    assertThat(underTest.inputFiles(predicate, null)).containsExactly(foo);
+  }
+
+  @Test
+  public void restrict_to_module() {
+    InputFile fooOfA = add("a", "src/Foo.java", "java", InputFile.Type.MAIN);
+    InputFile fooOfB = add("b", "src/Foo.java", "java", InputFile.Type.MAIN);
+
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), "a")).containsExactly(fooOfA);
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), "b")).containsExactly(fooOfB);
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), "unknown")).isEmpty();
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), null)).containsExactly(fooOfA, fooOfB);
+  }
+
+  @Test
+  public void replace_and_remove_files() {
+    add("module", "src/Foo.java", "java", InputFile.Type.MAIN);
+    InputFile bar = add("module", "src/Bar.java", "java", InputFile.Type.MAIN);
+    InputFile fooAsTest = add("module", "src/Foo.java", "java", InputFile.Type.TEST);
+
+    assertThat(underTest.inputFiles(predicates.hasType(InputFile.Type.MAIN), null)).containsExactly(bar);
+    assertThat(underTest.inputFiles(predicates.hasType(InputFile.Type.TEST), null)).containsExactly(fooAsTest);
+
+    underTest.remove(bar);
+
+    assertThat(underTest.inputFiles(predicates.hasLanguage("java"), null)).containsExactly(fooAsTest);
+    assertThat(underTest.inputFiles(predicates.not(predicates.hasType(InputFile.Type.TEST)), null)).isEmpty();
+  }
+
+  @Test
+  public void return_null_if_predicate_is_not_supported() {
+    add("module", "src/Foo.java", "java", InputFile.Type.MAIN);
+
+    // all files
+    assertThat(underTest.inputFiles(predicates.all(), null)).isNull();
+    // relative path has its own index
+    assertThat(underTest.inputFiles(predicates.and(predicates.hasLanguage("java"), predicates.hasRelativePath("src/Foo.java")), null)).isNull();
+    // no predicate on language or type
+    assertThat(underTest.inputFiles(predicates.matchesPathPattern("**/*.java"), null)).isNull();
+    assertThat(underTest.inputFiles(predicates.or(predicates.hasLanguage("java"), predicates.hasFilename("Foo.java")), null)).isNull();
+    assertThat(underTest.inputFiles(new AbstractFilePredicate() {
+      @Override
+      public boolean apply(InputFile inputFile) {
+        return true;
+      }
+    }, null)).isNull();
+  }
+
+  @Test
+  public void same_result_as_filtering_files_on_large_project() {
+    String[] languages = {"java", "js", "xml", "php", null};
+    Random random = new Random(42L);
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      InputFile.Type type = random.nextBoolean() ? InputFile.Type.MAIN : InputFile.Type.TEST;
+      files.add(add("module" + (i % 7), "src/File" + i + ".java", languages[random.nextInt(languages.length)], type));
+    }
+
+    List<FilePredicate> tested = new ArrayList<>();
+    tested.add(predicates.hasLanguage("java"));
+    tested.add(predicates.hasType(InputFile.Type.TEST));
+    tested.add(predicates.and(predicates.hasLanguages("js", "php"), predicates.hasType(InputFile.Type.MAIN)));
+    tested.add(predicates.and(predicates.not(predicates.hasLanguage("xml")), predicates.matchesPathPattern("**/File1*")));
+    tested.add(predicates.or(predicates.and(predicates.hasLanguage("java"), predicates.hasType(InputFile.Type.TEST)), predicates.hasLanguage("xml")));
+
+    for (FilePredicate predicate : tested) {
+      assertThat(underTest.inputFiles(predicate, null)).containsExactlyElementsOf(filter(files, predicate, null));
+      assertThat(underTest.inputFiles(predicate, "module3")).containsExactlyElementsOf(filter(files, predicate, "module3"));
+    }
+  }
+
+  private static List<InputFile> filter(List<InputFile> files, FilePredicate predicate, String moduleKey) {
+    return files.stream()
+      .filter(f -> moduleKey == null || moduleKey.equals(((DefaultInputFile) f).moduleKey()))
+      .filter(predicate::apply)
+      .collect(Collectors.toList());
+  }
+
+  private InputFile add(String moduleKey, String relativePath, String language, InputFile.Type type) {
+    InputFile inputFile = new TestInputFileBuilder(moduleKey, relativePath)
+      .setLanguage(language)
+      .setType(type)
+      .build();
+    underTest.add(inputFile);
+    return inputFile;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.IndexedFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternSetTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private Path moduleBasePath;
+
+  @Before
+  public void setUp() throws IOException {
+    moduleBasePath = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void match_relative_and_absolute_patterns() {
+    PathPatternSet underTest = PathPatternSet.create(PathPattern.create(new String[] {"**/*Foo.java", "file:**/src/main/**Bar.java"}));
+
+    assertThat(underTest.isEmpty()).isFalse();
+    assertThat(underTest.matchAny(newFile("src/main/java/org/MyFoo.java"))).isTrue();
+    assertThat(underTest.matchAny(newFile("src/main/java/org/MyBar.java"))).isTrue();
+    // case sensitive
+    assertThat(underTest.matchAny(newFile("src/main/java/org/MyFoo.JAVA"))).isFalse();
+    assertThat(underTest.matchAny(newFile("src/main/java/org/Other.java"))).isFalse();
+  }
+
+  @Test
+  public void absolute_patterns_do_not_apply_to_relative_paths() {
+    PathPatternSet underTest = PathPatternSet.create(PathPattern.create(new String[] {"file:src/**"}));
+
+    assertThat(underTest.matchAny(newFile("src/main/java/org/MyFoo.java"))).isFalse();
+  }
+
+  @Test
+  public void empty_set_matches_nothing() {
+    PathPatternSet underTest = PathPatternSet.create(new PathPattern[0]);
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.matchAny(newFile("src/main/java/org/MyFoo.java"))).isFalse();
+  }
+
+  private IndexedFile newFile(String relativePath) {
+    return new DefaultIndexedFile("ABCDE", moduleBasePath, relativePath);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardPatternSetTest {
+
+  @Test
+  public void match_any_pattern() {
+    WildcardPatternSet underTest = WildcardPatternSet.create("**/*Test.java", "src/main/**/generated/**", "org/T?st.java");
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.matchAny("src/test/java/org/FooTest.java")).isTrue();
+    assertThat(underTest.matchAny("FooTest.java")).isTrue();
+    assertThat(underTest.matchAny("src/main/java/generated/Foo.java")).isTrue();
+    assertThat(underTest.matchAny("org/Tost.java")).isTrue();
+    assertThat(underTest.matchAny("/org/Tost.java/")).isTrue();
+    assertThat(underTest.matchAny("org/To/t.java")).isFalse();
+    assertThat(underTest.matchAny("src/main/java/Foo.java")).isFalse();
+    assertThat(underTest.matchAny("src/test/java/org/FooTest.JAVA")).isFalse();
+  }
+
+  @Test
+  public void return_indexes_of_matching_patterns_in_order() {
+    WildcardPatternSet underTest = WildcardPatternSet.create("**/*.java", "*.xml", "src/**", "src/**/*.java");
+
+    assertThat(underTest.matchingIndexes("src/Foo.java")).containsExactly(0, 2, 3);
+    assertThat(underTest.matchingIndexes("src/pom.xml")).containsExactly(2);
+    assertThat(underTest.matchingIndexes("pom.xml")).containsExactly(1);
+    assertThat(underTest.matchingIndexes("README.md")).isEmpty();
+  }
+
+  @Test
+  public void empty_set_matches_nothing() {
+    WildcardPatternSet underTest = WildcardPatternSet.create();
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.matchAny("")).isFalse();
+    assertThat(underTest.matchAny("src/Foo.java")).isFalse();
+  }
+
+  @Test
+  public void support_backslashes_and_regexp_special_characters() {
+    WildcardPatternSet underTest = WildcardPatternSet.create("src\\**\\(Foo)+[1].java");
+
+    assertThat(underTest.matchAny("src/a/b/(Foo)+[1].java")).isTrue();
+    assertThat(underTest.matchAny("src/a/b/FooFoo1.java")).isFalse();
+  }
+
+  @Test
+  public void match_same_values_as_wildcard_patterns() {
+    Random random = new Random(42L);
+    for (int i = 0; i < 2_000; i++) {
+      List<String> patterns = new ArrayList<>();
+      for (int j = 0; j < 1 + random.nextInt(5); j++) {
+        patterns.add(randomString(random, "ab/\\*?.", 1 + random.nextInt(8)));
+      }
+      WildcardPatternSet underTest = WildcardPatternSet.create(patterns);
+      for (int k = 0; k < 20; k++) {
+        String value = randomString(random, "ab/.\n", random.nextInt(10));
+        assertThat(underTest.matchingIndexes(value)).as("%s on %s", patterns, value).containsExactly(matchingIndexes(patterns, value));
+      }
+    }
+  }
+
+  @Test
+  public void match_same_files_as_wildcard_patterns_on_synthetic_tree() {
+    List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      patterns.add("**/module" + i + "/**/*Generated" + (i % 7) + ".java");
+    }
+    WildcardPatternSet underTest = WildcardPatternSet.create(patterns);
+
+    int matches = 0;
+    for (int i = 0; i < 10_000; i++) {
+      String path = "src/main/java/module" + (i % 300) + "/pkg" + (i % 17) + "/File" + i + (i % 50 == 0 ? "Generated3" : "") + ".java";
+      assertThat(underTest.matchingIndexes(path)).containsExactly(matchingIndexes(patterns, path));
+      if (underTest.matchAny(path)) {
+        matches++;
+      }
+    }
+    assertThat(matches).isGreaterThan(0);
+  }
+
+  @Test
+  public void match_values_when_cache_of_states_is_full() {
+    List<String> patterns = IntStream.range(0, 3_000).mapToObj(i -> "dir" + i + "/F\u00efle.java").collect(Collectors.toList());
+    WildcardPatternSet underTest = WildcardPatternSet.create(patterns);
+
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < patterns.size(); i++) {
+        assertThat(underTest.matchingIndexes(patterns.get(i))).containsExactly(i);
+      }
+    }
+    assertThat(underTest.matchAny("dir3000/F\u00efle.java")).isFalse();
+  }
+
+  private static int[] matchingIndexes(List<String> patterns, String value) {
+    return IntStream.range(0, patterns.size())
+      .filter(index -> WildcardPattern.create(patterns.get(index)).match(value))
+      .toArray();
+  }
+
+  private static String randomString(Random random, String alphabet, int length) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return sb.toString();
+  }
+}
@@ -20,15 +20,28 @@
 package org.sonar.scanner.bootstrap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.CharUtils;
@@ -45,15 +58,22 @@ import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.WsResponse;
 
 import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 
 /**
  * Downloads the plugins installed on server and stores them in a local user cache
- * (see {@link FileCacheProvider}).
+ * (see {@link FileCacheProvider}). Missing plugins are downloaded concurrently.
+ * <p>
+ * The index of plugins is also kept in the user cache, with its HTTP entity tag, so that it's downloaded
+ * again only if it changed on server.
+ * </p>
  */
 public class ScannerPluginInstaller implements PluginInstaller {
 
   private static final Logger LOG = Loggers.get(ScannerPluginInstaller.class);
   private static final String PLUGINS_INDEX_URL = "/deploy/plugins/index.txt";
+  private static final String PLUGINS_INDEX_CACHE_DIR = "_plugins_index";
+  private static final int MAX_CONCURRENT_DOWNLOADS = 4;
 
   private final FileCache fileCache;
   private final ScannerPluginPredicate pluginPredicate;
@@ -71,22 +91,44 @@ public class ScannerPluginInstaller implements PluginInstaller {
   }
 
   private Map<String, PluginInfo> loadPlugins(List<RemotePlugin> remotePlugins) {
-    Map<String, PluginInfo> infosByKey = new HashMap<>(remotePlugins.size());
-
-    Profiler profiler = Profiler.create(LOG).startDebug("Load plugins");
+    List<RemotePlugin> selectedPlugins = remotePlugins.stream()
+      .filter(remotePlugin -> pluginPredicate.apply(remotePlugin.getKey()))
+      .collect(Collectors.toList());
+    Map<String, PluginInfo> infosByKey = new HashMap<>(selectedPlugins.size());
+    if (selectedPlugins.isEmpty()) {
+      return infosByKey;
+    }
 
-    for (RemotePlugin remotePlugin : remotePlugins) {
-      if (pluginPredicate.apply(remotePlugin.getKey())) {
-        File jarFile = download(remotePlugin);
-        PluginInfo info = PluginInfo.create(jarFile);
+    Profiler profiler = Profiler.create(LOG).startInfo("Load/download plugins");
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENT_DOWNLOADS, selectedPlugins.size()),
+      new ThreadFactoryBuilder().setNameFormat("PluginDownloader-%d").setDaemon(true).build());
+    try {
+      List<Future<PluginInfo>> futures = selectedPlugins.stream()
+        .map(remotePlugin -> executor.submit(() -> PluginInfo.create(download(remotePlugin))))
+        .collect(Collectors.toList());
+      for (Future<PluginInfo> future : futures) {
+        PluginInfo info = getResult(future);
         infosByKey.put(info.getKey(), info);
       }
+    } finally {
+      executor.shutdownNow();
     }
-
-    profiler.stopDebug();
+    profiler.stopInfo();
     return infosByKey;
   }
 
+  private static PluginInfo getResult(Future<PluginInfo> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while downloading plugins", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException("Fail to download plugins", e.getCause());
+    }
+  }
+
   /**
    * Returns empty on purpose. This method is used only by tests.
    * @see org.sonar.scanner.mediumtest.ScannerMediumTester
@@ -127,18 +169,80 @@ public class ScannerPluginInstaller implements PluginInstaller {
 
   private String loadPluginIndex() {
     Profiler profiler = Profiler.create(LOG).startInfo("Load plugins index");
+    File cachedIndex = new File(new File(fileCache.getDir(), PLUGINS_INDEX_CACHE_DIR), DigestUtils.md5Hex(wsClient.baseUrl()));
+    CachedIndex cached = CachedIndex.read(cachedIndex);
     GetRequest getRequest = new GetRequest(PLUGINS_INDEX_URL);
+    if (cached != null) {
+      getRequest.setHeader("If-None-Match", cached.etag);
+    }
+    WsResponse response = wsClient.call(getRequest);
+    if (cached != null && response.code() == HTTP_NOT_MODIFIED) {
+      response.close();
+      profiler.stopInfo(true);
+      return cached.content;
+    }
+
     String str;
-    try (Reader reader = wsClient.call(getRequest).contentReader()) {
+    try (Reader reader = response.contentReader()) {
       str = IOUtils.toString(reader);
     } catch (IOException e) {
       throw new IllegalStateException(e);
     }
+    response.header("ETag").ifPresent(etag -> CachedIndex.write(cachedIndex, etag, str));
 
     profiler.stopInfo();
     return str;
   }
 
+  /**
+   * Index of plugins persisted in user cache. First line is the entity tag, then the content of index.
+   */
+  private static class CachedIndex {
+    private final String etag;
+    private final String content;
+
+    private CachedIndex(String etag, String content) {
+      this.etag = etag;
+      this.content = content;
+    }
+
+    @CheckForNull
+    private static CachedIndex read(File file) {
+      if (!file.isFile()) {
+        return null;
+      }
+      try {
+        String data = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        int endOfEtag = data.indexOf(CharUtils.LF);
+        if (endOfEtag <= 0) {
+          return null;
+        }
+        return new CachedIndex(data.substring(0, endOfEtag), data.substring(endOfEtag + 1));
+      } catch (IOException e) {
+        LOG.debug("Fail to read cached plugin index " + file, e);
+        return null;
+      }
+    }
+
+    /**
+     * File is replaced atomically, as the cache can be shared by concurrent analyses
+     */
+    private static void write(File file, String etag, String content) {
+      try {
+        FileUtils.forceMkdir(file.getParentFile());
+        Path tempFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), null);
+        try {
+          FileUtils.writeStringToFile(tempFile.toFile(), etag + CharUtils.LF + content, StandardCharsets.UTF_8);
+          Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+          Files.deleteIfExists(tempFile);
+        }
+      } catch (IOException e) {
+        LOG.debug("Fail to cache plugin index to " + file, e);
+      }
+    }
+  }
+
   private class FileDownloader implements FileCache.Downloader {
     private String key;
 
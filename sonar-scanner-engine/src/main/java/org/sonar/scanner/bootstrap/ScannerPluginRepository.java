@@ -30,6 +30,7 @@ import org.picocontainer.Startable;
 import org.sonar.api.Plugin;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginLoader;
 import org.sonar.core.platform.PluginRepository;
@@ -55,7 +56,9 @@ public class ScannerPluginRepository implements PluginRepository, Startable {
   @Override
   public void start() {
     infosByKeys = new HashMap<>(installer.installRemotes());
+    Profiler profiler = Profiler.create(LOG).startInfo("Instantiate plugins");
     pluginInstancesByKeys = new HashMap<>(loader.load(infosByKeys));
+    profiler.stopInfo();
 
     // this part is only used by tests
     for (Map.Entry<String, Plugin> entry : installer.installLocals().entrySet()) {
@@ -38,6 +38,7 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
+import org.sonar.duplications.detector.suffixtree.SuffixArrayCloneDetectionAlgorithm;
 import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
@@ -63,6 +64,11 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60 * 1000;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  /**
+   * Hidden property to select the algorithm of detection: "suffixTree" (default) or "suffixArray"
+   */
+  static final String DETECTOR_PROPERTY = "sonar.cpd.detector";
+  static final String SUFFIX_ARRAY_DETECTOR = "suffixArray";
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
@@ -119,7 +125,10 @@ public class CpdExecutor {
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    boolean suffixArray = SUFFIX_ARRAY_DETECTOR.equals(settings.getString(DETECTOR_PROPERTY));
+    Future<List<CloneGroup>> futureResult = executorService.submit(() -> suffixArray
+      ? SuffixArrayCloneDetectionAlgorithm.detect(index, fileBlocks)
+      : SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
       duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
     } catch (TimeoutException e) {
@@ -22,6 +22,7 @@ package org.sonar.scanner.issue.ignore.pattern;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.WildcardPatternSet;
 import org.sonar.api.config.Settings;
 
 import java.util.ArrayList;
@@ -35,6 +36,7 @@ public abstract class AbstractPatternInitializer {
   private Settings settings;
 
   private List<IssuePattern> multicriteriaPatterns;
+  private WildcardPatternSet multicriteriaResourcePatterns;
 
   protected AbstractPatternInitializer(Settings settings) {
     this.settings = settings;
@@ -49,6 +51,17 @@ public abstract class AbstractPatternInitializer {
     return multicriteriaPatterns;
   }
 
+  /**
+   * The multicriteria patterns whose resource pattern matches the given path, in the order of configuration
+   */
+  protected List<IssuePattern> getMulticriteriaPatternsForResource(String resource) {
+    List<IssuePattern> patterns = new ArrayList<>();
+    for (int index : multicriteriaResourcePatterns.matchingIndexes(resource)) {
+      patterns.add(multicriteriaPatterns.get(index));
+    }
+    return patterns;
+  }
+
   public boolean hasConfiguredPatterns() {
     return hasMulticriteriaPatterns();
   }
@@ -75,6 +88,11 @@ public abstract class AbstractPatternInitializer {
       PatternDecoder.decodeRangeOfLines(pattern, firstNonNull(lineRange, "*"));
       multicriteriaPatterns.add(pattern);
     }
+    List<String> resourcePatterns = new ArrayList<>();
+    for (IssuePattern pattern : multicriteriaPatterns) {
+      resourcePatterns.add(pattern.getResourcePattern().toString());
+    }
+    multicriteriaResourcePatterns = WildcardPatternSet.create(resourcePatterns);
   }
 
   protected abstract String getMulticriteriaConfigurationKey();
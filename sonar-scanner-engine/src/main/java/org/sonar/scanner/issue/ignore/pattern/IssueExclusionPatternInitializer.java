@@ -52,10 +52,8 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
 
   @Override
   public void initializePatternsForPath(String relativePath, String componentKey) {
-    for (IssuePattern pattern : getMulticriteriaPatterns()) {
-      if (pattern.matchResource(relativePath)) {
-        getPatternMatcher().addPatternForComponent(componentKey, pattern);
-      }
+    for (IssuePattern pattern : getMulticriteriaPatternsForResource(relativePath)) {
+      getPatternMatcher().addPatternForComponent(componentKey, pattern);
     }
   }
 
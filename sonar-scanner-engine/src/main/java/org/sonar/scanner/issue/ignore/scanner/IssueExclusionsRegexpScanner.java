@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -43,8 +44,12 @@ public class IssueExclusionsRegexpScanner {
   private IssueExclusionPatternInitializer exclusionPatternInitializer;
   private List<java.util.regex.Pattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockMatchers;
+  private RegexpPrefilter allFilePrefilter;
+  private RegexpPrefilter blockStartPrefilter;
+  private RegexpPrefilter blockEndPrefilter;
 
   // fields to be reset at every new scan
+  private int currentMatcherIndex;
   private DoubleRegexpMatcher currentMatcher;
   private int fileLength;
   private List<LineExclusion> lineExclusions;
@@ -65,11 +70,21 @@ public class IssueExclusionsRegexpScanner {
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    allFilePrefilter = new RegexpPrefilter(allFilePatterns);
+    List<java.util.regex.Pattern> blockStartPatterns = new ArrayList<>();
+    List<java.util.regex.Pattern> blockEndPatterns = new ArrayList<>();
+    for (DoubleRegexpMatcher matcher : blockMatchers) {
+      blockStartPatterns.add(matcher.firstPattern);
+      blockEndPatterns.add(matcher.secondPattern);
+    }
+    blockStartPrefilter = new RegexpPrefilter(blockStartPatterns);
+    blockEndPrefilter = new RegexpPrefilter(blockEndPatterns);
 
     init();
   }
 
   private void init() {
+    currentMatcherIndex = -1;
     currentMatcher = null;
     fileLength = 0;
     lineExclusions.clear();
@@ -77,10 +92,16 @@ public class IssueExclusionsRegexpScanner {
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
+    scan(resource, Files.readAllLines(file.toPath(), sourcesEncoding));
+  }
+
+  /**
+   * Same as {@link #scan(String, File, Charset)}, on lines already read by the caller
+   */
+  public void scan(String resource, List<String> lines) {
     LOG.debug("Scanning {}", resource);
     init();
 
-    List<String> lines = Files.readAllLines(file.toPath(), sourcesEncoding);
     int lineIndex = 0;
     for (String line : lines) {
       lineIndex++;
@@ -89,7 +110,9 @@ public class IssueExclusionsRegexpScanner {
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
+      BitSet candidates = allFilePrefilter.candidates(line);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        java.util.regex.Pattern pattern = allFilePatterns.get(i);
         if (pattern.matcher(line).find()) {
           exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
           // nothing more to do on this file
@@ -126,16 +149,20 @@ public class IssueExclusionsRegexpScanner {
 
   private void checkDoubleRegexps(String line, int lineIndex) {
     if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
+      BitSet candidates = blockStartPrefilter.candidates(line);
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        DoubleRegexpMatcher matcher = blockMatchers.get(i);
         if (matcher.matchesFirstPattern(line)) {
           startExclusion(lineIndex);
+          currentMatcherIndex = i;
           currentMatcher = matcher;
           break;
         }
       }
     } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
+      if (blockEndPrefilter.candidates(line).get(currentMatcherIndex) && currentMatcher.matchesSecondPattern(line)) {
         endExclusion(lineIndex);
+        currentMatcherIndex = -1;
         currentMatcher = null;
       }
     }
@@ -173,8 +200,8 @@ public class IssueExclusionsRegexpScanner {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private final java.util.regex.Pattern firstPattern;
+    private final java.util.regex.Pattern secondPattern;
 
     DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
       this.firstPattern = firstPattern;
@@ -0,0 +1,224 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
+
+/**
+ * Prefilter of a list of regular expressions. For each expression, a literal string that is contained by
+ * all its matches is extracted when possible. The literals of all the expressions are searched in a single pass
+ * over the line with an Aho-Corasick automaton, so that the regular expressions are evaluated only on the lines
+ * that may match. Expressions without such literal are always candidates.
+ */
+class RegexpPrefilter {
+
+  private static final String UNSUPPORTED_ESCAPES = "pPxuck0123456789QE";
+
+  private final Node root = new Node();
+  private final BitSet alwaysCandidates = new BitSet();
+  private final boolean hasLiterals;
+
+  RegexpPrefilter(List<Pattern> patterns) {
+    boolean literals = false;
+    for (int i = 0; i < patterns.size(); i++) {
+      String literal = requiredLiteral(patterns.get(i).pattern());
+      if (literal == null) {
+        alwaysCandidates.set(i);
+      } else {
+        addLiteral(literal, i);
+        literals = true;
+      }
+    }
+    this.hasLiterals = literals;
+    computeFailureLinks();
+  }
+
+  /**
+   * @return the indexes of the patterns that may find a match in the line
+   */
+  BitSet candidates(String line) {
+    BitSet candidates = (BitSet) alwaysCandidates.clone();
+    if (hasLiterals) {
+      Node node = root;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        while (node != root && !node.children.containsKey(c)) {
+          node = node.failure;
+        }
+        node = node.children.getOrDefault(c, root);
+        candidates.or(node.outputs);
+      }
+    }
+    return candidates;
+  }
+
+  private void addLiteral(String literal, int patternIndex) {
+    Node node = root;
+    for (int i = 0; i < literal.length(); i++) {
+      node = node.children.computeIfAbsent(literal.charAt(i), c -> new Node());
+    }
+    node.outputs.set(patternIndex);
+  }
+
+  private void computeFailureLinks() {
+    Deque<Node> queue = new ArrayDeque<>();
+    for (Node child : root.children.values()) {
+      child.failure = root;
+      queue.add(child);
+    }
+    while (!queue.isEmpty()) {
+      Node node = queue.poll();
+      for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+        Node child = entry.getValue();
+        Node failure = node.failure;
+        while (failure != root && !failure.children.containsKey(entry.getKey())) {
+          failure = failure.failure;
+        }
+        Node target = failure.children.get(entry.getKey());
+        child.failure = target == null ? root : target;
+        child.outputs.or(child.failure.outputs);
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * The longest literal string which is contained by all the matches of the regular expression, or {@code null}
+   * if it can't be determined. Only the top-level sequence of the expression is considered: groups, character
+   * classes, optional characters and escape sequences other than escaped symbols end the literal.
+   */
+  @CheckForNull
+  static String requiredLiteral(String regexp) {
+    if (regexp.contains("(?")) {
+      // flags or special constructs
+      return null;
+    }
+    String best = "";
+    StringBuilder run = new StringBuilder();
+    int depth = 0;
+    int i = 0;
+    while (i < regexp.length()) {
+      char c = regexp.charAt(i);
+      if (c == '\\') {
+        if (i + 1 >= regexp.length()) {
+          return null;
+        }
+        char escaped = regexp.charAt(i + 1);
+        if (UNSUPPORTED_ESCAPES.indexOf(escaped) >= 0) {
+          return null;
+        }
+        if (depth == 0 && !Character.isLetterOrDigit(escaped)) {
+          run.append(escaped);
+        } else {
+          best = longest(best, run);
+        }
+        i += 2;
+      } else if (c == '[') {
+        best = longest(best, run);
+        i = endOfCharacterClass(regexp, i);
+        if (i < 0) {
+          return null;
+        }
+      } else if (c == '|') {
+        if (depth == 0) {
+          // alternatives at top level
+          return null;
+        }
+        i++;
+      } else if (c == '?' || c == '*' || c == '{') {
+        // the previous element is optional
+        if (depth == 0 && run.length() > 0) {
+          run.setLength(run.length() - 1);
+        }
+        best = longest(best, run);
+        i = c == '{' ? regexp.indexOf('}', i) + 1 : (i + 1);
+        if (i == 0) {
+          return null;
+        }
+      } else if (c == '(' || c == ')') {
+        depth += c == '(' ? 1 : -1;
+        best = longest(best, run);
+        i++;
+      } else if (".^$+]}".indexOf(c) >= 0) {
+        best = longest(best, run);
+        i++;
+      } else {
+        if (depth == 0) {
+          run.append(c);
+        }
+        i++;
+      }
+    }
+    best = longest(best, run);
+    return best.isEmpty() ? null : best;
+  }
+
+  private static String longest(String best, StringBuilder run) {
+    String result = run.length() > best.length() ? run.toString() : best;
+    run.setLength(0);
+    return result;
+  }
+
+  /**
+   * @return the index following the end of the character class starting at {@code start}, or -1 if it's not closed
+   */
+  private static int endOfCharacterClass(String regexp, int start) {
+    int depth = 0;
+    int i = start;
+    while (i < regexp.length()) {
+      char c = regexp.charAt(i);
+      if (c == '\\') {
+        i += 2;
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+        if (i + 1 < regexp.length() && regexp.charAt(i + 1) == '^') {
+          i++;
+        }
+        if (i + 1 < regexp.length() && regexp.charAt(i + 1) == ']') {
+          // "]" is a literal when first in the class
+          i++;
+        }
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final BitSet outputs = new BitSet();
+    private Node failure;
+  }
+}
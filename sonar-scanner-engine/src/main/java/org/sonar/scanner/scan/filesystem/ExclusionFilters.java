@@ -26,6 +26,7 @@ import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.IndexedFile;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.scan.filesystem.FileExclusions;
 
 @ScannerSide
@@ -40,6 +41,12 @@ public class ExclusionFilters {
   private PathPattern[] testInclusions;
   private PathPattern[] testExclusions;
 
+  // same patterns, compiled so that each file is matched in a single pass
+  private PathPatternSet compiledMainInclusions;
+  private PathPatternSet compiledMainExclusions;
+  private PathPatternSet compiledTestInclusions;
+  private PathPatternSet compiledTestExclusions;
+
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
   }
@@ -49,6 +56,10 @@ public class ExclusionFilters {
     mainExclusions = prepareMainExclusions();
     testInclusions = prepareTestInclusions();
     testExclusions = prepareTestExclusions();
+    compiledMainInclusions = PathPatternSet.create(mainInclusions);
+    compiledMainExclusions = PathPatternSet.create(mainExclusions);
+    compiledTestInclusions = PathPatternSet.create(testInclusions);
+    compiledTestExclusions = PathPatternSet.create(testExclusions);
     log("Included sources: ", mainInclusions);
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
@@ -69,35 +80,22 @@ public class ExclusionFilters {
   }
 
   public boolean accept(IndexedFile indexedFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternSet inclusionPatterns;
+    PathPatternSet exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
-      inclusionPatterns = mainInclusions;
-      exclusionPatterns = mainExclusions;
+      inclusionPatterns = compiledMainInclusions;
+      exclusionPatterns = compiledMainExclusions;
     } else if (InputFile.Type.TEST == type) {
-      inclusionPatterns = testInclusions;
-      exclusionPatterns = testExclusions;
+      inclusionPatterns = compiledTestInclusions;
+      exclusionPatterns = compiledTestExclusions;
     } else {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(indexedFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(indexedFile)) {
-          return false;
-        }
-      }
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.matchAny(indexedFile)) {
+      return false;
     }
-    return true;
+    return exclusionPatterns.isEmpty() || !exclusionPatterns.matchAny(indexedFile);
   }
 
   PathPattern[] prepareMainInclusions() {
@@ -27,12 +27,16 @@ import com.google.common.collect.TreeBasedTable;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
@@ -42,6 +46,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileExtensionPredicate;
 import org.sonar.api.batch.fs.internal.FilenamePredicate;
+import org.sonar.api.batch.fs.internal.InputFileBitSetIndex;
 import org.sonar.api.scan.filesystem.PathResolver;
 
 /**
@@ -51,6 +56,12 @@ import org.sonar.api.scan.filesystem.PathResolver;
 @ScannerSide
 public class InputComponentStore {
 
+  /**
+   * Same order as {@link #allFiles()} and {@link #filesByModule(String)}
+   */
+  private static final Comparator<InputFile> FILE_ORDER = Comparator.comparing((InputFile f) -> ((DefaultInputFile) f).moduleKey())
+    .thenComparing(InputFile::relativePath);
+
   private final PathResolver pathResolver;
   private final SortedSet<String> globalLanguagesCache = new TreeSet<>();
   private final Map<String, SortedSet<String>> languagesCache = new HashMap<>();
@@ -62,6 +73,7 @@ public class InputComponentStore {
   private final Map<String, InputComponent> inputComponents = new HashMap<>();
   private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
   private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+  private final InputFileBitSetIndex bitSetIndex = new InputFileBitSetIndex();
   private InputModule root;
 
   public InputComponentStore(PathResolver pathResolver) {
@@ -104,6 +116,7 @@ public class InputComponentStore {
   }
 
   public InputComponentStore removeModule(String moduleKey) {
+    inputFileCache.row(moduleKey).values().forEach(bitSetIndex::remove);
     inputFileCache.row(moduleKey).clear();
     inputDirCache.row(moduleKey).clear();
     return this;
@@ -112,6 +125,7 @@ public class InputComponentStore {
   public InputComponentStore remove(InputFile inputFile) {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     inputFileCache.remove(file.moduleKey(), inputFile.relativePath());
+    bitSetIndex.remove(inputFile);
     return this;
   }
 
@@ -129,6 +143,7 @@ public class InputComponentStore {
     inputComponents.put(inputFile.key(), inputFile);
     filesByNameCache.put(FilenamePredicate.getFilename(inputFile), inputFile);
     filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+    bitSetIndex.add(inputFile);
     return this;
   }
 
@@ -207,6 +222,22 @@ public class InputComponentStore {
     return filesByExtensionCache.get(extension);
   }
 
+  /**
+   * Files matching the predicate, evaluated with bitsets of files by language, type and module.
+   *
+   * @param moduleKey if not null, then only the files of this module are returned
+   * @return {@code null} if the predicate can't be evaluated with bitsets
+   * @see InputFileBitSetIndex
+   */
+  @CheckForNull
+  public Iterable<InputFile> filesMatching(FilePredicate predicate, @Nullable String moduleKey) {
+    List<InputFile> files = bitSetIndex.inputFiles(predicate, moduleKey);
+    if (files != null) {
+      files.sort(FILE_ORDER);
+    }
+    return files;
+  }
+
   public SortedSet<String> getLanguages() {
     return globalLanguagesCache;
   }
@@ -25,6 +25,7 @@ import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputModule;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.OptimizedFilePredicate;
 import org.sonar.scanner.sensor.SensorStrategy;
 
 @ScannerSide
@@ -86,6 +87,12 @@ public class ModuleInputComponentStore extends DefaultFileSystem.Cache {
     inputComponentStore.put(inputDir);
   }
 
+  @Override
+  protected Iterable<InputFile> inputFiles(OptimizedFilePredicate predicate) {
+    Iterable<InputFile> files = inputComponentStore.filesMatching(predicate, strategy.isGlobal() ? null : moduleKey);
+    return files != null ? files : super.inputFiles(predicate);
+  }
+
   @Override
   public Iterable<InputFile> getFilesByName(String filename) {
     return inputComponentStore.getFilesByName(filename);
@@ -23,12 +23,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import java.util.Collection;
-import java.util.Iterator;
 import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.WildcardPatternSet;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.WildcardPattern;
 
@@ -38,6 +38,7 @@ public class CoverageExclusions implements Startable {
 
   private final Settings settings;
   private Collection<WildcardPattern> exclusionPatterns;
+  private WildcardPatternSet compiledExclusionPatterns;
 
   public CoverageExclusions(Settings settings) {
     this.settings = settings;
@@ -54,21 +55,18 @@ public class CoverageExclusions implements Startable {
   }
 
   public boolean isExcluded(InputFile file) {
-    boolean found = false;
-    Iterator<WildcardPattern> iterator = exclusionPatterns.iterator();
-    while (!found && iterator.hasNext()) {
-      found = iterator.next().match(file.relativePath());
-    }
-    return found;
+    return !compiledExclusionPatterns.isEmpty() && compiledExclusionPatterns.matchAny(file.relativePath());
   }
 
   @VisibleForTesting
   final void initPatterns() {
     Builder<WildcardPattern> builder = ImmutableList.builder();
-    for (String pattern : settings.getStringArray(CoreProperties.PROJECT_COVERAGE_EXCLUSIONS_PROPERTY)) {
+    String[] patterns = settings.getStringArray(CoreProperties.PROJECT_COVERAGE_EXCLUSIONS_PROPERTY);
+    for (String pattern : patterns) {
       builder.add(WildcardPattern.create(pattern));
     }
     exclusionPatterns = builder.build();
+    compiledExclusionPatterns = WildcardPatternSet.create(patterns);
     log("Excluded sources for coverage: ", exclusionPatterns);
   }
 
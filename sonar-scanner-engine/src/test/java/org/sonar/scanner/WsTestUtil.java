@@ -28,8 +28,10 @@ import org.sonarqube.ws.client.WsResponse;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Optional;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -51,12 +53,14 @@ public class WsTestUtil {
   public static void mockReader(ScannerWsClient mock, Reader reader) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentReader()).thenReturn(reader);
+    when(response.header(anyString())).thenReturn(Optional.empty());
     when(mock.call(any(WsRequest.class))).thenReturn(response);
   }
 
   public static void mockReader(ScannerWsClient mock, String path, Reader reader) {
     WsResponse response = mock(WsResponse.class);
     when(response.contentReader()).thenReturn(reader);
+    when(response.header(anyString())).thenReturn(Optional.empty());
     when(mock.call(argThat(new RequestMatcher(path)))).thenReturn(response);
   }
 
@@ -20,6 +20,8 @@
 package org.sonar.scanner.bootstrap;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.io.StringReader;
 import java.util.List;
 import org.junit.Before;
@@ -27,14 +29,20 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.core.platform.RemotePlugin;
 import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.WsTestUtil;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.MockWsResponse;
+import org.sonarqube.ws.client.WsRequest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ScannerPluginInstallerTest {
@@ -50,8 +58,10 @@ public class ScannerPluginInstallerTest {
   private ScannerPluginPredicate pluginPredicate = mock(ScannerPluginPredicate.class);
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
     wsClient = mock(ScannerWsClient.class);
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000");
+    when(fileCache.getDir()).thenReturn(temp.newFolder());
   }
 
   @Test
@@ -83,4 +93,53 @@ public class ScannerPluginInstallerTest {
 
     new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate).installRemotes();
   }
+
+  @Test
+  public void reuse_cached_plugin_index_if_not_modified() {
+    when(wsClient.call(any(WsRequest.class))).thenReturn(
+      new MockWsResponse().setContent("checkstyle\nsqale").setHeader("ETag", "\"v1\""),
+      new MockWsResponse().setCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+
+    assertThat(underTest.listRemotePlugins()).extracting("key").containsOnly("checkstyle", "sqale");
+    assertThat(underTest.listRemotePlugins()).extracting("key").containsOnly("checkstyle", "sqale");
+
+    ArgumentCaptor<GetRequest> requests = ArgumentCaptor.forClass(GetRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    assertThat(requests.getAllValues().get(0).getHeaders()).isEmpty();
+    assertThat(requests.getAllValues().get(1).getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+  }
+
+  @Test
+  public void download_plugin_index_again_if_modified() {
+    when(wsClient.call(any(WsRequest.class))).thenReturn(
+      new MockWsResponse().setContent("checkstyle").setHeader("ETag", "\"v1\""),
+      new MockWsResponse().setContent("checkstyle\nsqale").setHeader("ETag", "\"v2\""),
+      new MockWsResponse().setCode(HttpURLConnection.HTTP_NOT_MODIFIED));
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+
+    assertThat(underTest.listRemotePlugins()).extracting("key").containsOnly("checkstyle");
+    assertThat(underTest.listRemotePlugins()).extracting("key").containsOnly("checkstyle", "sqale");
+    assertThat(underTest.listRemotePlugins()).extracting("key").containsOnly("checkstyle", "sqale");
+  }
+
+  @Test
+  public void do_not_load_plugins_if_none_is_accepted() {
+    WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt", new StringReader("checkstyle\nsqale"));
+    when(pluginPredicate.apply(any(String.class))).thenReturn(false);
+
+    assertThat(new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate).installRemotes()).isEmpty();
+  }
+
+  @Test
+  public void fail_if_a_plugin_can_not_be_downloaded() {
+    WsTestUtil.mockReader(wsClient, "/deploy/plugins/index.txt", new StringReader("checkstyle,true,checkstyle.jar|md5_1\nsqale,true,sqale.jar|md5_2"));
+    when(pluginPredicate.apply(any(String.class))).thenReturn(true);
+    when(fileCache.get(any(String.class), any(String.class), any(FileCache.Downloader.class))).thenThrow(new IllegalStateException("boom"));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to download plugin: ");
+
+    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate).installRemotes();
+  }
 }
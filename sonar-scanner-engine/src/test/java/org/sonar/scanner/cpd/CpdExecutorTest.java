@@ -239,6 +239,32 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void detect_duplications_with_suffix_array_when_configured() {
+    settings.setProperty(CpdExecutor.DETECTOR_PROPERTY, CpdExecutor.SUFFIX_ARRAY_DETECTOR);
+    index.insert(batchComponent1, newBlocks(batchComponent1));
+    index.insert(batchComponent2, newBlocks(batchComponent2));
+
+    executor.execute();
+
+    Duplication[] dups = readDuplications(1);
+    assertDuplication(dups[0], 1, 4, batchComponent2.batchId(), 1, 4);
+  }
+
+  private static List<Block> newBlocks(InputFile file) {
+    List<Block> blocks = new ArrayList<>();
+    for (int j = 1; j <= 3; j++) {
+      blocks.add(Block.builder()
+        .setResourceId(file.key())
+        .setIndexInFile(j)
+        .setLines(j, j + 1)
+        .setUnit(j * 100, j * 100 + 99)
+        .setBlockHash(new ByteArray(new byte[] {(byte) j}))
+        .build());
+    }
+    return blocks;
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
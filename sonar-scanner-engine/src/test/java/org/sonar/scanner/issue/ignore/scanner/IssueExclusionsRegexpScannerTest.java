@@ -165,4 +165,16 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldAddPatternToExcludeLinesOfLinesAlreadyRead() {
+    regexpScanner.scan(javaFile, Arrays.asList("line 1", "// FOO-OFF", "line 3", "", "// SONAR-ON", "// FOO-ON", "// SONAR-OFF"));
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(2, 6));
+    lineRanges.add(new LineRange(7, 7));
+    verify(patternsInitializer).getPatternMatcher();
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+    verifyNoMoreInteractions(patternsInitializer);
+  }
+
 }
@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.ignore.scanner;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RegexpPrefilterTest {
+
+  @Test
+  public void extract_required_literal() {
+    assertThat(RegexpPrefilter.requiredLiteral("// SONAR-OFF")).isEqualTo("// SONAR-OFF");
+    assertThat(RegexpPrefilter.requiredLiteral("@SuppressWarnings\\(\"all\"\\)")).isEqualTo("@SuppressWarnings(\"all\")");
+    assertThat(RegexpPrefilter.requiredLiteral("^\\s*//\\s*NOSONAR(-BLOCK)?")).isEqualTo("NOSONAR");
+    assertThat(RegexpPrefilter.requiredLiteral("generated[0-9]+ by foo")).isEqualTo("generated");
+    assertThat(RegexpPrefilter.requiredLiteral("BEGINS?")).isEqualTo("BEGIN");
+    assertThat(RegexpPrefilter.requiredLiteral("ab+c")).isEqualTo("ab");
+  }
+
+  @Test
+  public void no_required_literal() {
+    assertThat(RegexpPrefilter.requiredLiteral("")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral(".*")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral("foo|bar")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral("(?i)foo")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral("\\Qfoo\\E")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral("\\p{Lu}")).isNull();
+    assertThat(RegexpPrefilter.requiredLiteral("[abc]\\d")).isNull();
+  }
+
+  @Test
+  public void candidates_are_patterns_whose_literal_is_in_line() {
+    RegexpPrefilter underTest = new RegexpPrefilter(Arrays.asList(
+      Pattern.compile("// SONAR-OFF"),
+      Pattern.compile("SONAR"),
+      Pattern.compile(".*"),
+      Pattern.compile("ONA[R]+")));
+
+    assertThat(underTest.candidates("foo // SONAR-OFF").stream().toArray()).containsExactly(0, 1, 2, 3);
+    assertThat(underTest.candidates("foo // SONAR-ON").stream().toArray()).containsExactly(1, 2, 3);
+    assertThat(underTest.candidates("ONA").stream().toArray()).containsExactly(2, 3);
+    assertThat(underTest.candidates("foo").stream().toArray()).containsExactly(2);
+  }
+
+  @Test
+  public void all_matching_patterns_are_candidates() {
+    String[] regexps = {"// SONAR-OFF", "a+b?c*", "x{2}y", "(foo|bar)baz", "\\.\\*end$", "^start"};
+    String[] lines = {"// SONAR-OFF", "ac", "abbc", "xxy", "xy", "barbaz", "abc", ".*end", "start.*end", "nothing"};
+    RegexpPrefilter underTest = new RegexpPrefilter(Arrays.stream(regexps).map(Pattern::compile).collect(Collectors.toList()));
+
+    for (String line : lines) {
+      for (int i = 0; i < regexps.length; i++) {
+        if (Pattern.compile(regexps[i]).matcher(line).find()) {
+          assertThat(underTest.candidates(line).get(i)).as("%s on %s", regexps[i], line).isTrue();
+        }
+      }
+    }
+  }
+}
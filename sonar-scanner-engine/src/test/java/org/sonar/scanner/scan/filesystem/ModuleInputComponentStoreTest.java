@@ -24,8 +24,11 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputModule;
+import org.sonar.api.batch.fs.internal.DefaultFilePredicates;
+import org.sonar.api.batch.fs.internal.OptimizedFilePredicate;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.scanner.sensor.SensorStrategy;
@@ -35,6 +38,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ModuleInputComponentStoreTest {
   @Rule
@@ -111,6 +115,29 @@ public class ModuleInputComponentStoreTest {
     assertThat(store.getFilesByExtension("nonexistent")).isEmpty();
   }
 
+  @Test
+  public void should_find_files_by_language_and_type_in_module_order() {
+    String otherModuleKey = "other key";
+    InputFile mainB = new TestInputFileBuilder(moduleKey, "src/B.java").setLanguage("java").build();
+    InputFile mainA = new TestInputFileBuilder(moduleKey, "src/A.java").setLanguage("java").build();
+    InputFile test = new TestInputFileBuilder(moduleKey, "test/ATest.java").setLanguage("java").setType(InputFile.Type.TEST).build();
+    InputFile js = new TestInputFileBuilder(moduleKey, "src/a.js").setLanguage("js").build();
+    InputFile otherModule = new TestInputFileBuilder(otherModuleKey, "src/A.java").setLanguage("java").build();
+    componentStore.put(mainB).put(mainA).put(test).put(js).put(otherModule);
+
+    InputModule module = mock(InputModule.class);
+    when(module.key()).thenReturn(moduleKey);
+    SensorStrategy strategy = new SensorStrategy();
+    ModuleInputComponentStore store = new ModuleInputComponentStore(module, componentStore, strategy);
+    FilePredicates predicates = new DefaultFilePredicates(temp.getRoot().toPath());
+    OptimizedFilePredicate mainJava = (OptimizedFilePredicate) predicates.and(predicates.hasLanguage("java"), predicates.hasType(InputFile.Type.MAIN));
+
+    assertThat(store.inputFiles(mainJava)).containsExactly(mainA, mainB);
+
+    strategy.setGlobal(true);
+    assertThat(store.inputFiles(mainJava)).containsExactly(mainA, mainB, otherModule);
+  }
+
   private ModuleInputComponentStore newModuleInputComponentStore() {
     return new ModuleInputComponentStore(mock(InputModule.class), componentStore, mock(SensorStrategy.class));
   }
@@ -19,6 +19,7 @@
  */
 package org.sonarqube.ws.client;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -43,6 +44,16 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * HTTP headers to be added to the request, in addition to the headers defined by the connector
+   * (media type, authentication, ...). No headers by default.
+   *
+   * @since 6.4
+   */
+  default Map<String, String> getHeaders() {
+    return Collections.emptyMap();
+  }
+
   enum Method {
     GET, POST
   }
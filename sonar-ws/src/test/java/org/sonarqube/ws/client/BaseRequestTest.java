@@ -90,6 +90,15 @@ public class BaseRequestTest {
     assertThat(underTest.getParams()).isEmpty();
   }
 
+  @Test
+  public void set_and_remove_headers() {
+    underTest.setHeader("If-None-Match", "abc").setHeader("X-Foo", "bar");
+    assertThat(underTest.getHeaders()).containsExactly(entry("If-None-Match", "abc"), entry("X-Foo", "bar"));
+
+    underTest.setHeader("X-Foo", null);
+    assertThat(underTest.getHeaders()).containsOnly(entry("If-None-Match", "abc"));
+  }
+
   @Test
   public void fail_if_null_param_key() {
     expectedException.expect(IllegalArgumentException.class);
@@ -102,6 +102,21 @@ public class HttpConnectorTest {
     assertThat(recordedRequest.getHeader("Authorization")).isEqualTo(basic("theLogin", "thePassword"));
   }
 
+  @Test
+  public void send_request_headers_and_read_response_headers() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"abc\""));
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    GetRequest request = new GetRequest("api/issues/search").setHeader("If-None-Match", "\"abc\"");
+    WsResponse response = underTest.call(request);
+
+    assertThat(response.code()).isEqualTo(304);
+    assertThat(response.header("ETag")).hasValue("\"abc\"");
+    assertThat(response.header("Unknown")).isEmpty();
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getHeader("If-None-Match")).isEqualTo("\"abc\"");
+  }
+
   @Test
   public void use_basic_authentication_with_null_password() throws Exception {
     answerHelloWorld();
@@ -22,7 +22,6 @@ package org.sonarqube.ws.client;
 import com.google.common.collect.ImmutableMap;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.Description;
@@ -54,7 +53,7 @@ public class LocalWsConnectorTest {
     WsRequest wsRequest = new PostRequest("api/issues/search")
       .setMediaType(MediaTypes.JSON)
       .setParam("foo", "bar");
-    answer(new DumbLocalResponse(400, MediaTypes.JSON, "{}".getBytes(UTF_8), Collections.<String>emptyList()));
+    answer(new DumbLocalResponse(400, MediaTypes.JSON, "{}".getBytes(UTF_8), Collections.<String, String>emptyMap()));
 
     WsResponse wsResponse = underTest.call(wsRequest);
 
@@ -71,7 +70,7 @@ public class LocalWsConnectorTest {
   public void call_request_with_defaults() throws Exception {
     // no parameters, no media type
     WsRequest wsRequest = new GetRequest("api/issues/search");
-    answer(new DumbLocalResponse(200, MediaTypes.JSON, "".getBytes(UTF_8), Collections.<String>emptyList()));
+    answer(new DumbLocalResponse(200, MediaTypes.JSON, "".getBytes(UTF_8), Collections.<String, String>emptyMap()));
 
     WsResponse wsResponse = underTest.call(wsRequest);
 
@@ -83,6 +82,16 @@ public class LocalWsConnectorTest {
     assertThat(wsResponse.contentType()).isEqualTo(MediaTypes.JSON);
   }
 
+  @Test
+  public void response_headers_are_those_of_local_response() {
+    answer(new DumbLocalResponse(200, MediaTypes.JSON, "{}".getBytes(UTF_8), ImmutableMap.of("ETag", "abc")));
+
+    WsResponse wsResponse = underTest.call(new GetRequest("api/plugins/installed"));
+
+    assertThat(wsResponse.header("ETag")).hasValue("abc");
+    assertThat(wsResponse.header("Unknown")).isEmpty();
+  }
+
   private void answer(DumbLocalResponse response) {
     when(connector.call(any(LocalConnector.LocalRequest.class))).thenReturn(response);
   }
@@ -113,9 +122,9 @@ public class LocalWsConnectorTest {
     private final int code;
     private final String mediaType;
     private final byte[] bytes;
-    private final List<String> headers;
+    private final Map<String, String> headers;
 
-    public DumbLocalResponse(int code, String mediaType, byte[] bytes, List<String> headers) {
+    public DumbLocalResponse(int code, String mediaType, byte[] bytes, Map<String, String> headers) {
       this.code = code;
       this.mediaType = mediaType;
       this.bytes = bytes;
@@ -139,12 +148,12 @@ public class LocalWsConnectorTest {
 
     @Override
     public Collection<String> getHeaderNames() {
-      return headers;
+      return headers.keySet();
     }
 
     @Override
     public String getHeader(String name) {
-      throw new UnsupportedOperationException();
+      return headers.get(name);
     }
   }
 }